@@ -0,0 +1,488 @@
+package uk.pulse.analysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.pulse.observability.LatencyHistogram;
+import uk.pulse.observability.RunJournal;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Offline analyzer for RunJournal segments
+ * Splits the indexed record blocks across a fork/join pool; each task aggregates into its
+ * own histograms and the partial results are merged on join, so a multi-gigabyte journal
+ * is summarised in one pass over the mapped files
+ */
+public class JournalAnalyzer {
+    private static final Logger logger = LoggerFactory.getLogger(JournalAnalyzer.class);
+    
+    private static final int BLOCKS_PER_TASK = 8;
+    // Upper bounds in milliseconds of the latency bands used for heatmaps
+    private static final long[] BANDS_MS = {50, 100, 200, 500, 1000, 2000, 5000, Long.MAX_VALUE};
+    
+    private JournalAnalyzer() {
+    }
+    
+    /**
+     * Aggregate every record of the requested kind (-1 for all) into time buckets of the given width
+     */
+    public static Analysis analyze(JournalReader reader, int kind, long bucketMs, int topN, ForkJoinPool pool) {
+        Options options = new Options(kind, TimeUnit.MILLISECONDS.toNanos(bucketMs), topN, reader.getDictionarySize());
+        List<JournalReader.BlockRef> blocks = reader.getBlocks();
+        long start = System.nanoTime();
+        Aggregate aggregate = pool.invoke(new AggregateTask(blocks, 0, blocks.size(), options));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        
+        logger.info("Aggregated {} records from {} blocks in {}ms ({} MB/s)", aggregate.records, blocks.size(), elapsedMs,
+            elapsedMs == 0 ? "-" : String.format(Locale.UK, "%.0f", reader.getTotalBytes() / 1048576.0 * 1000 / elapsedMs));
+        return new Analysis(reader, options, aggregate, elapsedMs);
+    }
+    
+    /**
+     * Command-line entry point
+     * Usage: JournalAnalyzer [--kind request|transaction|all] [--bucket-s 60] [--top 20] [--threads N]
+     *        [--report path] run-dir-or-segment [...]
+     */
+    public static void main(String[] args) throws IOException {
+        int kind = -1;
+        long bucketMs = 60_000;
+        int topN = 20;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path reportPath = null;
+        List<Path> inputs = new ArrayList<>();
+        
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--kind":
+                    String value = args[++i];
+                    kind = value.equals("request") ? RunJournal.KIND_REQUEST
+                        : value.equals("transaction") ? RunJournal.KIND_TRANSACTION : -1;
+                    break;
+                case "--bucket-s":
+                    bucketMs = Long.parseLong(args[++i]) * 1000;
+                    break;
+                case "--top":
+                    topN = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--report":
+                    reportPath = Paths.get(args[++i]);
+                    break;
+                default:
+                    inputs.add(Paths.get(args[i]));
+            }
+        }
+        if (inputs.isEmpty()) {
+            System.err.println("Usage: JournalAnalyzer [--kind request|transaction|all] [--bucket-s 60] [--top 20] "
+                + "[--threads N] [--report path] run-dir-or-segment [...]");
+            System.exit(2);
+        }
+        if (reportPath == null) {
+            Path first = inputs.get(0);
+            reportPath = (Files.isDirectory(first) ? first : first.toAbsolutePath().getParent()).resolve("analysis.md");
+        }
+        
+        JournalReader reader = JournalReader.open(inputs);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            Analysis analysis = analyze(reader, kind, bucketMs, topN, pool);
+            analysis.writeReport(reportPath);
+            analysis.writeHeatmapCsv(reportPath.resolveSibling("heatmap.csv"));
+            System.out.println(analysis);
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    private static int band(long durationNanos) {
+        long millis = durationNanos / 1_000_000;
+        int band = 0;
+        while (millis >= BANDS_MS[band]) {
+            band++;
+        }
+        return band;
+    }
+    
+    private static boolean isError(long status) {
+        return status == 0 || status >= 400;
+    }
+    
+    private static String percentiles(LatencyHistogram histogram) {
+        return String.format(Locale.UK, "| %d | %.1f | %.1f | %.1f | %.1f | %.1f |", histogram.getCount(),
+            histogram.getPercentile(50) / 1000.0, histogram.getPercentile(90) / 1000.0,
+            histogram.getPercentile(95) / 1000.0, histogram.getPercentile(99) / 1000.0, histogram.getMax() / 1000.0);
+    }
+    
+    /**
+     * Recursively halves the block range; leaves decode and aggregate their blocks sequentially
+     */
+    private static class AggregateTask extends RecursiveTask<Aggregate> {
+        // ForkJoinTask is Serializable, but these tasks never leave the pool
+        private static final long serialVersionUID = 1L;
+        
+        final transient List<JournalReader.BlockRef> blocks;
+        final int from;
+        final int to;
+        final transient Options options;
+        
+        AggregateTask(List<JournalReader.BlockRef> blocks, int from, int to, Options options) {
+            this.blocks = blocks;
+            this.from = from;
+            this.to = to;
+            this.options = options;
+        }
+        
+        @Override
+        protected Aggregate compute() {
+            if (to - from > BLOCKS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                AggregateTask left = new AggregateTask(blocks, from, middle, options);
+                left.fork();
+                Aggregate right = new AggregateTask(blocks, middle, to, options).compute();
+                return left.join().merge(right);
+            }
+            
+            Aggregate aggregate = new Aggregate(options);
+            JournalReader.RecordBatch batch = new JournalReader.RecordBatch();
+            for (int i = from; i < to; i++) {
+                JournalReader.decode(blocks.get(i), batch);
+                aggregate.add(batch);
+            }
+            return aggregate;
+        }
+    }
+    
+    private static class Options {
+        final int kind;
+        final long bucketNanos;
+        final int topN;
+        final int labels;
+        
+        Options(int kind, long bucketNanos, int topN, int labels) {
+            this.kind = kind;
+            this.bucketNanos = bucketNanos;
+            this.topN = topN;
+            this.labels = labels;
+        }
+    }
+    
+    /**
+     * Partial result of one task; histograms are in microseconds
+     * Rows are recorded once per (route, device, network) combination and once per time bucket;
+     * the per-dimension views are merged from the combinations when the analysis is built
+     */
+    private static class Aggregate {
+        final Options options;
+        final Map<Long, LatencyHistogram> combinations = new HashMap<>();
+        final Map<Long, Bucket> buckets = new TreeMap<>();
+        final PriorityQueue<Slowest> slowest = new PriorityQueue<>(Comparator.comparingLong(entry -> entry.durationNanos));
+        long records;
+        long errors;
+        
+        // Consecutive rows nearly always share a combination and a bucket, so skip the map lookups
+        private long lastCombination = -1;
+        private LatencyHistogram lastHistogram;
+        private long lastBucket = -1;
+        private Bucket lastBucketStats;
+        
+        Aggregate(Options options) {
+            this.options = options;
+        }
+        
+        void add(JournalReader.RecordBatch batch) {
+            long[] starts = batch.column(RunJournal.START);
+            long[] durations = batch.column(RunJournal.DURATION);
+            long[] kinds = batch.column(RunJournal.KIND);
+            long[] routes = batch.column(RunJournal.ROUTE);
+            long[] devices = batch.column(RunJournal.DEVICE);
+            long[] networks = batch.column(RunJournal.NETWORK);
+            long[] statuses = batch.column(RunJournal.STATUS);
+            long[] delays = batch.column(RunJournal.DELAY);
+            
+            for (int row = 0; row < batch.size(); row++) {
+                if (options.kind >= 0 && kinds[row] != options.kind) {
+                    continue;
+                }
+                long micros = durations[row] / 1000;
+                boolean error = isError(statuses[row]);
+                records++;
+                
+                long combination = (routes[row] * options.labels + devices[row]) * options.labels + networks[row];
+                if (combination != lastCombination) {
+                    lastCombination = combination;
+                    lastHistogram = combinations.computeIfAbsent(combination, key -> new LatencyHistogram());
+                }
+                lastHistogram.record(micros);
+                
+                long key = starts[row] / options.bucketNanos;
+                if (key != lastBucket) {
+                    lastBucket = key;
+                    lastBucketStats = buckets.computeIfAbsent(key, index -> new Bucket());
+                }
+                Bucket bucket = lastBucketStats;
+                bucket.latency.record(micros);
+                bucket.bands[band(durations[row])]++;
+                bucket.injectedMicros += delays[row];
+                if (error) {
+                    errors++;
+                    bucket.errors++;
+                }
+                
+                if (slowest.size() < options.topN || durations[row] > slowest.peek().durationNanos) {
+                    slowest.add(new Slowest(batch, row));
+                    if (slowest.size() > options.topN) {
+                        slowest.poll();
+                    }
+                }
+            }
+        }
+        
+        Aggregate merge(Aggregate other) {
+            other.combinations.forEach((key, histogram) -> combinations.merge(key, histogram, (mine, theirs) -> {
+                mine.merge(theirs);
+                return mine;
+            }));
+            lastCombination = -1;
+            lastBucket = -1;
+            other.buckets.forEach((key, bucket) -> buckets.merge(key, bucket, Bucket::merge));
+            for (Slowest entry : other.slowest) {
+                slowest.add(entry);
+                if (slowest.size() > options.topN) {
+                    slowest.poll();
+                }
+            }
+            records += other.records;
+            errors += other.errors;
+            return this;
+        }
+    }
+    
+    private static class Bucket {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final long[] bands = new long[BANDS_MS.length];
+        long errors;
+        long injectedMicros;
+        
+        Bucket merge(Bucket other) {
+            latency.merge(other.latency);
+            for (int i = 0; i < bands.length; i++) {
+                bands[i] += other.bands[i];
+            }
+            errors += other.errors;
+            injectedMicros += other.injectedMicros;
+            return this;
+        }
+    }
+    
+    private static class Slowest {
+        final long startNanos;
+        final long durationNanos;
+        final long route;
+        final long device;
+        final long network;
+        final long delayMicros;
+        final long status;
+        final long vu;
+        
+        Slowest(JournalReader.RecordBatch batch, int row) {
+            this.startNanos = batch.get(RunJournal.START, row);
+            this.durationNanos = batch.get(RunJournal.DURATION, row);
+            this.route = batch.get(RunJournal.ROUTE, row);
+            this.device = batch.get(RunJournal.DEVICE, row);
+            this.network = batch.get(RunJournal.NETWORK, row);
+            this.delayMicros = batch.get(RunJournal.DELAY, row);
+            this.status = batch.get(RunJournal.STATUS, row);
+            this.vu = batch.get(RunJournal.VU, row);
+        }
+    }
+    
+    /**
+     * Merged result with Markdown and CSV export
+     */
+    public static class Analysis {
+        final JournalReader reader;
+        final Options options;
+        final Aggregate aggregate;
+        final long elapsedMs;
+        final LatencyHistogram overall = new LatencyHistogram();
+        final Map<String, LatencyHistogram> byRoute = new TreeMap<>();
+        final Map<String, LatencyHistogram> byDevice = new TreeMap<>();
+        final Map<String, LatencyHistogram> byNetwork = new TreeMap<>();
+        
+        Analysis(JournalReader reader, Options options, Aggregate aggregate, long elapsedMs) {
+            this.reader = reader;
+            this.options = options;
+            this.aggregate = aggregate;
+            this.elapsedMs = elapsedMs;
+            
+            long labels = options.labels;
+            aggregate.combinations.forEach((combination, histogram) -> {
+                overall.merge(histogram);
+                merge(byRoute, reader.label(combination / labels / labels), histogram);
+                merge(byDevice, reader.label(combination / labels % labels), histogram);
+                merge(byNetwork, reader.label(combination % labels), histogram);
+            });
+        }
+        
+        private static void merge(Map<String, LatencyHistogram> target, String label, LatencyHistogram histogram) {
+            target.computeIfAbsent(label, key -> new LatencyHistogram()).merge(histogram);
+        }
+        
+        public long getRecords() {
+            return aggregate.records;
+        }
+        
+        public long getErrors() {
+            return aggregate.errors;
+        }
+        
+        /**
+         * Overall latency histogram in microseconds
+         */
+        public LatencyHistogram getOverall() {
+            return overall;
+        }
+        
+        /**
+         * Latency histograms in microseconds keyed by route (or VU engine) label
+         */
+        public Map<String, LatencyHistogram> getByRoute() {
+            return Collections.unmodifiableMap(byRoute);
+        }
+        
+        public Map<String, LatencyHistogram> getByDevice() {
+            return Collections.unmodifiableMap(byDevice);
+        }
+        
+        public Map<String, LatencyHistogram> getByNetwork() {
+            return Collections.unmodifiableMap(byNetwork);
+        }
+        
+        /**
+         * Write percentiles by route, device, network and time, the error timeline, the latency
+         * heatmap and the slowest records as Markdown
+         */
+        public void writeReport(Path path) {
+            try {
+                if (path.getParent() != null) {
+                    Files.createDirectories(path.getParent());
+                }
+                try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+                    out.printf(Locale.UK, "# Run journal analysis%n%n%d records, %d errors (%.2f%%), scanned in %dms%n%n",
+                        aggregate.records, aggregate.errors,
+                        aggregate.records == 0 ? 0.0 : aggregate.errors * 100.0 / aggregate.records, elapsedMs);
+                    writeTable(out, "Route", getByRoute());
+                    writeTable(out, "Device", getByDevice());
+                    writeTable(out, "Network", getByNetwork());
+                    
+                    out.printf("## Over time (%ds buckets)%n%n", options.bucketNanos / 1_000_000_000);
+                    out.printf("| Bucket start (UTC) | Count | p50 ms | p90 ms | p95 ms | p99 ms | Max ms | Errors | Error %% | Injected s |%n");
+                    out.printf("|---|---|---|---|---|---|---|---|---|---|%n");
+                    aggregate.buckets.forEach((key, bucket) -> out.printf(Locale.UK, "| %s %s %d | %.2f | %.1f |%n",
+                        bucketStart(key), percentiles(bucket.latency), bucket.errors,
+                        bucket.errors * 100.0 / bucket.latency.getCount(), bucket.injectedMicros / 1e6));
+                        
+                    out.printf("%n## Latency heatmap (records per band)%n%n| Bucket start (UTC) |");
+                    for (long band : BANDS_MS) {
+                        out.print(band == Long.MAX_VALUE ? " >=" + BANDS_MS[BANDS_MS.length - 2] + " ms |" : " <" + band + " ms |");
+                    }
+                    out.printf("%n|---|%s%n", "---|".repeat(BANDS_MS.length));
+                    aggregate.buckets.forEach((key, bucket) -> {
+                        out.print("| " + bucketStart(key) + " |");
+                        for (long count : bucket.bands) {
+                            out.print(" " + count + " |");
+                        }
+                        out.println();
+                    });
+                    
+                    out.printf("%n## Top %d slowest%n%n", options.topN);
+                    out.printf("| Start (UTC) | Duration ms | Route | Device | Network | Injected ms | Status | VU |%n");
+                    out.printf("|---|---|---|---|---|---|---|---|%n");
+                    for (Slowest entry : slowestFirst()) {
+                        out.printf(Locale.UK, "| %s | %.1f | %s | %s | %s | %.1f | %d | %d |%n",
+                            instant(entry.startNanos), entry.durationNanos / 1e6, reader.label(entry.route),
+                            reader.label(entry.device), reader.label(entry.network), entry.delayMicros / 1e3,
+                            entry.status, entry.vu);
+                    }
+                }
+                logger.info("Journal analysis written to {}", path);
+            } catch (IOException e) {
+                logger.error("Failed to write journal analysis: {}", e.getMessage());
+            }
+        }
+        
+        /**
+         * Heatmap as CSV (one row per time bucket, one column per latency band) for plotting
+         */
+        public void writeHeatmapCsv(Path path) {
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+                out.print("bucket_start");
+                for (long band : BANDS_MS) {
+                    out.print(band == Long.MAX_VALUE ? ",inf" : ",lt_" + band + "ms");
+                }
+                out.println(",errors");
+                aggregate.buckets.forEach((key, bucket) -> {
+                    out.print(bucketStart(key));
+                    for (long count : bucket.bands) {
+                        out.print("," + count);
+                    }
+                    out.println("," + bucket.errors);
+                });
+            } catch (IOException e) {
+                logger.error("Failed to write latency heatmap: {}", e.getMessage());
+            }
+        }
+        
+        private void writeTable(PrintWriter out, String title, Map<String, LatencyHistogram> histograms) {
+            out.printf("## By %s%n%n| %s | Count | p50 ms | p90 ms | p95 ms | p99 ms | Max ms |%n", title.toLowerCase(), title);
+            out.printf("|---|---|---|---|---|---|---|%n");
+            histograms.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, LatencyHistogram> entry) ->
+                    entry.getValue().getPercentile(99)).reversed())
+                .forEach(entry -> out.printf("| %s %s%n", entry.getKey().replace("|", "\\|"), percentiles(entry.getValue())));
+            out.println();
+        }
+        
+        private List<Slowest> slowestFirst() {
+            List<Slowest> entries = new ArrayList<>(aggregate.slowest);
+            entries.sort(Comparator.comparingLong((Slowest entry) -> entry.durationNanos).reversed());
+            return entries;
+        }
+        
+        private String bucketStart(long bucket) {
+            return instant(bucket * options.bucketNanos);
+        }
+        
+        private static String instant(long epochNanos) {
+            return Instant.ofEpochSecond(0, epochNanos).toString();
+        }
+        
+        @Override
+        public String toString() {
+            return String.format(Locale.UK,
+                "%d records (%d errors) in %dms: p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms across %d routes",
+                aggregate.records, aggregate.errors, elapsedMs, overall.getPercentile(50) / 1000.0,
+                overall.getPercentile(95) / 1000.0, overall.getPercentile(99) / 1000.0, overall.getMax() / 1000.0,
+                getByRoute().size());
+        }
+    }
+}
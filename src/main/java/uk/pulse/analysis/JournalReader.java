@@ -0,0 +1,235 @@
+package uk.pulse.analysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.pulse.observability.RunJournal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Read-only view of RunJournal segments
+ * Maps every segment, indexes its record blocks and collects the label dictionary;
+ * blocks are decoded on demand into caller-owned column arrays so scans can run in
+ * parallel without sharing state
+ */
+public class JournalReader {
+    private static final Logger logger = LoggerFactory.getLogger(JournalReader.class);
+    
+    private final List<BlockRef> blocks;
+    private final String[] dictionary;
+    private final long totalBytes;
+    
+    private JournalReader(List<BlockRef> blocks, String[] dictionary, long totalBytes) {
+        this.blocks = blocks;
+        this.dictionary = dictionary;
+        this.totalBytes = totalBytes;
+    }
+    
+    /**
+     * Open run directories and/or individual segment files; segments are indexed in parallel
+     */
+    public static JournalReader open(List<Path> paths) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        for (Path path : paths) {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.walk(path)) {
+                    segments.addAll(files.filter(file -> file.getFileName().toString().endsWith(".pjl"))
+                        .sorted().collect(Collectors.toList()));
+                }
+            } else {
+                segments.add(path);
+            }
+        }
+        if (segments.isEmpty()) {
+            throw new IllegalArgumentException("No journal segments found in " + paths);
+        }
+        
+        List<SegmentIndex> indexes;
+        try {
+            indexes = segments.parallelStream().map(JournalReader::index).collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        
+        List<BlockRef> blocks = new ArrayList<>();
+        Map<Integer, String> labels = new TreeMap<>();
+        long totalBytes = 0;
+        for (SegmentIndex index : indexes) {
+            blocks.addAll(index.blocks);
+            labels.putAll(index.labels);
+            totalBytes += index.size;
+        }
+        
+        int size = labels.isEmpty() ? 0 : Collections.max(labels.keySet()) + 1;
+        String[] dictionary = new String[size];
+        labels.forEach((id, label) -> dictionary[id] = label);
+        
+        logger.info("Indexed {} record blocks and {} labels across {} segments ({} MB)",
+            blocks.size(), size, segments.size(), totalBytes / (1024 * 1024));
+        return new JournalReader(blocks, dictionary, totalBytes);
+    }
+    
+    public List<BlockRef> getBlocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+    
+    /**
+     * Number of interned labels; ids run from 0 to this size
+     */
+    public int getDictionarySize() {
+        return dictionary.length;
+    }
+    
+    public String label(long id) {
+        return id >= 0 && id < dictionary.length && dictionary[(int) id] != null ? dictionary[(int) id] : "#" + id;
+    }
+    
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+    
+    /**
+     * Decode a record block into the batch, replacing its previous contents
+     */
+    public static void decode(BlockRef block, RecordBatch batch) {
+        MappedByteBuffer mapped = block.mapped;
+        int[] position = {block.offset};
+        int count = (int) readVarint(mapped, position);
+        if (batch.columns[0].length < count) {
+            batch.columns = new long[RunJournal.COLUMNS][count];
+        }
+        
+        long previous = 0;
+        long[] starts = batch.columns[RunJournal.START];
+        for (int row = 0; row < count; row++) {
+            previous += unzigzag(readVarint(mapped, position));
+            starts[row] = previous;
+        }
+        for (int column = RunJournal.DURATION; column < RunJournal.COLUMNS; column++) {
+            long[] values = batch.columns[column];
+            for (int row = 0; row < count; row++) {
+                long value = readVarint(mapped, position);
+                values[row] = column == RunJournal.BYTES ? unzigzag(value) : value;
+            }
+        }
+        batch.size = count;
+    }
+    
+    private static SegmentIndex index(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Journal segment exceeds 2GB mapping limit: " + path);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size < RunJournal.HEADER_SIZE || mapped.getLong(0) != RunJournal.SEGMENT_MAGIC) {
+                throw new IllegalStateException("Not a Pulse journal segment: " + path);
+            }
+            if (mapped.getInt(Long.BYTES) != RunJournal.FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported journal version " + mapped.getInt(Long.BYTES) + ": " + path);
+            }
+            
+            SegmentIndex index = new SegmentIndex(size);
+            int position = RunJournal.HEADER_SIZE;
+            // Blocks are skipped by length; only dictionary entries are decoded here
+            while (position + Integer.BYTES + 1 <= size) {
+                int length = mapped.getInt(position);
+                if (length <= 0 || position + Integer.BYTES + 1L + length > size) {
+                    break;
+                }
+                byte type = mapped.get(position + Integer.BYTES);
+                int payload = position + Integer.BYTES + 1;
+                if (type == RunJournal.RECORD_BLOCK) {
+                    index.blocks.add(new BlockRef(mapped, payload));
+                } else if (type == RunJournal.DICTIONARY_BLOCK) {
+                    int[] cursor = {payload};
+                    int id = (int) readVarint(mapped, cursor);
+                    byte[] utf8 = new byte[(int) readVarint(mapped, cursor)];
+                    mapped.get(cursor[0], utf8);
+                    index.labels.put(id, new String(utf8, StandardCharsets.UTF_8));
+                }
+                position = payload + length;
+            }
+            return index;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static long readVarint(MappedByteBuffer mapped, int[] position) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = mapped.get(position[0]++);
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+    
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    /**
+     * Location of one record block in a mapped segment
+     */
+    public static class BlockRef {
+        final MappedByteBuffer mapped;
+        final int offset;
+        
+        BlockRef(MappedByteBuffer mapped, int offset) {
+            this.mapped = mapped;
+            this.offset = offset;
+        }
+    }
+    
+    /**
+     * Reusable columnar buffer for one decoded block, indexed by the RunJournal column constants
+     */
+    public static class RecordBatch {
+        long[][] columns = new long[RunJournal.COLUMNS][4096];
+        int size;
+        
+        public int size() {
+            return size;
+        }
+        
+        public long get(int column, int row) {
+            return columns[column][row];
+        }
+        
+        /**
+         * Whole column, valid for rows below size()
+         */
+        public long[] column(int column) {
+            return columns[column];
+        }
+    }
+    
+    private static class SegmentIndex {
+        final long size;
+        final List<BlockRef> blocks = new ArrayList<>();
+        final Map<Integer, String> labels = new TreeMap<>();
+        
+        SegmentIndex(long size) {
+            this.size = size;
+        }
+    }
+}
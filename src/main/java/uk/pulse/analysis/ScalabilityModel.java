@@ -0,0 +1,371 @@
+package uk.pulse.analysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.pulse.load.CapacitySearch;
+import uk.pulse.observability.MetricsRegistry;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Scalability Model fitting the Universal Scalability Law to run results
+ * X(N) = lambda * N / (1 + sigma * (N - 1) + kappa * N * (N - 1)), where sigma is
+ * contention and kappa coherency; latency is cross-checked with Little's law
+ * N = X * (R + Z) for think time Z
+ */
+public class ScalabilityModel {
+    private static final Logger logger = LoggerFactory.getLogger(ScalabilityModel.class);
+    
+    private static final int GRID_STEPS = 60;
+    private static final int REFINEMENTS = 40;
+    
+    private ScalabilityModel() {
+    }
+    
+    /**
+     * Fit USL coefficients to the observations by least squares on throughput
+     */
+    public static UslFit fit(String name, List<Observation> observations, double thinkTimeMs) {
+        if (observations.size() < 3) {
+            throw new IllegalArgumentException("USL fitting needs at least 3 load levels, got " + observations.size());
+        }
+        
+        // Coarse grid: sigma linear in [0, 1], kappa logarithmic in [1e-8, 1e-1] plus zero
+        double bestSigma = 0;
+        double bestKappa = 0;
+        double bestError = Double.MAX_VALUE;
+        for (int i = 0; i <= GRID_STEPS; i++) {
+            double sigma = (double) i / GRID_STEPS;
+            for (int j = -1; j <= GRID_STEPS; j++) {
+                double kappa = j < 0 ? 0.0 : Math.pow(10, -8 + 7.0 * j / GRID_STEPS);
+                double error = squaredError(observations, sigma, kappa);
+                if (error < bestError) {
+                    bestError = error;
+                    bestSigma = sigma;
+                    bestKappa = kappa;
+                }
+            }
+        }
+        
+        // Pattern search around the best grid point, halving the step each time nothing improves
+        double sigmaStep = 1.0 / GRID_STEPS;
+        double kappaStep = Math.max(bestKappa, 1e-8);
+        for (int round = 0; round < REFINEMENTS; round++) {
+            boolean improved = false;
+            for (double[] move : new double[][] {{1, 0}, {-1, 0}, {0, 1}, {0, -1}}) {
+                double sigma = clamp(bestSigma + move[0] * sigmaStep, 0, 1);
+                double kappa = Math.max(0, bestKappa + move[1] * kappaStep);
+                double error = squaredError(observations, sigma, kappa);
+                if (error < bestError) {
+                    bestError = error;
+                    bestSigma = sigma;
+                    bestKappa = kappa;
+                    improved = true;
+                }
+            }
+            if (!improved) {
+                sigmaStep /= 2;
+                kappaStep /= 2;
+            }
+        }
+        
+        double lambda = bestLambda(observations, bestSigma, bestKappa);
+        return new UslFit(name, lambda, bestSigma, bestKappa, rSquared(observations, bestError),
+            thinkTimeMs, observations);
+    }
+    
+    /**
+     * Observations from a capacity search; open-model levels use Little's law for concurrency
+     */
+    public static List<Observation> fromReport(CapacitySearch.Report report, double thinkTimeMs) {
+        List<Observation> observations = new ArrayList<>();
+        for (CapacitySearch.LevelResult level : report.getLevels()) {
+            double concurrency = report.getDimension() == CapacitySearch.Dimension.USERS
+                ? level.getLevel()
+                : level.getThroughput() * (level.getMeanMs() + thinkTimeMs) / 1000.0;
+            if (level.getThroughput() > 0) {
+                observations.add(new Observation(concurrency, level.getThroughput(), level.getMeanMs()));
+            }
+        }
+        return observations;
+    }
+    
+    /**
+     * Observations from a closed-model capacity CSV written by CapacitySearch
+     * Open-model (ARRIVAL_RATE) runs are rejected: their level is a rate, not a concurrency,
+     * and converting it needs the measured latency and think time, as fromReport does
+     */
+    public static List<Observation> readCsv(Path path) throws IOException {
+        List<Observation> observations = new ArrayList<>();
+        List<String> lines = Files.readAllLines(path);
+        int dimensionColumn = lines.isEmpty() ? -1 : Arrays.asList(lines.get(0).split(",")).indexOf("dimension");
+        if (dimensionColumn < 0) {
+            logger.warn("{} has no dimension column; assuming its levels are concurrent users", path);
+        }
+        for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+            String[] columns = line.split(",");
+            if (dimensionColumn >= 0 && columns.length > dimensionColumn
+                && !columns[dimensionColumn].equals(CapacitySearch.Dimension.USERS.name())) {
+                throw new IllegalArgumentException(path + " is a " + columns[dimensionColumn]
+                    + " capacity run; USL fitting from CSV needs a closed-model (USERS) run");
+            }
+            if (columns.length >= 3 && Double.parseDouble(columns[1]) > 0) {
+                observations.add(new Observation(Double.parseDouble(columns[0]),
+                    Double.parseDouble(columns[1]), Double.parseDouble(columns[2])));
+            }
+        }
+        return observations;
+    }
+    
+    /**
+     * Command-line entry point: fit one or more capacity CSVs and predict at the given concurrencies
+     * Usage: ScalabilityModel [--think-ms 1000] [--predict 20000,50000] [--report path] run1.csv [run2.csv ...]
+     */
+    public static void main(String[] args) throws IOException {
+        double thinkTimeMs = 0;
+        List<Integer> predictions = new ArrayList<>();
+        Path reportPath = Paths.get("target/capacity/usl-report.md");
+        List<Observation> observations = new ArrayList<>();
+        
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--think-ms":
+                    thinkTimeMs = Double.parseDouble(args[++i]);
+                    break;
+                case "--predict":
+                    for (String value : args[++i].split(",")) {
+                        predictions.add(Integer.parseInt(value.trim()));
+                    }
+                    break;
+                case "--report":
+                    reportPath = Paths.get(args[++i]);
+                    break;
+                default:
+                    observations.addAll(readCsv(Paths.get(args[i])));
+            }
+        }
+        
+        UslFit fit = fit("offline", observations, thinkTimeMs);
+        fit.writeReport(reportPath, predictions);
+        System.out.println(fit);
+        for (int concurrency : predictions) {
+            System.out.printf(Locale.UK, "N=%d: %.1f/s, R=%.0fms%n",
+                concurrency, fit.predictThroughput(concurrency), fit.predictLatencyMs(concurrency));
+        }
+    }
+    
+    private static double usl(double n, double sigma, double kappa) {
+        return n / (1 + sigma * (n - 1) + kappa * n * (n - 1));
+    }
+    
+    /**
+     * For fixed sigma and kappa, throughput is linear in lambda, so the best lambda is closed-form
+     */
+    private static double bestLambda(List<Observation> observations, double sigma, double kappa) {
+        double numerator = 0;
+        double denominator = 0;
+        for (Observation observation : observations) {
+            double shape = usl(observation.concurrency, sigma, kappa);
+            numerator += observation.throughput * shape;
+            denominator += shape * shape;
+        }
+        return denominator == 0 ? 0 : numerator / denominator;
+    }
+    
+    private static double squaredError(List<Observation> observations, double sigma, double kappa) {
+        double lambda = bestLambda(observations, sigma, kappa);
+        double error = 0;
+        for (Observation observation : observations) {
+            double residual = observation.throughput - lambda * usl(observation.concurrency, sigma, kappa);
+            error += residual * residual;
+        }
+        return error;
+    }
+    
+    private static double rSquared(List<Observation> observations, double squaredError) {
+        double mean = observations.stream().mapToDouble(observation -> observation.throughput).average().orElse(0);
+        double total = 0;
+        for (Observation observation : observations) {
+            total += (observation.throughput - mean) * (observation.throughput - mean);
+        }
+        return total == 0 ? 1.0 : 1.0 - squaredError / total;
+    }
+    
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+    
+    /**
+     * Throughput and mean latency measured at one concurrency
+     */
+    public static class Observation {
+        final double concurrency;
+        final double throughput;
+        final double meanLatencyMs;
+        
+        public Observation(double concurrency, double throughput, double meanLatencyMs) {
+            this.concurrency = concurrency;
+            this.throughput = throughput;
+            this.meanLatencyMs = meanLatencyMs;
+        }
+    }
+    
+    /**
+     * Fitted USL coefficients with prediction and Little's law cross-check
+     */
+    public static class UslFit {
+        final String name;
+        final double lambda;
+        final double sigma;
+        final double kappa;
+        final double rSquared;
+        final double thinkTimeMs;
+        final List<Observation> observations;
+        
+        UslFit(String name, double lambda, double sigma, double kappa, double rSquared,
+               double thinkTimeMs, List<Observation> observations) {
+            this.name = name;
+            this.lambda = lambda;
+            this.sigma = sigma;
+            this.kappa = kappa;
+            this.rSquared = rSquared;
+            this.thinkTimeMs = thinkTimeMs;
+            this.observations = observations;
+        }
+        
+        /**
+         * Single-user throughput (iterations per second)
+         */
+        public double getLambda() {
+            return lambda;
+        }
+        
+        /**
+         * Contention coefficient: share of work that serialises
+         */
+        public double getSigma() {
+            return sigma;
+        }
+        
+        /**
+         * Coherency coefficient: cost of keeping shared state consistent
+         */
+        public double getKappa() {
+            return kappa;
+        }
+        
+        public double getRSquared() {
+            return rSquared;
+        }
+        
+        public double predictThroughput(double concurrency) {
+            return lambda * usl(concurrency, sigma, kappa);
+        }
+        
+        /**
+         * Response time implied by Little's law at the predicted throughput: R = N / X - Z
+         */
+        public double predictLatencyMs(double concurrency) {
+            double throughput = predictThroughput(concurrency);
+            return throughput <= 0 ? Double.POSITIVE_INFINITY : concurrency * 1000.0 / throughput - thinkTimeMs;
+        }
+        
+        /**
+         * Concurrency at which throughput peaks (infinite when there is no coherency penalty)
+         */
+        public double getPeakConcurrency() {
+            return kappa <= 0 ? Double.POSITIVE_INFINITY : Math.sqrt((1 - sigma) / kappa);
+        }
+        
+        /**
+         * Largest relative gap between measured mean latency and N / X - Z across the observations
+         * A large gap means the load generator, not the system, limited concurrency (or Z is wrong)
+         */
+        public double getLittlesLawDeviation() {
+            double worst = 0;
+            for (Observation observation : observations) {
+                if (observation.meanLatencyMs <= 0) {
+                    continue;
+                }
+                double implied = observation.concurrency * 1000.0 / observation.throughput - thinkTimeMs;
+                worst = Math.max(worst, Math.abs(implied - observation.meanLatencyMs) / observation.meanLatencyMs);
+            }
+            return worst;
+        }
+        
+        public List<Observation> getObservations() {
+            return Collections.unmodifiableList(observations);
+        }
+        
+        /**
+         * Export coefficients and predictions as gauges
+         */
+        public void publish(List<Integer> predictAt) {
+            String prefix = "usl." + name;
+            MetricsRegistry.gauge(prefix + ".lambda", lambda);
+            MetricsRegistry.gauge(prefix + ".sigma", sigma);
+            MetricsRegistry.gauge(prefix + ".kappa", kappa);
+            MetricsRegistry.gauge(prefix + ".r_squared", rSquared);
+            MetricsRegistry.gauge(prefix + ".peak_concurrency", getPeakConcurrency());
+            MetricsRegistry.gauge(prefix + ".littles_law_deviation", getLittlesLawDeviation());
+            for (int concurrency : predictAt) {
+                MetricsRegistry.gauge(prefix + ".predicted_throughput." + concurrency, predictThroughput(concurrency));
+                MetricsRegistry.gauge(prefix + ".predicted_latency_ms." + concurrency, predictLatencyMs(concurrency));
+            }
+        }
+        
+        /**
+         * Write a Markdown report with coefficients, fit quality, the Little's law check and predictions
+         */
+        public void writeReport(Path path, List<Integer> predictAt) {
+            try {
+                if (path.getParent() != null) {
+                    Files.createDirectories(path.getParent());
+                }
+                try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+                    out.printf("# Scalability model: %s%n%n", name);
+                    out.printf(Locale.UK, "| lambda | sigma | kappa | R^2 | peak N |%n|---|---|---|---|---|%n");
+                    out.printf(Locale.UK, "| %.3f/s | %.5f | %.3e | %.4f | %.0f |%n%n",
+                        lambda, sigma, kappa, rSquared, getPeakConcurrency());
+                    
+                    out.printf("## Observations vs model%n%n");
+                    out.printf("| N | measured X/s | model X/s | measured R ms | Little's law R ms |%n|---|---|---|---|---|%n");
+                    for (Observation observation : observations) {
+                        out.printf(Locale.UK, "| %.0f | %.1f | %.1f | %.0f | %.0f |%n",
+                            observation.concurrency, observation.throughput, predictThroughput(observation.concurrency),
+                            observation.meanLatencyMs,
+                            observation.concurrency * 1000.0 / observation.throughput - thinkTimeMs);
+                    }
+                    out.printf(Locale.UK, "%nWorst Little's law deviation: %.1f%%%n", getLittlesLawDeviation() * 100);
+                    
+                    if (!predictAt.isEmpty()) {
+                        out.printf("%n## Predictions%n%n| N | X/s | R ms |%n|---|---|---|%n");
+                        for (int concurrency : predictAt) {
+                            out.printf(Locale.UK, "| %d | %.1f | %.0f |%n",
+                                concurrency, predictThroughput(concurrency), predictLatencyMs(concurrency));
+                        }
+                    }
+                }
+                logger.info("Scalability report written to {}", path);
+            } catch (IOException e) {
+                logger.error("Failed to write scalability report: {}", e.getMessage());
+            }
+        }
+        
+        @Override
+        public String toString() {
+            return String.format(Locale.UK,
+                "USL fit for %s: lambda=%.3f/s, sigma=%.5f, kappa=%.3e, R^2=%.4f, peak at N=%.0f",
+                name, lambda, sigma, kappa, rSquared, getPeakConcurrency());
+        }
+    }
+}
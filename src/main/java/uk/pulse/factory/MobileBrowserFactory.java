@@ -3,6 +3,9 @@ package uk.pulse.factory;
 import com.microsoft.playwright.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.pulse.interceptors.IntermittentConnectivitySimulator;
+import uk.pulse.observability.RunJournal;
+import uk.pulse.observability.WebVitalsCollector;
 
 /**
  * Mobile Browser Factory for Android and iOS Testing
@@ -17,7 +20,7 @@ public class MobileBrowserFactory {
     public static BrowserContext createAndroidContext(Browser browser) {
         logger.info("Creating Android mobile browser context");
         
-        return browser.newContext(new Browser.NewContextOptions()
+        BrowserContext context = browser.newContext(new Browser.NewContextOptions()
             .setViewportSize(360, 640)  // Typical Android viewport
             .setDeviceScaleFactor(2.625)
             .setUserAgent("Mozilla/5.0 (Linux; Android 12; SM-G991B) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/108.0.0.0 Mobile Safari/537.36")
@@ -27,6 +30,9 @@ public class MobileBrowserFactory {
             .setIsMobile(true)
             .setIgnoreHTTPSErrors(true)
             .setJavaScriptEnabled(true));
+        WebVitalsCollector.install(context, "android", "unshaped");
+        RunJournal.attach(context, "android", "unshaped");
+        return context;
     }
     
     /**
@@ -35,7 +41,7 @@ public class MobileBrowserFactory {
     public static BrowserContext createIOSContext(Browser browser) {
         logger.info("Creating iOS mobile browser context");
         
-        return browser.newContext(new Browser.NewContextOptions()
+        BrowserContext context = browser.newContext(new Browser.NewContextOptions()
             .setViewportSize(390, 844)  // iPhone 13 viewport
             .setDeviceScaleFactor(3.0)
             .setUserAgent("Mozilla/5.0 (iPhone; CPU iPhone OS 15_0 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/15.0 Mobile/15E148 Safari/604.1")
@@ -45,6 +51,9 @@ public class MobileBrowserFactory {
             .setIsMobile(true)
             .setIgnoreHTTPSErrors(true)
             .setJavaScriptEnabled(true));
+        WebVitalsCollector.install(context, "ios", "unshaped");
+        RunJournal.attach(context, "ios", "unshaped");
+        return context;
     }
     
     /**
@@ -53,7 +62,7 @@ public class MobileBrowserFactory {
     public static BrowserContext createTabletContext(Browser browser) {
         logger.info("Creating iPad tablet browser context");
         
-        return browser.newContext(new Browser.NewContextOptions()
+        BrowserContext context = browser.newContext(new Browser.NewContextOptions()
             .setViewportSize(768, 1024)  // iPad viewport
             .setDeviceScaleFactor(2.0)
             .setUserAgent("Mozilla/5.0 (iPad; CPU OS 15_0 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/15.0 Mobile/15E148 Safari/604.1")
@@ -63,6 +72,9 @@ public class MobileBrowserFactory {
             .setIsMobile(true)
             .setIgnoreHTTPSErrors(true)
             .setJavaScriptEnabled(true));
+        WebVitalsCollector.install(context, "tablet", "unshaped");
+        RunJournal.attach(context, "tablet", "unshaped");
+        return context;
     }
     
     /**
@@ -88,6 +100,8 @@ public class MobileBrowserFactory {
         // Apply network conditions if specified
         if (condition != null) {
             applyNetworkConditions(context, condition);
+            WebVitalsCollector.setNetwork(context, condition.name());
+            RunJournal.setNetwork(context, condition.name());
         }
         
         return context;
@@ -109,6 +123,7 @@ public class MobileBrowserFactory {
                 break;
             case UNDERGROUND:
                 logger.info("Applying London Underground network conditions");
+                IntermittentConnectivitySimulator.simulateUnderground(context);
                 break;
             default:
                 logger.info("Using default network conditions");
@@ -1,13 +1,18 @@
 package uk.pulse.factory;
 
 import com.microsoft.playwright.*;
-import com.microsoft.playwright.options.Geolocation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.pulse.interceptors.NetworkShaper;
+import uk.pulse.observability.MetricsRegistry;
+import uk.pulse.observability.RunJournal;
+import uk.pulse.observability.WebVitalsCollector;
 
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
+import java.util.WeakHashMap;
 
 /**
  * Real App Browser Factory for Play Store and App Store Applications
@@ -19,27 +24,45 @@ public class RealAppBrowserFactory {
     // Real device profiles for Play Store apps
     private static final Map<String, DeviceProfile> REAL_DEVICES = new HashMap<>();
     
+    // Regional distribution of virtual users (-Dpulse.region pins every user to one region)
+    private static final UkRegion PINNED_REGION = System.getProperty("pulse.region") == null
+        ? null : UkRegion.parse(System.getProperty("pulse.region"));
+    private static final Random REGION_RANDOM = new Random(Long.getLong("pulse.region.seed", System.nanoTime()));
+    private static final Map<BrowserContext, UkRegion> CONTEXT_REGIONS = new WeakHashMap<>();
+    
     static {
         // Popular Android devices from Play Store
         REAL_DEVICES.put("samsung_s23", new DeviceProfile(
             "Samsung Galaxy S23",
             360, 780, 3.0,
             "Mozilla/5.0 (Linux; Android 13; SM-S911B) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/108.0.0.0 Mobile Safari/537.36",
-            "android"
+            "android",
+            new MemoryBudget(160, 3000, 2000, 600)
         ));
         
         REAL_DEVICES.put("pixel_7", new DeviceProfile(
             "Google Pixel 7",
             412, 915, 2.625,
             "Mozilla/5.0 (Linux; Android 13; Pixel 7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/108.0.0.0 Mobile Safari/537.36",
-            "android"
+            "android",
+            new MemoryBudget(160, 3000, 2000, 600)
         ));
         
         REAL_DEVICES.put("oneplus_11", new DeviceProfile(
             "OnePlus 11",
             393, 851, 2.75,
             "Mozilla/5.0 (Linux; Android 13; CPH2513) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/108.0.0.0 Mobile Safari/537.36",
-            "android"
+            "android",
+            new MemoryBudget(160, 3000, 2000, 600)
+        ));
+        
+        // Budget Android handset: small heap, slow GC, first to crash under payday load
+        REAL_DEVICES.put("samsung_a14", new DeviceProfile(
+            "Samsung Galaxy A14",
+            384, 854, 2.0,
+            "Mozilla/5.0 (Linux; Android 13; SM-A145R) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/108.0.0.0 Mobile Safari/537.36",
+            "android",
+            new MemoryBudget(64, 1500, 1000, 300)
         ));
         
         // Popular iOS devices from App Store
@@ -47,21 +70,24 @@ public class RealAppBrowserFactory {
             "iPhone 14",
             390, 844, 3.0,
             "Mozilla/5.0 (iPhone; CPU iPhone OS 16_0 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/16.0 Mobile/15E148 Safari/604.1",
-            "ios"
+            "ios",
+            new MemoryBudget(128, 3000, 2000, 500)
         ));
         
         REAL_DEVICES.put("iphone_14_pro", new DeviceProfile(
             "iPhone 14 Pro",
             393, 852, 3.0,
             "Mozilla/5.0 (iPhone; CPU iPhone OS 16_0 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/16.0 Mobile/15E148 Safari/604.1",
-            "ios"
+            "ios",
+            new MemoryBudget(160, 3000, 2000, 600)
         ));
         
         REAL_DEVICES.put("ipad_pro", new DeviceProfile(
             "iPad Pro 12.9",
             1024, 1366, 2.0,
             "Mozilla/5.0 (iPad; CPU OS 16_0 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/16.0 Mobile/15E148 Safari/604.1",
-            "ios"
+            "ios",
+            new MemoryBudget(256, 4000, 3000, 800)
         ));
     }
     
@@ -69,17 +95,24 @@ public class RealAppBrowserFactory {
      * Create context for testing real Play Store app
      */
     public static BrowserContext createPlayStoreAppContext(Browser browser, String deviceName) {
+        return createPlayStoreAppContext(browser, deviceName, assignRegion());
+    }
+    
+    /**
+     * Create context for testing real Play Store app from a given UK region
+     */
+    public static BrowserContext createPlayStoreAppContext(Browser browser, String deviceName, UkRegion region) {
         DeviceProfile device = REAL_DEVICES.getOrDefault(deviceName.toLowerCase(), REAL_DEVICES.get("samsung_s23"));
         
-        logger.info("Creating Play Store app context for {} ({})", device.name, device.deviceType);
+        logger.info("Creating Play Store app context for {} ({}) in {}", device.name, device.deviceType, region.getTown());
         
-        return browser.newContext(new Browser.NewContextOptions()
+        BrowserContext context = browser.newContext(new Browser.NewContextOptions()
             .setViewportSize(device.width, device.height)
             .setDeviceScaleFactor(device.deviceScaleFactor)
             .setUserAgent(device.userAgent)
             .setLocale("en-GB")
             .setTimezoneId("Europe/London")
-            .setGeolocation(new Geolocation(51.5074, -0.1278)) // London coordinates
+            .setGeolocation(region.geolocation())
             .setPermissions(Arrays.asList("geolocation", "notifications"))
             .setHasTouch(true)
             .setIsMobile(true)
@@ -93,23 +126,35 @@ public class RealAppBrowserFactory {
                 "Connection", "keep-alive",
                 "Upgrade-Insecure-Requests", "1"
             )));
+        
+        applyRegionalNetwork(context, region);
+        WebVitalsCollector.install(context, device.name, region.name());
+        RunJournal.attach(context, device.name, region.name());
+        return context;
     }
     
     /**
      * Create context for testing real App Store app
      */
     public static BrowserContext createAppStoreAppContext(Browser browser, String deviceName) {
+        return createAppStoreAppContext(browser, deviceName, assignRegion());
+    }
+    
+    /**
+     * Create context for testing real App Store app from a given UK region
+     */
+    public static BrowserContext createAppStoreAppContext(Browser browser, String deviceName, UkRegion region) {
         DeviceProfile device = REAL_DEVICES.getOrDefault(deviceName.toLowerCase(), REAL_DEVICES.get("iphone_14"));
         
-        logger.info("Creating App Store app context for {} ({})", device.name, device.deviceType);
+        logger.info("Creating App Store app context for {} ({}) in {}", device.name, device.deviceType, region.getTown());
         
-        return browser.newContext(new Browser.NewContextOptions()
+        BrowserContext context = browser.newContext(new Browser.NewContextOptions()
             .setViewportSize(device.width, device.height)
             .setDeviceScaleFactor(device.deviceScaleFactor)
             .setUserAgent(device.userAgent)
             .setLocale("en-GB")
             .setTimezoneId("Europe/London")
-            .setGeolocation(new Geolocation(51.5074, -0.1278)) // London coordinates
+            .setGeolocation(region.geolocation())
             .setPermissions(Arrays.asList("geolocation", "notifications", "camera", "microphone"))
             .setHasTouch(true)
             .setIsMobile(true)
@@ -125,6 +170,11 @@ public class RealAppBrowserFactory {
                 "Sec-Fetch-Mode", "navigate",
                 "Sec-Fetch-Site", "none"
             )));
+        
+        applyRegionalNetwork(context, region);
+        WebVitalsCollector.install(context, device.name, region.name());
+        RunJournal.attach(context, device.name, region.name());
+        return context;
     }
     
     /**
@@ -152,6 +202,54 @@ public class RealAppBrowserFactory {
         return context;
     }
     
+    /**
+     * Region the context's virtual user was placed in (London if created elsewhere)
+     */
+    public static UkRegion getRegion(BrowserContext context) {
+        synchronized (CONTEXT_REGIONS) {
+            return CONTEXT_REGIONS.getOrDefault(context, UkRegion.LONDON);
+        }
+    }
+    
+    /**
+     * Memory budget for the device (the Galaxy S23's if the device is unknown)
+     */
+    public static MemoryBudget getMemoryBudget(String deviceName) {
+        return REAL_DEVICES.getOrDefault(deviceName.toLowerCase(), REAL_DEVICES.get("samsung_s23")).memoryBudget;
+    }
+    
+    /**
+     * Pick the next virtual user's region from the weighted population distribution
+     */
+    private static UkRegion assignRegion() {
+        if (PINNED_REGION != null) {
+            return PINNED_REGION;
+        }
+        synchronized (REGION_RANDOM) {
+            return UkRegion.sample(REGION_RANDOM);
+        }
+    }
+    
+    /**
+     * Apply the region's base RTT and bandwidth, spread +/-20% per user
+     */
+    private static void applyRegionalNetwork(BrowserContext context, UkRegion region) {
+        double spread;
+        synchronized (REGION_RANDOM) {
+            spread = 0.8 + REGION_RANDOM.nextDouble() * 0.4;
+        }
+        int rttMs = (int) (region.getBaseRttMs() * spread);
+        int downloadKbps = (int) (region.getBandwidthKbps() / spread);
+        
+        NetworkShaper.shapeContext(context, rttMs, downloadKbps, downloadKbps / 4);
+        
+        synchronized (CONTEXT_REGIONS) {
+            CONTEXT_REGIONS.put(context, region);
+        }
+        MetricsRegistry.increment("region.users." + region.name().toLowerCase());
+        MetricsRegistry.record("region.base_rtt_ms", rttMs);
+    }
+    
     /**
      * Device profile data class
      */
@@ -162,15 +260,50 @@ public class RealAppBrowserFactory {
         final double deviceScaleFactor;
         final String userAgent;
         final String deviceType;
+        final MemoryBudget memoryBudget;
         
         DeviceProfile(String name, int width, int height, double deviceScaleFactor, 
-                     String userAgent, String deviceType) {
+                     String userAgent, String deviceType, MemoryBudget memoryBudget) {
             this.name = name;
             this.width = width;
             this.height = height;
             this.deviceScaleFactor = deviceScaleFactor;
             this.userAgent = userAgent;
             this.deviceType = deviceType;
+            this.memoryBudget = memoryBudget;
+        }
+    }
+    
+    /**
+     * Page resource limits an app must stay within on a device
+     */
+    public static class MemoryBudget {
+        final long jsHeapMb;
+        final long domNodes;
+        final long listeners;
+        final long rendererRssMb;
+        
+        public MemoryBudget(long jsHeapMb, long domNodes, long listeners, long rendererRssMb) {
+            this.jsHeapMb = jsHeapMb;
+            this.domNodes = domNodes;
+            this.listeners = listeners;
+            this.rendererRssMb = rendererRssMb;
+        }
+        
+        public long getJsHeapMb() {
+            return jsHeapMb;
+        }
+        
+        public long getDomNodes() {
+            return domNodes;
+        }
+        
+        public long getListeners() {
+            return listeners;
+        }
+        
+        public long getRendererRssMb() {
+            return rendererRssMb;
         }
     }
     
@@ -1,6 +1,8 @@
 package uk.pulse.factory;
 
 import com.microsoft.playwright.*;
+import uk.pulse.observability.RunJournal;
+import uk.pulse.observability.WebVitalsCollector;
 
 /**
  * Simple Browser Factory for Payday Friday Traffic Testing
@@ -12,7 +14,7 @@ public class SimpleBrowserFactory {
      * Create mobile browser context for UK testing
      */
     public static BrowserContext createMobileContext(Browser browser) {
-        return browser.newContext(new Browser.NewContextOptions()
+        BrowserContext context = browser.newContext(new Browser.NewContextOptions()
             .setViewportSize(390, 844)
             .setDeviceScaleFactor(3.0)
             .setUserAgent("Mozilla/5.0 (iPhone; CPU iPhone OS 15_0 like Mac OS X) AppleWebKit/605.1.15")
@@ -20,16 +22,22 @@ public class SimpleBrowserFactory {
             .setTimezoneId("Europe/London")
             .setHasTouch(true)
             .setIsMobile(true));
+        WebVitalsCollector.install(context, "mobile", "unshaped");
+        RunJournal.attach(context, "mobile", "unshaped");
+        return context;
     }
     
     /**
      * Create desktop browser context
      */
     public static BrowserContext createDesktopContext(Browser browser) {
-        return browser.newContext(new Browser.NewContextOptions()
+        BrowserContext context = browser.newContext(new Browser.NewContextOptions()
             .setViewportSize(1920, 1080)
             .setUserAgent("Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36")
             .setLocale("en-GB")
             .setTimezoneId("Europe/London"));
+        WebVitalsCollector.install(context, "desktop", "unshaped");
+        RunJournal.attach(context, "desktop", "unshaped");
+        return context;
     }
 }
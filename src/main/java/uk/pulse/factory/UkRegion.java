@@ -0,0 +1,109 @@
+package uk.pulse.factory;
+
+import com.microsoft.playwright.options.Geolocation;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * UK Region Model for geographically distributed virtual users
+ * Weights follow approximate population share; RTT and bandwidth reflect distance
+ * from the London data centres and typical urban vs rural mobile coverage
+ */
+public enum UkRegion {
+    LONDON("London", 51.5074, -0.1278, 13.4, true, 25, 20_000),
+    SOUTH_EAST("Reading", 51.4543, -0.9781, 13.8, true, 30, 16_000),
+    WEST_MIDLANDS("Birmingham", 52.4862, -1.8904, 8.8, true, 35, 15_000),
+    NORTH_WEST("Manchester", 53.4808, -2.2426, 11.0, true, 38, 15_000),
+    YORKSHIRE("Leeds", 53.8008, -1.5491, 8.2, true, 38, 14_000),
+    SOUTH_WALES("Cardiff", 51.4816, -3.1791, 3.4, true, 40, 12_000),
+    GLASGOW("Glasgow", 55.8642, -4.2518, 4.0, true, 48, 12_000),
+    EDINBURGH("Edinburgh", 55.9533, -3.1883, 2.6, true, 46, 12_000),
+    BELFAST("Belfast", 54.5973, -5.9301, 2.8, true, 55, 10_000),
+    CORNWALL("Truro", 50.2632, -5.0510, 2.0, false, 70, 3_000),
+    RURAL_WALES("Aberystwyth", 52.4153, -4.0829, 1.6, false, 75, 2_500),
+    LINCOLNSHIRE("Louth", 53.3667, -0.0061, 1.9, false, 65, 3_500),
+    HIGHLANDS("Inverness", 57.4778, -4.2247, 1.2, false, 90, 1_500),
+    NORTHERN_IRELAND_RURAL("Enniskillen", 54.3438, -7.6315, 1.0, false, 85, 2_000);
+    
+    private static final double TOTAL_WEIGHT;
+    
+    static {
+        double total = 0;
+        for (UkRegion region : values()) {
+            total += region.populationWeight;
+        }
+        TOTAL_WEIGHT = total;
+    }
+    
+    private final String town;
+    private final double latitude;
+    private final double longitude;
+    private final double populationWeight;
+    private final boolean urban;
+    private final int baseRttMs;
+    private final int bandwidthKbps;
+    
+    UkRegion(String town, double latitude, double longitude, double populationWeight,
+             boolean urban, int baseRttMs, int bandwidthKbps) {
+        this.town = town;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.populationWeight = populationWeight;
+        this.urban = urban;
+        this.baseRttMs = baseRttMs;
+        this.bandwidthKbps = bandwidthKbps;
+    }
+    
+    /**
+     * Parse a region name case-insensitively (e.g. -Dpulse.region=highlands), naming the allowed values if it is unknown
+     */
+    public static UkRegion parse(String name) {
+        for (UkRegion region : values()) {
+            if (region.name().equalsIgnoreCase(name.trim())) {
+                return region;
+            }
+        }
+        throw new IllegalArgumentException("Unknown region '" + name + "', expected one of "
+            + Arrays.toString(values()).toLowerCase(Locale.ROOT));
+    }
+    
+    /**
+     * Draw a region from the weighted population distribution
+     */
+    public static UkRegion sample(Random random) {
+        double target = random.nextDouble() * TOTAL_WEIGHT;
+        for (UkRegion region : values()) {
+            target -= region.populationWeight;
+            if (target < 0) {
+                return region;
+            }
+        }
+        return LONDON;
+    }
+    
+    public Geolocation geolocation() {
+        return new Geolocation(latitude, longitude);
+    }
+    
+    public String getTown() {
+        return town;
+    }
+    
+    public boolean isUrban() {
+        return urban;
+    }
+    
+    public int getBaseRttMs() {
+        return baseRttMs;
+    }
+    
+    public int getBandwidthKbps() {
+        return bandwidthKbps;
+    }
+    
+    public double getPopulationWeight() {
+        return populationWeight;
+    }
+}
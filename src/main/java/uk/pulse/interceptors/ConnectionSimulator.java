@@ -0,0 +1,332 @@
+package uk.pulse.interceptors;
+
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Request;
+import com.microsoft.playwright.Route;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.pulse.observability.MetricsRegistry;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Connection Setup Simulator for cold vs warm start behaviour
+ * Models DNS, TCP and TLS handshakes per browser context and origin, a per-host
+ * connection limit with queueing, and HTTP/2 multiplexing
+ *
+ * Register this after the other simulators on a page: it runs first, adds the
+ * connection cost and falls back to the remaining route handlers.
+ */
+public class ConnectionSimulator {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionSimulator.class);
+    
+    private static final Map<BrowserContext, ContextConnections> contexts = new WeakHashMap<>();
+    
+    static {
+        // Run-wide ratio from the shared counters; per-context ratios come from getReuseRatio
+        MetricsRegistry.derivedGauge("connection.reuse_ratio", () -> {
+            long reused = MetricsRegistry.count("connection.reused");
+            long total = reused + MetricsRegistry.count("connection.cold") + MetricsRegistry.count("connection.queued");
+            return total == 0 ? Double.NaN : (double) reused / total;
+        });
+    }
+    
+    /**
+     * Apply connection-setup costs to every request made by the page
+     */
+    public static void simulateConnectionSetup(Page page, ConnectionProfile profile) {
+        logger.info("Simulating connection setup ({}, RTT {}ms, {} connections per host)",
+            profile.http2 ? "HTTP/2" : "HTTP/1.1", profile.rttMs, profile.maxConnectionsPerHost);
+        
+        ContextConnections connections = connectionsFor(page.context(), profile);
+        
+        page.onRequestFinished(connections::release);
+        page.onRequestFailed(connections::release);
+        
+        page.route("**/*", route -> {
+            try {
+                InjectedDelay.sleep("connection", route, connections.acquire(route.request()));
+                route.fallback();
+            } catch (InterruptedException e) {
+                logger.error("Connection setup simulation interrupted", e);
+                route.abort();
+            }
+        });
+    }
+    
+    /**
+     * Drop all pooled connections and DNS entries for the context, forcing a cold start
+     */
+    public static void resetConnections(BrowserContext context) {
+        synchronized (contexts) {
+            ContextConnections connections = contexts.get(context);
+            if (connections != null) {
+                connections.reset();
+                logger.info("Connection state reset - next requests pay full handshake cost");
+            }
+        }
+    }
+    
+    /**
+     * Share of requests served straight away on an already-open connection (queued requests excluded)
+     */
+    public static double getReuseRatio(BrowserContext context) {
+        synchronized (contexts) {
+            ContextConnections connections = contexts.get(context);
+            return connections == null ? 0.0 : connections.reuseRatio();
+        }
+    }
+    
+    private static ContextConnections connectionsFor(BrowserContext context, ConnectionProfile profile) {
+        synchronized (contexts) {
+            ContextConnections connections = contexts.get(context);
+            if (connections == null) {
+                connections = new ContextConnections(profile);
+                contexts.put(context, connections);
+            } else {
+                // Open connections survive, but limits and costs follow the latest profile
+                connections.setProfile(profile);
+            }
+            return connections;
+        }
+    }
+    
+    /**
+     * Connection pool state for one browser context
+     */
+    private static class ContextConnections {
+        ConnectionProfile profile;
+        final Map<String, Long> dnsExpiry = new HashMap<>();
+        final Map<String, Origin> origins = new HashMap<>();
+        final Map<Request, Connection> inFlight = new IdentityHashMap<>();
+        final Map<Request, Origin> waiting = new IdentityHashMap<>();
+        long cold;
+        long reused;
+        long queued;
+        long requestMsTotal;
+        long requestCount;
+        
+        ContextConnections(ConnectionProfile profile) {
+            this.profile = profile;
+        }
+        
+        synchronized void setProfile(ConnectionProfile profile) {
+            this.profile = profile;
+        }
+        
+        /**
+         * Assign a connection to the request, returning the setup/queueing delay to apply
+         */
+        synchronized long acquire(Request request) {
+            URI uri = URI.create(request.url());
+            if (uri.getHost() == null) {
+                return 0;  // data:, blob: and similar never touch the network
+            }
+            
+            boolean secure = "https".equals(uri.getScheme()) || "wss".equals(uri.getScheme());
+            String key = uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+            long now = System.currentTimeMillis();
+            Origin origin = origins.computeIfAbsent(key, k -> new Origin());
+            
+            // Idle connections past keep-alive have been closed by the server
+            origin.pool.removeIf(connection -> connection.activeStreams == 0 && now - connection.lastUsed > profile.keepAliveMs);
+            
+            Connection free = origin.freeConnection(streamLimit());
+            if (free != null) {
+                reused++;
+                MetricsRegistry.increment("connection.reused");
+                return assign(request, free, now, 0);
+            }
+            
+            if (origin.pool.size() < connectionLimit()) {
+                long setup = handshakeCost(uri.getHost(), secure, now);
+                Connection connection = new Connection(origin);
+                origin.pool.add(connection);
+                cold++;
+                MetricsRegistry.increment("connection.cold");
+                MetricsRegistry.record("connection.setup_ms", setup);
+                return assign(request, connection, now, setup);
+            }
+            
+            // At the per-host limit: join the origin's queue and take the next released slot.
+            // Route handlers run on Playwright's dispatch thread, so the release event cannot
+            // arrive while this handler waits; the delay is estimated from this context's
+            // observed request durations and the queue ahead, and release() hands over the slot
+            int capacity = connectionLimit() * streamLimit();
+            long averageMs = requestCount == 0 ? 0 : requestMsTotal / requestCount;
+            long wait = Math.max(profile.rttMs, averageMs) * (origin.queue.size() / capacity + 1);
+            origin.queue.addLast(request);
+            waiting.put(request, origin);
+            queued++;
+            MetricsRegistry.increment("connection.queued");
+            MetricsRegistry.record("connection.queue_wait_ms", wait);
+            return wait;
+        }
+        
+        private int streamLimit() {
+            return profile.http2 ? profile.maxConcurrentStreams : 1;
+        }
+        
+        private int connectionLimit() {
+            return profile.http2 ? 1 : profile.maxConnectionsPerHost;
+        }
+        
+        private long assign(Request request, Connection connection, long now, long delay) {
+            connection.activeStreams++;
+            connection.lastUsed = now + delay;
+            connection.startedAt.put(request, now);
+            inFlight.put(request, connection);
+            return delay;
+        }
+        
+        private long handshakeCost(String host, boolean secure, long now) {
+            long cost = 0;
+            
+            Long expiry = dnsExpiry.get(host);
+            if (expiry == null || expiry < now) {
+                cost += profile.dnsMs + ThreadLocalRandom.current().nextLong(0, profile.dnsMs / 2 + 1);
+                dnsExpiry.put(host, now + profile.dnsTtlMs);
+                MetricsRegistry.increment("connection.dns_lookups");
+            }
+            
+            cost += profile.rttMs;  // TCP three-way handshake
+            if (secure) {
+                cost += profile.rttMs * profile.tlsRoundTrips;
+            }
+            return cost;
+        }
+        
+        synchronized void release(Request request) {
+            Origin queuedOn = waiting.remove(request);
+            if (queuedOn != null) {
+                // Finished before a slot was handed over (e.g. served by another handler)
+                queuedOn.queue.remove(request);
+                return;
+            }
+            
+            Connection connection = inFlight.remove(request);
+            if (connection == null) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            Long started = connection.startedAt.remove(request);
+            if (started != null) {
+                long elapsed = now - started;
+                requestMsTotal += elapsed;
+                requestCount++;
+                MetricsRegistry.record("connection.request_ms", elapsed);
+            }
+            connection.activeStreams = Math.max(0, connection.activeStreams - 1);
+            connection.lastUsed = now;
+            
+            // Hand the freed stream to the request that has waited longest on this origin
+            Request next = connection.origin.queue.pollFirst();
+            if (next != null) {
+                waiting.remove(next);
+                assign(next, connection, now, 0);
+            }
+        }
+        
+        synchronized void reset() {
+            dnsExpiry.clear();
+            origins.clear();
+            inFlight.clear();
+            waiting.clear();
+            cold = 0;
+            reused = 0;
+            queued = 0;
+            requestMsTotal = 0;
+            requestCount = 0;
+        }
+        
+        synchronized double reuseRatio() {
+            long total = cold + reused + queued;
+            return total == 0 ? 0.0 : (double) reused / total;
+        }
+    }
+    
+    /**
+     * Open connections to one origin and the requests queued for a free stream
+     */
+    private static class Origin {
+        final List<Connection> pool = new ArrayList<>();
+        final Deque<Request> queue = new ArrayDeque<>();
+        
+        Connection freeConnection(int streamLimit) {
+            for (Connection connection : pool) {
+                if (connection.activeStreams < streamLimit) {
+                    return connection;
+                }
+            }
+            return null;
+        }
+    }
+    
+    private static class Connection {
+        final Origin origin;
+        final Map<Request, Long> startedAt = new IdentityHashMap<>();
+        int activeStreams;
+        long lastUsed;
+        
+        Connection(Origin origin) {
+            this.origin = origin;
+        }
+    }
+    
+    /**
+     * Network and protocol parameters for connection setup
+     */
+    public static class ConnectionProfile {
+        final long rttMs;
+        final long dnsMs;
+        final long dnsTtlMs;
+        final int tlsRoundTrips;
+        final int maxConnectionsPerHost;
+        final long keepAliveMs;
+        final boolean http2;
+        final int maxConcurrentStreams;
+        
+        public ConnectionProfile(long rttMs, long dnsMs, long dnsTtlMs, int tlsRoundTrips,
+                                 int maxConnectionsPerHost, long keepAliveMs, boolean http2, int maxConcurrentStreams) {
+            this.rttMs = rttMs;
+            this.dnsMs = dnsMs;
+            this.dnsTtlMs = dnsTtlMs;
+            this.tlsRoundTrips = tlsRoundTrips;
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+            this.keepAliveMs = keepAliveMs;
+            this.http2 = http2;
+            this.maxConcurrentStreams = maxConcurrentStreams;
+        }
+        
+        /**
+         * HTTP/1.1 over 4G with TLS 1.2 and the browser's 6-connection limit
+         */
+        public static ConnectionProfile http1Mobile4g() {
+            return new ConnectionProfile(60, 80, 60_000, 2, 6, 30_000, false, 1);
+        }
+        
+        /**
+         * HTTP/2 over 4G with TLS 1.3: one multiplexed connection per origin
+         */
+        public static ConnectionProfile http2Mobile4g() {
+            return new ConnectionProfile(60, 80, 60_000, 1, 1, 120_000, true, 100);
+        }
+        
+        /**
+         * HTTP/1.1 over congested 3G
+         */
+        public static ConnectionProfile http1Mobile3g() {
+            return new ConnectionProfile(200, 250, 60_000, 2, 6, 30_000, false, 1);
+        }
+    }
+}
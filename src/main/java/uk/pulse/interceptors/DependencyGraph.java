@@ -0,0 +1,329 @@
+package uk.pulse.interceptors;
+
+import uk.pulse.observability.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Upstream Dependency Graph for payment latency modelling
+ * Composes serial and parallel sub-calls (auth, fraud scoring, ledger, 3-D Secure)
+ * each with its own latency distribution and failure model; sampling a graph yields
+ * the end-to-end time, the critical path and the hop that failed, if any
+ */
+public class DependencyGraph {
+    // The tail threshold is re-read from the histogram this often, not on every request
+    private static final int TAIL_REFRESH_SAMPLES = 256;
+    
+    private final String name;
+    private final Node root;
+    private final AtomicLong recorded = new AtomicLong();
+    private volatile long tailThresholdMs;
+    
+    public DependencyGraph(String name, Node root) {
+        this.name = name;
+        this.root = root;
+    }
+    
+    /**
+     * Sample one request through the graph, scaling latency and failure rates by the load factor
+     */
+    public Outcome sample(Random random, double loadFactor) {
+        Outcome outcome = root.sample(random, loadFactor);
+        record(outcome);
+        return outcome;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Share of requests that fail (upstream error or timeout) at the load factor, estimated
+     * from a fixed-seed sample so it is repeatable; nothing is recorded
+     */
+    public double estimateFailureRate(double loadFactor, int samples) {
+        Random random = new Random(samples);
+        int failed = 0;
+        for (int i = 0; i < samples; i++) {
+            if (root.sample(random, loadFactor).failedHop != null) {
+                failed++;
+            }
+        }
+        return (double) failed / samples;
+    }
+    
+    private void record(Outcome outcome) {
+        String prefix = "dependency." + name;
+        
+        // Decide tail membership before this sample moves the percentile; once the histogram
+        // has settled a p95 a few hundred samples old is close enough, so the bucket scan
+        // runs once per refresh interval instead of on every routed request
+        long n = recorded.getAndIncrement();
+        if (n < TAIL_REFRESH_SAMPLES || n % TAIL_REFRESH_SAMPLES == 0) {
+            tailThresholdMs = MetricsRegistry.histogram(prefix + ".total_ms").getPercentile(95);
+        }
+        long p95 = tailThresholdMs;
+        MetricsRegistry.record(prefix + ".total_ms", outcome.latencyMs);
+        
+        for (HopTiming timing : outcome.criticalPath) {
+            MetricsRegistry.record(prefix + ".hop_ms." + timing.hop, timing.latencyMs);
+        }
+        
+        HopTiming dominant = outcome.dominantHop();
+        if (dominant != null) {
+            MetricsRegistry.increment(prefix + ".dominant." + dominant.hop);
+            if (p95 > 0 && outcome.latencyMs >= p95) {
+                MetricsRegistry.increment(prefix + ".tail_dominant." + dominant.hop);
+            }
+        }
+        if (outcome.failedHop != null) {
+            MetricsRegistry.increment(prefix + ".failures." + outcome.failedHop);
+        }
+    }
+    
+    /**
+     * Payday payment fan-out: gateway auth, then fraud scoring alongside limits,
+     * optional 3-D Secure, scheme authorization and finally ledger posting
+     */
+    public static DependencyGraph paydayPayment() {
+        return new DependencyGraph("payments", serial(
+            hop("gateway_auth", Latency.logNormal(60, 250), 0.002, 503, 2_000),
+            parallel(
+                hop("fraud_scoring", Latency.logNormal(400, 1_500), 0.005, 504, 3_000),
+                hop("limits_check", Latency.logNormal(150, 600), 0.001, 503, 2_000)),
+            optional(0.15,
+                hop("three_ds", Latency.logNormal(2_500, 8_000), 0.02, 402, 15_000)),
+            hop("scheme_authorization", Latency.logNormal(500, 2_000), 0.004, 502, 5_000),
+            hop("ledger_posting", Latency.logNormal(300, 1_200), 0.002, 500, 4_000)));
+    }
+    
+    public static Node hop(String name, Latency latency, double failureProbability, int failureStatus, long timeoutMs) {
+        return new Hop(name, latency, failureProbability, failureStatus, timeoutMs);
+    }
+    
+    public static Node serial(Node... steps) {
+        return new Serial(Arrays.asList(steps));
+    }
+    
+    public static Node parallel(Node... branches) {
+        return new Parallel(Arrays.asList(branches));
+    }
+    
+    public static Node optional(double probability, Node node) {
+        return new OptionalStep(probability, node);
+    }
+    
+    /**
+     * A step in the dependency graph
+     */
+    public interface Node {
+        Outcome sample(Random random, double loadFactor);
+    }
+    
+    /**
+     * Latency distribution for a single hop
+     */
+    public static class Latency {
+        final double median;
+        final double sigma;
+        
+        private Latency(double median, double sigma) {
+            this.median = median;
+            this.sigma = sigma;
+        }
+        
+        /**
+         * Log-normal latency fitted to a median and 99th percentile
+         */
+        public static Latency logNormal(long medianMs, long p99Ms) {
+            if (medianMs <= 0 || p99Ms < medianMs) {
+                throw new IllegalArgumentException("p99 must be at least the median: " + medianMs + "/" + p99Ms);
+            }
+            return new Latency(medianMs, Math.log((double) p99Ms / medianMs) / 2.326);
+        }
+        
+        /**
+         * Constant latency
+         */
+        public static Latency fixed(long ms) {
+            return new Latency(ms, 0.0);
+        }
+        
+        long sample(Random random) {
+            return Math.round(median * Math.exp(sigma * random.nextGaussian()));
+        }
+    }
+    
+    private static class Hop implements Node {
+        final String name;
+        final Latency latency;
+        final double failureProbability;
+        final int failureStatus;
+        final long timeoutMs;
+        
+        Hop(String name, Latency latency, double failureProbability, int failureStatus, long timeoutMs) {
+            this.name = name;
+            this.latency = latency;
+            this.failureProbability = failureProbability;
+            this.failureStatus = failureStatus;
+            this.timeoutMs = timeoutMs;
+        }
+        
+        @Override
+        public Outcome sample(Random random, double loadFactor) {
+            long ms = Math.round(latency.sample(random) * loadFactor);
+            if (ms >= timeoutMs) {
+                return new Outcome(timeoutMs, List.of(new HopTiming(name, timeoutMs)), name, 504);
+            }
+            boolean failed = random.nextDouble() < Math.min(1.0, failureProbability * loadFactor);
+            return new Outcome(ms, List.of(new HopTiming(name, ms)), failed ? name : null, failed ? failureStatus : 0);
+        }
+    }
+    
+    private static class Serial implements Node {
+        final List<Node> steps;
+        
+        Serial(List<Node> steps) {
+            this.steps = steps;
+        }
+        
+        @Override
+        public Outcome sample(Random random, double loadFactor) {
+            long total = 0;
+            List<HopTiming> path = new ArrayList<>();
+            for (Node step : steps) {
+                Outcome outcome = step.sample(random, loadFactor);
+                total += outcome.latencyMs;
+                path.addAll(outcome.criticalPath);
+                if (outcome.failedHop != null) {
+                    // Later hops never run once an upstream has failed
+                    return new Outcome(total, path, outcome.failedHop, outcome.failureStatus);
+                }
+            }
+            return new Outcome(total, path, null, 0);
+        }
+    }
+    
+    private static class Parallel implements Node {
+        final List<Node> branches;
+        
+        Parallel(List<Node> branches) {
+            this.branches = branches;
+        }
+        
+        @Override
+        public Outcome sample(Random random, double loadFactor) {
+            Outcome slowest = null;
+            Outcome failure = null;
+            for (Node branch : branches) {
+                Outcome outcome = branch.sample(random, loadFactor);
+                if (slowest == null || outcome.latencyMs > slowest.latencyMs) {
+                    slowest = outcome;
+                }
+                if (failure == null && outcome.failedHop != null) {
+                    failure = outcome;
+                }
+            }
+            if (slowest == null) {
+                return new Outcome(0, Collections.emptyList(), null, 0);
+            }
+            // The join waits for the slowest branch; that branch is the critical path
+            return failure == null
+                ? slowest
+                : new Outcome(slowest.latencyMs, slowest.criticalPath, failure.failedHop, failure.failureStatus);
+        }
+    }
+    
+    private static class OptionalStep implements Node {
+        final double probability;
+        final Node node;
+        
+        OptionalStep(double probability, Node node) {
+            this.probability = probability;
+            this.node = node;
+        }
+        
+        @Override
+        public Outcome sample(Random random, double loadFactor) {
+            return random.nextDouble() < probability
+                ? node.sample(random, loadFactor)
+                : new Outcome(0, Collections.emptyList(), null, 0);
+        }
+    }
+    
+    /**
+     * Time spent in one hop on the critical path
+     */
+    public static class HopTiming {
+        final String hop;
+        final long latencyMs;
+        
+        HopTiming(String hop, long latencyMs) {
+            this.hop = hop;
+            this.latencyMs = latencyMs;
+        }
+        
+        public String getHop() {
+            return hop;
+        }
+        
+        public long getLatencyMs() {
+            return latencyMs;
+        }
+    }
+    
+    /**
+     * Result of sampling a graph: end-to-end time, critical path and failure
+     */
+    public static class Outcome {
+        final long latencyMs;
+        final List<HopTiming> criticalPath;
+        final String failedHop;
+        final int failureStatus;
+        
+        Outcome(long latencyMs, List<HopTiming> criticalPath, String failedHop, int failureStatus) {
+            this.latencyMs = latencyMs;
+            this.criticalPath = criticalPath;
+            this.failedHop = failedHop;
+            this.failureStatus = failureStatus;
+        }
+        
+        public long getLatencyMs() {
+            return latencyMs;
+        }
+        
+        public List<HopTiming> getCriticalPath() {
+            return Collections.unmodifiableList(criticalPath);
+        }
+        
+        public boolean isFailed() {
+            return failedHop != null;
+        }
+        
+        public String getFailedHop() {
+            return failedHop;
+        }
+        
+        public int getFailureStatus() {
+            return failureStatus;
+        }
+        
+        /**
+         * Hop contributing the most time to the critical path
+         */
+        public HopTiming dominantHop() {
+            HopTiming dominant = null;
+            for (HopTiming timing : criticalPath) {
+                if (dominant == null || timing.latencyMs > dominant.latencyMs) {
+                    dominant = timing;
+                }
+            }
+            return dominant;
+        }
+    }
+}
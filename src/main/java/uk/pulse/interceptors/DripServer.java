@@ -0,0 +1,289 @@
+package uk.pulse.interceptors;
+
+import com.microsoft.playwright.Page;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.pulse.observability.MetricsRegistry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local HTTP server that delivers simulated responses in timed chunks
+ * Intercepted requests are redirected here so the browser sees a genuinely slow
+ * first byte, a paced body and, optionally, a connection cut mid-body; also
+ * serves scripted Server-Sent Event streams
+ *
+ * Shared by every page and VU; it runs until JVM shutdown, while each page's unfetched
+ * registrations are dropped on page close or once they outlive the token TTL
+ */
+class DripServer {
+    private static final Logger logger = LoggerFactory.getLogger(DripServer.class);
+    
+    // Registrations whose URL was never fetched (route aborted, page navigated away) expire after this
+    private static final long TOKEN_TTL_MS = Long.getLong("pulse.drip.token-ttl-ms", 60_000L);
+    
+    private static DripServer instance;
+    private static boolean shutdownHookAdded;
+    
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, PendingResponse> pending = new ConcurrentHashMap<>();
+    private final Map<String, PendingStream> pendingStreams = new ConcurrentHashMap<>();
+    private volatile long lastSweepMillis = System.currentTimeMillis();
+    
+    private DripServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "pulse-drip-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/drip/", this::handle);
+        server.createContext("/sse/", this::handleEventStream);
+        server.start();
+        logger.info("Drip server listening on port {}", server.getAddress().getPort());
+    }
+    
+    static synchronized DripServer getInstance() {
+        if (instance == null) {
+            try {
+                instance = new DripServer();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to start drip server", e);
+            }
+            if (!shutdownHookAdded) {
+                Runtime.getRuntime().addShutdownHook(new Thread(DripServer::stop, "pulse-drip-server-shutdown"));
+                shutdownHookAdded = true;
+            }
+        }
+        return instance;
+    }
+    
+    static synchronized void stop() {
+        if (instance != null) {
+            instance.server.stop(0);
+            instance.executor.shutdownNow();
+            instance = null;
+            logger.info("Drip server stopped");
+        }
+    }
+    
+    /**
+     * Drop the page's registrations that were never fetched; the server keeps serving other pages
+     */
+    static synchronized void release(Page page) {
+        if (instance != null) {
+            int before = instance.pending.size() + instance.pendingStreams.size();
+            instance.pending.values().removeIf(entry -> entry.page == page);
+            instance.pendingStreams.values().removeIf(entry -> entry.page == page);
+            int dropped = before - instance.pending.size() - instance.pendingStreams.size();
+            if (dropped > 0) {
+                logger.debug("Released {} unfetched drip registrations", dropped);
+            }
+        }
+    }
+    
+    /**
+     * Register a response to be dripped, returning the one-shot URL that serves it
+     */
+    String register(Page page, SimulatedResponse response, StreamingResponseSimulator.DripProfile profile,
+                    String routeName, boolean truncate) {
+        expireStale();
+        String token = UUID.randomUUID().toString();
+        pending.put(token, new PendingResponse(page, response, profile, routeName, truncate));
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/drip/" + token;
+    }
+    
+    /**
+     * Register a scripted Server-Sent Events stream, returning the one-shot URL that serves it
+     */
+    String registerEventStream(Page page, List<String> events, RealtimeChannelSimulator.ChannelProfile profile,
+                               int cutAfter) {
+        expireStale();
+        String token = UUID.randomUUID().toString();
+        pendingStreams.put(token, new PendingStream(page, events, profile, cutAfter));
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/sse/" + token;
+    }
+    
+    private void handleEventStream(HttpExchange exchange) throws IOException {
+        String token = exchange.getRequestURI().getPath().substring("/sse/".length());
+        PendingStream stream = pendingStreams.remove(token);
+        
+        if (stream == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        
+        exchange.getResponseHeaders().add("content-type", "text/event-stream");
+        exchange.getResponseHeaders().add("cache-control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (int i = 0; i < stream.cutAfter; i++) {
+                long delay = stream.profile.latencyMs;
+                if (stream.profile.jitterMs > 0) {
+                    delay += ThreadLocalRandom.current().nextLong(-stream.profile.jitterMs, stream.profile.jitterMs + 1);
+                }
+                sleepMillis(delay);
+                
+                out.write(stream.events.get(i).getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                MetricsRegistry.increment("realtime.sse_events");
+                MetricsRegistry.record("realtime.message_delay_ms", Math.max(0, delay));
+            }
+            if (stream.cutAfter < stream.events.size()) {
+                MetricsRegistry.increment("realtime.random_disconnects");
+            }
+            
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // EventSource closed by the page
+            logger.debug("SSE client disconnected: {}", e.getMessage());
+        }
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        String token = exchange.getRequestURI().getPath().substring("/drip/".length());
+        PendingResponse pendingResponse = pending.remove(token);
+        
+        if (pendingResponse == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        
+        SimulatedResponse response = pendingResponse.response;
+        StreamingResponseSimulator.DripProfile profile = pendingResponse.profile;
+        byte[] body = response.body();
+        long start = System.nanoTime();
+        
+        try {
+            sleepMillis(profile.ttfbMs);
+            
+            Headers headers = exchange.getResponseHeaders();
+            for (Map.Entry<String, String> header : response.headers().entrySet()) {
+                String name = header.getKey().toLowerCase();
+                if (!name.equals("content-length") && !name.equals("transfer-encoding")) {
+                    headers.add(header.getKey(), header.getValue());
+                }
+            }
+            // Declared length is always the full body, so a cut is seen as truncation
+            exchange.sendResponseHeaders(response.status(), body.length == 0 ? -1 : body.length);
+            
+            long firstByte = System.nanoTime();
+            MetricsRegistry.record("stream.ttfb_ms." + pendingResponse.routeName,
+                TimeUnit.NANOSECONDS.toMillis(firstByte - start));
+                
+            int limit = pendingResponse.truncate ? (int) (body.length * profile.truncateAtFraction) : body.length;
+            OutputStream out = exchange.getResponseBody();
+            for (int offset = 0; offset < limit; offset += profile.chunkSize) {
+                int length = Math.min(profile.chunkSize, limit - offset);
+                out.write(body, offset, length);
+                out.flush();
+                sleepMillis(length * 1000L / profile.bytesPerSecond);
+            }
+            
+            MetricsRegistry.record("stream.transfer_ms." + pendingResponse.routeName,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - firstByte));
+            MetricsRegistry.add("stream.bytes." + pendingResponse.routeName, limit);
+            
+            if (pendingResponse.truncate) {
+                MetricsRegistry.increment("stream.truncated." + pendingResponse.routeName);
+                logger.debug("Cutting {} after {}/{} bytes", pendingResponse.routeName, limit, body.length);
+            }
+            
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Drip response interrupted for {}", pendingResponse.routeName);
+        } catch (IOException e) {
+            // Browser gave up (timeout or navigation) before the body finished
+            MetricsRegistry.increment("stream.client_aborted." + pendingResponse.routeName);
+            logger.debug("Client aborted drip response for {}: {}", pendingResponse.routeName, e.getMessage());
+        } finally {
+            try {
+                // Closing a fixed-length exchange early drops the connection mid-body
+                exchange.close();
+            } catch (Exception e) {
+                logger.debug("Connection closed before full body for {}", pendingResponse.routeName);
+            }
+        }
+    }
+    
+    /**
+     * Sweep expired registrations, at most once per second so registering stays cheap
+     */
+    private void expireStale() {
+        long now = System.currentTimeMillis();
+        if (now - lastSweepMillis < 1000) {
+            return;
+        }
+        lastSweepMillis = now;
+        
+        long cutoff = now - TOKEN_TTL_MS;
+        int before = pending.size() + pendingStreams.size();
+        pending.values().removeIf(entry -> entry.registeredAt < cutoff);
+        pendingStreams.values().removeIf(entry -> entry.registeredAt < cutoff);
+        int expired = before - pending.size() - pendingStreams.size();
+        if (expired > 0) {
+            MetricsRegistry.add("stream.expired_tokens", expired);
+            logger.debug("Expired {} drip registrations that were never fetched", expired);
+        }
+    }
+    
+    private static void sleepMillis(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+    
+    private static class PendingStream {
+        final Page page;
+        final long registeredAt = System.currentTimeMillis();
+        final List<String> events;
+        final RealtimeChannelSimulator.ChannelProfile profile;
+        final int cutAfter;
+        
+        PendingStream(Page page, List<String> events, RealtimeChannelSimulator.ChannelProfile profile, int cutAfter) {
+            this.page = page;
+            this.events = events;
+            this.profile = profile;
+            this.cutAfter = cutAfter;
+        }
+    }
+    
+    private static class PendingResponse {
+        final Page page;
+        final long registeredAt = System.currentTimeMillis();
+        final SimulatedResponse response;
+        final StreamingResponseSimulator.DripProfile profile;
+        final String routeName;
+        final boolean truncate;
+        
+        PendingResponse(Page page, SimulatedResponse response, StreamingResponseSimulator.DripProfile profile,
+                        String routeName, boolean truncate) {
+            this.page = page;
+            this.response = response;
+            this.profile = profile;
+            this.routeName = routeName;
+            this.truncate = truncate;
+        }
+    }
+}
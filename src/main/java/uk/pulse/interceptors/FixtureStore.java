@@ -0,0 +1,398 @@
+package uk.pulse.interceptors;
+
+import com.microsoft.playwright.Request;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memory-mapped fixture store for recorded API traffic
+ * Records request/response pairs into an indexed file and serves them back during replay
+ * without loading the archive onto the heap
+ *
+ * File layout: header magic, appended records, a hash-sorted index and a fixed footer.
+ * Each record starts with its key bytes; lookups compare them, so keys whose hashes
+ * collide get separate index entries instead of replacing each other.
+ */
+public class FixtureStore implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(FixtureStore.class);
+    
+    private static final long HEADER_MAGIC = 0x50554C5345465831L;  // "PULSEFX1"
+    private static final int FOOTER_MAGIC = 0x50465846;  // "PFXF"
+    private static final int HEADER_SIZE = Long.BYTES;
+    private static final int INDEX_ENTRY_SIZE = Long.BYTES * 2;
+    private static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES * 2;
+    
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    
+    private final Path path;
+    private final boolean recording;
+    
+    // Recording state
+    private FileChannel channel;
+    private final Map<String, Long> recordedOffsets = new LinkedHashMap<>();
+    private long writePosition;
+    
+    // Replay state
+    private MappedByteBuffer mapped;
+    private long indexOffset;
+    private int entryCount;
+    
+    private FixtureStore(Path path, boolean recording) {
+        this.path = path;
+        this.recording = recording;
+    }
+    
+    /**
+     * Open a new fixture file for recording, replacing any existing archive
+     */
+    public static FixtureStore openForRecording(Path path) {
+        FixtureStore store = new FixtureStore(path, true);
+        
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            store.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING);
+                
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putLong(HEADER_MAGIC);
+            header.flip();
+            store.channel.write(header, 0);
+            store.writePosition = HEADER_SIZE;
+            
+            logger.info("Recording API fixtures to {}", path);
+            return store;
+            
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open fixture store for recording: " + path, e);
+        }
+    }
+    
+    /**
+     * Reopen a closed recording to add more fixtures, keeping everything already recorded
+     * (starts a new archive if there is none yet)
+     */
+    public static FixtureStore openForAppending(Path path) {
+        if (!Files.exists(path)) {
+            return openForRecording(path);
+        }
+        
+        FixtureStore existing = openForReplay(path);
+        FixtureStore store = new FixtureStore(path, true);
+        for (int i = 0; i < existing.entryCount; i++) {
+            int offset = (int) existing.mapped.getLong((int) (existing.indexOffset + (long) i * INDEX_ENTRY_SIZE + Long.BYTES));
+            store.recordedOffsets.put(existing.readString(offset + Integer.BYTES, existing.mapped.getInt(offset)), (long) offset);
+        }
+        existing.close();
+        
+        try {
+            store.channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.READ);
+            // New records overwrite the old index and footer; close() writes a combined one
+            store.writePosition = existing.indexOffset;
+            store.channel.truncate(existing.indexOffset);
+            
+            logger.info("Appending API fixtures to {} ({} already recorded)", path, store.recordedOffsets.size());
+            return store;
+            
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to reopen fixture store for recording: " + path, e);
+        }
+    }
+    
+    /**
+     * Open an existing fixture file for replay
+     */
+    public static FixtureStore openForReplay(Path path) {
+        FixtureStore store = new FixtureStore(path, false);
+        
+        try (FileChannel readChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = readChannel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Fixture store exceeds 2GB mapping limit: " + path);
+            }
+            if (size < HEADER_SIZE + FOOTER_SIZE) {
+                throw new IllegalStateException("Fixture store is truncated: " + path);
+            }
+            
+            store.mapped = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            
+            if (store.mapped.getLong(0) != HEADER_MAGIC) {
+                throw new IllegalStateException("Not a Pulse fixture store: " + path);
+            }
+            int footer = (int) size - FOOTER_SIZE;
+            if (store.mapped.getInt(footer + Long.BYTES + Integer.BYTES) != FOOTER_MAGIC) {
+                throw new IllegalStateException("Fixture store was not closed cleanly: " + path);
+            }
+            store.indexOffset = store.mapped.getLong(footer);
+            store.entryCount = store.mapped.getInt(footer + Long.BYTES);
+            
+            logger.info("Replaying {} API fixtures from {}", store.entryCount, path);
+            return store;
+            
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open fixture store for replay: " + path, e);
+        }
+    }
+    
+    /**
+     * Build the lookup key for an intercepted request (method, URL and a hash of the body)
+     */
+    public static String requestKey(Request request) {
+        StringBuilder key = new StringBuilder(request.method()).append(' ').append(request.url());
+        byte[] postData = request.postDataBuffer();
+        if (postData != null && postData.length > 0) {
+            key.append(" #").append(Long.toHexString(hash(postData)));
+        }
+        return key.toString();
+    }
+    
+    /**
+     * Append a request/response pair to the archive
+     */
+    public synchronized void record(String key, int status, Map<String, String> headers, byte[] body) {
+        if (!recording) {
+            throw new IllegalStateException("Fixture store is open for replay only");
+        }
+        
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] bodyBytes = body != null ? body : new byte[0];
+        
+        int size = Integer.BYTES + keyBytes.length + Integer.BYTES * 2 + Integer.BYTES + bodyBytes.length;
+        Map<byte[], byte[]> encodedHeaders = new LinkedHashMap<>();
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            byte[] name = header.getKey().getBytes(StandardCharsets.UTF_8);
+            byte[] value = header.getValue().getBytes(StandardCharsets.UTF_8);
+            encodedHeaders.put(name, value);
+            size += Integer.BYTES * 2 + name.length + value.length;
+        }
+        
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(keyBytes.length).put(keyBytes);
+        buffer.putInt(status);
+        buffer.putInt(encodedHeaders.size());
+        for (Map.Entry<byte[], byte[]> header : encodedHeaders.entrySet()) {
+            buffer.putInt(header.getKey().length).put(header.getKey());
+            buffer.putInt(header.getValue().length).put(header.getValue());
+        }
+        buffer.putInt(bodyBytes.length).put(bodyBytes);
+        buffer.flip();
+        
+        try {
+            long offset = writePosition;
+            while (buffer.hasRemaining()) {
+                writePosition += channel.write(buffer, writePosition);
+            }
+            // Later recordings of the same request replace earlier ones
+            recordedOffsets.put(key, offset);
+            logger.debug("Recorded fixture {} ({} bytes)", key, bodyBytes.length);
+            
+        } catch (IOException e) {
+            logger.error("Failed to record fixture {}: {}", key, e.getMessage());
+        }
+    }
+    
+    /**
+     * Look up a recorded response, or null if the request was never recorded
+     */
+    public Fixture lookup(String key) {
+        if (recording) {
+            throw new IllegalStateException("Fixture store is open for recording only");
+        }
+        
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long target = hash(keyBytes);
+        
+        // Binary search for the first entry with the hash, without materialising the index
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (indexHash(mid) < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        
+        // Colliding keys sit next to each other; the key stored with each record tells them apart
+        for (int i = low; i < entryCount && indexHash(i) == target; i++) {
+            int offset = (int) mapped.getLong((int) (indexOffset + (long) i * INDEX_ENTRY_SIZE + Long.BYTES));
+            if (keyMatches(offset + Integer.BYTES, mapped.getInt(offset), keyBytes)) {
+                return readFixture(offset);
+            }
+        }
+        return null;
+    }
+    
+    private long indexHash(int entry) {
+        return mapped.getLong((int) (indexOffset + (long) entry * INDEX_ENTRY_SIZE));
+    }
+    
+    private Fixture readFixture(int offset) {
+        int position = offset;
+        
+        int keyLength = mapped.getInt(position);
+        position += Integer.BYTES + keyLength;
+        
+        int status = mapped.getInt(position);
+        position += Integer.BYTES;
+        
+        int headerCount = mapped.getInt(position);
+        position += Integer.BYTES;
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (int i = 0; i < headerCount; i++) {
+            int nameLength = mapped.getInt(position);
+            String name = readString(position + Integer.BYTES, nameLength);
+            position += Integer.BYTES + nameLength;
+            
+            int valueLength = mapped.getInt(position);
+            String value = readString(position + Integer.BYTES, valueLength);
+            position += Integer.BYTES + valueLength;
+            
+            headers.put(name, value);
+        }
+        
+        int bodyLength = mapped.getInt(position);
+        position += Integer.BYTES;
+        
+        // Body stays in the mapped region - no copy until the caller needs bytes
+        ByteBuffer body = mapped.slice(position, bodyLength).asReadOnlyBuffer();
+        return new Fixture(status, Collections.unmodifiableMap(headers), body);
+    }
+    
+    private boolean keyMatches(int position, int length, byte[] expectedKey) {
+        if (length != expectedKey.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (mapped.get(position + i) != expectedKey[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private String readString(int position, int length) {
+        byte[] bytes = new byte[length];
+        mapped.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * 64-bit FNV-1a hash used for request keys
+     */
+    static long hash(byte[] data) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : data) {
+            hash ^= (b & 0xff);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+    
+    public boolean isRecording() {
+        return recording;
+    }
+    
+    public int size() {
+        return recording ? recordedOffsets.size() : entryCount;
+    }
+    
+    /**
+     * Close the store, writing the index and footer when recording
+     */
+    @Override
+    public synchronized void close() {
+        if (!recording) {
+            mapped = null;
+            return;
+        }
+        if (channel == null || !channel.isOpen()) {
+            return;
+        }
+        
+        try {
+            ByteBuffer index = ByteBuffer.allocate(recordedOffsets.size() * INDEX_ENTRY_SIZE + FOOTER_SIZE);
+            // Signed hash order matches the replay binary search; equal hashes stay adjacent
+            long[][] entries = new long[recordedOffsets.size()][];
+            int count = 0;
+            for (Map.Entry<String, Long> entry : recordedOffsets.entrySet()) {
+                entries[count++] = new long[] {hash(entry.getKey().getBytes(StandardCharsets.UTF_8)), entry.getValue()};
+            }
+            Arrays.sort(entries, Comparator.comparingLong((long[] entry) -> entry[0]));
+            for (long[] entry : entries) {
+                index.putLong(entry[0]).putLong(entry[1]);
+            }
+            index.putLong(writePosition);
+            index.putInt(recordedOffsets.size());
+            index.putInt(FOOTER_MAGIC);
+            index.flip();
+            
+            long position = writePosition;
+            while (index.hasRemaining()) {
+                position += channel.write(index, position);
+            }
+            channel.force(true);
+            channel.close();
+            
+            logger.info("Fixture store {} closed with {} recorded responses", path, recordedOffsets.size());
+            
+        } catch (IOException e) {
+            logger.error("Failed to finalise fixture store {}: {}", path, e.getMessage());
+        }
+    }
+    
+    /**
+     * Recorded response backed by the memory-mapped archive
+     */
+    public static class Fixture {
+        final int status;
+        final Map<String, String> headers;
+        final ByteBuffer body;
+        
+        Fixture(int status, Map<String, String> headers, ByteBuffer body) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+        
+        public int status() {
+            return status;
+        }
+        
+        public Map<String, String> headers() {
+            return headers;
+        }
+        
+        /**
+         * Zero-copy read-only view of the body in the mapped file
+         */
+        public ByteBuffer body() {
+            return body.duplicate();
+        }
+        
+        /**
+         * Copy the body out of the mapped region, as required by route.fulfill
+         */
+        public byte[] bodyBytes() {
+            byte[] bytes = new byte[body.remaining()];
+            body.duplicate().get(bytes);
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package uk.pulse.interceptors;
+
+import com.microsoft.playwright.Route;
+import uk.pulse.observability.MetricsRegistry;
+import uk.pulse.observability.RunJournal;
+import uk.pulse.observability.jfr.SimulatorDecisionEvent;
+
+/**
+ * Injected delays and failures, recorded as Flight Recorder events
+ * Every simulator sleeps through here so a latency spike can be traced back to the
+ * simulator, route and sampled delay that produced it
+ */
+final class InjectedDelay {
+    
+    private InjectedDelay() {
+    }
+    
+    /**
+     * Sleep for the sampled delay on behalf of an intercepted request
+     */
+    static void sleep(String simulator, Route route, long delayMs) throws InterruptedException {
+        SimulatorDecisionEvent event = new SimulatorDecisionEvent();
+        event.begin();
+        try {
+            if (delayMs > 0) {
+                Thread.sleep(delayMs);
+            }
+        } finally {
+            RunJournal.noteInjectedDelay(route.request(), delayMs);
+            if (delayMs > 0) {
+                MetricsRegistry.increment("faults.delayed." + simulator);
+                MetricsRegistry.add("faults.delay_ms_total." + simulator, delayMs);
+            }
+            if (event.shouldCommit()) {
+                event.simulator = simulator;
+                event.method = route.request().method();
+                event.url = route.request().url();
+                event.delayMs = delayMs;
+                event.outcome = "delayed";
+                event.commit();
+            }
+        }
+    }
+    
+    /**
+     * Record that the simulator is failing the request with the given status
+     */
+    static void failed(String simulator, Route route, int status) {
+        MetricsRegistry.increment("faults.failed." + simulator);
+        commit(simulator, route, "failed", status);
+    }
+    
+    /**
+     * Record that the simulator answered the request itself (e.g. a 304 revalidation); not a fault
+     */
+    static void served(String simulator, Route route, int status) {
+        commit(simulator, route, "served", status);
+    }
+    
+    private static void commit(String simulator, Route route, String outcome, int status) {
+        SimulatorDecisionEvent event = new SimulatorDecisionEvent();
+        if (event.shouldCommit()) {
+            event.simulator = simulator;
+            event.method = route.request().method();
+            event.url = route.request().url();
+            event.outcome = outcome;
+            event.status = status;
+            event.commit();
+        }
+    }
+}
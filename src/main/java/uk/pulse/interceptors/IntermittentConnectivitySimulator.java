@@ -0,0 +1,449 @@
+package uk.pulse.interceptors;
+
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.CDPSession;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Request;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.pulse.observability.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Intermittent Connectivity Simulator for London Underground journeys
+ * Drives a per-context online/offline state machine through BrowserContext.setOffline,
+ * degrades bandwidth between outages and tracks payment attempts across each outage
+ *
+ * Playwright objects must only be used from the test thread, so setOffline cannot be
+ * called from a timer. The on/off timeline is a function of the clock instead: each
+ * request the context makes, and each slice of waitWithConnectivity, moves the context
+ * straight to the state that covers the current time, however many transitions are due.
+ */
+public class IntermittentConnectivitySimulator {
+    private static final Logger logger = LoggerFactory.getLogger(IntermittentConnectivitySimulator.class);
+    
+    // The banking app posts to /api/banking/payment; the payday API uses /api/payments/...
+    private static final String[] PAYMENT_PATHS = {"/api/banking/payment", "/api/payments/"};
+    private static final long SEED = Long.getLong("pulse.connectivity.seed", System.nanoTime());
+    private static final int WAIT_SLICE_MS = 250;
+    
+    // Explicit registry: entries are removed by clearIntermittentConnectivity or when the context closes
+    private static final Map<BrowserContext, Connectivity> contexts = new HashMap<>();
+    private static final AtomicInteger offlineContexts = new AtomicInteger();
+    private static final AtomicLong contextIndex = new AtomicLong();
+    
+    /**
+     * Start toggling the context between online and offline according to the profile
+     */
+    public static void simulateIntermittentConnectivity(BrowserContext context, ConnectivityProfile profile) {
+        logger.info("Simulating intermittent connectivity: online {}, offline {}, degraded to {} kbps / {}ms",
+            profile.online, profile.offline, profile.degradedKbps, profile.degradedLatencyMs);
+        
+        // Each context gets its own reproducible sequence, so VUs do not all lose signal at the same moment
+        Random random = new Random(SEED + contextIndex.getAndIncrement() * 0x9E3779B97F4A7C15L);
+        Connectivity connectivity = new Connectivity(context, profile, random);
+        Connectivity previous;
+        synchronized (contexts) {
+            previous = contexts.put(context, connectivity);
+        }
+        if (previous != null) {
+            previous.stop();
+        }
+        
+        context.onClose(closed -> {
+            Connectivity closing;
+            synchronized (contexts) {
+                closing = contexts.remove(closed);
+            }
+            if (closing != null) {
+                closing.stop();
+            }
+        });
+        context.pages().forEach(connectivity::degrade);
+        context.onPage(connectivity::degrade);
+        context.onRequest(connectivity::onRequest);
+        context.onRequestFinished(connectivity::onRequestFinished);
+        context.onRequestFailed(connectivity::onRequestFailed);
+    }
+    
+    /**
+     * London Underground preset: short platform windows between long tunnel outages
+     */
+    public static void simulateUnderground(BrowserContext context) {
+        simulateIntermittentConnectivity(context, ConnectivityProfile.londonUnderground());
+    }
+    
+    /**
+     * Wait on the page while keeping the connectivity state machine moving
+     */
+    public static void waitWithConnectivity(Page page, long millis) {
+        long deadline = System.currentTimeMillis() + millis;
+        while (true) {
+            advance(page.context());
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return;
+            }
+            page.waitForTimeout(Math.min(WAIT_SLICE_MS, remaining));
+        }
+    }
+    
+    /**
+     * Apply any online/offline transitions that are due for the context
+     */
+    public static void advance(BrowserContext context) {
+        Connectivity connectivity = connectivityFor(context);
+        if (connectivity != null) {
+            connectivity.advance();
+        }
+    }
+    
+    /**
+     * Close the current outage window and return per-outage payment counts
+     */
+    public static List<OutageWindow> getOutageReport(BrowserContext context) {
+        Connectivity connectivity = connectivityFor(context);
+        if (connectivity == null) {
+            return Collections.emptyList();
+        }
+        connectivity.advance();
+        connectivity.settle();
+        return Collections.unmodifiableList(new ArrayList<>(connectivity.windows));
+    }
+    
+    /**
+     * Stop the simulation and bring the context back online
+     */
+    public static void clearIntermittentConnectivity(BrowserContext context) {
+        Connectivity connectivity;
+        synchronized (contexts) {
+            connectivity = contexts.remove(context);
+        }
+        if (connectivity != null) {
+            connectivity.stop();
+            context.setOffline(false);
+            logger.info("Intermittent connectivity cleared after {} outages", connectivity.windows.size());
+        }
+    }
+    
+    private static Connectivity connectivityFor(BrowserContext context) {
+        synchronized (contexts) {
+            return contexts.get(context);
+        }
+    }
+    
+    /**
+     * Connectivity state machine for one browser context
+     */
+    private static class Connectivity {
+        final BrowserContext context;
+        final ConnectivityProfile profile;
+        final Random random;
+        final Set<String> awaitingRetry = new HashSet<>();
+        final List<OutageWindow> windows = new ArrayList<>();
+        final List<CDPSession> sessions = new ArrayList<>();
+        boolean offline;
+        boolean stopped;
+        long nextTransition;
+        OutageWindow current;
+        
+        Connectivity(BrowserContext context, ConnectivityProfile profile, Random random) {
+            this.context = context;
+            this.profile = profile;
+            this.random = random;
+            this.nextTransition = System.currentTimeMillis() + profile.online.sample(random);
+        }
+        
+        void advance() {
+            long now = System.currentTimeMillis();
+            if (stopped || now < nextTransition) {
+                return;
+            }
+            
+            // Walk the timeline to the period that covers now; periods that began and ended
+            // while nothing drove the context are skipped, not replayed against the browser
+            boolean nowOffline = offline;
+            long start = nextTransition;
+            long duration;
+            int skipped = 0;
+            while (true) {
+                nowOffline = !nowOffline;
+                duration = (nowOffline ? profile.offline : profile.online).sample(random);
+                if (start + duration > now) {
+                    break;
+                }
+                start += duration;
+                skipped++;
+            }
+            if (skipped > 0) {
+                logger.debug("Skipped {} connectivity periods that elapsed while the context was idle", skipped);
+            }
+            
+            if (offline) {
+                // The outage the context was in ended at its scheduled time
+                current.endedAt = nextTransition;
+            }
+            if (nowOffline) {
+                goOffline(start, duration);
+            } else {
+                goOnline(start, duration);
+            }
+        }
+        
+        private void goOffline(long at, long duration) {
+            settle();
+            current = new OutageWindow(windows.size() + 1, at);
+            windows.add(current);
+            nextTransition = at + duration;
+            MetricsRegistry.increment("connectivity.outages");
+            MetricsRegistry.record("connectivity.offline_ms", duration);
+            if (!offline) {
+                offline = true;
+                context.setOffline(true);
+                MetricsRegistry.gauge("connectivity.offline_contexts", offlineContexts.incrementAndGet());
+            }
+            logger.debug("Outage {} started for {}ms", current.index, duration);
+        }
+        
+        private void goOnline(long at, long duration) {
+            nextTransition = at + duration;
+            MetricsRegistry.record("connectivity.online_ms", duration);
+            if (offline) {
+                offline = false;
+                MetricsRegistry.gauge("connectivity.offline_contexts", offlineContexts.decrementAndGet());
+                context.setOffline(false);
+                // Going online resets the browser's network emulation, so reapply the degraded link
+                sessions.forEach(this::applyDegradedLink);
+                logger.debug("Outage {} ended, online for {}ms", current.index, duration);
+            }
+        }
+        
+        /**
+         * Stop transitions, settling the open outage and releasing its offline count
+         */
+        void stop() {
+            if (stopped) {
+                return;
+            }
+            settle();
+            stopped = true;
+            if (offline) {
+                MetricsRegistry.gauge("connectivity.offline_contexts", offlineContexts.decrementAndGet());
+            }
+        }
+        
+        /**
+         * Payments still awaiting a retry when the next outage starts are counted as lost
+         */
+        void settle() {
+            if (current != null && !awaitingRetry.isEmpty()) {
+                current.lost += awaitingRetry.size();
+                MetricsRegistry.add("connectivity.payments_lost", awaitingRetry.size());
+                awaitingRetry.clear();
+            }
+        }
+        
+        void onRequest(Request request) {
+            advance();
+            if (stopped || !isPayment(request)) {
+                return;
+            }
+            
+            String key = paymentKey(request);
+            if (offline) {
+                if (awaitingRetry.add(key)) {
+                    current.queued++;
+                    MetricsRegistry.increment("connectivity.payments_queued");
+                }
+            } else if (awaitingRetry.remove(key)) {
+                current.retried++;
+                MetricsRegistry.increment("connectivity.payments_retried");
+            }
+        }
+        
+        void onRequestFinished(Request request) {
+            if (!stopped && isPayment(request)) {
+                MetricsRegistry.increment("connectivity.payments_delivered");
+            }
+        }
+        
+        void onRequestFailed(Request request) {
+            if (stopped || !isPayment(request) || offline || current == null) {
+                return;
+            }
+            // Failed while nominally online (e.g. the tunnel started mid-flight): the app has to retry it
+            if (awaitingRetry.add(paymentKey(request))) {
+                current.queued++;
+                MetricsRegistry.increment("connectivity.payments_queued");
+            }
+        }
+        
+        void degrade(Page page) {
+            CDPSession session = NetworkShaper.openSession(context, page);
+            if (session == null) {
+                return;
+            }
+            sessions.add(session);
+            page.onClose(closed -> sessions.remove(session));
+            if (!offline) {
+                applyDegradedLink(session);
+            }
+        }
+        
+        private void applyDegradedLink(CDPSession session) {
+            NetworkShaper.apply(session, profile.degradedLatencyMs, profile.degradedKbps, profile.degradedKbps / 2);
+        }
+        
+        private static boolean isPayment(Request request) {
+            String url = request.url();
+            for (String path : PAYMENT_PATHS) {
+                if (url.contains(path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        private static String paymentKey(Request request) {
+            String body = request.postData();
+            return request.method() + " " + request.url() + " " + (body == null ? "" : body.hashCode());
+        }
+    }
+    
+    /**
+     * Payment attempts observed across one outage window
+     */
+    public static class OutageWindow {
+        final int index;
+        final long startedAt;
+        long endedAt;
+        int queued;
+        int retried;
+        int lost;
+        
+        OutageWindow(int index, long startedAt) {
+            this.index = index;
+            this.startedAt = startedAt;
+        }
+        
+        public int getIndex() {
+            return index;
+        }
+        
+        public long getDurationMs() {
+            return endedAt == 0 ? System.currentTimeMillis() - startedAt : endedAt - startedAt;
+        }
+        
+        public int getQueued() {
+            return queued;
+        }
+        
+        public int getRetried() {
+            return retried;
+        }
+        
+        public int getLost() {
+            return lost;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("outage %d (%dms): %d queued, %d retried, %d lost",
+                index, getDurationMs(), queued, retried, lost);
+        }
+    }
+    
+    /**
+     * Random duration in milliseconds between a lower and upper bound
+     */
+    public static class Duration {
+        final long minMs;
+        final long maxMs;
+        final double meanMs;
+        
+        private Duration(long minMs, long maxMs, double meanMs) {
+            if (minMs < 0 || maxMs < minMs) {
+                throw new IllegalArgumentException("Invalid duration bounds: " + minMs + ".." + maxMs);
+            }
+            this.minMs = minMs;
+            this.maxMs = maxMs;
+            this.meanMs = meanMs;
+        }
+        
+        /**
+         * Uniformly distributed between min and max
+         */
+        public static Duration uniform(long minMs, long maxMs) {
+            return new Duration(minMs, maxMs, Double.NaN);
+        }
+        
+        /**
+         * Exponentially distributed around the mean, clamped to min and max
+         */
+        public static Duration exponential(double meanMs, long minMs, long maxMs) {
+            return new Duration(minMs, maxMs, meanMs);
+        }
+        
+        long sample(Random random) {
+            if (Double.isNaN(meanMs)) {
+                return minMs + (long) (random.nextDouble() * (maxMs - minMs));
+            }
+            long value = (long) (-meanMs * Math.log(1.0 - random.nextDouble()));
+            return Math.max(minMs, Math.min(maxMs, value));
+        }
+        
+        @Override
+        public String toString() {
+            return Double.isNaN(meanMs)
+                ? minMs + "-" + maxMs + "ms"
+                : "~" + (long) meanMs + "ms (" + minMs + "-" + maxMs + ")";
+        }
+    }
+    
+    /**
+     * On/off duration distributions and degraded link quality while online
+     */
+    public static class ConnectivityProfile {
+        final Duration online;
+        final Duration offline;
+        final int degradedLatencyMs;
+        final int degradedKbps;
+        
+        public ConnectivityProfile(Duration online, Duration offline, int degradedLatencyMs, int degradedKbps) {
+            this.online = online;
+            this.offline = offline;
+            this.degradedLatencyMs = degradedLatencyMs;
+            this.degradedKbps = degradedKbps;
+        }
+        
+        /**
+         * Deep tube line: station Wi-Fi/4G for the dwell time, then a full tunnel outage
+         */
+        public static ConnectivityProfile londonUnderground() {
+            return new ConnectivityProfile(
+                Duration.uniform(20_000, 45_000),
+                Duration.exponential(90_000, 40_000, 180_000),
+                300, 400);
+        }
+        
+        /**
+         * Line with partial tunnel coverage: frequent short drop-outs
+         */
+        public static ConnectivityProfile patchyTunnelCoverage() {
+            return new ConnectivityProfile(
+                Duration.exponential(30_000, 5_000, 90_000),
+                Duration.uniform(3_000, 15_000),
+                150, 2_000);
+        }
+    }
+}
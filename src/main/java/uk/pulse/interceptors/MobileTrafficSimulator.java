@@ -4,6 +4,8 @@ import com.microsoft.playwright.Page;
 import com.microsoft.playwright.Route;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.pulse.observability.RunJournal;
+import uk.pulse.observability.WebVitalsCollector;
 
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -29,7 +31,7 @@ public class MobileTrafficSimulator {
         // Simulate app loading time
         page.route("**/api/app/init/**", route -> {
             try {
-                Thread.sleep(APP_STARTUP_DELAY + ThreadLocalRandom.current().nextInt(500, 1500));
+                InjectedDelay.sleep("mobile", route, APP_STARTUP_DELAY + ThreadLocalRandom.current().nextInt(500, 1500));
                 route.resume();
             } catch (InterruptedException e) {
                 logger.error("App startup simulation interrupted", e);
@@ -40,7 +42,7 @@ public class MobileTrafficSimulator {
         // Simulate initial data loading
         page.route("**/api/data/load/**", route -> {
             try {
-                Thread.sleep(MOBILE_BASE_DELAY + ThreadLocalRandom.current().nextInt(300, 800));
+                InjectedDelay.sleep("mobile", route, MOBILE_BASE_DELAY + ThreadLocalRandom.current().nextInt(300, 800));
                 route.resume();
             } catch (InterruptedException e) {
                 logger.error("Data loading simulation interrupted", e);
@@ -64,13 +66,14 @@ public class MobileTrafficSimulator {
                 // Simulate occasional mobile failures
                 if (ThreadLocalRandom.current().nextDouble() < MOBILE_FAILURE_RATE) {
                     logger.warn("Simulating mobile payment failure");
+                    InjectedDelay.failed("mobile", route, 500);
                     route.fulfill(new Route.FulfillOptions()
                         .setStatus(500)
                         .setBody("{\"error\":\"Mobile payment failed - poor connection\"}"));
                     return;
                 }
                 
-                Thread.sleep(mobileDelay);
+                InjectedDelay.sleep("mobile", route, mobileDelay);
                 route.resume();
                 
             } catch (InterruptedException e) {
@@ -82,7 +85,7 @@ public class MobileTrafficSimulator {
         // Mobile authorization with biometric/fingerprint delays
         page.route("**/api/auth/mobile/biometric/**", route -> {
             try {
-                Thread.sleep(1500 + ThreadLocalRandom.current().nextInt(500, 1500));
+                InjectedDelay.sleep("mobile", route, 1500 + ThreadLocalRandom.current().nextInt(500, 1500));
                 route.resume();
             } catch (InterruptedException e) {
                 logger.error("Biometric auth simulation interrupted", e);
@@ -96,6 +99,14 @@ public class MobileTrafficSimulator {
      */
     public static void simulateMobileNetworkConditions(Page page, String networkType) {
         logger.info("Simulating {} network conditions", networkType);
+        WebVitalsCollector.setNetwork(page.context(), networkType);
+        RunJournal.setNetwork(page.context(), networkType);
+        
+        if (networkType.equalsIgnoreCase("underground")) {
+            // Outages are modelled as real offline time rather than extra latency
+            IntermittentConnectivitySimulator.simulateUnderground(page.context());
+            return;
+        }
         
         int baseDelay;
         double failureRate;
@@ -127,11 +138,12 @@ public class MobileTrafficSimulator {
                 // Add network-specific delay
                 int delay = baseDelay + ThreadLocalRandom.current().nextInt(-200, 800);
                 if (delay > 0) {
-                    Thread.sleep(delay);
+                    InjectedDelay.sleep("mobile", route, delay);
                 }
                 
                 // Simulate network failures
                 if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+                    InjectedDelay.failed("mobile", route, 503);
                     route.fulfill(new Route.FulfillOptions()
                         .setStatus(503)
                         .setBody("{\"error\":\"Network unavailable\"}"));
@@ -156,7 +168,7 @@ public class MobileTrafficSimulator {
         // Background mode - reduced network activity
         page.route("**/api/sync/**", route -> {
             try {
-                Thread.sleep(2000 + ThreadLocalRandom.current().nextInt(1000, 3000));
+                InjectedDelay.sleep("mobile", route, 2000 + ThreadLocalRandom.current().nextInt(1000, 3000));
                 route.resume();
             } catch (InterruptedException e) {
                 logger.error("Background sync simulation interrupted", e);
@@ -181,13 +193,14 @@ public class MobileTrafficSimulator {
                 // Higher failure rate during mobile peak hours
                 double peakFailureRate = MOBILE_FAILURE_RATE * 1.5;
                 if (ThreadLocalRandom.current().nextDouble() < peakFailureRate) {
+                    InjectedDelay.failed("mobile", route, 503);
                     route.fulfill(new Route.FulfillOptions()
                         .setStatus(503)
                         .setBody("{\"error\":\"Service unavailable - high mobile traffic\"}"));
                     return;
                 }
                 
-                Thread.sleep(paydayDelay);
+                InjectedDelay.sleep("mobile", route, paydayDelay);
                 route.resume();
                 
             } catch (InterruptedException e) {
@@ -199,7 +212,7 @@ public class MobileTrafficSimulator {
         // Mobile balance check with caching delays
         page.route("**/api/balance/**", route -> {
             try {
-                Thread.sleep(MOBILE_BASE_DELAY + ThreadLocalRandom.current().nextInt(200, 600));
+                InjectedDelay.sleep("mobile", route, MOBILE_BASE_DELAY + ThreadLocalRandom.current().nextInt(200, 600));
                 route.resume();
             } catch (InterruptedException e) {
                 logger.error("Balance check simulation interrupted", e);
@@ -232,7 +245,7 @@ public class MobileTrafficSimulator {
         // Slower network requests in battery saving mode
         page.route("**/api/**", route -> {
             try {
-                Thread.sleep(MOBILE_BASE_DELAY * 2 + ThreadLocalRandom.current().nextInt(500, 1500));
+                InjectedDelay.sleep("mobile", route, MOBILE_BASE_DELAY * 2 + ThreadLocalRandom.current().nextInt(500, 1500));
                 route.resume();
             } catch (InterruptedException e) {
                 logger.error("Battery saving mode simulation interrupted", e);
@@ -247,5 +260,6 @@ public class MobileTrafficSimulator {
     public static void clearMobileSimulations(Page page) {
         logger.info("Clearing mobile simulations");
         page.unroute("**/api/**");
+        IntermittentConnectivitySimulator.clearIntermittentConnectivity(page.context());
     }
 }
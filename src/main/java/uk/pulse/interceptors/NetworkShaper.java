@@ -0,0 +1,87 @@
+package uk.pulse.interceptors;
+
+import com.google.gson.JsonObject;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.CDPSession;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.PlaywrightException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Network Shaper for browser-level latency and bandwidth emulation
+ * Uses Chromium's DevTools network conditions so the whole page load - not just
+ * intercepted API routes - sees the configured RTT and throughput
+ */
+public class NetworkShaper {
+    private static final Logger logger = LoggerFactory.getLogger(NetworkShaper.class);
+    
+    private static final Map<Page, CDPSession> sessions = new WeakHashMap<>();
+    
+    /**
+     * Shape every current and future page of the context
+     */
+    public static void shapeContext(BrowserContext context, int latencyMs, int downloadKbps, int uploadKbps) {
+        logger.info("Shaping network to {}ms RTT, {}/{} kbps", latencyMs, downloadKbps, uploadKbps);
+        
+        context.pages().forEach(page -> shapePage(context, page, latencyMs, downloadKbps, uploadKbps));
+        context.onPage(page -> shapePage(context, page, latencyMs, downloadKbps, uploadKbps));
+    }
+    
+    /**
+     * The page's shaping DevTools session, opened on first use (null when the engine has no CDP)
+     * Regional shaping and connectivity outages share it, so the latest conditions applied win
+     */
+    static CDPSession openSession(BrowserContext context, Page page) {
+        synchronized (sessions) {
+            CDPSession session = sessions.get(page);
+            if (session != null) {
+                return session;
+            }
+        }
+        
+        CDPSession session;
+        try {
+            session = context.newCDPSession(page);
+        } catch (PlaywrightException e) {
+            // CDP is Chromium-only; other engines run unshaped
+            logger.warn("Network shaping unavailable: {}", e.getMessage());
+            return null;
+        }
+        synchronized (sessions) {
+            sessions.put(page, session);
+        }
+        page.onClose(closed -> {
+            synchronized (sessions) {
+                sessions.remove(closed);
+            }
+        });
+        return session;
+    }
+    
+    /**
+     * Apply latency and throughput to an open DevTools session
+     */
+    static void apply(CDPSession session, int latencyMs, int downloadKbps, int uploadKbps) {
+        JsonObject conditions = new JsonObject();
+        conditions.addProperty("offline", false);
+        conditions.addProperty("latency", latencyMs);
+        conditions.addProperty("downloadThroughput", downloadKbps * 1024 / 8);
+        conditions.addProperty("uploadThroughput", uploadKbps * 1024 / 8);
+        try {
+            session.send("Network.emulateNetworkConditions", conditions);
+        } catch (PlaywrightException e) {
+            logger.debug("Could not apply network conditions: {}", e.getMessage());
+        }
+    }
+    
+    private static void shapePage(BrowserContext context, Page page, int latencyMs, int downloadKbps, int uploadKbps) {
+        CDPSession session = openSession(context, page);
+        if (session != null) {
+            apply(session, latencyMs, downloadKbps, uploadKbps);
+        }
+    }
+}
@@ -16,9 +16,13 @@ public class PaydayTrafficSimulator {
     
     // Payday Friday specific constants
     private static final int BASE_DELAY_MS = 1500; // Base server load delay
-    private static final int PEAK_DELAY_VARIATION = 2000; // Additional delay during peak
-    private static final double FAILURE_RATE = 0.01; // 1% failure rate during normal payday
-    private static final double PEAK_FAILURE_RATE = 0.05; // 5% failure rate during peak 9 AM
+    private static final double PEAK_LOAD_FACTOR = 1.5; // Upstream slowdown during peak 9 AM
+    private static final double EXTREME_LOAD_FACTOR = 2.5; // Upstream slowdown under extreme stress
+    private static final double PEAK_FAILURE_RATE = 0.05; // 5% of payments fail during peak 9 AM
+    private static final double NORMAL_FAILURE_RATE = 0.01; // 1% of payments fail outside the peak
+    private static final double EXTREME_FAILURE_RATE = 0.10; // 10% of payments fail under extreme stress
+    
+    private static final DependencyGraph PAYMENT_GRAPH = DependencyGraph.paydayPayment();
     
     /**
      * Simulates Payday Friday 9:00 AM traffic conditions
@@ -26,37 +30,19 @@ public class PaydayTrafficSimulator {
     public static void applyPaydayFridayTraffic(Page page) {
         logger.info("Applying Payday Friday 9:00 AM traffic simulation");
         
-        // Intercept payment processing APIs
-        page.route("**/api/payments/**", route -> {
-            try {
-                // Simulate server load during payday
-                int delay = calculatePaydayDelay();
-                logger.debug("Payday payment delay: {}ms", delay);
-                Thread.sleep(delay);
-                
-                // Simulate occasional failures during peak load
-                if (shouldSimulateFailure()) {
-                    logger.warn("Simulating payment failure during peak load");
-                    route.fulfill(new Route.FulfillOptions()
-                        .setStatus(500)
-                        .setBody("{\"error\":\"Payment processing failed due to high load\"}"));
-                    return;
-                }
-                
-                route.resume();
-                
-            } catch (InterruptedException e) {
-                logger.error("Payday traffic simulation interrupted", e);
-                route.abort();
-            }
-        });
+        // Payments fan out to auth, fraud, 3DS, scheme and ledger upstreams
+        if (isPeakHour()) {
+            applyPaymentFanOut(page, PAYMENT_GRAPH, PEAK_LOAD_FACTOR, PEAK_FAILURE_RATE);
+        } else {
+            applyPaymentFanOut(page, PAYMENT_GRAPH, 1.0, NORMAL_FAILURE_RATE);
+        }
         
         // Intercept transaction authorization APIs
         page.route("**/api/transactions/authorize/**", route -> {
             try {
                 int delay = calculateAuthorizationDelay();
                 logger.debug("Authorization delay: {}ms", delay);
-                Thread.sleep(delay);
+                InjectedDelay.sleep("payday", route, delay);
                 route.resume();
                 
             } catch (InterruptedException e) {
@@ -70,7 +56,7 @@ public class PaydayTrafficSimulator {
             try {
                 int delay = calculateBalanceCheckDelay();
                 logger.debug("Balance check delay: {}ms", delay);
-                Thread.sleep(delay);
+                InjectedDelay.sleep("payday", route, delay);
                 route.resume();
                 
             } catch (InterruptedException e) {
@@ -81,10 +67,62 @@ public class PaydayTrafficSimulator {
     }
     
     /**
-     * Calculate delay for payment processing during payday
+     * Route payments through a dependency graph: sleep for the sampled critical path,
+     * then either resume or fail with the status of the upstream that broke; payments
+     * fail at whatever rate the graph itself produces at the load factor
      */
-    private static int calculatePaydayDelay() {
-        return BASE_DELAY_MS + ThreadLocalRandom.current().nextInt(0, PEAK_DELAY_VARIATION);
+    public static void applyPaymentFanOut(Page page, DependencyGraph graph, double loadFactor) {
+        applyPaymentFanOut(page, graph, loadFactor, 0.0);
+    }
+    
+    /**
+     * Route payments through a dependency graph so that the target share of payments fails:
+     * below the graph's own failure rate extra requests are shed at the gateway, above it
+     * the excess upstream failures are absorbed as if the gateway retried them successfully
+     */
+    public static void applyPaymentFanOut(Page page, DependencyGraph graph, double loadFactor, double targetFailureRate) {
+        double upstreamFailureRate = targetFailureRate > 0 ? graph.estimateFailureRate(loadFactor, 20_000) : 0.0;
+        // P(fail) = f + (1 - f) * shed, solved for shed
+        double shedRate = upstreamFailureRate >= targetFailureRate || upstreamFailureRate >= 1.0
+            ? 0.0 : (targetFailureRate - upstreamFailureRate) / (1.0 - upstreamFailureRate);
+        // P(fail) = f * surface when the graph alone already fails more than the target
+        double surfaceRate = upstreamFailureRate > targetFailureRate && targetFailureRate > 0
+            ? targetFailureRate / upstreamFailureRate : 1.0;
+        logger.info("Applying {} dependency fan-out at load factor {} (upstream failures {}%, shedding {}%, absorbing {}%)",
+            graph.getName(), loadFactor, String.format("%.1f", upstreamFailureRate * 100),
+            String.format("%.1f", shedRate * 100), String.format("%.1f", (1.0 - surfaceRate) * 100));
+        
+        page.route("**/api/payments/**", route -> {
+            try {
+                DependencyGraph.Outcome outcome = graph.sample(ThreadLocalRandom.current(), loadFactor);
+                logger.debug("Payment fan-out: {}ms, dominated by {}", outcome.getLatencyMs(),
+                    outcome.dominantHop() == null ? "none" : outcome.dominantHop().getHop());
+                InjectedDelay.sleep("payday", route, outcome.getLatencyMs());
+                
+                if (!outcome.isFailed() && ThreadLocalRandom.current().nextDouble() < shedRate) {
+                    InjectedDelay.failed("payday", route, 503);
+                    route.fulfill(new Route.FulfillOptions()
+                        .setStatus(503)
+                        .setBody("{\"error\":\"Service temporarily unavailable - high load\"}"));
+                    return;
+                }
+                
+                if (outcome.isFailed() && ThreadLocalRandom.current().nextDouble() < surfaceRate) {
+                    logger.warn("Simulating payment failure in upstream {}", outcome.getFailedHop());
+                    InjectedDelay.failed("payday", route, outcome.getFailureStatus());
+                    route.fulfill(new Route.FulfillOptions()
+                        .setStatus(outcome.getFailureStatus())
+                        .setBody("{\"error\":\"Payment processing failed\",\"upstream\":\"" + outcome.getFailedHop() + "\"}"));
+                    return;
+                }
+                
+                route.resume();
+                
+            } catch (InterruptedException e) {
+                logger.error("Payment fan-out simulation interrupted", e);
+                route.abort();
+            }
+        });
     }
     
     /**
@@ -101,15 +139,6 @@ public class PaydayTrafficSimulator {
         return (BASE_DELAY_MS / 3) + ThreadLocalRandom.current().nextInt(100, 400);
     }
     
-    /**
-     * Determine if we should simulate a failure based on current load
-     */
-    private static boolean shouldSimulateFailure() {
-        // Higher failure rate during peak 9 AM hour
-        double currentFailureRate = isPeakHour() ? PEAK_FAILURE_RATE : FAILURE_RATE;
-        return ThreadLocalRandom.current().nextDouble() < currentFailureRate;
-    }
-    
     /**
      * Check if it's currently peak hour (9:00 AM)
      */
@@ -124,28 +153,7 @@ public class PaydayTrafficSimulator {
     public static void applyExtremePaydayStress(Page page) {
         logger.info("Applying extreme Payday Friday stress conditions");
         
-        page.route("**/api/payments/**", route -> {
-            try {
-                // Extreme delay conditions
-                int extremeDelay = BASE_DELAY_MS * 2 + ThreadLocalRandom.current().nextInt(1000, 3000);
-                logger.debug("Extreme stress delay: {}ms", extremeDelay);
-                Thread.sleep(extremeDelay);
-                
-                // Higher failure rate during extreme stress
-                if (ThreadLocalRandom.current().nextDouble() < 0.10) { // 10% failure rate
-                    route.fulfill(new Route.FulfillOptions()
-                        .setStatus(503)
-                        .setBody("{\"error\":\"Service temporarily unavailable - high load\"}"));
-                    return;
-                }
-                
-                route.resume();
-                
-            } catch (InterruptedException e) {
-                logger.error("Extreme stress simulation interrupted", e);
-                route.abort();
-            }
-        });
+        applyPaymentFanOut(page, PAYMENT_GRAPH, EXTREME_LOAD_FACTOR, EXTREME_FAILURE_RATE);
     }
     
     /**
@@ -1,10 +1,21 @@
 package uk.pulse.interceptors;
 
+import com.microsoft.playwright.APIResponse;
 import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Request;
 import com.microsoft.playwright.Route;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.pulse.observability.MetricsRegistry;
 
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -19,6 +30,40 @@ public class RealAppTrafficSimulator {
     private static final int API_CALL_DELAY = 800;  // API call delay
     private static final int IMAGE_LOAD_DELAY = 1200;  // Image loading delay
     private static final double REAL_APP_FAILURE_RATE = 0.03;  // 3% failure rate
+    private static final int CACHE_HIT_DELAY = 50;  // Edge cache latency
+    private static final int MAX_PAYLOAD_ROWS = Integer.getInteger("pulse.payload.max-rows", 100_000);
+    private static final String[] CACHEABLE_PATHS = System.getProperty(
+        "pulse.cache.paths", "/api/app/config,/api/products,/api/banking/accounts").split(",");
+    
+    // Record/replay configuration
+    private static final TrafficMode TRAFFIC_MODE = TrafficMode.parse(System.getProperty("pulse.traffic.mode", "live"));
+    private static final Path FIXTURE_PATH = Paths.get(
+        System.getProperty("pulse.fixture.path", "target/fixtures/real-app-traffic.pfx"));
+    private static FixtureStore fixtureStore;
+    private static boolean fixtureStoreOpened;
+    private static ResponseCache sharedCache;
+    
+    /**
+     * How intercepted banking and retail API calls reach a response
+     */
+    public enum TrafficMode {
+        LIVE,    // resume into whatever backend is running
+        RECORD,  // fetch from the backend and capture into the fixture store
+        REPLAY;  // serve from the fixture store without touching a backend
+        
+        /**
+         * Parse a pulse.traffic.mode value case-insensitively, naming the allowed values if it is unknown
+         */
+        static TrafficMode parse(String value) {
+            for (TrafficMode mode : values()) {
+                if (mode.name().equalsIgnoreCase(value.trim())) {
+                    return mode;
+                }
+            }
+            throw new IllegalArgumentException("Unknown pulse.traffic.mode '" + value + "', expected one of "
+                + Arrays.toString(values()).toLowerCase(Locale.ROOT));
+        }
+    }
     
     /**
      * Simulate real app startup and initial loading
@@ -29,7 +74,7 @@ public class RealAppTrafficSimulator {
         // Simulate app initialization
         page.route("**/api/app/init", route -> {
             try {
-                Thread.sleep(REAL_APP_BASE_DELAY + ThreadLocalRandom.current().nextInt(200, 800));
+                InjectedDelay.sleep("real_app", route, REAL_APP_BASE_DELAY + ThreadLocalRandom.current().nextInt(200, 800));
                 route.resume();
             } catch (InterruptedException e) {
                 logger.error("App startup simulation interrupted", e);
@@ -40,7 +85,7 @@ public class RealAppTrafficSimulator {
         // Simulate user data loading
         page.route("**/api/user/profile", route -> {
             try {
-                Thread.sleep(API_CALL_DELAY + ThreadLocalRandom.current().nextInt(300, 1000));
+                InjectedDelay.sleep("real_app", route, API_CALL_DELAY + ThreadLocalRandom.current().nextInt(300, 1000));
                 route.resume();
             } catch (InterruptedException e) {
                 logger.error("User data loading interrupted", e);
@@ -51,7 +96,7 @@ public class RealAppTrafficSimulator {
         // Simulate configuration loading
         page.route("**/api/app/config", route -> {
             try {
-                Thread.sleep(REAL_APP_BASE_DELAY + ThreadLocalRandom.current().nextInt(100, 500));
+                InjectedDelay.sleep("real_app", route, REAL_APP_BASE_DELAY + ThreadLocalRandom.current().nextInt(100, 500));
                 route.resume();
             } catch (InterruptedException e) {
                 logger.error("Config loading interrupted", e);
@@ -60,6 +105,16 @@ public class RealAppTrafficSimulator {
         });
     }
     
+    /**
+     * Simulate app startup with per-origin connection setup costs on top
+     * A fresh context pays DNS, TCP and TLS on each origin; reuse the context for a warm start
+     */
+    public static void simulateRealAppStartup(Page page, String appName,
+                                              ConnectionSimulator.ConnectionProfile connectionProfile) {
+        simulateRealAppStartup(page, appName);
+        ConnectionSimulator.simulateConnectionSetup(page, connectionProfile);
+    }
+    
     /**
      * Simulate real banking app API calls
      */
@@ -69,8 +124,8 @@ public class RealAppTrafficSimulator {
         // Banking API endpoints
         page.route("**/api/banking/accounts", route -> {
             try {
-                Thread.sleep(API_CALL_DELAY + ThreadLocalRandom.current().nextInt(400, 1200));
-                route.resume();
+                InjectedDelay.sleep("real_app", route, API_CALL_DELAY + ThreadLocalRandom.current().nextInt(400, 1200));
+                completeRoute(route);
             } catch (InterruptedException e) {
                 logger.error("Accounts API interrupted", e);
                 route.abort();
@@ -80,8 +135,8 @@ public class RealAppTrafficSimulator {
         // Balance check API
         page.route("**/api/banking/balance", route -> {
             try {
-                Thread.sleep(API_CALL_DELAY + ThreadLocalRandom.current().nextInt(200, 600));
-                route.resume();
+                InjectedDelay.sleep("real_app", route, API_CALL_DELAY + ThreadLocalRandom.current().nextInt(200, 600));
+                completeRoute(route);
             } catch (InterruptedException e) {
                 logger.error("Balance check interrupted", e);
                 route.abort();
@@ -91,8 +146,8 @@ public class RealAppTrafficSimulator {
         // Transaction history
         page.route("**/api/banking/transactions", route -> {
             try {
-                Thread.sleep(API_CALL_DELAY + ThreadLocalRandom.current().nextInt(500, 1500));
-                route.resume();
+                InjectedDelay.sleep("real_app", route, API_CALL_DELAY + ThreadLocalRandom.current().nextInt(500, 1500));
+                completeRoute(route);
             } catch (InterruptedException e) {
                 logger.error("Transaction history interrupted", e);
                 route.abort();
@@ -106,14 +161,15 @@ public class RealAppTrafficSimulator {
                 
                 // Simulate occasional payment failures
                 if (ThreadLocalRandom.current().nextDouble() < REAL_APP_FAILURE_RATE) {
+                    InjectedDelay.failed("real_app", route, 503);
                     route.fulfill(new Route.FulfillOptions()
                         .setStatus(503)
                         .setBody("{\"error\":\"Payment service temporarily unavailable\"}"));
                     return;
                 }
                 
-                Thread.sleep(paymentDelay);
-                route.resume();
+                InjectedDelay.sleep("real_app", route, paymentDelay);
+                completeRoute(route);
                 
             } catch (InterruptedException e) {
                 logger.error("Payment processing interrupted", e);
@@ -124,8 +180,8 @@ public class RealAppTrafficSimulator {
         // Transfer API
         page.route("**/api/banking/transfer", route -> {
             try {
-                Thread.sleep(API_CALL_DELAY * 2 + ThreadLocalRandom.current().nextInt(800, 2000));
-                route.resume();
+                InjectedDelay.sleep("real_app", route, API_CALL_DELAY * 2 + ThreadLocalRandom.current().nextInt(800, 2000));
+                completeRoute(route);
             } catch (InterruptedException e) {
                 logger.error("Transfer API interrupted", e);
                 route.abort();
@@ -142,8 +198,8 @@ public class RealAppTrafficSimulator {
         // Product catalog
         page.route("**/api/products", route -> {
             try {
-                Thread.sleep(API_CALL_DELAY + ThreadLocalRandom.current().nextInt(300, 800));
-                route.resume();
+                InjectedDelay.sleep("real_app", route, API_CALL_DELAY + ThreadLocalRandom.current().nextInt(300, 800));
+                completeRoute(route);
             } catch (InterruptedException e) {
                 logger.error("Product catalog interrupted", e);
                 route.abort();
@@ -153,8 +209,8 @@ public class RealAppTrafficSimulator {
         // Product details
         page.route("**/api/products/*", route -> {
             try {
-                Thread.sleep(API_CALL_DELAY + ThreadLocalRandom.current().nextInt(200, 600));
-                route.resume();
+                InjectedDelay.sleep("real_app", route, API_CALL_DELAY + ThreadLocalRandom.current().nextInt(200, 600));
+                completeRoute(route);
             } catch (InterruptedException e) {
                 logger.error("Product details interrupted", e);
                 route.abort();
@@ -164,8 +220,8 @@ public class RealAppTrafficSimulator {
         // Shopping cart
         page.route("**/api/cart", route -> {
             try {
-                Thread.sleep(API_CALL_DELAY + ThreadLocalRandom.current().nextInt(400, 1000));
-                route.resume();
+                InjectedDelay.sleep("real_app", route, API_CALL_DELAY + ThreadLocalRandom.current().nextInt(400, 1000));
+                completeRoute(route);
             } catch (InterruptedException e) {
                 logger.error("Shopping cart interrupted", e);
                 route.abort();
@@ -176,8 +232,8 @@ public class RealAppTrafficSimulator {
         page.route("**/api/checkout", route -> {
             try {
                 int checkoutDelay = API_CALL_DELAY * 3 + ThreadLocalRandom.current().nextInt(1000, 3000);
-                Thread.sleep(checkoutDelay);
-                route.resume();
+                InjectedDelay.sleep("real_app", route, checkoutDelay);
+                completeRoute(route);
             } catch (InterruptedException e) {
                 logger.error("Checkout process interrupted", e);
                 route.abort();
@@ -185,6 +241,77 @@ public class RealAppTrafficSimulator {
         });
     }
     
+    /**
+     * Simulate large statement and catalogue payloads on the transactions and products endpoints
+     * Sizes can be overridden per request with a ?rows= query parameter
+     */
+    public static void simulateLargePayloads(Page page, int transactionRows, int productCount, long seed) {
+        logger.info("Simulating large payloads: {} transactions, {} products (seed {})", transactionRows, productCount, seed);
+        
+        page.route("**/api/banking/transactions*", route -> {
+            try {
+                InjectedDelay.sleep("real_app", route, API_CALL_DELAY + ThreadLocalRandom.current().nextInt(500, 1500));
+                int rows = requestedRows(route.request().url(), transactionRows);
+                fulfillGenerated(route, "transactions", SyntheticPayloadGenerator.generateTransactions(seed, rows));
+            } catch (InterruptedException e) {
+                logger.error("Transaction history interrupted", e);
+                route.abort();
+            }
+        });
+        
+        page.route("**/api/products*", route -> {
+            try {
+                InjectedDelay.sleep("real_app", route, API_CALL_DELAY + ThreadLocalRandom.current().nextInt(300, 800));
+                int count = requestedRows(route.request().url(), productCount);
+                fulfillGenerated(route, "products", SyntheticPayloadGenerator.generateProducts(seed, count));
+            } catch (InterruptedException e) {
+                logger.error("Product catalog interrupted", e);
+                route.abort();
+            }
+        });
+    }
+    
+    private static void fulfillGenerated(Route route, String payloadName, SyntheticPayloadGenerator.PayloadBuffer buffer) {
+        try {
+            MetricsRegistry.record("payload.bytes." + payloadName, buffer.size());
+            SimulatedResponse response = new SimulatedResponse(200,
+                Map.of("content-type", "application/json", "cache-control", "private, max-age=0"),
+                buffer.toByteArray());
+            route.fulfill(ResponseCompressor.encodeFor(route.request(), response).toFulfillOptions());
+        } finally {
+            buffer.release();
+        }
+    }
+    
+    /**
+     * Row count from the exact rows= query parameter, clamped to pulse.payload.max-rows (default on bad input)
+     */
+    private static int requestedRows(String url, int defaultRows) {
+        String query;
+        try {
+            query = URI.create(url).getRawQuery();
+        } catch (IllegalArgumentException e) {
+            return defaultRows;
+        }
+        if (query == null) {
+            return defaultRows;
+        }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals < 0 || !parameter.substring(0, equals).equals("rows")) {
+                continue;
+            }
+            try {
+                int rows = Integer.parseInt(parameter.substring(equals + 1));
+                return rows < 0 ? defaultRows : Math.min(rows, MAX_PAYLOAD_ROWS);
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring bad rows parameter in {}", url);
+                return defaultRows;
+            }
+        }
+        return defaultRows;
+    }
+    
     /**
      * Simulate real app network conditions (4G, 5G, WiFi)
      */
@@ -225,11 +352,12 @@ public class RealAppTrafficSimulator {
                 // Add network-specific delay
                 int delay = baseDelay + ThreadLocalRandom.current().nextInt(-100, 500);
                 if (delay > 0) {
-                    Thread.sleep(delay);
+                    InjectedDelay.sleep("real_app", route, delay);
                 }
                 
                 // Simulate network failures
                 if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+                    InjectedDelay.failed("real_app", route, 503);
                     route.fulfill(new Route.FulfillOptions()
                         .setStatus(503)
                         .setBody("{\"error\":\"Network unavailable\"}"));
@@ -254,7 +382,7 @@ public class RealAppTrafficSimulator {
         // Image loading
         page.route("**/*.jpg", route -> {
             try {
-                Thread.sleep(IMAGE_LOAD_DELAY + ThreadLocalRandom.current().nextInt(200, 800));
+                InjectedDelay.sleep("real_app", route, IMAGE_LOAD_DELAY + ThreadLocalRandom.current().nextInt(200, 800));
                 route.resume();
             } catch (InterruptedException e) {
                 logger.error("Image loading interrupted", e);
@@ -265,7 +393,7 @@ public class RealAppTrafficSimulator {
         // PNG loading
         page.route("**/*.png", route -> {
             try {
-                Thread.sleep(IMAGE_LOAD_DELAY + ThreadLocalRandom.current().nextInt(100, 600));
+                InjectedDelay.sleep("real_app", route, IMAGE_LOAD_DELAY + ThreadLocalRandom.current().nextInt(100, 600));
                 route.resume();
             } catch (InterruptedException e) {
                 logger.error("PNG loading interrupted", e);
@@ -276,7 +404,7 @@ public class RealAppTrafficSimulator {
         // Video loading
         page.route("**/*.mp4", route -> {
             try {
-                Thread.sleep(IMAGE_LOAD_DELAY * 2 + ThreadLocalRandom.current().nextInt(500, 1500));
+                InjectedDelay.sleep("real_app", route, IMAGE_LOAD_DELAY * 2 + ThreadLocalRandom.current().nextInt(500, 1500));
                 route.resume();
             } catch (InterruptedException e) {
                 logger.error("Video loading interrupted", e);
@@ -286,33 +414,103 @@ public class RealAppTrafficSimulator {
     }
     
     /**
-     * Simulate real app caching behavior
+     * Simulate real app caching behavior through the shared CDN/API gateway cache
      */
     public static void simulateRealAppCaching(Page page) {
-        logger.info("Simulating real app caching behavior");
+        simulateRealAppCaching(page, getSharedCache());
+    }
+    
+    /**
+     * Simulate real app caching behavior through the given cache
+     * Only GETs under pulse.cache.paths are cached; everything else falls through to the other simulators
+     */
+    public static void simulateRealAppCaching(Page page, ResponseCache cache) {
+        logger.info("Simulating real app caching behavior with cache {}", cache.getName());
         
-        // Simulate cache hits (faster responses)
-        page.route("**/api/cached/**", route -> {
+        page.route("**/api/**", route -> {
             try {
-                // Cache hits are much faster
-                Thread.sleep(50 + ThreadLocalRandom.current().nextInt(50, 200));
-                route.resume();
+                Request request = route.request();
+                
+                // Only safe requests to cacheable paths are served from cache
+                if (!"GET".equals(request.method()) || !isCacheable(request.url())) {
+                    route.fallback();
+                    return;
+                }
+                
+                String key = cache.key(request);
+                ResponseCache.CachedResponse cached = cache.lookup(key);
+                
+                if (cached != null) {
+                    // Cache hits are much faster
+                    InjectedDelay.sleep("real_app", route, CACHE_HIT_DELAY + ThreadLocalRandom.current().nextInt(50, 200));
+                    
+                    if (cached.matches(request.headerValue("if-none-match"))) {
+                        cache.recordNotModified();
+                        InjectedDelay.served("real_app", route, 304);
+                        route.fulfill(new Route.FulfillOptions()
+                            .setStatus(304)
+                            .setHeaders(Map.of("etag", ResponseCompressor.etagFor(request, cached.response(), cached.etag()))));
+                        return;
+                    }
+                    InjectedDelay.served("real_app", route, cached.response().status());
+                    route.fulfill(ResponseCompressor.encodeFor(request,
+                        withEtag(cached.response(), cached.etag())).toFulfillOptions());
+                    return;
+                }
+                
+                // Cache misses go to the origin
+                InjectedDelay.sleep("real_app", route, API_CALL_DELAY + ThreadLocalRandom.current().nextInt(500, 1500));
+                SimulatedResponse upstream = fetchUpstream(route);
+                ResponseCache.CachedResponse stored = cache.store(key, upstream);
+                SimulatedResponse served = stored != null ? withEtag(upstream, stored.etag()) : upstream;
+                if (stored != null) {
+                    // Later hits may negotiate either encoding; encode both now rather than on those hits
+                    ResponseCompressor.precompress(served);
+                }
+                route.fulfill(ResponseCompressor.encodeFor(request, served).toFulfillOptions());
+                
             } catch (InterruptedException e) {
                 logger.error("Cache simulation interrupted", e);
                 route.abort();
             }
         });
-        
-        // Simulate cache misses (slower responses)
-        page.route("**/api/uncached/**", route -> {
-            try {
-                Thread.sleep(API_CALL_DELAY + ThreadLocalRandom.current().nextInt(500, 1500));
-                route.resume();
-            } catch (InterruptedException e) {
-                logger.error("Cache miss simulation interrupted", e);
-                route.abort();
+    }
+    
+    private static boolean isCacheable(String url) {
+        String path;
+        try {
+            path = URI.create(url).getPath();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        for (String prefix : CACHEABLE_PATHS) {
+            if (path != null && path.startsWith(prefix.trim())) {
+                return true;
             }
-        });
+        }
+        return false;
+    }
+    
+    /**
+     * Shared cache modelling the CDN in front of every simulated user
+     */
+    public static synchronized ResponseCache getSharedCache() {
+        if (sharedCache == null) {
+            sharedCache = new ResponseCache("cdn",
+                Integer.getInteger("pulse.cache.max-entries", 1000),
+                Long.getLong("pulse.cache.ttl-ms", 30000L),
+                "Accept", "Accept-Encoding", "Authorization");
+        }
+        return sharedCache;
+    }
+    
+    private static SimulatedResponse withEtag(SimulatedResponse response, String etag) {
+        if (response.header("etag") != null) {
+            return response;
+        }
+        Map<String, String> headers = new LinkedHashMap<>(response.headers());
+        headers.put("etag", etag);
+        return new SimulatedResponse(response.status(), headers, response.body());
     }
     
     /**
@@ -324,7 +522,7 @@ public class RealAppTrafficSimulator {
         // Background sync operations
         page.route("**/api/sync/**", route -> {
             try {
-                Thread.sleep(REAL_APP_BASE_DELAY * 3 + ThreadLocalRandom.current().nextInt(1000, 3000));
+                InjectedDelay.sleep("real_app", route, REAL_APP_BASE_DELAY * 3 + ThreadLocalRandom.current().nextInt(1000, 3000));
                 route.resume();
             } catch (InterruptedException e) {
                 logger.error("Background sync interrupted", e);
@@ -342,7 +540,7 @@ public class RealAppTrafficSimulator {
         // Push notification registration
         page.route("**/api/notifications/register", route -> {
             try {
-                Thread.sleep(API_CALL_DELAY + ThreadLocalRandom.current().nextInt(200, 600));
+                InjectedDelay.sleep("real_app", route, API_CALL_DELAY + ThreadLocalRandom.current().nextInt(200, 600));
                 route.resume();
             } catch (InterruptedException e) {
                 logger.error("Push notification registration interrupted", e);
@@ -353,7 +551,7 @@ public class RealAppTrafficSimulator {
         // Notification fetching
         page.route("**/api/notifications/fetch", route -> {
             try {
-                Thread.sleep(API_CALL_DELAY + ThreadLocalRandom.current().nextInt(100, 400));
+                InjectedDelay.sleep("real_app", route, API_CALL_DELAY + ThreadLocalRandom.current().nextInt(100, 400));
                 route.resume();
             } catch (InterruptedException e) {
                 logger.error("Notification fetching interrupted", e);
@@ -372,7 +570,7 @@ public class RealAppTrafficSimulator {
         page.route("**/api/analytics/track", route -> {
             try {
                 // Analytics should be very fast to not impact user experience
-                Thread.sleep(50 + ThreadLocalRandom.current().nextInt(50, 200));
+                InjectedDelay.sleep("real_app", route, 50 + ThreadLocalRandom.current().nextInt(50, 200));
                 route.resume();
             } catch (InterruptedException e) {
                 logger.error("Analytics tracking interrupted", e);
@@ -383,7 +581,7 @@ public class RealAppTrafficSimulator {
         // Crash reporting
         page.route("**/api/crash/report", route -> {
             try {
-                Thread.sleep(API_CALL_DELAY + ThreadLocalRandom.current().nextInt(200, 500));
+                InjectedDelay.sleep("real_app", route, API_CALL_DELAY + ThreadLocalRandom.current().nextInt(200, 500));
                 route.resume();
             } catch (InterruptedException e) {
                 logger.error("Crash reporting interrupted", e);
@@ -398,8 +596,81 @@ public class RealAppTrafficSimulator {
     public static void clearRealAppSimulations(Page page) {
         logger.info("Clearing real app simulations");
         page.unroute("**/api/**");
+        page.unroute("**/api/banking/transactions*");
+        page.unroute("**/api/products*");
         page.unroute("**/*.jpg");
         page.unroute("**/*.png");
         page.unroute("**/*.mp4");
     }
+    
+    /**
+     * Complete an intercepted API call according to the configured traffic mode
+     */
+    static void completeRoute(Route route) {
+        if (TRAFFIC_MODE == TrafficMode.LIVE) {
+            route.resume();
+            return;
+        }
+        route.fulfill(ResponseCompressor.encodeFor(route.request(), fetchUpstream(route)).toFulfillOptions());
+    }
+    
+    /**
+     * Obtain the upstream response for an intercepted call - from the backend, or from
+     * the fixture store when replaying
+     */
+    static SimulatedResponse fetchUpstream(Route route) {
+        String key = FixtureStore.requestKey(route.request());
+        
+        if (TRAFFIC_MODE == TrafficMode.REPLAY) {
+            FixtureStore.Fixture fixture = getFixtureStore().lookup(key);
+            if (fixture == null) {
+                logger.warn("No recorded fixture for {}", key);
+                return new SimulatedResponse(404, Map.of("content-type", "application/json"),
+                    "{\"error\":\"No recorded fixture for request\"}".getBytes(StandardCharsets.UTF_8));
+            }
+            return new SimulatedResponse(fixture.status(), fixture.headers(), fixture.bodyBytes());
+        }
+        
+        APIResponse response = route.fetch();
+        
+        // The fetched body is already decoded, so encoding headers no longer apply
+        Map<String, String> headers = new LinkedHashMap<>(response.headers());
+        headers.remove("content-encoding");
+        headers.remove("content-length");
+        SimulatedResponse upstream = new SimulatedResponse(response.status(), headers, response.body());
+        
+        if (TRAFFIC_MODE == TrafficMode.RECORD) {
+            getFixtureStore().record(key, upstream.status(), upstream.headers(), upstream.body());
+        }
+        return upstream;
+    }
+    
+    private static synchronized FixtureStore getFixtureStore() {
+        if (fixtureStore == null) {
+            if (TRAFFIC_MODE != TrafficMode.RECORD) {
+                fixtureStore = FixtureStore.openForReplay(FIXTURE_PATH);
+            } else if (fixtureStoreOpened) {
+                // Reopened after closeFixtureStore(): keep what this run already recorded
+                fixtureStore = FixtureStore.openForAppending(FIXTURE_PATH);
+            } else {
+                fixtureStore = FixtureStore.openForRecording(FIXTURE_PATH);
+            }
+            if (!fixtureStoreOpened) {
+                // Recording only becomes replayable once the index is written
+                Runtime.getRuntime().addShutdownHook(new Thread(RealAppTrafficSimulator::closeFixtureStore));
+                fixtureStoreOpened = true;
+            }
+        }
+        return fixtureStore;
+    }
+    
+    /**
+     * Close the fixture store, writing the index when recording
+     */
+    public static synchronized void closeFixtureStore() {
+        if (fixtureStore != null) {
+            fixtureStore.close();
+            fixtureStore = null;
+        }
+    }
 }
@@ -0,0 +1,425 @@
+package uk.pulse.interceptors;
+
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Route;
+import com.microsoft.playwright.WebSocketFrame;
+import com.microsoft.playwright.WebSocketRoute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.pulse.observability.MetricsRegistry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Real-time Channel Simulator for WebSocket and Server-Sent Event traffic
+ * Adds per-message latency and jitter, rate limits, random disconnects and
+ * server-push bursts (e.g. the 09:00 salary-credited fan-out) to long-lived channels
+ *
+ * Playwright is single-threaded: bursts and forced disconnects must be triggered from
+ * the thread that drives the pages. For the same reason messages are not sent from a
+ * timer thread; each is queued with the time it is due and sent by the first channel
+ * callback or {@link #awaitDeliveries} call on the page's thread after that time, so
+ * latency overlaps across messages instead of adding up.
+ */
+public class RealtimeChannelSimulator {
+    private static final Logger logger = LoggerFactory.getLogger(RealtimeChannelSimulator.class);
+    
+    // 1006 is reserved for abnormal closure and cannot be sent; 4000-4999 is for applications
+    private static final int SIMULATED_LOSS_CLOSE_CODE = 4000;
+    private static final int GOING_AWAY_CLOSE_CODE = 1001;
+    
+    private static final Map<Page, List<Channel>> openChannels = new ConcurrentHashMap<>();
+    // Connects per page and URL: every VU uses the same URL, so only a page's own repeats are reconnects
+    private static final Map<Page, Map<String, Integer>> connectsByPage = new ConcurrentHashMap<>();
+    
+    /**
+     * Simulate degraded WebSocket channels for URLs matching the pattern
+     */
+    public static void simulateWebSocketConditions(Page page, String urlPattern, ChannelProfile profile) {
+        logger.info("Simulating WebSocket conditions for {} ({}ms +/- {}ms, {} msg/s, {}% disconnect)",
+            urlPattern, profile.latencyMs, profile.jitterMs, profile.maxMessagesPerSecond,
+            profile.disconnectProbability * 100);
+        
+        List<Channel> channels = openChannels.computeIfAbsent(page, key -> new CopyOnWriteArrayList<>());
+        Map<String, Integer> connects = connectsByPage.computeIfAbsent(page, key -> new ConcurrentHashMap<>());
+        page.onClose(closed -> {
+            openChannels.remove(closed);
+            connectsByPage.remove(closed);
+        });
+        
+        page.routeWebSocket(urlPattern, ws -> {
+            Channel channel = new Channel(ws, profile);
+            channels.add(channel);
+            
+            if (connects.merge(ws.url(), 1, Integer::sum) > 1) {
+                MetricsRegistry.increment("realtime.reconnects");
+            }
+            MetricsRegistry.increment("realtime.connections");
+            
+            if (profile.connectToServer) {
+                WebSocketRoute server = ws.connectToServer();
+                channel.server = server;
+                
+                ws.onMessage(frame -> {
+                    channel.deliver(frame, server, "upstream");
+                    flushDue(channels);
+                });
+                server.onMessage(frame -> {
+                    channel.deliver(frame, ws, "downstream");
+                    flushDue(channels);
+                });
+                server.onClose((code, reason) -> {
+                    channels.remove(channel);
+                    channel.cancelPending();
+                    ws.close(new WebSocketRoute.CloseOptions()
+                        .setCode(code != null ? code : GOING_AWAY_CLOSE_CODE).setReason(reason));
+                });
+            } else {
+                // No backend: acknowledge subscriptions so the app sees a live channel
+                ws.onMessage(frame -> {
+                    MetricsRegistry.increment("realtime.messages.upstream");
+                    long due = channel.schedule();
+                    if (due >= 0) {
+                        channel.enqueue(due, () -> ws.send("{\"type\":\"ack\",\"ts\":" + System.currentTimeMillis() + "}"));
+                    }
+                    flushDue(channels);
+                });
+            }
+            
+            ws.onClose((code, reason) -> {
+                channels.remove(channel);
+                channel.cancelPending();
+                if (channel.server != null) {
+                    channel.server.close();
+                }
+            });
+        });
+    }
+    
+    /**
+     * Payday 09:00 preset for the Pulse live metrics channel and banking push updates
+     */
+    public static void simulatePaydayRealtimeTraffic(Page page) {
+        simulateWebSocketConditions(page, "**/ws/**", ChannelProfile.paydayPeak());
+        simulateServerSentEvents(page, "**/api/events**", ChannelProfile.paydayPeak(), 50);
+    }
+    
+    /**
+     * Push a burst of server messages to every open channel on the page,
+     * e.g. a salary-credited notification fan-out; messages are paced like any other downstream message
+     * and only queued here, so call {@link #awaitDeliveries} to let them reach the page
+     */
+    public static int injectServerPushBurst(Page page, int messagesPerChannel, String eventType) {
+        List<Channel> channels = openChannels.getOrDefault(page, List.of());
+        int scheduled = 0;
+        
+        for (Channel channel : new ArrayList<>(channels)) {
+            for (int i = 0; i < messagesPerChannel; i++) {
+                long due = channel.schedule();
+                if (due < 0) {
+                    MetricsRegistry.increment("realtime.dropped.burst");
+                    continue;
+                }
+                String prefix = "{\"type\":\"" + eventType + "\",\"seq\":" + i + ",\"ts\":";
+                channel.enqueue(due, () -> channel.client.send(prefix + System.currentTimeMillis() + "}"));
+                scheduled++;
+            }
+        }
+        flushDue(channels);
+        
+        MetricsRegistry.add("realtime.burst_messages", scheduled);
+        logger.info("Scheduled {} '{}' messages across {} channels", scheduled, eventType, channels.size());
+        return scheduled;
+    }
+    
+    /**
+     * Send queued messages as they fall due, waiting on the page's clock for up to maxWaitMs;
+     * returns the number of messages still queued
+     */
+    public static int awaitDeliveries(Page page, long maxWaitMs) {
+        List<Channel> channels = openChannels.getOrDefault(page, List.of());
+        long deadline = System.nanoTime() + maxWaitMs * 1_000_000;
+        
+        while (true) {
+            flushDue(channels);
+            long next = Long.MAX_VALUE;
+            for (Channel channel : channels) {
+                next = Math.min(next, channel.nextDueNanos());
+            }
+            long now = System.nanoTime();
+            if (next == Long.MAX_VALUE || now >= deadline) {
+                break;
+            }
+            // waitForTimeout keeps dispatching channel callbacks while it waits
+            page.waitForTimeout(Math.max(1, (Math.min(next, deadline) - now) / 1_000_000));
+        }
+        
+        int remaining = 0;
+        for (Channel channel : channels) {
+            remaining += channel.pendingCount();
+        }
+        return remaining;
+    }
+    
+    private static void flushDue(List<Channel> channels) {
+        for (Channel channel : channels) {
+            channel.flushDue();
+        }
+    }
+    
+    /**
+     * Drop every open channel on the page at once to provoke a reconnect storm
+     */
+    public static int disconnectAll(Page page, int closeCode, String reason) {
+        List<Channel> channels = openChannels.getOrDefault(page, List.of());
+        int closed = 0;
+        
+        for (Channel channel : new ArrayList<>(channels)) {
+            channel.cancelPending();
+            channel.close(closeCode, reason);
+            closed++;
+        }
+        channels.clear();
+        
+        MetricsRegistry.add("realtime.forced_disconnects", closed);
+        logger.info("Force-disconnected {} channels ({} {})", closed, closeCode, reason);
+        return closed;
+    }
+    
+    /**
+     * Serve a scripted Server-Sent Events stream with per-event latency and jitter
+     */
+    public static void simulateServerSentEvents(Page page, String urlPattern, ChannelProfile profile, int eventCount) {
+        logger.info("Simulating SSE stream for {} ({} events)", urlPattern, eventCount);
+        page.onClose(DripServer::release);
+        
+        page.route(urlPattern, route -> {
+            if (!"text/event-stream".equals(route.request().headerValue("accept"))
+                && !route.request().resourceType().equals("eventsource")) {
+                route.fallback();
+                return;
+            }
+            
+            List<String> events = new ArrayList<>();
+            for (int i = 0; i < eventCount; i++) {
+                events.add("id: " + i + "\nevent: balance\ndata: {\"seq\":" + i + "}\n\n");
+            }
+            // Each event carries the same chance of the stream dropping before it
+            int cutAfter = 0;
+            while (cutAfter < eventCount && ThreadLocalRandom.current().nextDouble() >= profile.disconnectProbability) {
+                cutAfter++;
+            }
+            
+            if (route.request().url().startsWith("http:")) {
+                String streamUrl = DripServer.getInstance().registerEventStream(page, events, profile, cutAfter);
+                route.resume(new Route.ResumeOptions().setUrl(streamUrl));
+            } else {
+                // HTTPS cannot be redirected to the loopback server; deliver the script in one response
+                route.fulfill(new Route.FulfillOptions()
+                    .setStatus(200)
+                    .setHeaders(Map.of("content-type", "text/event-stream", "cache-control", "no-cache"))
+                    .setBody(String.join("", events.subList(0, cutAfter))));
+            }
+            MetricsRegistry.increment("realtime.sse_streams");
+        });
+    }
+    
+    /**
+     * Clear all real-time channel simulations for the page
+     */
+    public static void clearRealtimeSimulations(Page page) {
+        logger.info("Clearing real-time channel simulations");
+        disconnectAll(page, GOING_AWAY_CLOSE_CODE, "Simulation cleared");
+        openChannels.remove(page);
+        connectsByPage.remove(page);
+        page.unroute("**/api/events**");
+        DripServer.release(page);
+    }
+    
+    /**
+     * One intercepted WebSocket with its pacing state and the messages waiting to fall due
+     */
+    private static class Channel {
+        final WebSocketRoute client;
+        final ChannelProfile profile;
+        WebSocketRoute server;
+        private long nextSendNanos;
+        private long lastDueNanos;
+        // Due times never decrease, so arrival order is due order
+        private final ArrayDeque<Delivery> queue = new ArrayDeque<>();
+        
+        Channel(WebSocketRoute client, ChannelProfile profile) {
+            this.client = client;
+            this.profile = profile;
+        }
+        
+        void deliver(WebSocketFrame frame, WebSocketRoute target, String direction) {
+            MetricsRegistry.increment("realtime.messages." + direction);
+            
+            long due = schedule();
+            if (due < 0) {
+                MetricsRegistry.increment("realtime.dropped." + direction);
+                return;
+            }
+            
+            if (ThreadLocalRandom.current().nextDouble() < profile.disconnectProbability) {
+                // The connection drops when this message would have arrived
+                enqueue(due, () -> {
+                    MetricsRegistry.increment("realtime.random_disconnects");
+                    cancelPending();
+                    close(SIMULATED_LOSS_CLOSE_CODE, "Simulated connection loss");
+                });
+                return;
+            }
+            
+            String text = frame.text();
+            byte[] binary = text == null ? frame.binary() : null;
+            enqueue(due, () -> {
+                if (text != null) {
+                    target.send(text);
+                } else {
+                    target.send(binary);
+                }
+            });
+        }
+        
+        /**
+         * Apply latency, jitter and rate limiting, returning the nanoTime the message is due
+         * or -1 when it should be dropped
+         */
+        synchronized long schedule() {
+            long delay = profile.latencyMs;
+            if (profile.jitterMs > 0) {
+                delay += ThreadLocalRandom.current().nextLong(-profile.jitterMs, profile.jitterMs + 1);
+            }
+            long now = System.nanoTime();
+            
+            if (profile.maxMessagesPerSecond > 0) {
+                // Bursts and relayed frames share one send schedule per channel
+                long interval = 1_000_000_000L / profile.maxMessagesPerSecond;
+                long wait = nextSendNanos - now;
+                if (wait > 0 && profile.dropWhenThrottled) {
+                    return -1;
+                }
+                nextSendNanos = Math.max(now, nextSendNanos) + interval;
+                delay += Math.max(0, wait / 1_000_000);
+            }
+            
+            long due = Math.max(lastDueNanos, now + Math.max(0, delay) * 1_000_000);
+            lastDueNanos = due;
+            MetricsRegistry.record("realtime.message_delay_ms", (due - now) / 1_000_000);
+            return due;
+        }
+        
+        synchronized void enqueue(long dueNanos, Runnable send) {
+            queue.add(new Delivery(dueNanos, send));
+        }
+        
+        /**
+         * Send every message whose due time has passed
+         */
+        void flushDue() {
+            while (true) {
+                Delivery next;
+                synchronized (this) {
+                    next = queue.peek();
+                    if (next == null || next.dueNanos > System.nanoTime()) {
+                        return;
+                    }
+                    queue.poll();
+                }
+                try {
+                    next.send.run();
+                } catch (Exception e) {
+                    // Channel closed while the message was queued
+                    MetricsRegistry.increment("realtime.dropped.closed");
+                    cancelPending();
+                    return;
+                }
+            }
+        }
+        
+        synchronized long nextDueNanos() {
+            Delivery next = queue.peek();
+            return next != null ? next.dueNanos : Long.MAX_VALUE;
+        }
+        
+        synchronized int pendingCount() {
+            return queue.size();
+        }
+        
+        synchronized void cancelPending() {
+            queue.clear();
+        }
+        
+        void close(int code, String reason) {
+            try {
+                client.close(new WebSocketRoute.CloseOptions().setCode(code).setReason(reason));
+                if (server != null) {
+                    server.close();
+                }
+            } catch (Exception e) {
+                logger.debug("Channel already closed: {}", e.getMessage());
+            }
+        }
+    }
+    
+    private static class Delivery {
+        final long dueNanos;
+        final Runnable send;
+        
+        Delivery(long dueNanos, Runnable send) {
+            this.dueNanos = dueNanos;
+            this.send = send;
+        }
+    }
+    
+    /**
+     * Latency, rate and reliability profile for a real-time channel
+     */
+    public static class ChannelProfile {
+        final long latencyMs;
+        final long jitterMs;
+        final int maxMessagesPerSecond;
+        final double disconnectProbability;
+        final boolean dropWhenThrottled;
+        final boolean connectToServer;
+        
+        public ChannelProfile(long latencyMs, long jitterMs, int maxMessagesPerSecond,
+                              double disconnectProbability, boolean dropWhenThrottled, boolean connectToServer) {
+            this.latencyMs = latencyMs;
+            this.jitterMs = jitterMs;
+            this.maxMessagesPerSecond = maxMessagesPerSecond;
+            this.disconnectProbability = disconnectProbability;
+            this.dropWhenThrottled = dropWhenThrottled;
+            this.connectToServer = connectToServer;
+        }
+        
+        /**
+         * Congested push gateway at 09:00 on payday
+         */
+        public static ChannelProfile paydayPeak() {
+            return new ChannelProfile(400, 300, 20, 0.01, false, true);
+        }
+        
+        /**
+         * Weak mobile signal: high jitter, frequent drops
+         */
+        public static ChannelProfile weakSignal() {
+            return new ChannelProfile(900, 700, 5, 0.05, true, true);
+        }
+        
+        /**
+         * Mocked channel with no backend, for apps run without a push server
+         */
+        public static ChannelProfile mocked(long latencyMs, long jitterMs) {
+            return new ChannelProfile(latencyMs, jitterMs, 0, 0.0, false, false);
+        }
+    }
+}
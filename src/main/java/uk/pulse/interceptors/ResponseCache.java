@@ -0,0 +1,227 @@
+package uk.pulse.interceptors;
+
+import com.microsoft.playwright.Request;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Response Cache emulating a CDN / API gateway cache in front of the backend
+ * Bounded LRU keyed by method, URL and vary headers, with TTLs and ETag revalidation
+ */
+public class ResponseCache {
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCache.class);
+    
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+    
+    private final String name;
+    private final int maxEntries;
+    private final long defaultTtlMs;
+    private final List<String> varyHeaders;
+    private final Map<String, CachedResponse> entries;
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    
+    public ResponseCache(String name, int maxEntries, long defaultTtlMs, String... varyHeaders) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.defaultTtlMs = defaultTtlMs;
+        this.varyHeaders = Arrays.asList(varyHeaders);
+        
+        // Access-ordered map gives LRU eviction once the bound is reached
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                if (size() > ResponseCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        
+        logger.info("Created response cache {} (max {} entries, default TTL {}ms, vary {})",
+            name, maxEntries, defaultTtlMs, this.varyHeaders);
+    }
+    
+    /**
+     * Build the cache key for an intercepted request
+     */
+    public String key(Request request) {
+        StringBuilder key = new StringBuilder(request.method()).append(' ').append(request.url());
+        for (String header : varyHeaders) {
+            String value = request.headerValue(header);
+            key.append('|').append(header.toLowerCase()).append('=').append(value != null ? value : "");
+        }
+        return key.toString();
+    }
+    
+    /**
+     * Return a fresh cached response, counting the lookup as a hit or miss
+     */
+    public CachedResponse lookup(String key) {
+        CachedResponse cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+            if (cached != null && cached.isExpired()) {
+                entries.remove(key);
+                expirations.incrementAndGet();
+                cached = null;
+            }
+        }
+        
+        if (cached != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return cached;
+    }
+    
+    /**
+     * Store an upstream response if it is cacheable, returning the entry that was stored
+     */
+    public CachedResponse store(String key, SimulatedResponse response) {
+        if (response.status() != 200) {
+            return null;
+        }
+        
+        String cacheControl = response.header("cache-control");
+        if (cacheControl != null && (cacheControl.contains("no-store") || cacheControl.contains("private"))) {
+            return null;
+        }
+        
+        long ttlMs = defaultTtlMs;
+        if (cacheControl != null) {
+            Matcher matcher = MAX_AGE.matcher(cacheControl);
+            if (matcher.find()) {
+                ttlMs = Long.parseLong(matcher.group(1)) * 1000;
+            }
+        }
+        if (ttlMs <= 0) {
+            return null;
+        }
+        
+        String etag = response.header("etag");
+        if (etag == null) {
+            etag = "\"" + Long.toHexString(FixtureStore.hash(response.body())) + "\"";
+        }
+        
+        CachedResponse cached = new CachedResponse(response, etag, System.currentTimeMillis() + ttlMs);
+        synchronized (entries) {
+            entries.put(key, cached);
+        }
+        return cached;
+    }
+    
+    /**
+     * Record that a conditional request was answered with 304 Not Modified
+     */
+    public void recordNotModified() {
+        notModified.incrementAndGet();
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+    
+    public long getHits() {
+        return hits.get();
+    }
+    
+    public long getMisses() {
+        return misses.get();
+    }
+    
+    public long getEvictions() {
+        return evictions.get();
+    }
+    
+    public long getExpirations() {
+        return expirations.get();
+    }
+    
+    public long getNotModified() {
+        return notModified.get();
+    }
+    
+    public double getHitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0.0 : (double) hits.get() / total;
+    }
+    
+    /**
+     * Drop all entries and reset statistics
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+        expirations.set(0);
+        notModified.set(0);
+    }
+    
+    /**
+     * Cached response with its validator and expiry
+     */
+    public static class CachedResponse {
+        final SimulatedResponse response;
+        final String etag;
+        final long expiresAt;
+        
+        CachedResponse(SimulatedResponse response, String etag, long expiresAt) {
+            this.response = response;
+            this.etag = etag;
+            this.expiresAt = expiresAt;
+        }
+        
+        public SimulatedResponse response() {
+            return response;
+        }
+        
+        public String etag() {
+            return etag;
+        }
+        
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+        
+        /**
+         * Whether an If-None-Match header value matches this entry's ETag
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            List<String> variants = Arrays.asList(ResponseCompressor.variantEtags(etag));
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag) || variants.contains(tag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package uk.pulse.interceptors;
+
+import com.microsoft.playwright.Request;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.pulse.observability.MetricsRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Response Compressor for wire-accurate fulfilled bodies
+ * Negotiates Content-Encoding from the request's Accept-Encoding and serves
+ * pre-compressed variants from a bounded cache so bodies are not re-encoded per request
+ */
+public class ResponseCompressor {
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCompressor.class);
+    
+    // Bodies below this size are not worth compressing (same threshold as common CDNs)
+    private static final int MIN_COMPRESS_BYTES = 1024;
+    private static final long MAX_CACHE_BYTES = Long.getLong("pulse.compression.cache-bytes", 64L * 1024 * 1024);
+    
+    private static final String[] ENCODINGS = {"gzip", "deflate"};
+    
+    private static final VariantCache variants = new VariantCache(MAX_CACHE_BYTES);
+    
+    /**
+     * Encode a response for the given request, or return it unchanged when the client
+     * accepts no supported encoding or the body is not worth compressing
+     */
+    public static SimulatedResponse encodeFor(Request request, SimulatedResponse response) {
+        String encoding = negotiate(request.headerValue("accept-encoding"));
+        if (encoding == null || !isCompressible(response)) {
+            return response;
+        }
+        
+        byte[] identity = response.body();
+        byte[] encoded = variants.getOrEncode(identity, encoding);
+        
+        MetricsRegistry.add("compression.identity_bytes", identity.length);
+        MetricsRegistry.add("compression.wire_bytes", encoded.length);
+        
+        Map<String, String> headers = new LinkedHashMap<>();
+        response.headers().forEach((name, value) -> {
+            if (!name.equalsIgnoreCase("content-length") && !name.equalsIgnoreCase("etag")
+                && !name.equalsIgnoreCase("vary")) {
+                headers.put(name, value);
+            }
+        });
+        headers.put("content-encoding", encoding);
+        headers.put("vary", varyWithAcceptEncoding(response.header("vary")));
+        String etag = response.header("etag");
+        if (etag != null) {
+            headers.put("etag", variantEtag(etag, encoding));
+        }
+        return new SimulatedResponse(response.status(), headers, encoded);
+    }
+    
+    /**
+     * ETag the client holds for this response, given the encoding encodeFor would serve it with
+     */
+    public static String etagFor(Request request, SimulatedResponse response, String etag) {
+        String encoding = negotiate(request.headerValue("accept-encoding"));
+        return encoding == null || !isCompressible(response) ? etag : variantEtag(etag, encoding);
+    }
+    
+    /**
+     * Add Accept-Encoding to an existing Vary header instead of replacing what the origin varies on
+     */
+    static String varyWithAcceptEncoding(String vary) {
+        if (vary == null || vary.isBlank()) {
+            return "Accept-Encoding";
+        }
+        for (String field : vary.split(",")) {
+            String name = field.trim();
+            if (name.equals("*") || name.equalsIgnoreCase("accept-encoding")) {
+                return vary;
+            }
+        }
+        return vary + ", Accept-Encoding";
+    }
+    
+    /**
+     * Weak ETag for an encoded variant, e.g. "abc" becomes W/"abc-gzip", so each encoding validates separately
+     */
+    public static String variantEtag(String etag, String encoding) {
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        if (opaque.length() >= 2 && opaque.startsWith("\"") && opaque.endsWith("\"")) {
+            opaque = opaque.substring(1, opaque.length() - 1);
+        }
+        return "W/\"" + opaque + "-" + encoding + "\"";
+    }
+    
+    /**
+     * Every ETag an encoded variant of the response could carry
+     */
+    static String[] variantEtags(String etag) {
+        String[] tags = new String[ENCODINGS.length];
+        for (int i = 0; i < ENCODINGS.length; i++) {
+            tags[i] = variantEtag(etag, ENCODINGS[i]);
+        }
+        return tags;
+    }
+    
+    /**
+     * Pre-compress a body for every supported encoding, keeping the work off the request path
+     */
+    public static void precompress(SimulatedResponse response) {
+        if (isCompressible(response)) {
+            for (String encoding : ENCODINGS) {
+                variants.getOrEncode(response.body(), encoding);
+            }
+        }
+    }
+    
+    /**
+     * Pick the preferred supported encoding from an Accept-Encoding header, or null for identity
+     *
+     * Brotli is advertised by the browser factories but has no JDK encoder, so "br" is
+     * skipped and negotiation falls through to gzip or deflate.
+     */
+    public static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        
+        String best = null;
+        double bestQuality = 0.0;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim().toLowerCase();
+            double quality = 1.0;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0.0;
+                    }
+                }
+            }
+            
+            // Prefer gzip over deflate when the client weights them equally
+            boolean supported = coding.equals("gzip") || coding.equals("deflate");
+            if (supported && (quality > bestQuality || (quality == bestQuality && coding.equals("gzip")))) {
+                best = coding;
+                bestQuality = quality;
+            }
+        }
+        return bestQuality > 0.0 ? best : null;
+    }
+    
+    private static boolean isCompressible(SimulatedResponse response) {
+        if (response.body().length < MIN_COMPRESS_BYTES || response.header("content-encoding") != null) {
+            return false;
+        }
+        String contentType = response.header("content-type");
+        if (contentType == null) {
+            return true;
+        }
+        contentType = contentType.toLowerCase();
+        return contentType.startsWith("text/") || contentType.contains("json")
+            || contentType.contains("javascript") || contentType.contains("xml") || contentType.contains("svg");
+    }
+    
+    static byte[] encode(byte[] body, String encoding) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try {
+            if (encoding.equals("gzip")) {
+                try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+                    out.write(body);
+                }
+            } else {
+                try (DeflaterOutputStream out = new DeflaterOutputStream(buffer, new Deflater(Deflater.DEFAULT_COMPRESSION))) {
+                    out.write(body);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to " + encoding + "-encode response body", e);
+        }
+        return buffer.toByteArray();
+    }
+    
+    public static long getCacheHits() {
+        return variants.hits;
+    }
+    
+    public static long getCacheMisses() {
+        return variants.misses;
+    }
+    
+    public static long getCachedBytes() {
+        return variants.totalBytes;
+    }
+    
+    /**
+     * Bounded LRU of encoded variants keyed by the body's SHA-256 and the encoding
+     *
+     * The digest is worked out once per body array: arrays compare by identity, so the weak
+     * map remembers the digest for as long as a cached or replayed response still holds it,
+     * and repeat fulfills of the same response skip hashing the body.
+     * Bodies are never modified once wrapped in a SimulatedResponse.
+     */
+    private static class VariantCache {
+        private final long maxBytes;
+        private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+        private final Map<byte[], String> digests = new WeakHashMap<>();
+        // Written under the lock, read by the statistics getters without it
+        private volatile long totalBytes;
+        private volatile long hits;
+        private volatile long misses;
+        
+        VariantCache(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+        
+        byte[] getOrEncode(byte[] body, String encoding) {
+            String digest;
+            synchronized (digests) {
+                digest = digests.get(body);
+            }
+            if (digest == null) {
+                digest = digest(body);
+                synchronized (digests) {
+                    digests.put(body, digest);
+                }
+            }
+            String key = digest + ':' + encoding;
+            
+            synchronized (this) {
+                byte[] cached = entries.get(key);
+                if (cached != null) {
+                    hits++;
+                    return cached;
+                }
+                misses++;
+            }
+            
+            // Encode outside the lock; a concurrent duplicate encode is harmless
+            long start = System.nanoTime();
+            byte[] encoded = encode(body, encoding);
+            MetricsRegistry.record("compression.encode_us", (System.nanoTime() - start) / 1000);
+            
+            synchronized (this) {
+                if (entries.put(key, encoded) == null) {
+                    totalBytes += encoded.length;
+                }
+                while (totalBytes > maxBytes && !entries.isEmpty()) {
+                    Map.Entry<String, byte[]> eldest = entries.entrySet().iterator().next();
+                    totalBytes -= eldest.getValue().length;
+                    entries.remove(eldest.getKey());
+                }
+            }
+            
+            logger.debug("Encoded {} variant: {} -> {} bytes", encoding, body.length, encoded.length);
+            return encoded;
+        }
+        
+        private static String digest(byte[] body) {
+            try {
+                return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+    }
+}
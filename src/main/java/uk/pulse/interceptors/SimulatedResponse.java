@@ -0,0 +1,57 @@
+package uk.pulse.interceptors;
+
+import com.microsoft.playwright.Route;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Response produced by the simulation layer instead of the live backend
+ * Shared by replay, caching and other fulfilling interceptors
+ */
+public class SimulatedResponse {
+    final int status;
+    final Map<String, String> headers;
+    final byte[] body;
+    
+    public SimulatedResponse(int status, Map<String, String> headers, byte[] body) {
+        this.status = status;
+        this.headers = Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+        this.body = body != null ? body : new byte[0];
+    }
+    
+    public int status() {
+        return status;
+    }
+    
+    public Map<String, String> headers() {
+        return headers;
+    }
+    
+    public byte[] body() {
+        return body;
+    }
+    
+    /**
+     * Look up a header case-insensitively
+     */
+    public String header(String name) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Build the options used to fulfill an intercepted route with this response
+     */
+    public Route.FulfillOptions toFulfillOptions() {
+        return new Route.FulfillOptions()
+            .setStatus(status)
+            .setHeaders(headers)
+            .setBodyBytes(body);
+    }
+}
@@ -0,0 +1,199 @@
+package uk.pulse.interceptors;
+
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Route;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.pulse.observability.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming Response Simulator for slow-drip and partial-body responses
+ * Separates slow first byte from slow transfer and can cut the connection mid-body,
+ * so progressive rendering and client timeouts can be exercised on weak signal
+ */
+public class StreamingResponseSimulator {
+    private static final Logger logger = LoggerFactory.getLogger(StreamingResponseSimulator.class);
+    
+    // Numeric and hex/UUID path segments, collapsed so metric names stay per endpoint
+    private static final Pattern ID_SEGMENT = Pattern.compile("/[0-9][0-9a-fA-F-]*(?=/|$)");
+    
+    private static final Map<Page, List<DripRoute>> registered = new WeakHashMap<>();
+    
+    /**
+     * Drip responses for all requests matching the URL pattern
+     */
+    public static void simulateSlowDrip(Page page, String urlPattern, DripProfile profile) {
+        logger.info("Simulating slow-drip responses for {} ({}ms TTFB, {} B/s, {}% truncated)",
+            urlPattern, profile.ttfbMs, profile.bytesPerSecond, profile.truncateProbability * 100);
+            
+        Consumer<Route> handler = route -> dripRoute(page, route, routeName(route.request().url()), profile);
+        page.route(urlPattern, handler);
+        synchronized (registered) {
+            if (!registered.containsKey(page)) {
+                page.onClose(DripServer::release);
+            }
+            registered.computeIfAbsent(page, key -> new ArrayList<>()).add(new DripRoute(urlPattern, handler));
+        }
+    }
+    
+    /**
+     * Weak-signal drip on the banking endpoints that render progressively
+     */
+    public static void simulateWeakSignalBanking(Page page) {
+        logger.info("Simulating weak signal streaming for banking app");
+        
+        simulateSlowDrip(page, "**/api/banking/transactions", DripProfile.weakSignal());
+        simulateSlowDrip(page, "**/api/banking/accounts", DripProfile.weakSignal());
+        simulateSlowDrip(page, "**/api/banking/balance", DripProfile.mobile3g());
+    }
+    
+    private static void dripRoute(Page page, Route route, String routeName, DripProfile profile) {
+        try {
+            // Encode first so transfer pacing reflects the bytes that actually cross the wire
+            SimulatedResponse upstream = ResponseCompressor.encodeFor(route.request(),
+                RealAppTrafficSimulator.fetchUpstream(route));
+            boolean truncate = ThreadLocalRandom.current().nextDouble() < profile.truncateProbability;
+            
+            if (route.request().url().startsWith("http:")) {
+                // Hand the body to the local drip server so the browser really receives it in chunks
+                String dripUrl = DripServer.getInstance().register(page, upstream, profile, routeName, truncate);
+                route.resume(new Route.ResumeOptions().setUrl(dripUrl));
+                return;
+            }
+            
+            // Playwright only redirects to a URL of the same scheme, so HTTPS routes are paced in-process
+            // and delivered in one piece; the truncated body keeps the full declared length
+            long start = System.nanoTime();
+            InjectedDelay.sleep("streaming", route, profile.ttfbMs);
+            MetricsRegistry.record("stream.ttfb_ms." + routeName, (System.nanoTime() - start) / 1_000_000);
+            
+            byte[] body = upstream.body();
+            int limit = truncate ? (int) (body.length * profile.truncateAtFraction) : body.length;
+            long transferStart = System.nanoTime();
+            InjectedDelay.sleep("streaming", route, limit * 1000L / profile.bytesPerSecond);
+            MetricsRegistry.record("stream.transfer_ms." + routeName, (System.nanoTime() - transferStart) / 1_000_000);
+            MetricsRegistry.add("stream.bytes." + routeName, limit);
+            
+            if (!truncate) {
+                route.fulfill(upstream.toFulfillOptions());
+                return;
+            }
+            
+            MetricsRegistry.increment("stream.truncated." + routeName);
+            byte[] partial = new byte[limit];
+            System.arraycopy(body, 0, partial, 0, limit);
+            Map<String, String> headers = new LinkedHashMap<>(upstream.headers());
+            headers.put("content-length", String.valueOf(body.length));
+            route.fulfill(new Route.FulfillOptions()
+                .setStatus(upstream.status())
+                .setHeaders(headers)
+                .setBodyBytes(partial));
+                
+        } catch (InterruptedException e) {
+            logger.error("Slow-drip simulation interrupted", e);
+            route.abort();
+        }
+    }
+    
+    /**
+     * Metric-safe endpoint template, e.g. .../api/banking/accounts/12345?x=1 becomes api_banking_accounts_{id}
+     */
+    private static String routeName(String url) {
+        int start = url.indexOf("/api/");
+        if (start < 0) {
+            int scheme = url.indexOf("://");
+            start = scheme >= 0 ? url.indexOf('/', scheme + 3) : 0;
+        }
+        String path = start >= 0 ? url.substring(start) : "/";
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        int fragment = path.indexOf('#');
+        if (fragment >= 0) {
+            path = path.substring(0, fragment);
+        }
+        return ID_SEGMENT.matcher(path).replaceAll("/{id}").substring(path.startsWith("/") ? 1 : 0).replace('/', '_');
+    }
+    
+    /**
+     * Remove the drip routes registered on the page and its unfetched drip registrations;
+     * the shared drip server keeps serving other pages
+     */
+    public static void clearStreamingSimulations(Page page) {
+        logger.info("Clearing streaming simulations");
+        List<DripRoute> routes;
+        synchronized (registered) {
+            routes = registered.remove(page);
+        }
+        if (routes != null) {
+            for (DripRoute route : routes) {
+                page.unroute(route.pattern, route.handler);
+            }
+        }
+        DripServer.release(page);
+    }
+    
+    private static class DripRoute {
+        final String pattern;
+        final Consumer<Route> handler;
+        
+        DripRoute(String pattern, Consumer<Route> handler) {
+            this.pattern = pattern;
+            this.handler = handler;
+        }
+    }
+    
+    /**
+     * Pacing profile for a dripped response
+     */
+    public static class DripProfile {
+        final long ttfbMs;
+        final int bytesPerSecond;
+        final int chunkSize;
+        final double truncateProbability;
+        final double truncateAtFraction;
+        
+        public DripProfile(long ttfbMs, int bytesPerSecond, int chunkSize,
+                           double truncateProbability, double truncateAtFraction) {
+            if (bytesPerSecond <= 0 || chunkSize <= 0) {
+                throw new IllegalArgumentException("Drip rate and chunk size must be positive");
+            }
+            this.ttfbMs = ttfbMs;
+            this.bytesPerSecond = bytesPerSecond;
+            this.chunkSize = chunkSize;
+            this.truncateProbability = truncateProbability;
+            this.truncateAtFraction = truncateAtFraction;
+        }
+        
+        /**
+         * One bar of signal: slow first byte, ~5 KB/s and frequent drops
+         */
+        public static DripProfile weakSignal() {
+            return new DripProfile(2500, 5 * 1024, 1024, 0.10, 0.6);
+        }
+        
+        /**
+         * Congested 3G: moderate first byte, ~50 KB/s
+         */
+        public static DripProfile mobile3g() {
+            return new DripProfile(800, 50 * 1024, 4096, 0.02, 0.8);
+        }
+        
+        /**
+         * Fast first byte but starved bandwidth (busy cell, good latency)
+         */
+        public static DripProfile slowTransfer() {
+            return new DripProfile(150, 8 * 1024, 2048, 0.0, 1.0);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package uk.pulse.interceptors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Synthetic Payload Generator for large banking and retail responses
+ * Streams realistic UK transaction histories and product catalogues as JSON bytes
+ * straight into pooled buffers - deterministic by seed, no intermediate Strings
+ */
+public class SyntheticPayloadGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticPayloadGenerator.class);
+    
+    private static final int POOL_SIZE = Integer.getInteger("pulse.payload.pool-size", 16);
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+    // Buffers that grew beyond this are dropped rather than pinned in the pool
+    private static final int MAX_POOLED_BUFFER_BYTES = 16 * 1024 * 1024;
+    // Total capacity the idle pool may hold; returns beyond it are left to the GC
+    private static final long MAX_POOL_BYTES = Long.getLong("pulse.payload.pool-max-bytes", 32L * 1024 * 1024);
+    
+    private static final BlockingQueue<PayloadBuffer> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+    private static final AtomicLong pooledBytes = new AtomicLong();
+    
+    private static final LocalDate STATEMENT_END = LocalDate.of(2026, 10, 30);
+    
+    private static final byte[][] DEBIT_MERCHANTS = ascii(
+        "TESCO STORES 2841", "SAINSBURYS S/MKTS", "TFL TRAVEL CH", "AMAZON.CO.UK*2K4", "GREGGS PLC",
+        "COSTA COFFEE 41872", "PRET A MANGER", "BOOTS 1123", "DELIVEROO", "UBER *TRIP",
+        "ASDA SUPERSTORE", "MORRISONS 0192", "NETFLIX.COM", "SPOTIFY UK", "JUST EAT",
+        "SHELL BRENTFORD", "ARGOS LTD", "M&S SIMPLY FOOD", "WETHERSPOONS", "LIDL GB LONDON");
+    private static final byte[][] DIRECT_DEBITS = ascii(
+        "COUNCIL TAX LBH", "THAMES WATER", "BRITISH GAS", "EE LIMITED", "TV LICENCE MBP",
+        "VIRGIN MEDIA", "AVIVA INSURANCE", "GYM GROUP PLC");
+    private static final byte[][] CREDIT_SOURCES = ascii(
+        "FASTER PAYMENT J SMITH", "REFUND AMAZON", "HMRC TAX REFUND", "TRANSFER FROM ISA");
+    private static final byte[] SALARY = ascii("SALARY ACME UK LTD")[0];
+    
+    // Brand, item and category for each catalogue line
+    private static final String[][] CATALOGUE = {
+        {"Heinz", "Baked Beans 415g", "Groceries"}, {"Cadbury", "Dairy Milk 200g", "Groceries"},
+        {"Walkers", "Ready Salted Crisps 6pk", "Groceries"}, {"Yorkshire Tea", "Tea Bags 80s", "Groceries"},
+        {"Warburtons", "Medium White Bread 800g", "Groceries"}, {"McVitie's", "Digestives 400g", "Groceries"},
+        {"Tesco Finest", "Free Range Eggs 12pk", "Groceries"}, {"Arla", "Semi-Skimmed Milk 2L", "Groceries"},
+        {"Samsung", "Galaxy S24 128GB", "Electronics"}, {"Apple", "AirPods Pro", "Electronics"},
+        {"Dyson", "V15 Cordless Vacuum", "Home"}, {"Russell Hobbs", "2-Slice Toaster", "Home"},
+        {"Russell Hobbs", "Kettle 1.7L", "Home"}, {"Nike", "Air Max Trainers", "Fashion"},
+        {"Adidas", "Running Jacket", "Sports"}, {"Boots", "No7 Serum 30ml", "Health & Beauty"}
+    };
+    private static final byte[][] PRODUCT_NAMES = new byte[CATALOGUE.length][];
+    private static final byte[][] PRODUCT_CATEGORIES = new byte[CATALOGUE.length][];
+    
+    static {
+        for (int i = 0; i < CATALOGUE.length; i++) {
+            PRODUCT_NAMES[i] = (CATALOGUE[i][0] + " " + CATALOGUE[i][1]).getBytes(StandardCharsets.UTF_8);
+            PRODUCT_CATEGORIES[i] = CATALOGUE[i][2].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+    
+    /**
+     * Borrow a buffer from the pool, allocating one if the pool is empty
+     */
+    public static PayloadBuffer acquire() {
+        PayloadBuffer buffer = pool.poll();
+        if (buffer == null) {
+            buffer = new PayloadBuffer(INITIAL_BUFFER_BYTES);
+        } else {
+            pooledBytes.addAndGet(-buffer.data.length);
+        }
+        buffer.reset();
+        return buffer;
+    }
+    
+    /**
+     * Generate a transaction history of the given size into a pooled buffer
+     *
+     * Rows run backwards from the statement end date with a monthly salary credit,
+     * direct debits early in the month and card spend in between.
+     */
+    public static PayloadBuffer generateTransactions(long seed, int rows) {
+        long start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+        PayloadBuffer out = acquire();
+        
+        long balancePence = 250_000 + random.nextInt(500_000);
+        LocalDate date = STATEMENT_END;
+        int dayRows = 0;
+        
+        out.ascii("{\"accountNumber\":\"****").digits(1000 + random.nextInt(9000))
+            .ascii("\",\"sortCode\":\"").digits(10 + random.nextInt(89)).ascii("-")
+            .digits(10 + random.nextInt(89)).ascii("-").digits(10 + random.nextInt(89))
+            .ascii("\",\"currency\":\"GBP\",\"count\":").digits(rows).ascii(",\"transactions\":[");
+        
+        for (int i = 0; i < rows; i++) {
+            // Several rows per day, then step back a day
+            if (dayRows >= 1 + random.nextInt(6)) {
+                date = date.minusDays(1);
+                dayRows = 0;
+            }
+            dayRows++;
+            
+            byte[] description;
+            String type;
+            long amountPence;
+            boolean isLastFriday = date.getDayOfWeek().getValue() == 5 && date.plusWeeks(1).getMonthValue() != date.getMonthValue();
+            
+            if (isLastFriday && dayRows == 1) {
+                description = SALARY;
+                type = "CREDIT";
+                amountPence = 240_000 + random.nextInt(60_000);
+            } else if (date.getDayOfMonth() <= 5 && random.nextInt(4) == 0) {
+                description = DIRECT_DEBITS[random.nextInt(DIRECT_DEBITS.length)];
+                type = "DIRECT_DEBIT";
+                amountPence = -(2_000 + random.nextInt(18_000));
+            } else if (random.nextInt(15) == 0) {
+                description = CREDIT_SOURCES[random.nextInt(CREDIT_SOURCES.length)];
+                type = "FASTER_PAYMENT";
+                amountPence = 500 + random.nextInt(30_000);
+            } else {
+                description = DEBIT_MERCHANTS[random.nextInt(DEBIT_MERCHANTS.length)];
+                type = "CARD_PAYMENT";
+                amountPence = -(150 + random.nextInt(random.nextInt(10) == 0 ? 25_000 : 4_000));
+            }
+            balancePence -= amountPence;  // walking backwards in time
+            
+            if (i > 0) {
+                out.ascii(",");
+            }
+            out.ascii("{\"id\":\"tx-").digits(seed & 0xffff).ascii("-").digits(i)
+                .ascii("\",\"date\":\"").date(date)
+                .ascii("\",\"description\":\"").bytes(description)
+                .ascii("\",\"type\":\"").ascii(type)
+                .ascii("\",\"amount\":").pence(amountPence)
+                .ascii(",\"balance\":").pence(balancePence + amountPence)
+                .ascii(",\"pending\":").ascii(i < 3 && random.nextBoolean() ? "true" : "false")
+                .ascii("}");
+        }
+        out.ascii("]}");
+        
+        logger.debug("Generated {} transactions ({} bytes) in {}us", rows, out.size(), (System.nanoTime() - start) / 1000);
+        return out;
+    }
+    
+    /**
+     * Generate a product catalogue of the given size into a pooled buffer
+     */
+    public static PayloadBuffer generateProducts(long seed, int count) {
+        long start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+        PayloadBuffer out = acquire();
+        
+        out.ascii("{\"count\":").digits(count).ascii(",\"currency\":\"GBP\",\"products\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                out.ascii(",");
+            }
+            int line = random.nextInt(CATALOGUE.length);
+            int ratingTenths = 10 + random.nextInt(41);
+            out.ascii("{\"sku\":\"").digits(5_000_000L + Math.floorMod(seed, 1000) * 10_000 + i)
+                .ascii("\",\"name\":\"").bytes(PRODUCT_NAMES[line])
+                .ascii("\",\"category\":\"").bytes(PRODUCT_CATEGORIES[line])
+                .ascii("\",\"price\":").pence(49 + random.nextInt(random.nextInt(8) == 0 ? 99_900 : 2_500))
+                .ascii(",\"inStock\":").ascii(random.nextInt(12) == 0 ? "false" : "true")
+                .ascii(",\"stock\":").digits(random.nextInt(500))
+                .ascii(",\"rating\":").digits(ratingTenths / 10).ascii(".").digits(ratingTenths % 10)
+                .ascii(",\"reviews\":").digits(random.nextInt(5_000))
+                .ascii(",\"clubcardPrice\":").ascii(random.nextInt(5) == 0 ? "true" : "false")
+                .ascii("}");
+        }
+        out.ascii("]}");
+        
+        logger.debug("Generated {} products ({} bytes) in {}us", count, out.size(), (System.nanoTime() - start) / 1000);
+        return out;
+    }
+    
+    private static byte[][] ascii(String... values) {
+        byte[][] encoded = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            encoded[i] = values[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+    
+    /**
+     * Growable byte buffer with allocation-free JSON primitives, returned to the pool on release
+     */
+    public static class PayloadBuffer {
+        private byte[] data;
+        private int size;
+        
+        PayloadBuffer(int capacity) {
+            this.data = new byte[capacity];
+        }
+        
+        void reset() {
+            size = 0;
+        }
+        
+        public int size() {
+            return size;
+        }
+        
+        /**
+         * Copy the written bytes out, as required by route.fulfill
+         */
+        public byte[] toByteArray() {
+            return Arrays.copyOf(data, size);
+        }
+        
+        /**
+         * Return this buffer to the pool; it must not be used afterwards
+         * Dropped instead if it is oversized or would take the pool past pulse.payload.pool-max-bytes
+         */
+        public void release() {
+            int capacity = data.length;
+            if (capacity > MAX_POOLED_BUFFER_BYTES) {
+                return;
+            }
+            if (pooledBytes.addAndGet(capacity) > MAX_POOL_BYTES || !pool.offer(this)) {
+                pooledBytes.addAndGet(-capacity);
+            }
+        }
+        
+        PayloadBuffer ascii(String value) {
+            int length = value.length();
+            ensure(length);
+            for (int i = 0; i < length; i++) {
+                data[size++] = (byte) value.charAt(i);
+            }
+            return this;
+        }
+        
+        PayloadBuffer bytes(byte[] value) {
+            ensure(value.length);
+            System.arraycopy(value, 0, data, size, value.length);
+            size += value.length;
+            return this;
+        }
+        
+        PayloadBuffer digits(long value) {
+            ensure(20);
+            if (value < 0) {
+                data[size++] = '-';
+                value = -value;
+            }
+            if (value == 0) {
+                data[size++] = '0';
+                return this;
+            }
+            int length = 0;
+            for (long remaining = value; remaining > 0; remaining /= 10) {
+                length++;
+            }
+            int end = size + length;
+            int position = end;
+            while (value > 0) {
+                data[--position] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            size = end;
+            return this;
+        }
+        
+        PayloadBuffer pence(long pence) {
+            if (pence < 0) {
+                ensure(1);
+                data[size++] = '-';
+                pence = -pence;
+            }
+            digits(pence / 100);
+            ensure(3);
+            long fraction = pence % 100;
+            data[size++] = '.';
+            data[size++] = (byte) ('0' + fraction / 10);
+            data[size++] = (byte) ('0' + fraction % 10);
+            return this;
+        }
+        
+        PayloadBuffer date(LocalDate date) {
+            digits(date.getYear());
+            ensure(6);
+            int month = date.getMonthValue();
+            int day = date.getDayOfMonth();
+            data[size++] = '-';
+            data[size++] = (byte) ('0' + month / 10);
+            data[size++] = (byte) ('0' + month % 10);
+            data[size++] = '-';
+            data[size++] = (byte) ('0' + day / 10);
+            data[size++] = (byte) ('0' + day % 10);
+            return this;
+        }
+        
+        private void ensure(int extra) {
+            if (size + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package uk.pulse.load;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.pulse.observability.HarnessMonitor;
+import uk.pulse.observability.LatencyHistogram;
+import uk.pulse.observability.MetricsRegistry;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Automated Capacity Search for maximum sustainable load under an SLO
+ * Steps or binary-searches the virtual-user count or arrival rate, holds each level
+ * until throughput and latency settle, then evaluates the SLO on the settled window
+ */
+public class CapacitySearch {
+    private static final Logger logger = LoggerFactory.getLogger(CapacitySearch.class);
+    
+    private static final Path REPORT_DIR = Paths.get(System.getProperty("pulse.capacity.report-dir", "target/capacity"));
+    
+    private final VirtualUserEngine engine;
+    private final Slo slo;
+    private Dimension dimension = Dimension.USERS;
+    private long windowMs = 5_000;
+    private long maxHoldMs = 60_000;
+    private double steadyTolerance = 0.10;
+    private double kneeEfficiency = 0.80;
+    
+    /**
+     * What the search varies
+     */
+    public enum Dimension {
+        USERS,          // closed model: concurrent looping users
+        ARRIVAL_RATE    // open model: iterations started per second
+    }
+    
+    public CapacitySearch(VirtualUserEngine engine, Slo slo) {
+        this.engine = engine;
+        this.slo = slo;
+    }
+    
+    public CapacitySearch dimension(Dimension dimension) {
+        this.dimension = dimension;
+        return this;
+    }
+    
+    /**
+     * Length of each measurement window and the longest a level is held waiting for steady state
+     */
+    public CapacitySearch holding(long windowMs, long maxHoldMs) {
+        this.windowMs = windowMs;
+        this.maxHoldMs = maxHoldMs;
+        return this;
+    }
+    
+    /**
+     * Relative change between consecutive windows below which a level counts as steady
+     */
+    public CapacitySearch steadyTolerance(double steadyTolerance) {
+        this.steadyTolerance = steadyTolerance;
+        return this;
+    }
+    
+    /**
+     * Per-unit throughput, relative to the lowest level, below which scaling has hit the knee
+     */
+    public CapacitySearch kneeEfficiency(double kneeEfficiency) {
+        this.kneeEfficiency = kneeEfficiency;
+        return this;
+    }
+    
+    /**
+     * Evaluate every level from start to max in fixed steps, stopping after the first SLO breach
+     */
+    public Report stepSearch(int start, int step, int max) throws InterruptedException {
+        logger.info("Capacity step search on {}: {} to {} in steps of {}", dimension, start, max, step);
+        
+        List<LevelResult> results = new ArrayList<>();
+        for (int level = start; level <= max; level += step) {
+            LevelResult result = evaluate(level);
+            results.add(result);
+            if (!result.passed) {
+                break;
+            }
+        }
+        return report(results);
+    }
+    
+    /**
+     * Binary-search the highest level that meets the SLO, to within the given resolution
+     */
+    public Report binarySearch(int low, int high, int resolution) throws InterruptedException {
+        logger.info("Capacity binary search on {}: {} to {} (resolution {})", dimension, low, high, resolution);
+        
+        List<LevelResult> results = new ArrayList<>();
+        LevelResult lowResult = evaluate(low);
+        results.add(lowResult);
+        if (!lowResult.passed) {
+            return report(results);
+        }
+        
+        LevelResult highResult = evaluate(high);
+        results.add(highResult);
+        if (highResult.passed) {
+            return report(results);
+        }
+        
+        int pass = low;
+        int fail = high;
+        while (fail - pass > Math.max(1, resolution)) {
+            int mid = pass + (fail - pass) / 2;
+            LevelResult result = evaluate(mid);
+            results.add(result);
+            if (result.passed) {
+                pass = mid;
+            } else {
+                fail = mid;
+            }
+        }
+        return report(results);
+    }
+    
+    /**
+     * Apply a level, hold it until steady state and evaluate the SLO on the settled window
+     */
+    LevelResult evaluate(int level) throws InterruptedException {
+        if (dimension == Dimension.USERS) {
+            engine.setUsers(level);
+        } else {
+            engine.setArrivalRate(level);
+        }
+        
+        long held = 0;
+        engine.sample();  // discard anything measured at the previous level
+        VirtualUserEngine.WindowStats previous = null;
+        VirtualUserEngine.WindowStats current;
+        boolean steady = false;
+        
+        do {
+            Thread.sleep(windowMs);
+            held += windowMs;
+            current = engine.sample();
+            steady = previous != null && isSteady(previous, current);
+            previous = current;
+        } while (!steady && held < maxHoldMs);
+        
+        LevelResult result = new LevelResult(level, current.getThroughput(), current.getLatencies().getMean(),
+            current.getLatencies().getPercentile(95), current.getLatencies().getPercentile(99),
+            current.getErrorRate(), steady, slo.isMetBy(current), HarnessMonitor.isRunValid(), held);
+        
+        MetricsRegistry.record("capacity." + engine.getName() + ".p95_ms", result.p95Ms);
+        logger.info("Level {} {}: {} /s, p95 {}ms, p99 {}ms, errors {}% - {}{}",
+            level, dimension, String.format(Locale.UK, "%.1f", result.throughput), result.p95Ms, result.p99Ms,
+            String.format(Locale.UK, "%.2f", result.errorRate * 100),
+            result.passed ? "PASS" : result.isInconclusive() ? "INCONCLUSIVE" : "FAIL", steady ? "" : " (not steady)");
+        if (!result.harnessValid) {
+            logger.warn("Level {} was measured while the harness was saturated: {}",
+                level, HarnessMonitor.getInvalidReasons());
+        }
+        return result;
+    }
+    
+    private boolean isSteady(VirtualUserEngine.WindowStats previous, VirtualUserEngine.WindowStats current) {
+        return relativeChange(previous.getThroughput(), current.getThroughput()) <= steadyTolerance
+            && relativeChange(previous.getLatencies().getPercentile(95), current.getLatencies().getPercentile(95))
+                <= steadyTolerance * 2;
+    }
+    
+    private static double relativeChange(double before, double after) {
+        double base = Math.max(Math.abs(before), Math.abs(after));
+        return base == 0 ? 0.0 : Math.abs(after - before) / base;
+    }
+    
+    private Report report(List<LevelResult> results) {
+        List<LevelResult> ordered = new ArrayList<>(results);
+        ordered.sort(Comparator.comparingInt(result -> result.level));
+        
+        LevelResult maxSustainable = null;
+        for (LevelResult result : ordered) {
+            if (result.passed && (maxSustainable == null || result.level > maxSustainable.level)) {
+                maxSustainable = result;
+            }
+        }
+        double maxThroughput = ordered.stream()
+            .filter(result -> result.passed)
+            .mapToDouble(result -> result.throughput)
+            .max().orElse(0.0);
+        
+        Report report = new Report(engine.getName(), dimension, slo, ordered,
+            maxSustainable == null ? 0 : maxSustainable.level, maxThroughput, findKnee(ordered));
+            
+        MetricsRegistry.gauge("capacity." + engine.getName() + ".max_sustainable_level", report.maxSustainableLevel);
+        MetricsRegistry.gauge("capacity." + engine.getName() + ".max_throughput", report.maxSustainableThroughput);
+        MetricsRegistry.gauge("capacity." + engine.getName() + ".knee_level", report.kneeLevel);
+        report.write(REPORT_DIR.resolve(engine.getName() + "-capacity.csv"));
+        logger.info(report.toString());
+        return report;
+    }
+    
+    /**
+     * First level whose throughput per unit of load falls below the knee efficiency of the lowest level
+     */
+    private int findKnee(List<LevelResult> ordered) {
+        if (ordered.isEmpty() || ordered.get(0).level == 0 || ordered.get(0).throughput == 0) {
+            return 0;
+        }
+        double baseline = ordered.get(0).throughput / ordered.get(0).level;
+        for (LevelResult result : ordered) {
+            if (result.throughput / result.level < baseline * kneeEfficiency) {
+                return result.level;
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * Service level objective evaluated at every level
+     */
+    public static class Slo {
+        final long p95Ms;
+        final long p99Ms;
+        final double maxErrorRate;
+        
+        public Slo(long p95Ms, long p99Ms, double maxErrorRate) {
+            this.p95Ms = p95Ms;
+            this.p99Ms = p99Ms;
+            this.maxErrorRate = maxErrorRate;
+        }
+        
+        boolean isMetBy(VirtualUserEngine.WindowStats stats) {
+            LatencyHistogram latencies = stats.getLatencies();
+            return latencies.getCount() > 0
+                && latencies.getPercentile(95) <= p95Ms
+                && latencies.getPercentile(99) <= p99Ms
+                && stats.getErrorRate() <= maxErrorRate;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format(Locale.UK, "p95<=%dms, p99<=%dms, errors<=%.2f%%", p95Ms, p99Ms, maxErrorRate * 100);
+        }
+    }
+    
+    /**
+     * Measurements at one load level; a level only passes if the SLO was met on a steady
+     * window measured while the harness itself kept up
+     */
+    public static class LevelResult {
+        final int level;
+        final double throughput;
+        final double meanMs;
+        final long p95Ms;
+        final long p99Ms;
+        final double errorRate;
+        final boolean steady;
+        final boolean sloMet;
+        final boolean passed;
+        final boolean harnessValid;
+        final long heldMs;
+        
+        LevelResult(int level, double throughput, double meanMs, long p95Ms, long p99Ms, double errorRate,
+                    boolean steady, boolean sloMet, boolean harnessValid, long heldMs) {
+            this.level = level;
+            this.throughput = throughput;
+            this.meanMs = meanMs;
+            this.p95Ms = p95Ms;
+            this.p99Ms = p99Ms;
+            this.errorRate = errorRate;
+            this.steady = steady;
+            this.sloMet = sloMet;
+            this.passed = sloMet && steady && harnessValid;
+            this.harnessValid = harnessValid;
+            this.heldMs = heldMs;
+        }
+        
+        public int getLevel() {
+            return level;
+        }
+        
+        public double getThroughput() {
+            return throughput;
+        }
+        
+        public double getMeanMs() {
+            return meanMs;
+        }
+        
+        public long getP95Ms() {
+            return p95Ms;
+        }
+        
+        public long getP99Ms() {
+            return p99Ms;
+        }
+        
+        public double getErrorRate() {
+            return errorRate;
+        }
+        
+        public boolean isSteady() {
+            return steady;
+        }
+        
+        public boolean isPassed() {
+            return passed;
+        }
+        
+        /**
+         * True if the SLO was met but the level never settled or the harness was saturated,
+         * so the measurement cannot show the level is sustainable
+         */
+        public boolean isInconclusive() {
+            return sloMet && !passed;
+        }
+        
+        /**
+         * False if the load generator was saturated while this level was measured
+         */
+        public boolean isHarnessValid() {
+            return harnessValid;
+        }
+    }
+    
+    /**
+     * Outcome of a capacity search
+     */
+    public static class Report {
+        final String name;
+        final Dimension dimension;
+        final Slo slo;
+        final List<LevelResult> levels;
+        final int maxSustainableLevel;
+        final double maxSustainableThroughput;
+        final int kneeLevel;
+        
+        Report(String name, Dimension dimension, Slo slo, List<LevelResult> levels,
+               int maxSustainableLevel, double maxSustainableThroughput, int kneeLevel) {
+            this.name = name;
+            this.dimension = dimension;
+            this.slo = slo;
+            this.levels = levels;
+            this.maxSustainableLevel = maxSustainableLevel;
+            this.maxSustainableThroughput = maxSustainableThroughput;
+            this.kneeLevel = kneeLevel;
+        }
+        
+        public List<LevelResult> getLevels() {
+            return Collections.unmodifiableList(levels);
+        }
+        
+        public Dimension getDimension() {
+            return dimension;
+        }
+        
+        public int getMaxSustainableLevel() {
+            return maxSustainableLevel;
+        }
+        
+        public double getMaxSustainableThroughput() {
+            return maxSustainableThroughput;
+        }
+        
+        /**
+         * Level where throughput stopped scaling with load (0 if not reached)
+         */
+        public int getKneeLevel() {
+            return kneeLevel;
+        }
+        
+        void write(Path path) {
+            try {
+                Files.createDirectories(path.getParent());
+                try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+                    out.println("level,throughput_per_s,mean_ms,p95_ms,p99_ms,error_rate,steady,passed,harness_valid,slo_met,dimension");
+                    for (LevelResult result : levels) {
+                        out.printf(Locale.UK, "%d,%.3f,%.1f,%d,%d,%.5f,%b,%b,%b,%b,%s%n", result.level, result.throughput,
+                            result.meanMs, result.p95Ms, result.p99Ms, result.errorRate, result.steady, result.passed,
+                            result.harnessValid, result.sloMet, dimension);
+                    }
+                }
+                logger.info("Capacity report written to {}", path);
+            } catch (IOException e) {
+                logger.error("Failed to write capacity report: {}", e.getMessage());
+            }
+        }
+        
+        @Override
+        public String toString() {
+            return String.format(Locale.UK,
+                "Capacity of %s under %s: max sustainable %d %s at %.1f/s, knee at %s",
+                name, slo, maxSustainableLevel, dimension, maxSustainableThroughput,
+                kneeLevel == 0 ? "not reached" : String.valueOf(kneeLevel));
+        }
+    }
+}
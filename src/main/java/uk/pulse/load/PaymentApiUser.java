@@ -0,0 +1,46 @@
+package uk.pulse.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Protocol-level virtual user making salary payments against the payments API
+ * Browsers are far too heavy to run thousands of, so capacity searches drive the API
+ * directly through one shared HTTP client
+ */
+public class PaymentApiUser implements VirtualUser {
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+    
+    private final URI paymentUri;
+    private final int minAmount;
+    private final int maxAmount;
+    
+    public PaymentApiUser(String baseUrl, int minAmount, int maxAmount) {
+        this.paymentUri = URI.create(baseUrl + "/api/payments/salary");
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+    }
+    
+    @Override
+    public void iterate() throws Exception {
+        int amount = ThreadLocalRandom.current().nextInt(minAmount, maxAmount + 1);
+        HttpRequest request = HttpRequest.newBuilder(paymentUri)
+            .timeout(Duration.ofSeconds(30))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(
+                "{\"amount\":" + amount + ",\"recipient\":\"Salary Account\",\"reference\":\"Monthly Salary\"}"))
+            .build();
+            
+        HttpResponse<Void> response = CLIENT.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() >= 400) {
+            throw new IOException("Payment failed with HTTP " + response.statusCode());
+        }
+    }
+}
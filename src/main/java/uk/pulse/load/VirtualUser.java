@@ -0,0 +1,19 @@
+package uk.pulse.load;
+
+/**
+ * A single virtual user driven by the VirtualUserEngine
+ * Each engine thread owns its own instance, so implementations need not be thread-safe
+ */
+public interface VirtualUser {
+    
+    /**
+     * Perform one user journey; throwing marks the iteration as failed
+     */
+    void iterate() throws Exception;
+    
+    /**
+     * Release per-user resources when the user is retired
+     */
+    default void close() {
+    }
+}
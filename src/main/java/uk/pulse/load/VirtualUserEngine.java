@@ -0,0 +1,349 @@
+package uk.pulse.load;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.pulse.observability.HarnessMonitor;
+import uk.pulse.observability.LatencyHistogram;
+import uk.pulse.observability.MetricsRegistry;
+import uk.pulse.observability.RunJournal;
+import uk.pulse.observability.jfr.VirtualUserIterationEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Virtual User Engine for closed and open workload models
+ * Closed model: a fixed number of users loop with think time. Open model: iterations
+ * arrive at a fixed rate regardless of how quickly earlier ones complete
+ */
+public class VirtualUserEngine implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualUserEngine.class);
+    
+    private static final long ARRIVAL_TICK_MS = 10;
+    // Every in-flight arrival holds a platform thread, so the open model is capped well below OS limits
+    private static final int MAX_IN_FLIGHT = Integer.getInteger("pulse.vu.max-in-flight", 500);
+    private static final long SHUTDOWN_TIMEOUT_MS = Long.getLong("pulse.vu.shutdown-timeout-ms", 10_000L);
+    // Open-model users are numbered after the closed-model workers' range
+    private static final int POOLED_USER_ID_BASE = 1_000_000;
+    private static final double THROTTLE_FACTOR = 0.9;
+    
+    private final String name;
+    private final Supplier<VirtualUser> userFactory;
+    private final long thinkTimeMs;
+    private final List<Worker> workers = new ArrayList<>();
+    private final Queue<PooledUser> pooledUsers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger threadIds = new AtomicInteger();
+    private final AtomicInteger pooledUserIds = new AtomicInteger();
+    private final Consumer<String> throttle = this::throttle;
+    
+    private volatile LatencyHistogram window = new LatencyHistogram();
+    private final LongAdder windowErrors = new LongAdder();
+    private final LongAdder windowDropped = new LongAdder();
+    private volatile long windowStart = System.nanoTime();
+    
+    private ThreadPoolExecutor arrivalPool;
+    private Thread arrivalThread;
+    private volatile double arrivalRate;
+    private volatile boolean closed;
+    
+    public VirtualUserEngine(String name, Supplier<VirtualUser> userFactory, long thinkTimeMs) {
+        this.name = name;
+        this.userFactory = userFactory;
+        this.thinkTimeMs = thinkTimeMs;
+        HarnessMonitor.registerThrottle(throttle);
+    }
+    
+    /**
+     * Closed model: grow or shrink the number of looping users
+     */
+    public synchronized void setUsers(int users) {
+        while (workers.size() < users) {
+            Worker worker = new Worker(workers.size());
+            workers.add(worker);
+            worker.thread.start();
+        }
+        while (workers.size() > users) {
+            // Retired users finish their current iteration, then exit
+            workers.remove(workers.size() - 1).active = false;
+        }
+        MetricsRegistry.gauge("vu." + name + ".users", users);
+        logger.info("{}: {} virtual users", name, users);
+    }
+    
+    /**
+     * Open model: start iterations at a fixed rate per second
+     */
+    public synchronized void setArrivalRate(double perSecond) {
+        arrivalRate = perSecond;
+        if (arrivalThread == null && perSecond > 0) {
+            arrivalPool = new ThreadPoolExecutor(0, MAX_IN_FLIGHT, 30, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> newThread(runnable, "arrival"));
+            arrivalThread = newThread(this::dispatchArrivals, "scheduler");
+            arrivalThread.start();
+        }
+        MetricsRegistry.gauge("vu." + name + ".arrival_rate", perSecond);
+        logger.info("{}: {} arrivals/s", name, perSecond);
+    }
+    
+    /**
+     * Statistics since the previous call, for interval-based evaluation
+     */
+    public synchronized WindowStats sample() {
+        long now = System.nanoTime();
+        LatencyHistogram latencies = window;
+        window = new LatencyHistogram();
+        WindowStats stats = new WindowStats(
+            TimeUnit.NANOSECONDS.toMillis(now - windowStart),
+            latencies,
+            windowErrors.sumThenReset(),
+            windowDropped.sumThenReset());
+        windowStart = now;
+        return stats;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Back off by 10% when the harness itself is saturated
+     */
+    private synchronized void throttle(String reason) {
+        if (closed) {
+            return;
+        }
+        logger.warn("{}: throttling load because the harness is saturated ({})", name, reason);
+        if (!workers.isEmpty()) {
+            setUsers((int) (workers.size() * THROTTLE_FACTOR));
+        }
+        if (arrivalRate > 0) {
+            setArrivalRate(arrivalRate * THROTTLE_FACTOR);
+        }
+    }
+    
+    /**
+     * Stop all users and wait for their threads to exit, so no iteration outlives the engine
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        HarnessMonitor.unregisterThrottle(throttle);
+        List<Worker> stopping = new ArrayList<>(workers);
+        setUsers(0);
+        arrivalRate = 0;
+        
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_TIMEOUT_MS);
+        for (Worker worker : stopping) {
+            worker.thread.interrupt();
+        }
+        if (arrivalThread != null) {
+            arrivalThread.interrupt();
+            arrivalPool.shutdownNow();
+        }
+        try {
+            for (Worker worker : stopping) {
+                worker.thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            }
+            if (arrivalThread != null) {
+                arrivalThread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+                arrivalPool.awaitTermination(Math.max(1, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long stillRunning = stopping.stream().filter(worker -> worker.thread.isAlive()).count()
+            + (arrivalPool != null ? arrivalPool.getActiveCount() : 0);
+        if (stillRunning > 0) {
+            logger.warn("{}: {} virtual user threads still running after {}ms", name, stillRunning, SHUTDOWN_TIMEOUT_MS);
+        }
+        
+        PooledUser pooled;
+        while ((pooled = pooledUsers.poll()) != null) {
+            pooled.user.close();
+        }
+        logger.info("{}: engine stopped", name);
+    }
+    
+    private void runIteration(VirtualUser user, int userId) {
+        VirtualUserIterationEvent event = new VirtualUserIterationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean success = true;
+        try {
+            user.iterate();
+        } catch (Exception e) {
+            success = false;
+            event.error = e.getMessage();
+            logger.debug("{}: iteration failed: {}", name, e.getMessage());
+        }
+        if (event.shouldCommit()) {
+            event.engine = name;
+            event.success = success;
+            event.commit();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        RunJournal.recordTransaction(name, userId, start, elapsedNanos, success);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        window.record(elapsedMs);
+        MetricsRegistry.record("vu." + name + ".iteration_ms", elapsedMs);
+        MetricsRegistry.increment("vu." + name + ".iterations");
+        if (!success) {
+            windowErrors.increment();
+            MetricsRegistry.increment("vu." + name + ".errors");
+        }
+    }
+    
+    private void dispatchArrivals() {
+        long nextDue = System.nanoTime();
+        while (!closed) {
+            try {
+                Thread.sleep(ARRIVAL_TICK_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long now = System.nanoTime();
+            double rate = arrivalRate;
+            if (rate <= 0) {
+                nextDue = now;
+                continue;
+            }
+            
+            while (nextDue <= now) {
+                long intendedStart = nextDue;
+                nextDue += (long) (1e9 / rate);
+                try {
+                    arrivalPool.execute(() -> runPooledIteration(intendedStart));
+                } catch (RejectedExecutionException e) {
+                    // More in flight than the harness allows: the arrival is lost, as it would be for a real client
+                    windowDropped.increment();
+                    MetricsRegistry.increment("vu." + name + ".dropped");
+                }
+            }
+            MetricsRegistry.gauge("vu." + name + ".in_flight", arrivalPool.getActiveCount());
+        }
+    }
+    
+    private void runPooledIteration(long intendedStart) {
+        HarnessMonitor.recordSchedulerLateness(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - intendedStart));
+        PooledUser pooled = pooledUsers.poll();
+        if (pooled == null) {
+            pooled = new PooledUser(userFactory.get(), POOLED_USER_ID_BASE + pooledUserIds.incrementAndGet());
+        }
+        try {
+            runIteration(pooled.user, pooled.id);
+        } finally {
+            pooledUsers.offer(pooled);
+        }
+    }
+    
+    private Thread newThread(Runnable runnable, String role) {
+        Thread thread = new Thread(runnable, "pulse-vu-" + name + "-" + role + "-" + threadIds.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+    
+    /**
+     * One looping user in the closed model
+     */
+    private class Worker implements Runnable {
+        final Thread thread;
+        final int index;
+        volatile boolean active = true;
+        
+        Worker(int index) {
+            this.index = index;
+            this.thread = newThread(this, "user" + index);
+        }
+        
+        @Override
+        public void run() {
+            VirtualUser user = userFactory.get();
+            try {
+                while (active && !closed) {
+                    runIteration(user, index);
+                    if (thinkTimeMs > 0) {
+                        long intendedStart = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(thinkTimeMs);
+                        Thread.sleep(thinkTimeMs);
+                        HarnessMonitor.recordSchedulerLateness(
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - intendedStart));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                user.close();
+            }
+        }
+    }
+    
+    /**
+     * Open-model user kept between arrivals, with the id it is journalled under
+     */
+    private static class PooledUser {
+        final VirtualUser user;
+        final int id;
+        
+        PooledUser(VirtualUser user, int id) {
+            this.user = user;
+            this.id = id;
+        }
+    }
+    
+    /**
+     * Iterations completed in one sampling window
+     */
+    public static class WindowStats {
+        final long durationMs;
+        final LatencyHistogram latencies;
+        final long errors;
+        final long dropped;
+        
+        WindowStats(long durationMs, LatencyHistogram latencies, long errors, long dropped) {
+            this.durationMs = durationMs;
+            this.latencies = latencies;
+            this.errors = errors;
+            this.dropped = dropped;
+        }
+        
+        public long getDurationMs() {
+            return durationMs;
+        }
+        
+        public LatencyHistogram getLatencies() {
+            return latencies;
+        }
+        
+        public long getIterations() {
+            return latencies.getCount();
+        }
+        
+        /**
+         * Completed iterations per second
+         */
+        public double getThroughput() {
+            return durationMs == 0 ? 0.0 : latencies.getCount() * 1000.0 / durationMs;
+        }
+        
+        /**
+         * Failed plus dropped iterations as a share of all attempts
+         */
+        public double getErrorRate() {
+            long attempts = latencies.getCount() + dropped;
+            return attempts == 0 ? 0.0 : (double) (errors + dropped) / attempts;
+        }
+        
+        public long getDropped() {
+            return dropped;
+        }
+    }
+}
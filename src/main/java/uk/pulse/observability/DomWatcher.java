@@ -0,0 +1,311 @@
+package uk.pulse.observability;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.PlaywrightException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Push-based DOM Watcher
+ * A MutationObserver in the page pushes text, class and visibility changes of watched
+ * selectors through an exposed binding into a lock-free per-page state map, so steps
+ * can wait on predicates without a driver round-trip per read and still see values
+ * that only existed between two polls
+ * Reads are coalesced to one per animation frame, so a value that was never painted is not reported
+ */
+public class DomWatcher {
+    private static final Logger logger = LoggerFactory.getLogger(DomWatcher.class);
+    
+    private static final String BINDING = "__pulseDom";
+    private static final int HISTORY_SIZE = Integer.getInteger("pulse.dom.history", 256);
+    private static final Gson GSON = new Gson();
+    
+    // One observer per document; each watch() call only adds selectors to it
+    // Mutations only mark the selectors whose element they touch (or could newly match) dirty,
+    // and dirty selectors are re-read once per animation frame; the timeout covers hidden pages,
+    // where requestAnimationFrame does not fire
+    private static final String WATCH_SCRIPT =
+        "(selectors => {" +
+        "  const w = window.__pulseDomWatch = window.__pulseDomWatch || { selectors: new Set(), last: new Map()," +
+        "    elements: new Map(), dirty: new Set(), frame: 0, timer: 0, observer: null };" +
+        "  selectors.forEach(s => w.selectors.add(s));" +
+        "  const flush = () => {" +
+        "    cancelAnimationFrame(w.frame); clearTimeout(w.timer); w.frame = w.timer = 0;" +
+        "    const changes = [];" +
+        "    w.dirty.forEach(selector => {" +
+        "      const el = document.querySelector(selector);" +
+        "      w.elements.set(selector, el);" +
+        "      const value = el ? [el.textContent.trim(), el.getAttribute('class') || ''," +
+        "        !!(el.offsetWidth || el.offsetHeight || el.getClientRects().length)] : [null, null, false];" +
+        "      const key = JSON.stringify(value);" +
+        "      if (w.last.get(selector) !== key) { w.last.set(selector, key); changes.push([selector].concat(value)); }" +
+        "    });" +
+        "    w.dirty.clear();" +
+        "    if (changes.length && typeof window." + BINDING + " === 'function') window." + BINDING + "(JSON.stringify([Date.now(), changes]));" +
+        "  };" +
+        "  const affects = (selector, record) => {" +
+        "    const el = w.elements.get(selector), target = record.target;" +
+        "    if (el && (!el.isConnected || el.contains(target) || target.contains(el))) return true;" +
+        "    if (record.type === 'attributes') return target.matches(selector);" +
+        "    for (const node of record.addedNodes) {" +
+        "      if (node.nodeType === 1 && (node.matches(selector) || node.querySelector(selector))) return true;" +
+        "    }" +
+        "    return false;" +
+        "  };" +
+        "  const observe = records => {" +
+        "    w.selectors.forEach(selector => {" +
+        "      if (!w.dirty.has(selector) && records.some(record => affects(selector, record))) w.dirty.add(selector);" +
+        "    });" +
+        "    if (w.dirty.size && !w.frame) { w.frame = requestAnimationFrame(flush); w.timer = setTimeout(flush, 100); }" +
+        "  };" +
+        "  const start = () => {" +
+        "    if (!w.observer) {" +
+        "      w.observer = new MutationObserver(observe);" +
+        "      w.observer.observe(document.documentElement, { subtree: true, childList: true, characterData: true," +
+        "        attributes: true, attributeFilter: ['class', 'style', 'hidden'] });" +
+        "    }" +
+        "    selectors.forEach(s => w.dirty.add(s));" +
+        "    flush();" +
+        "  };" +
+        "  if (document.documentElement) start(); else document.addEventListener('DOMContentLoaded', start);" +
+        "})(%s)";
+        
+    private static final Map<Page, DomWatcher> watchers = new WeakHashMap<>();
+    
+    private final Page page;
+    private final Map<String, SelectorState> state = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    
+    private DomWatcher(Page page) {
+        this.page = page;
+    }
+    
+    /**
+     * Watch the selectors on the page (and its future documents), returning the page's watcher
+     */
+    public static DomWatcher watch(Page page, String... selectors) {
+        DomWatcher watcher;
+        boolean created = false;
+        synchronized (watchers) {
+            watcher = watchers.get(page);
+            if (watcher == null) {
+                watcher = new DomWatcher(page);
+                watchers.put(page, watcher);
+                created = true;
+            }
+        }
+        
+        if (created) {
+            DomWatcher target = watcher;
+            page.exposeBinding(BINDING, (source, args) -> {
+                target.accept((String) args[0]);
+                return null;
+            });
+        }
+        
+        List<String> added = new ArrayList<>();
+        for (String selector : selectors) {
+            if (watcher.state.putIfAbsent(selector, new SelectorState()) == null) {
+                added.add(selector);
+            }
+        }
+        if (!added.isEmpty()) {
+            String script = String.format(WATCH_SCRIPT, GSON.toJson(added));
+            page.addInitScript(script);
+            try {
+                page.evaluate(script);
+            } catch (PlaywrightException e) {
+                // Nothing loaded yet; the init script covers the first document
+                logger.debug("Could not watch current document: {}", e.getMessage());
+            }
+            logger.info("Watching {} for DOM changes", added);
+        }
+        return watcher;
+    }
+    
+    /**
+     * Latest observation of the selector (null if it has not been seen yet)
+     */
+    public Observation current(String selector) {
+        SelectorState selectorState = state.get(selector);
+        return selectorState == null ? null : selectorState.latest;
+    }
+    
+    /**
+     * Latest text of the selector, without a driver round-trip (null if absent)
+     */
+    public String text(String selector) {
+        Observation observation = current(selector);
+        return observation == null ? null : observation.text;
+    }
+    
+    /**
+     * Every value the selector has held, oldest first, bounded by pulse.dom.history
+     */
+    public List<Observation> history(String selector) {
+        SelectorState selectorState = state.get(selector);
+        return selectorState == null ? List.of() : new ArrayList<>(selectorState.history);
+    }
+    
+    /**
+     * Sequence number of the latest change; pass to await() to consider only later changes
+     */
+    public long mark() {
+        return sequence.get();
+    }
+    
+    /**
+     * Wait until an observation newer than the mark satisfies the predicate, including transient ones
+     */
+    public Observation await(String selector, Predicate<Observation> predicate, long since, double timeoutMs) {
+        Observation[] match = new Observation[1];
+        // waitForCondition re-evaluates as each binding call is dispatched, so this never polls the page
+        page.waitForCondition(() -> (match[0] = find(selector, predicate, since)) != null,
+            new Page.WaitForConditionOptions().setTimeout(timeoutMs));
+        return match[0];
+    }
+    
+    /**
+     * Wait until the selector's text satisfies the predicate now or at any later point
+     */
+    public String awaitText(String selector, Predicate<String> predicate, double timeoutMs) {
+        Observation latest = current(selector);
+        if (latest != null && latest.text != null && predicate.test(latest.text)) {
+            return latest.text;
+        }
+        return await(selector, observation -> observation.text != null && predicate.test(observation.text),
+            mark(), timeoutMs).text;
+    }
+    
+    /**
+     * Wait for any of the selectors to change, returning null if none did within the timeout
+     */
+    public Observation awaitChange(double timeoutMs, String... selectors) {
+        long since = mark();
+        Observation[] match = new Observation[1];
+        try {
+            page.waitForCondition(() -> {
+                for (String selector : selectors) {
+                    if ((match[0] = find(selector, observation -> true, since)) != null) {
+                        return true;
+                    }
+                }
+                return false;
+            }, new Page.WaitForConditionOptions().setTimeout(timeoutMs));
+            return match[0];
+        } catch (PlaywrightException e) {
+            return null;
+        }
+    }
+    
+    private Observation find(String selector, Predicate<Observation> predicate, long since) {
+        SelectorState selectorState = state.get(selector);
+        if (selectorState == null) {
+            throw new IllegalArgumentException("Selector is not being watched: " + selector);
+        }
+        for (Observation observation : selectorState.history) {
+            if (observation.sequence > since && predicate.test(observation)) {
+                return observation;
+            }
+        }
+        return null;
+    }
+    
+    private void accept(String json) {
+        JsonArray payload = JsonParser.parseString(json).getAsJsonArray();
+        long observedAt = payload.get(0).getAsLong();
+        MetricsRegistry.record("dom.push_lag_ms", System.currentTimeMillis() - observedAt);
+        
+        for (JsonElement element : payload.get(1).getAsJsonArray()) {
+            JsonArray change = element.getAsJsonArray();
+            SelectorState selectorState = state.get(change.get(0).getAsString());
+            if (selectorState == null) {
+                continue;
+            }
+            Observation observation = new Observation(
+                change.get(1).isJsonNull() ? null : change.get(1).getAsString(),
+                change.get(2).isJsonNull() ? null : change.get(2).getAsString(),
+                change.get(3).getAsBoolean(),
+                observedAt,
+                sequence.incrementAndGet());
+            selectorState.add(observation);
+            MetricsRegistry.increment("dom.updates");
+        }
+    }
+    
+    private static class SelectorState {
+        final ConcurrentLinkedDeque<Observation> history = new ConcurrentLinkedDeque<>();
+        final AtomicInteger size = new AtomicInteger();
+        volatile Observation latest;
+        
+        void add(Observation observation) {
+            history.addLast(observation);
+            latest = observation;
+            if (size.incrementAndGet() > HISTORY_SIZE) {
+                history.pollFirst();
+                size.decrementAndGet();
+            }
+        }
+    }
+    
+    /**
+     * One value a watched element held, stamped with the page clock
+     */
+    public static class Observation {
+        final String text;
+        final String className;
+        final boolean visible;
+        final long observedAtMs;
+        final long sequence;
+        
+        Observation(String text, String className, boolean visible, long observedAtMs, long sequence) {
+            this.text = text;
+            this.className = className;
+            this.visible = visible;
+            this.observedAtMs = observedAtMs;
+            this.sequence = sequence;
+        }
+        
+        public String getText() {
+            return text;
+        }
+        
+        public String getClassName() {
+            return className;
+        }
+        
+        public boolean isVisible() {
+            return visible;
+        }
+        
+        /**
+         * Epoch millis at which the page made the change
+         */
+        public long getObservedAtMs() {
+            return observedAtMs;
+        }
+        
+        public long getSequence() {
+            return sequence;
+        }
+        
+        @Override
+        public String toString() {
+            return text + (visible ? "" : " (hidden)");
+        }
+    }
+}
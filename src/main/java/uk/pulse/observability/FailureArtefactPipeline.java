@@ -0,0 +1,205 @@
+package uk.pulse.observability;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background pipeline for failure screenshots
+ * Teardown only hands over the encoded image and gets back a reference; hashing,
+ * deduplication and disk writes happen on a bounded worker pool. Every reference holds
+ * its own failure's image: byte-identical images within the run share one file, so a
+ * wave of identical error pages costs one, while near matches are only noted in similar.csv
+ */
+public class FailureArtefactPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(FailureArtefactPipeline.class);
+    
+    private static final int WORKERS = Integer.getInteger("pulse.artefacts.workers", 1);
+    private static final int QUEUE_SIZE = Integer.getInteger("pulse.artefacts.queue", 32);
+    private static final int MAX_DISTANCE = Integer.getInteger("pulse.artefacts.max-distance", 4);
+    private static final long DRAIN_TIMEOUT_MS = Long.getLong("pulse.artefacts.drain-ms", 10_000);
+    private static final Path STORE_DIR = Paths.get(System.getProperty("pulse.artefacts.dir", "target/failure-artefacts"));
+    private static final Path SIMILAR_INDEX = STORE_DIR.resolve("similar.csv");
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    
+    // Perceptual hash of each image stored this run to the first file holding it
+    private static final Map<Long, Path> blobs = new ConcurrentHashMap<>();
+    private static final AtomicInteger sequence = new AtomicInteger();
+    
+    private static ThreadPoolExecutor executor;
+    private static boolean started;
+    
+    private FailureArtefactPipeline() {
+    }
+    
+    /**
+     * Queue an encoded image for storage, returning the path it will be reachable at
+     * (null when the queue is full and the artefact was dropped)
+     */
+    public static Path submit(byte[] image, String label, String extension) {
+        String slug = label.toLowerCase().replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "");
+        Path reference = STORE_DIR.resolve(LocalDateTime.now().format(TIMESTAMP) + "-" + sequence.incrementAndGet()
+            + "-" + slug.substring(0, Math.min(40, slug.length())) + "." + extension);
+        
+        try {
+            getExecutor().execute(() -> store(image, reference));
+            MetricsRegistry.increment("artefacts.submitted");
+            return reference;
+        } catch (RejectedExecutionException e) {
+            // Never stall teardown behind the disk; losing a screenshot beats doubling the run
+            MetricsRegistry.increment("artefacts.dropped");
+            logger.warn("Failure artefact queue full, dropping screenshot for {}", label);
+            return null;
+        }
+    }
+    
+    /**
+     * Wait for queued artefacts to be written
+     */
+    public static synchronized void drain() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(DRAIN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                logger.warn("{} failure artefacts still queued after {}ms", executor.getQueue().size(), DRAIN_TIMEOUT_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+    
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            AtomicInteger threads = new AtomicInteger();
+            executor = new ThreadPoolExecutor(WORKERS, WORKERS, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_SIZE), runnable -> {
+                    Thread thread = new Thread(runnable, "pulse-artefacts-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+            if (!started) {
+                started = true;
+                Runtime.getRuntime().addShutdownHook(new Thread(FailureArtefactPipeline::drain));
+            }
+        }
+        return executor;
+    }
+    
+    private static void store(byte[] image, Path reference) {
+        long start = System.nanoTime();
+        try {
+            BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(image));
+            if (decoded == null) {
+                logger.warn("Unreadable failure artefact {}, storing as-is", reference.getFileName());
+                Files.createDirectories(STORE_DIR);
+                Files.write(reference, image);
+                return;
+            }
+            
+            long hash = differenceHash(decoded);
+            synchronized (blobs) {
+                // A matching hash only shares the file when the bytes are the same image
+                Path identical = blobs.get(hash);
+                if (identical != null && Arrays.equals(Files.readAllBytes(identical), image)) {
+                    link(reference, identical);
+                    MetricsRegistry.increment("artefacts.deduplicated");
+                    return;
+                }
+                
+                Files.createDirectories(STORE_DIR);
+                Files.write(reference, image);
+                blobs.putIfAbsent(hash, reference);
+                MetricsRegistry.increment("artefacts.stored");
+                MetricsRegistry.add("artefacts.bytes_stored", image.length);
+                recordSimilar(reference, hash);
+            }
+            
+        } catch (IOException e) {
+            logger.error("Failed to store failure artefact {}: {}", reference.getFileName(), e.getMessage());
+        } finally {
+            MetricsRegistry.record("artefacts.process_ms", (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+    
+    /**
+     * Note the closest earlier image of this run within the hash distance, so a wave of
+     * near-identical failures can be spotted without replacing anyone's evidence
+     */
+    private static void recordSimilar(Path reference, long hash) throws IOException {
+        Path best = null;
+        int bestDistance = MAX_DISTANCE + 1;
+        for (Map.Entry<Long, Path> entry : blobs.entrySet()) {
+            int distance = Long.bitCount(entry.getKey() ^ hash);
+            if (distance < bestDistance && !entry.getValue().equals(reference)) {
+                best = entry.getValue();
+                bestDistance = distance;
+            }
+        }
+        if (best == null) {
+            return;
+        }
+        MetricsRegistry.increment("artefacts.similar");
+        boolean header = !Files.exists(SIMILAR_INDEX);
+        String line = (header ? "artefact,similar_to,distance\n" : "")
+            + reference.getFileName() + "," + best.getFileName() + "," + bestDistance + "\n";
+        Files.write(SIMILAR_INDEX, line.getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+    
+    private static void link(Path reference, Path blob) throws IOException {
+        Files.createDirectories(reference.getParent());
+        try {
+            // Hard links keep the reference openable without a second copy of the bytes
+            Files.createLink(reference, blob);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(blob, reference, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    /**
+     * 64-bit difference hash: greyscale 9x8 thumbnail, one bit per horizontal gradient sign
+     */
+    static long differenceHash(BufferedImage image) {
+        BufferedImage thumbnail = new BufferedImage(9, 8, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = thumbnail.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, 9, 8, null);
+        graphics.dispose();
+        
+        long hash = 0;
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                int left = thumbnail.getRaster().getSample(x, y, 0);
+                int right = thumbnail.getRaster().getSample(x + 1, y, 0);
+                hash = (hash << 1) | (left > right ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+}
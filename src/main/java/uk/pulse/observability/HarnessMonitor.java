@@ -0,0 +1,316 @@
+package uk.pulse.observability;
+
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Request;
+import com.microsoft.playwright.options.Timing;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Harness Self-Monitoring and Saturation Watchdog
+ * Tracks the load generator's own CPU, GC pauses (via JFR streaming), Playwright
+ * dispatch lag, scheduler lateness and memory; when the harness rather than the
+ * system under test is the bottleneck the run is marked invalid or throttled
+ */
+public class HarnessMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(HarnessMonitor.class);
+    
+    // Watchdog thresholds (override with -Dpulse.watchdog.*)
+    private static final double MAX_CPU = Double.parseDouble(System.getProperty("pulse.watchdog.max-cpu", "0.90"));
+    private static final double MAX_GC_FRACTION = Double.parseDouble(System.getProperty("pulse.watchdog.max-gc-fraction", "0.10"));
+    private static final long MAX_DISPATCH_LAG_MS = Long.getLong("pulse.watchdog.max-dispatch-lag-ms", 500);
+    private static final long MAX_SCHEDULER_LATENESS_MS = Long.getLong("pulse.watchdog.max-lateness-ms", 100);
+    private static final double MAX_HEAP_USED = Double.parseDouble(System.getProperty("pulse.watchdog.max-heap-used", "0.90"));
+    private static final int BREACH_SAMPLES = Integer.getInteger("pulse.watchdog.breach-samples", 3);
+    private static final long VALIDITY_WINDOW_MS = Long.getLong("pulse.watchdog.validity-window-s", 60) * 1000;
+    private static final Action ACTION = Action.valueOf(
+        System.getProperty("pulse.watchdog.action", "invalidate").toUpperCase());
+    
+    private static final long SAMPLE_INTERVAL_MS = 1000;
+    
+    private static final com.sun.management.OperatingSystemMXBean OS =
+        (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+    
+    private static final AtomicLong gcPauseNanos = new AtomicLong();
+    // Breach type -> its latest trip; results are invalid while any trip is inside the window
+    private static final Map<String, Trip> invalidReasons = Collections.synchronizedMap(new LinkedHashMap<>());
+    private static final Map<Request, Long> requestsSeen = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final List<Consumer<String>> throttles = new CopyOnWriteArrayList<>();
+    
+    private static ScheduledExecutorService sampler;
+    private static RecordingStream gcStream;
+    private static LatencyHistogram dispatchLagWindow = new LatencyHistogram();
+    private static LatencyHistogram latenessWindow = new LatencyHistogram();
+    private static int consecutiveBreaches;
+    
+    /**
+     * What the watchdog does when the harness is saturated
+     */
+    public enum Action {
+        INVALIDATE,  // keep running but flag the results as untrustworthy
+        THROTTLE     // also ask registered load generators to back off
+    }
+    
+    private HarnessMonitor() {
+    }
+    
+    /**
+     * Start sampling and GC streaming (idempotent)
+     */
+    public static synchronized void start() {
+        if (sampler != null) {
+            return;
+        }
+        logger.info("Starting harness self-monitoring (watchdog action: {})", ACTION);
+        
+        try {
+            gcStream = new RecordingStream();
+            gcStream.enable("jdk.GarbageCollection");
+            gcStream.onEvent("jdk.GarbageCollection", HarnessMonitor::onGarbageCollection);
+            gcStream.startAsync();
+        } catch (Exception e) {
+            // JFR can be disabled or unavailable on some JVMs; the rest of the monitor still works
+            logger.warn("JFR GC streaming unavailable: {}", e.getMessage());
+            gcStream = null;
+        }
+        
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pulse-harness-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(HarnessMonitor::sample, SAMPLE_INTERVAL_MS, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Stop sampling and GC streaming
+     */
+    public static synchronized void stop() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+            sampler = null;
+        }
+        if (gcStream != null) {
+            gcStream.close();
+            gcStream = null;
+        }
+    }
+    
+    /**
+     * Measure how long browser events wait before the Java side dispatches them
+     * Events queue up behind anything blocking the connection's thread (e.g. a route handler sleeping)
+     */
+    public static void watchDispatchLag(Page page, String connectionName) {
+        // timing() is only filled in once the response arrives, so the lag is worked out when the request ends
+        page.onRequest(request -> requestsSeen.put(request, System.nanoTime()));
+        page.onRequestFinished(request -> measureDispatchLag(request, connectionName));
+        page.onRequestFailed(request -> measureDispatchLag(request, connectionName));
+    }
+    
+    private static void measureDispatchLag(Request request, String connectionName) {
+        Long seenAt = requestsSeen.remove(request);
+        Timing timing = request.timing();
+        if (seenAt == null || timing == null || timing.startTime <= 0) {
+            return;
+        }
+        long seenAtMillis = System.currentTimeMillis() - (System.nanoTime() - seenAt) / 1_000_000;
+        recordDispatchLag(connectionName, seenAtMillis - (long) timing.startTime);
+    }
+    
+    public static void recordDispatchLag(String connectionName, long lagMs) {
+        long lag = Math.max(0, lagMs);
+        MetricsRegistry.record("harness.dispatch_lag_ms." + connectionName, lag);
+        synchronized (HarnessMonitor.class) {
+            dispatchLagWindow.record(lag);
+        }
+    }
+    
+    /**
+     * Record how late a load generator started work compared with its intended start time
+     */
+    public static void recordSchedulerLateness(long latenessMs) {
+        long lateness = Math.max(0, latenessMs);
+        MetricsRegistry.record("harness.scheduler_lateness_ms", lateness);
+        synchronized (HarnessMonitor.class) {
+            latenessWindow.record(lateness);
+        }
+    }
+    
+    /**
+     * Register a callback asked to reduce load when the watchdog throttles
+     */
+    public static void registerThrottle(Consumer<String> throttle) {
+        throttles.add(throttle);
+    }
+    
+    public static void unregisterThrottle(Consumer<String> throttle) {
+        throttles.remove(throttle);
+    }
+    
+    /**
+     * False while the watchdog has seen the harness saturated within the validity window
+     */
+    public static boolean isRunValid() {
+        return getInvalidReasons().isEmpty();
+    }
+    
+    /**
+     * Saturation reasons seen within the validity window, with the latest reading for each
+     */
+    public static List<String> getInvalidReasons() {
+        return reasonsSince(System.currentTimeMillis() - VALIDITY_WINDOW_MS);
+    }
+    
+    /**
+     * True if the watchdog tripped at any point since resetValidity, e.g. anywhere in a scenario
+     */
+    public static boolean wasSaturatedSinceReset() {
+        return !invalidReasons.isEmpty();
+    }
+    
+    /**
+     * Every saturation reason since resetValidity, with the latest reading for each
+     */
+    public static List<String> getReasonsSinceReset() {
+        return reasonsSince(Long.MIN_VALUE);
+    }
+    
+    private static List<String> reasonsSince(long cutoff) {
+        List<String> reasons = new ArrayList<>();
+        synchronized (invalidReasons) {
+            invalidReasons.values().forEach(trip -> {
+                if (trip.trippedAt >= cutoff) {
+                    reasons.add(trip.detail);
+                }
+            });
+        }
+        return reasons;
+    }
+    
+    /**
+     * Clear the invalid flag, e.g. between scenarios
+     */
+    public static synchronized void resetValidity() {
+        invalidReasons.clear();
+        consecutiveBreaches = 0;
+        MetricsRegistry.gauge("harness.run_valid", 1);
+    }
+    
+    private static void onGarbageCollection(RecordedEvent event) {
+        Duration pauses = event.getDuration("sumOfPauses");
+        gcPauseNanos.addAndGet(pauses.toNanos());
+        MetricsRegistry.record("harness.gc_pause_ms", pauses.toMillis());
+    }
+    
+    private static void sample() {
+        try {
+            double processCpu = OS.getProcessCpuLoad();
+            double systemCpu = OS.getCpuLoad();
+            Runtime runtime = Runtime.getRuntime();
+            long used = runtime.totalMemory() - runtime.freeMemory();
+            double heapUsed = (double) used / runtime.maxMemory();
+            double gcFraction = gcPauseNanos.getAndSet(0) / (SAMPLE_INTERVAL_MS * 1_000_000.0);
+            
+            LatencyHistogram dispatchLag;
+            LatencyHistogram lateness;
+            synchronized (HarnessMonitor.class) {
+                dispatchLag = dispatchLagWindow;
+                lateness = latenessWindow;
+                dispatchLagWindow = new LatencyHistogram();
+                latenessWindow = new LatencyHistogram();
+            }
+            
+            MetricsRegistry.gauge("harness.process_cpu", processCpu);
+            MetricsRegistry.gauge("harness.system_cpu", systemCpu);
+            MetricsRegistry.gauge("harness.gc_fraction", gcFraction);
+            MetricsRegistry.gauge("harness.heap_used_ratio", heapUsed);
+            MetricsRegistry.gauge("harness.free_memory_mb", OS.getFreeMemorySize() / (1024.0 * 1024.0));
+            MetricsRegistry.gauge("harness.threads", ManagementFactory.getThreadMXBean().getThreadCount());
+            
+            // Breach type -> this sample's reading
+            Map<String, String> breaches = new LinkedHashMap<>();
+            // Only the harness's own CPU matters; a busy neighbour on the agent does not invalidate results
+            if (processCpu >= MAX_CPU) {
+                breaches.put("cpu", String.format("process CPU at %.0f%%", processCpu * 100));
+            }
+            if (gcFraction >= MAX_GC_FRACTION) {
+                breaches.put("gc", String.format("GC pauses %.0f%% of wall time", gcFraction * 100));
+            }
+            if (heapUsed >= MAX_HEAP_USED) {
+                breaches.put("heap", String.format("heap %.0f%% used", heapUsed * 100));
+            }
+            if (dispatchLag.getPercentile(99) >= MAX_DISPATCH_LAG_MS) {
+                breaches.put("dispatch_lag", "Playwright dispatch lag p99 " + dispatchLag.getPercentile(99) + "ms");
+            }
+            if (lateness.getPercentile(99) >= MAX_SCHEDULER_LATENESS_MS) {
+                breaches.put("scheduler_lateness", "scheduler lateness p99 " + lateness.getPercentile(99) + "ms");
+            }
+            evaluate(breaches);
+            MetricsRegistry.gauge("harness.run_valid", isRunValid() ? 1 : 0);
+            
+        } catch (Exception e) {
+            logger.error("Harness monitor sample failed: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * A single noisy sample is tolerated; sustained saturation trips the watchdog
+     */
+    private static synchronized void evaluate(Map<String, String> breaches) {
+        if (breaches.isEmpty()) {
+            consecutiveBreaches = 0;
+            return;
+        }
+        consecutiveBreaches++;
+        MetricsRegistry.increment("harness.saturated_samples");
+        if (consecutiveBreaches < BREACH_SAMPLES) {
+            return;
+        }
+        
+        long now = System.currentTimeMillis();
+        breaches.forEach((type, detail) -> {
+            // Sustained saturation refreshes the trip; only a new breach type is logged
+            if (invalidReasons.put(type, new Trip(detail, now)) == null) {
+                logger.error("Harness saturated - results are not trustworthy: {}", detail);
+            }
+        });
+        String reason = String.join(", ", breaches.values());
+        MetricsRegistry.gauge("harness.run_valid", 0);
+        
+        if (ACTION == Action.THROTTLE) {
+            MetricsRegistry.increment("harness.throttles");
+            throttles.forEach(throttle -> throttle.accept(reason));
+            consecutiveBreaches = 0;  // give the reduced load time to take effect
+        }
+    }
+    
+    /**
+     * Latest reading for one breach type and when it was taken
+     */
+    private static class Trip {
+        final String detail;
+        final long trippedAt;
+        
+        Trip(String detail, long trippedAt) {
+            this.detail = detail;
+            this.trippedAt = trippedAt;
+        }
+    }
+}
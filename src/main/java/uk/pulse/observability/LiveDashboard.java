@@ -0,0 +1,424 @@
+package uk.pulse.observability;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Live console view of a running load test
+ * Redraws every second from MetricsRegistry: active users, arrival rate, throughput,
+ * error rate, windowed p50/p95/p99 per operation, injected faults and harness health.
+ * Errors come from the same source as throughput (engine iterations or step transactions);
+ * injected faults are shown on their own line rather than counted as errors.
+ * Enable with -Dpulse.dashboard.enabled=true; on a terminal the view is redrawn in place,
+ * otherwise a one-line summary is logged per refresh, or the full view is rewritten to
+ * pulse.dashboard.file for `watch cat` over SSH
+ */
+public class LiveDashboard {
+    private static final Logger logger = LoggerFactory.getLogger(LiveDashboard.class);
+    
+    private static final boolean ENABLED = Boolean.getBoolean("pulse.dashboard.enabled");
+    private static final long INTERVAL_MS = Long.getLong("pulse.dashboard.interval-ms", 1000);
+    private static final int WINDOW_S = Integer.getInteger("pulse.dashboard.window-s", 10);
+    private static final int MAX_OPERATIONS = Integer.getInteger("pulse.dashboard.max-operations", 12);
+    private static final String MODE = System.getProperty("pulse.dashboard.mode", "auto");
+    private static final String FILE = System.getProperty("pulse.dashboard.file");
+    
+    private static final String CLEAR_SCREEN = "\033[H\033[2J";
+    private static final int NAME_WIDTH = 44;
+    
+    private static ScheduledExecutorService ticker;
+    private static long startedAt;
+    private static long previousTickAt;
+    private static Map<String, Long> previousCounters = new HashMap<>();
+    private static final Map<String, Deque<Snapshot>> operationWindows = new HashMap<>();
+    
+    private LiveDashboard() {
+    }
+    
+    /**
+     * Start refreshing the dashboard if pulse.dashboard.enabled is set (idempotent)
+     */
+    public static synchronized void start() {
+        if (!ENABLED || ticker != null) {
+            return;
+        }
+        logger.info("Starting live dashboard ({} output, {}s percentile window)", outputMode(), WINDOW_S);
+        startedAt = System.currentTimeMillis();
+        previousTickAt = startedAt;
+        previousCounters = MetricsRegistry.getCounters();
+        sampleOperations(startedAt, true);
+        
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pulse-live-dashboard");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(LiveDashboard::refresh, INTERVAL_MS, INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Stop refreshing; the last view stays on screen
+     */
+    public static synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+            operationWindows.clear();
+        }
+    }
+    
+    private static void refresh() {
+        long start = System.nanoTime();
+        try {
+            long now = System.currentTimeMillis();
+            double seconds = Math.max(1, now - previousTickAt) / 1000.0;
+            Map<String, Long> counters = MetricsRegistry.getCounters();
+            Map<String, Double> gauges = MetricsRegistry.getGauges();
+            List<Operation> operations = sampleOperations(now, false);
+            
+            View view = new View(now - startedAt, seconds, counters, gauges, operations);
+            previousCounters = counters;
+            previousTickAt = now;
+            
+            switch (outputMode()) {
+                case "file":
+                    Path target = Paths.get(FILE);
+                    Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+                    Files.write(temporary, view.render().getBytes(StandardCharsets.UTF_8));
+                    Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    break;
+                case "ansi":
+                    System.out.print(CLEAR_SCREEN + view.render());
+                    System.out.flush();
+                    break;
+                default:
+                    logger.info(view.summaryLine());
+            }
+        } catch (IOException | RuntimeException e) {
+            // Never let the view take down the run; the next refresh tries again
+            logger.debug("Dashboard refresh failed: {}", e.getMessage());
+        }
+        MetricsRegistry.record("dashboard.refresh_us", (System.nanoTime() - start) / 1000);
+    }
+    
+    private static String outputMode() {
+        if (!MODE.equals("auto")) {
+            return MODE;
+        }
+        if (FILE != null) {
+            return "file";
+        }
+        return System.console() != null ? "ansi" : "log";
+    }
+    
+    /**
+     * Bucket snapshots of every operation histogram, with rates and percentiles over the sliding window
+     */
+    private static List<Operation> sampleOperations(long now, boolean priming) {
+        List<Operation> operations = new ArrayList<>();
+        int depth = (int) Math.max(2, WINDOW_S * 1000L / INTERVAL_MS + 1);
+        
+        for (Map.Entry<String, LatencyHistogram> entry : MetricsRegistry.getHistograms().entrySet()) {
+            String metric = entry.getKey();
+            if (!isOperation(metric)) {
+                continue;
+            }
+            Deque<Snapshot> window = operationWindows.get(metric);
+            if (window == null) {
+                window = new ArrayDeque<>();
+                operationWindows.put(metric, window);
+                if (!priming) {
+                    // Created since the previous refresh, so every sample it holds is new
+                    window.addLast(new Snapshot(previousTickAt, new LatencyHistogram()));
+                }
+            }
+            Snapshot latest = new Snapshot(now, entry.getValue());
+            Snapshot previous = window.peekLast();
+            window.addLast(latest);
+            while (window.size() > depth) {
+                window.removeFirst();
+            }
+            
+            Snapshot oldest = window.peekFirst();
+            long[] buckets = latest.buckets.clone();
+            long count = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = Math.max(0, buckets[i] - oldest.buckets[i]);
+                count += buckets[i];
+            }
+            double windowSeconds = Math.max(1, latest.time - oldest.time) / 1000.0;
+            long lastTick = previous == null ? 0 : Math.max(0, latest.count - previous.count);
+            operations.add(new Operation(metric, count / windowSeconds, lastTick, count, buckets));
+        }
+        operations.sort((a, b) -> Double.compare(b.windowRate, a.windowRate));
+        return operations;
+    }
+    
+    private static boolean isOperation(String metric) {
+        return metric.startsWith("transaction.response_ms.")
+            || metric.startsWith("operation.response_ms.")
+            || (metric.startsWith("vu.") && metric.endsWith(".iteration_ms"));
+    }
+    
+    private static long percentile(long[] buckets, long count, double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return LatencyHistogram.bucketUpperBound(i);
+            }
+        }
+        return 0;
+    }
+    
+    private static class Snapshot {
+        final long time;
+        final long count;
+        final long[] buckets;
+        
+        Snapshot(long time, LatencyHistogram histogram) {
+            this.time = time;
+            this.buckets = histogram.getBucketCounts();
+            long total = 0;
+            for (long bucket : buckets) {
+                total += bucket;
+            }
+            this.count = total;
+        }
+    }
+    
+    private static class Operation {
+        final String metric;
+        final double windowRate;
+        final long lastTick;
+        final long windowCount;
+        final long[] buckets;
+        
+        Operation(String metric, double windowRate, long lastTick, long windowCount, long[] buckets) {
+            this.metric = metric;
+            this.windowRate = windowRate;
+            this.lastTick = lastTick;
+            this.windowCount = windowCount;
+            this.buckets = buckets;
+        }
+    }
+    
+    /**
+     * One refresh worth of figures, rendered as a full view or a single log line
+     */
+    private static class View {
+        final long elapsedMs;
+        final double users;
+        final double inFlight;
+        final double arrivalRate;
+        final double throughput;
+        final double errorsPerSecond;
+        final double errorRate;
+        final long worstP95;
+        final String faults;
+        final Map<String, Double> gauges;
+        final Map<String, Engine> engines = new TreeMap<>();
+        final List<Operation> operations;
+        
+        View(long elapsedMs, double seconds, Map<String, Long> counters, Map<String, Double> gauges,
+             List<Operation> operations) {
+            this.elapsedMs = elapsedMs;
+            this.gauges = gauges;
+            this.operations = operations;
+            
+            double users = 0;
+            double inFlight = 0;
+            double arrivalRate = 0;
+            for (Map.Entry<String, Double> gauge : gauges.entrySet()) {
+                String metric = gauge.getKey();
+                if (!metric.startsWith("vu.")) {
+                    continue;
+                }
+                Engine engine = engine(metric);
+                if (metric.endsWith(".users")) {
+                    engine.users = gauge.getValue();
+                    users += gauge.getValue();
+                } else if (metric.endsWith(".in_flight")) {
+                    engine.inFlight = gauge.getValue();
+                    inFlight += gauge.getValue();
+                } else if (metric.endsWith(".arrival_rate")) {
+                    engine.arrivalRate = gauge.getValue();
+                    arrivalRate += gauge.getValue();
+                }
+            }
+            this.users = users;
+            this.inFlight = inFlight;
+            this.arrivalRate = arrivalRate;
+            
+            long completed = 0;
+            long worstP95 = 0;
+            boolean engineLoad = engines.values().stream().anyMatch(Engine::isActive);
+            for (Operation operation : operations) {
+                // Engine iterations wrap the transactions they run, so only one of the two is counted
+                if (operation.metric.startsWith("vu.") == engineLoad) {
+                    completed += operation.lastTick;
+                }
+                worstP95 = Math.max(worstP95, percentile(operation.buckets, operation.windowCount, 95));
+            }
+            this.throughput = completed / seconds;
+            this.worstP95 = worstP95;
+            
+            long errors = 0;
+            Map<String, long[]> faultsBySimulator = new TreeMap<>();
+            for (Map.Entry<String, Long> counter : counters.entrySet()) {
+                String metric = counter.getKey();
+                long delta = counter.getValue() - previousCounters.getOrDefault(metric, 0L);
+                if (delta <= 0) {
+                    continue;
+                }
+                // Faults the harness injected are reported separately; failed requests surface as errors anyway
+                if (engineLoad ? metric.startsWith("vu.") && metric.endsWith(".errors")
+                               : metric.startsWith("transaction.failures.")) {
+                    errors += delta;
+                }
+                if (metric.startsWith("vu.")) {
+                    Engine engine = engine(metric);
+                    if (metric.endsWith(".iterations")) {
+                        engine.iterations = delta / seconds;
+                    } else if (metric.endsWith(".errors")) {
+                        engine.errors = delta / seconds;
+                    } else if (metric.endsWith(".dropped")) {
+                        engine.dropped = delta / seconds;
+                    }
+                } else if (metric.startsWith("faults.")) {
+                    String[] parts = metric.split("\\.", 3);
+                    long[] fault = faultsBySimulator.computeIfAbsent(parts[2], key -> new long[3]);
+                    int slot = parts[1].equals("delayed") ? 0 : parts[1].equals("failed") ? 1 : 2;
+                    fault[slot] += delta;
+                }
+            }
+            this.errorsPerSecond = errors / seconds;
+            this.errorRate = completed == 0 ? Double.NaN : (double) errors / completed;
+            
+            StringBuilder faults = new StringBuilder();
+            faultsBySimulator.forEach((simulator, fault) -> faults.append(faults.length() == 0 ? "" : ", ")
+                .append(String.format(Locale.UK, "%s %.0f delayed/s (avg %dms) %.0f failed/s", simulator,
+                    fault[0] / seconds, fault[0] == 0 ? 0 : fault[2] / fault[0], fault[1] / seconds)));
+            double offline = gauges.getOrDefault("connectivity.offline_contexts", 0.0);
+            if (offline > 0) {
+                faults.append(faults.length() == 0 ? "" : ", ").append(String.format("%.0f contexts offline", offline));
+            }
+            this.faults = faults.length() == 0 ? "none" : faults.toString();
+        }
+        
+        private Engine engine(String metric) {
+            return engines.computeIfAbsent(metric.substring(3, metric.lastIndexOf('.')), key -> new Engine());
+        }
+        
+        String render() {
+            StringBuilder view = new StringBuilder();
+            view.append(String.format(Locale.UK, "Pulse live  %s  run %s%n%n", elapsed(), runValidity()));
+            view.append(String.format(Locale.UK, "Load      %.0f users + %.0f in flight, %.1f arrivals/s%n",
+                users, inFlight, arrivalRate));
+            view.append(String.format(Locale.UK, "Rate      %.1f ops/s, errors %.1f/s (%s)%n",
+                throughput, errorsPerSecond, errorShare()));
+            view.append(String.format(Locale.UK, "Faults    %s%n", faults));
+            view.append(String.format(Locale.UK, "Harness   cpu %s (system %s), gc %s, heap %s, %s threads%n%n",
+                percent("harness.process_cpu"), percent("harness.system_cpu"), percent("harness.gc_fraction"),
+                percent("harness.heap_used_ratio"), value("harness.threads")));
+            
+            if (!engines.isEmpty()) {
+                view.append(String.format("%-20s %8s %9s %10s %10s %9s %9s%n",
+                    "Engine", "users", "in flight", "arrivals/s", "iter/s", "errors/s", "dropped/s"));
+                engines.forEach((name, engine) -> {
+                    if (engine.isActive()) {
+                        view.append(String.format(Locale.UK, "%-20s %8.0f %9.0f %10.1f %10.1f %9.1f %9.1f%n",
+                            shorten(name, 20), engine.users, engine.inFlight, engine.arrivalRate,
+                            engine.iterations, engine.errors, engine.dropped));
+                    }
+                });
+                view.append(String.format("%n"));
+            }
+            
+            view.append(String.format("%-" + NAME_WIDTH + "s %8s %8s %8s %8s%n",
+                "Operation (last " + WINDOW_S + "s)", "ops/s", "p50", "p95", "p99"));
+            operations.stream().limit(MAX_OPERATIONS).forEach(operation -> view.append(String.format(Locale.UK,
+                "%-" + NAME_WIDTH + "s %8.1f %8d %8d %8d%n", shorten(operation.metric, NAME_WIDTH), operation.windowRate,
+                percentile(operation.buckets, operation.windowCount, 50),
+                percentile(operation.buckets, operation.windowCount, 95),
+                percentile(operation.buckets, operation.windowCount, 99))));
+            if (operations.size() > MAX_OPERATIONS) {
+                view.append(String.format("... %d more%n", operations.size() - MAX_OPERATIONS));
+            }
+            return view.toString();
+        }
+        
+        String summaryLine() {
+            return String.format(Locale.UK, "[live %s] %.0f users, %.1f ops/s, errors %.1f/s (%s), worst p95 %dms, "
+                    + "faults: %s, cpu %s, gc %s, run %s",
+                elapsed(), users + inFlight, throughput, errorsPerSecond, errorShare(), worstP95, faults,
+                percent("harness.process_cpu"), percent("harness.gc_fraction"), runValidity());
+        }
+        
+        private String elapsed() {
+            long seconds = elapsedMs / 1000;
+            return String.format("%02d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+        }
+        
+        private String errorShare() {
+            return Double.isNaN(errorRate) ? "-" : String.format(Locale.UK, "%.2f%%", errorRate * 100);
+        }
+        
+        private String runValidity() {
+            if (!gauges.containsKey("harness.process_cpu")) {
+                return "-";
+            }
+            // The watchdog only sets the gauge once it has something to say
+            return gauges.getOrDefault("harness.run_valid", 1.0) > 0 ? "VALID" : "INVALID";
+        }
+        
+        private String percent(String gauge) {
+            double value = gauges.getOrDefault(gauge, Double.NaN);
+            return Double.isNaN(value) ? "-" : String.format(Locale.UK, "%.1f%%", value * 100);
+        }
+        
+        private String value(String gauge) {
+            double value = gauges.getOrDefault(gauge, Double.NaN);
+            return Double.isNaN(value) ? "-" : String.format(Locale.UK, "%.0f", value);
+        }
+        
+        private static String shorten(String text, int width) {
+            return text.length() <= width ? text : "~" + text.substring(text.length() - width + 1);
+        }
+    }
+    
+    private static class Engine {
+        double users;
+        double inFlight;
+        double arrivalRate;
+        double iterations;
+        double errors;
+        double dropped;
+        
+        boolean isActive() {
+            return users > 0 || inFlight > 0 || arrivalRate > 0 || iterations > 0;
+        }
+    }
+}
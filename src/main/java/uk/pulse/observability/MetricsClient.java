@@ -171,6 +171,92 @@ public class MetricsClient {
         }
     }
     
+    /**
+     * Record response cache statistics (CDN / API gateway emulation)
+     */
+    public void recordCacheStatistics(String cacheName, long hits, long misses, long evictions, long notModified) {
+        try {
+            long lookups = hits + misses;
+            Point point = Point.measurement("cache_statistics")
+                .addTag("cache", cacheName)
+                .addTag("environment", "pulse-uk-test")
+                .addField("hits", hits)
+                .addField("misses", misses)
+                .addField("evictions", evictions)
+                .addField("not_modified", notModified)
+                .addField("hit_ratio", lookups == 0 ? 0.0 : (double) hits / lookups)
+                .time(Instant.now(), WritePrecision.MS);
+                
+            writeApi.writePoint(bucket, org, point);
+            logger.debug("Recorded cache statistics for {}: {} hits, {} misses, {} evictions",
+                cacheName, hits, misses, evictions);
+                
+        } catch (Exception e) {
+            logger.error("Failed to record cache statistics: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Record a latency histogram summary from the in-process registry
+     */
+    public void recordLatencySummary(String metricName, LatencyHistogram histogram) {
+        try {
+            Point point = Point.measurement("latency_summary")
+                .addTag("metric", metricName)
+                .addTag("environment", "pulse-uk-test")
+                .addField("count", histogram.getCount())
+                .addField("mean", histogram.getMean())
+                .addField("min", histogram.getMin())
+                .addField("p50", histogram.getPercentile(50))
+                .addField("p95", histogram.getPercentile(95))
+                .addField("p99", histogram.getPercentile(99))
+                .addField("max", histogram.getMax())
+                .time(Instant.now(), WritePrecision.MS);
+                
+            writeApi.writePoint(bucket, org, point);
+            logger.debug("Recorded latency summary for {} ({} samples)", metricName, histogram.getCount());
+            
+        } catch (Exception e) {
+            logger.error("Failed to record latency summary: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Record a counter value from the in-process registry
+     */
+    public void recordCounter(String metricName, long value) {
+        try {
+            Point point = Point.measurement("counters")
+                .addTag("metric", metricName)
+                .addTag("environment", "pulse-uk-test")
+                .addField("value", value)
+                .time(Instant.now(), WritePrecision.MS);
+                
+            writeApi.writePoint(bucket, org, point);
+            
+        } catch (Exception e) {
+            logger.error("Failed to record counter: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Record a gauge value from the in-process registry
+     */
+    public void recordGauge(String metricName, double value) {
+        try {
+            Point point = Point.measurement("gauges")
+                .addTag("metric", metricName)
+                .addTag("environment", "pulse-uk-test")
+                .addField("value", value)
+                .time(Instant.now(), WritePrecision.MS);
+                
+            writeApi.writePoint(bucket, org, point);
+            
+        } catch (Exception e) {
+            logger.error("Failed to record gauge: {}", e.getMessage());
+        }
+    }
+    
     // Helper methods
     private String getAmountRange(String amount) {
         try {
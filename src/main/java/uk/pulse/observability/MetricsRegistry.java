@@ -0,0 +1,147 @@
+package uk.pulse.observability;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.pulse.observability.jfr.MetricsFlushEvent;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * In-process metrics registry shared by simulators and steps
+ * Collects histograms and counters cheaply on hot paths; summaries are pushed
+ * to InfluxDB through MetricsClient when one is available
+ */
+public class MetricsRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsRegistry.class);
+    
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Double> gauges = new ConcurrentHashMap<>();
+    // Gauges computed from other metrics when read, so concurrent writers cannot overwrite each other
+    private static final Map<String, DoubleSupplier> derivedGauges = new ConcurrentHashMap<>();
+    
+    private MetricsRegistry() {
+    }
+    
+    /**
+     * Get or create a named histogram
+     */
+    public static LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+    
+    /**
+     * Record a value into a named histogram
+     */
+    public static void record(String name, long value) {
+        histogram(name).record(value);
+    }
+    
+    /**
+     * Increment a named counter by one
+     */
+    public static void increment(String name) {
+        add(name, 1);
+    }
+    
+    /**
+     * Add to a named counter
+     */
+    public static void add(String name, long delta) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).add(delta);
+    }
+    
+    /**
+     * Current value of a counter (0 if never incremented)
+     */
+    public static long count(String name) {
+        LongAdder counter = counters.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+    
+    /**
+     * Set a gauge to its latest value
+     */
+    public static void gauge(String name, double value) {
+        gauges.put(name, value);
+    }
+    
+    /**
+     * Register a gauge computed whenever gauges are read or published (NaN means no value yet)
+     */
+    public static void derivedGauge(String name, DoubleSupplier supplier) {
+        derivedGauges.put(name, supplier);
+    }
+    
+    /**
+     * Latest value of a gauge (NaN if never set)
+     */
+    public static double gaugeValue(String name) {
+        DoubleSupplier derived = derivedGauges.get(name);
+        return derived != null ? derived.getAsDouble() : gauges.getOrDefault(name, Double.NaN);
+    }
+    
+    public static Map<String, LatencyHistogram> getHistograms() {
+        return Collections.unmodifiableMap(new TreeMap<>(histograms));
+    }
+    
+    public static Map<String, Long> getCounters() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        return values;
+    }
+    
+    public static Map<String, Double> getGauges() {
+        Map<String, Double> values = new TreeMap<>(gauges);
+        derivedGauges.forEach((name, supplier) -> {
+            double value = supplier.getAsDouble();
+            if (!Double.isNaN(value)) {
+                values.put(name, value);
+            }
+        });
+        return Collections.unmodifiableMap(values);
+    }
+    
+    /**
+     * Publish summaries of all histograms, counters and gauges through the metrics client
+     */
+    public static void publish(MetricsClient metricsClient) {
+        if (metricsClient == null) {
+            return;
+        }
+        
+        MetricsFlushEvent event = new MetricsFlushEvent();
+        event.begin();
+        
+        histograms.forEach((name, histogram) -> {
+            if (histogram.getCount() > 0) {
+                metricsClient.recordLatencySummary(name, histogram);
+            }
+        });
+        counters.forEach((name, counter) -> metricsClient.recordCounter(name, counter.sum()));
+        Map<String, Double> gaugeValues = getGauges();
+        gaugeValues.forEach(metricsClient::recordGauge);
+        
+        event.histograms = histograms.size();
+        event.counters = counters.size();
+        event.gauges = gaugeValues.size();
+        event.commit();
+        
+        logger.debug("Published {} histograms, {} counters and {} gauges",
+            histograms.size(), counters.size(), gaugeValues.size());
+    }
+    
+    /**
+     * Drop all collected metrics; derived gauge definitions are kept
+     */
+    public static void reset() {
+        histograms.clear();
+        counters.clear();
+        gauges.clear();
+    }
+}
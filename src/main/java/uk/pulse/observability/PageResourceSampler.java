@@ -0,0 +1,318 @@
+package uk.pulse.observability;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.CDPSession;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.PlaywrightException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Page Resource Sampler for browser memory and DOM growth
+ * An in-page timer samples JS heap, DOM nodes and live event listeners on a schedule;
+ * each step boundary drains those samples and adds a precise DevTools reading
+ * (Performance.getMetrics) plus renderer RSS, so per-device budgets can be enforced.
+ * Renderer pids cannot be mapped to a page, so RSS is reported browser-wide and only
+ * attributed to the page when it is the browser's only open page
+ */
+public class PageResourceSampler {
+    private static final Logger logger = LoggerFactory.getLogger(PageResourceSampler.class);
+    
+    private static final int INTERVAL_MS = Integer.getInteger("pulse.resources.interval-ms", 1000);
+    private static final long MB = 1024 * 1024;
+    
+    // Counts live listeners by wrapping EventTarget, then samples into a bounded buffer
+    private static final String SAMPLER_SCRIPT =
+        "(() => {" +
+        "  if (window.__pulseResources) return;" +
+        "  const state = window.__pulseResources = { listeners: 0, samples: [] };" +
+        "  const add = EventTarget.prototype.addEventListener;" +
+        "  const remove = EventTarget.prototype.removeEventListener;" +
+        "  EventTarget.prototype.addEventListener = function (...args) { state.listeners++; return add.apply(this, args); };" +
+        "  EventTarget.prototype.removeEventListener = function (...args) { state.listeners = Math.max(0, state.listeners - 1); return remove.apply(this, args); };" +
+        "  const sample = () => {" +
+        "    const memory = performance.memory || {};" +
+        "    state.samples.push([memory.usedJSHeapSize || 0, memory.totalJSHeapSize || 0," +
+        "      document.getElementsByTagName('*').length, state.listeners]);" +
+        "    if (state.samples.length > 600) state.samples.shift();" +
+        "  };" +
+        "  setInterval(sample, " + INTERVAL_MS + ");" +
+        "})()";
+        
+    private static final String DRAIN_SCRIPT =
+        "() => { const r = window.__pulseResources; if (!r) return []; const s = r.samples; r.samples = []; return s; }";
+        
+    private static final Map<Page, PageState> states = new WeakHashMap<>();
+    
+    private PageResourceSampler() {
+    }
+    
+    /**
+     * Start scheduled sampling on the page and open a DevTools session where the engine has one
+     */
+    public static void attach(Page page) {
+        synchronized (states) {
+            if (states.containsKey(page)) {
+                return;
+            }
+        }
+        
+        PageState state = new PageState();
+        try {
+            page.addInitScript(SAMPLER_SCRIPT);
+            page.evaluate(SAMPLER_SCRIPT);
+        } catch (PlaywrightException e) {
+            logger.debug("In-page resource sampling unavailable: {}", e.getMessage());
+        }
+        
+        try {
+            state.session = page.context().newCDPSession(page);
+            state.session.send("Performance.enable");
+        } catch (PlaywrightException e) {
+            // CDP is Chromium-only; other engines rely on the in-page samples
+            logger.debug("DevTools performance metrics unavailable: {}", e.getMessage());
+            state.session = null;
+        }
+        
+        synchronized (states) {
+            states.put(page, state);
+        }
+        logger.info("Sampling page resources every {}ms (DevTools {})", INTERVAL_MS,
+            state.session != null ? "enabled" : "unavailable");
+    }
+    
+    /**
+     * Take a step-boundary sample: drain scheduled samples, read DevTools metrics and export both
+     */
+    public static ResourceSample sample(Page page, String boundary) {
+        if (page == null || page.isClosed()) {
+            return null;
+        }
+        attach(page);
+        
+        PageState state;
+        synchronized (states) {
+            state = states.get(page);
+        }
+        
+        try {
+            for (Object row : (List<?>) page.evaluate(DRAIN_SCRIPT)) {
+                List<?> values = (List<?>) row;
+                record(state, new ResourceSample(
+                    toLong(values.get(0)), toLong(values.get(1)), toLong(values.get(2)), toLong(values.get(3)), -1));
+            }
+        } catch (PlaywrightException | ClassCastException e) {
+            logger.debug("Could not drain in-page resource samples: {}", e.getMessage());
+        }
+        
+        ResourceSample sample = state.session != null ? readDevTools(page, state.session) : null;
+        if (sample != null) {
+            record(state, sample);
+            MetricsRegistry.gauge("page.js_heap_used_mb." + boundary, sample.getJsHeapUsedMb());
+        }
+        
+        ResourceSample peak = state.peak;
+        if (peak != null) {
+            MetricsRegistry.gauge("page.peak.js_heap_used_mb", peak.getJsHeapUsedMb());
+            MetricsRegistry.gauge("page.peak.dom_nodes", peak.domNodes);
+            MetricsRegistry.gauge("page.peak.listeners", peak.listeners);
+            if (peak.rendererRssBytes >= 0) {
+                MetricsRegistry.gauge("page.peak.renderer_rss_mb", peak.getRendererRssMb());
+            }
+        }
+        return sample;
+    }
+    
+    /**
+     * Highest value of each resource seen on the page so far (null before the first sample)
+     */
+    public static ResourceSample getPeak(Page page) {
+        synchronized (states) {
+            PageState state = states.get(page);
+            return state == null ? null : state.peak;
+        }
+    }
+    
+    /**
+     * Forget the page's peak, e.g. before measuring a fresh app launch
+     */
+    public static void resetPeak(Page page) {
+        synchronized (states) {
+            PageState state = states.get(page);
+            if (state != null) {
+                state.peak = null;
+            }
+        }
+    }
+    
+    private static ResourceSample readDevTools(Page page, CDPSession session) {
+        try {
+            JsonObject result = session.send("Performance.getMetrics");
+            long heapUsed = 0;
+            long heapTotal = 0;
+            long nodes = 0;
+            long listeners = 0;
+            for (JsonElement element : result.getAsJsonArray("metrics")) {
+                JsonObject metric = element.getAsJsonObject();
+                long value = metric.get("value").getAsLong();
+                switch (metric.get("name").getAsString()) {
+                    case "JSHeapUsedSize": heapUsed = value; break;
+                    case "JSHeapTotalSize": heapTotal = value; break;
+                    case "Nodes": nodes = value; break;
+                    case "JSEventListeners": listeners = value; break;
+                    default: break;
+                }
+            }
+            return new ResourceSample(heapUsed, heapTotal, nodes, listeners, pageRendererRss(page));
+            
+        } catch (PlaywrightException e) {
+            logger.debug("Could not read DevTools performance metrics: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Renderer RSS attributable to the page: the browser-wide total when the page is alone, else -1
+     */
+    private static long pageRendererRss(Page page) {
+        Browser browser = page.context().browser();
+        long total = rendererRss(browser);
+        if (total >= 0) {
+            MetricsRegistry.gauge("browser.renderer_rss_mb", (double) total / MB);
+        }
+        long openPages = browser == null ? 0 : browser.contexts().stream().mapToLong(context -> context.pages().size()).sum();
+        return openPages == 1 ? total : -1;
+    }
+    
+    /**
+     * Total resident set of every renderer, read from /proc for the pids DevTools reports (-1 if unknown)
+     */
+    private static long rendererRss(Browser browser) {
+        if (browser == null || !Files.isDirectory(Paths.get("/proc"))) {
+            return -1;
+        }
+        
+        CDPSession session = null;
+        try {
+            session = browser.newBrowserCDPSession();
+            JsonArray processes = session.send("SystemInfo.getProcessInfo").getAsJsonArray("processInfo");
+            long total = -1;
+            for (JsonElement element : processes) {
+                JsonObject process = element.getAsJsonObject();
+                if ("renderer".equals(process.get("type").getAsString())) {
+                    long resident = residentBytes(process.get("id").getAsLong());
+                    if (resident >= 0) {
+                        total = Math.max(total, 0) + resident;
+                    }
+                }
+            }
+            return total;
+            
+        } catch (PlaywrightException e) {
+            logger.debug("Renderer process info unavailable: {}", e.getMessage());
+            return -1;
+        } finally {
+            if (session != null) {
+                session.detach();
+            }
+        }
+    }
+    
+    private static long residentBytes(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", String.valueOf(pid), "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            logger.debug("Could not read RSS for pid {}: {}", pid, e.getMessage());
+        }
+        return -1;
+    }
+    
+    private static void record(PageState state, ResourceSample sample) {
+        MetricsRegistry.record("page.js_heap_used_mb", Math.round(sample.getJsHeapUsedMb()));
+        MetricsRegistry.record("page.js_heap_total_mb", Math.round(sample.getJsHeapTotalMb()));
+        MetricsRegistry.record("page.dom_nodes", sample.domNodes);
+        MetricsRegistry.record("page.listeners", sample.listeners);
+        if (sample.rendererRssBytes >= 0) {
+            MetricsRegistry.record("page.renderer_rss_mb", Math.round(sample.getRendererRssMb()));
+        }
+        state.peak = state.peak == null ? sample : state.peak.max(sample);
+    }
+    
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+    
+    private static class PageState {
+        CDPSession session;
+        ResourceSample peak;
+    }
+    
+    /**
+     * One reading of the page's resource usage
+     */
+    public static class ResourceSample {
+        final long jsHeapUsedBytes;
+        final long jsHeapTotalBytes;
+        final long domNodes;
+        final long listeners;
+        final long rendererRssBytes;
+        
+        ResourceSample(long jsHeapUsedBytes, long jsHeapTotalBytes, long domNodes, long listeners, long rendererRssBytes) {
+            this.jsHeapUsedBytes = jsHeapUsedBytes;
+            this.jsHeapTotalBytes = jsHeapTotalBytes;
+            this.domNodes = domNodes;
+            this.listeners = listeners;
+            this.rendererRssBytes = rendererRssBytes;
+        }
+        
+        ResourceSample max(ResourceSample other) {
+            return new ResourceSample(
+                Math.max(jsHeapUsedBytes, other.jsHeapUsedBytes),
+                Math.max(jsHeapTotalBytes, other.jsHeapTotalBytes),
+                Math.max(domNodes, other.domNodes),
+                Math.max(listeners, other.listeners),
+                Math.max(rendererRssBytes, other.rendererRssBytes));
+        }
+        
+        public double getJsHeapUsedMb() {
+            return (double) jsHeapUsedBytes / MB;
+        }
+        
+        public double getJsHeapTotalMb() {
+            return (double) jsHeapTotalBytes / MB;
+        }
+        
+        public long getDomNodes() {
+            return domNodes;
+        }
+        
+        public long getListeners() {
+            return listeners;
+        }
+        
+        public double getRendererRssMb() {
+            return rendererRssBytes < 0 ? -1 : (double) rendererRssBytes / MB;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("heap %.1f/%.1f MB, %d nodes, %d listeners, renderer RSS %.1f MB",
+                getJsHeapUsedMb(), getJsHeapTotalMb(), domNodes, listeners, getRendererRssMb());
+        }
+    }
+}
@@ -0,0 +1,557 @@
+package uk.pulse.observability;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.Result;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestRunStarted;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cucumber plugin writing a self-contained HTML performance report at the end of a run
+ * Snapshots MetricsRegistry when the run starts so the report covers this runner only,
+ * samples throughput every second while it runs, and renders percentiles with inline SVG
+ * distributions, a throughput timeline, the error breakdown, SLO verdicts from
+ * performance-slo.properties and a comparison with the baseline summary, if one exists
+ *
+ * Register with plugin = {"uk.pulse.observability.PerformanceReportPlugin:target/cucumber-reports/payday-traffic-performance.html"}
+ * A JSON summary is written next to the report; copy it to performance-baseline/ to make it the baseline
+ */
+public class PerformanceReportPlugin implements ConcurrentEventListener {
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceReportPlugin.class);
+    
+    private static final long SAMPLE_INTERVAL_MS = Long.getLong("pulse.report.sample-ms", 1000);
+    private static final double REGRESSION_PCT = Double.parseDouble(System.getProperty("pulse.report.regression-pct", "10"));
+    private static final int MIN_BASELINE_SAMPLES = Integer.getInteger("pulse.report.min-samples", 20);
+    private static final String SLO_FILE = System.getProperty("pulse.report.slo", "performance-slo.properties");
+    private static final Path BASELINE_DIR = Paths.get(System.getProperty("pulse.report.baseline-dir", "performance-baseline"));
+    
+    private static final Pattern SLO_KEY = Pattern.compile("(.+)\\.(p\\d+|max|mean)");
+    private static final Pattern ERROR_COUNTER = Pattern.compile(".*(error|fail|dropped|truncated|abort|timeout|disconnect).*");
+    private static final String[] SERIES = {"steps/s", "VU iterations/s", "transactions/s", "errors/s"};
+    private static final String[] SERIES_COLOURS = {"#1f77b4", "#2ca02c", "#9467bd", "#d62728"};
+    
+    private final Path reportPath;
+    private final String name;
+    private final String title;
+    private final Map<String, HistogramSnapshot> startHistograms = new TreeMap<>();
+    private final Map<String, Long> startCounters = new TreeMap<>();
+    private final List<long[]> timeline = new CopyOnWriteArrayList<>();
+    private final Queue<ScenarioResult> scenarios = new ConcurrentLinkedQueue<>();
+    
+    private ScheduledExecutorService sampler;
+    private Instant runStart;
+    
+    public PerformanceReportPlugin() {
+        this("target/performance/performance-report.html");
+    }
+    
+    public PerformanceReportPlugin(String reportPath) {
+        this.reportPath = Paths.get(reportPath);
+        String fileName = this.reportPath.getFileName().toString();
+        this.name = fileName.endsWith(".html") ? fileName.substring(0, fileName.length() - 5) : fileName;
+        this.title = name.endsWith("-performance") ? name.substring(0, name.length() - "-performance".length()) : name;
+    }
+    
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestRunStarted.class, event -> start(event.getInstant()));
+        publisher.registerHandlerFor(TestCaseFinished.class, this::onTestCaseFinished);
+        publisher.registerHandlerFor(TestRunFinished.class, event -> finish(event.getInstant()));
+    }
+    
+    private void start(Instant instant) {
+        runStart = instant;
+        // The registry is JVM-wide; runners sharing a JVM must not report each other's samples
+        MetricsRegistry.getHistograms().forEach((metric, histogram) ->
+            startHistograms.put(metric, new HistogramSnapshot(histogram)));
+        startCounters.putAll(MetricsRegistry.getCounters());
+        
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pulse-report-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(this::sample, 0, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+    
+    private void sample() {
+        long steps = 0;
+        long iterations = 0;
+        long transactions = 0;
+        for (Map.Entry<String, LatencyHistogram> entry : MetricsRegistry.getHistograms().entrySet()) {
+            String metric = entry.getKey();
+            if (metric.startsWith("step.duration_us.")) {
+                steps += entry.getValue().getCount();
+            } else if (metric.startsWith("vu.") && metric.endsWith(".iteration_ms")) {
+                iterations += entry.getValue().getCount();
+            } else if (metric.startsWith("transaction.response_ms.")) {
+                transactions += entry.getValue().getCount();
+            }
+        }
+        long errors = 0;
+        for (Map.Entry<String, Long> entry : MetricsRegistry.getCounters().entrySet()) {
+            if (ERROR_COUNTER.matcher(entry.getKey()).matches()) {
+                errors += entry.getValue();
+            }
+        }
+        timeline.add(new long[] {System.currentTimeMillis(), steps, iterations, transactions, errors});
+    }
+    
+    private void onTestCaseFinished(TestCaseFinished event) {
+        Result result = event.getResult();
+        String error = result.getError() == null ? "" : String.valueOf(result.getError().getMessage());
+        scenarios.add(new ScenarioResult(event.getTestCase().getName(), result.getStatus().name(),
+            result.getDuration(), error.lines().findFirst().orElse("")));
+    }
+    
+    private void finish(Instant runEnd) {
+        LiveDashboard.stop();
+        if (sampler == null) {
+            return;
+        }
+        sampler.shutdownNow();
+        // A sliver of an interval would show up as a false drop to zero at the end of the chart
+        if (timeline.isEmpty() || System.currentTimeMillis() - timeline.get(timeline.size() - 1)[0] >= SAMPLE_INTERVAL_MS / 2) {
+            sample();
+        }
+        
+        Map<String, Distribution> distributions = new TreeMap<>();
+        MetricsRegistry.getHistograms().forEach((metric, histogram) -> {
+            Distribution distribution = new Distribution(histogram, startHistograms.get(metric));
+            if (distribution.count > 0) {
+                distributions.put(metric, distribution);
+            }
+        });
+        Map<String, Long> counters = new TreeMap<>();
+        MetricsRegistry.getCounters().forEach((metric, value) -> {
+            long delta = value - startCounters.getOrDefault(metric, 0L);
+            if (delta != 0) {
+                counters.put(metric, delta);
+            }
+        });
+        
+        List<SloVerdict> verdicts = evaluateSlos(distributions);
+        JsonObject baseline = loadBaseline();
+        
+        try {
+            if (reportPath.getParent() != null) {
+                Files.createDirectories(reportPath.getParent());
+            }
+            writeSummary(reportPath.resolveSibling(name + ".json"), runEnd, distributions, counters);
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(reportPath))) {
+                writeHtml(out, runEnd, distributions, counters, verdicts, baseline);
+            }
+            long failed = verdicts.stream().filter(verdict -> !verdict.passed).count();
+            logger.info("Performance report written to {} ({} of {} SLOs met)", reportPath,
+                verdicts.size() - failed, verdicts.size());
+        } catch (IOException e) {
+            logger.error("Failed to write performance report: {}", e.getMessage());
+        }
+    }
+    
+    private List<SloVerdict> evaluateSlos(Map<String, Distribution> distributions) {
+        Properties slos = new Properties();
+        Path file = Paths.get(SLO_FILE);
+        try (InputStream in = Files.exists(file) ? Files.newInputStream(file)
+            : getClass().getClassLoader().getResourceAsStream(SLO_FILE)) {
+            if (in == null) {
+                return new ArrayList<>();
+            }
+            slos.load(in);
+        } catch (IOException e) {
+            logger.warn("Could not read SLOs from {}: {}", SLO_FILE, e.getMessage());
+        }
+        
+        List<SloVerdict> verdicts = new ArrayList<>();
+        for (String key : new TreeMap<>(slos).keySet().toArray(new String[0])) {
+            Matcher matcher = SLO_KEY.matcher(key.trim());
+            if (!matcher.matches()) {
+                logger.warn("Ignoring SLO '{}': expected <histogram>.<pNN|max|mean>", key);
+                continue;
+            }
+            double limit = Double.parseDouble(slos.getProperty(key).trim());
+            Pattern metric = Pattern.compile(Pattern.quote(matcher.group(1)).replace("*", "\\E.*\\Q"));
+            boolean matched = false;
+            for (Map.Entry<String, Distribution> entry : distributions.entrySet()) {
+                if (metric.matcher(entry.getKey()).matches()) {
+                    matched = true;
+                    double value = entry.getValue().statistic(matcher.group(2));
+                    verdicts.add(new SloVerdict(entry.getKey(), matcher.group(2), limit, value, value <= limit));
+                }
+            }
+            if (!matched) {
+                verdicts.add(new SloVerdict(matcher.group(1), matcher.group(2), limit, Double.NaN, true));
+            }
+        }
+        return verdicts;
+    }
+    
+    private JsonObject loadBaseline() {
+        Path path = BASELINE_DIR.resolve(name + ".json");
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (Reader reader = Files.newBufferedReader(path)) {
+            return JsonParser.parseReader(reader).getAsJsonObject();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not read baseline {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+    
+    private void writeSummary(Path path, Instant runEnd, Map<String, Distribution> distributions,
+                              Map<String, Long> counters) throws IOException {
+        JsonObject summary = new JsonObject();
+        summary.addProperty("name", name);
+        summary.addProperty("start", runStart.toString());
+        summary.addProperty("end", runEnd.toString());
+        JsonObject histograms = new JsonObject();
+        distributions.forEach((metric, distribution) -> {
+            JsonObject stats = new JsonObject();
+            stats.addProperty("count", distribution.count);
+            for (String statistic : new String[] {"p50", "p90", "p95", "p99", "max", "mean"}) {
+                stats.addProperty(statistic, distribution.statistic(statistic));
+            }
+            histograms.add(metric, stats);
+        });
+        summary.add("histograms", histograms);
+        JsonObject counterValues = new JsonObject();
+        counters.forEach(counterValues::addProperty);
+        summary.add("counters", counterValues);
+        
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        Files.write(path, gson.toJson(summary).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private void writeHtml(PrintWriter out, Instant runEnd, Map<String, Distribution> distributions,
+                           Map<String, Long> counters, List<SloVerdict> verdicts, JsonObject baseline) {
+        long passed = scenarios.stream().filter(scenario -> scenario.status.equals("PASSED")).count();
+        long slosMet = verdicts.stream().filter(verdict -> verdict.passed).count();
+        
+        out.println("<!DOCTYPE html><html lang=\"en\"><head><meta charset=\"utf-8\">");
+        out.printf("<title>Performance report: %s</title>%n", escape(title));
+        out.println("<style>body{font-family:system-ui,sans-serif;margin:2em;color:#222}"
+            + "table{border-collapse:collapse;margin-bottom:2em;font-size:0.9em}"
+            + "th,td{border:1px solid #ccc;padding:3px 8px;text-align:right}th{background:#f3f3f3}"
+            + "td:first-child,th:first-child{text-align:left}.pass{color:#2a7d2a;font-weight:bold}"
+            + ".fail{color:#c62828;font-weight:bold}.muted{color:#888}.bar{fill:#1f77b4}</style></head><body>");
+        out.printf("<h1>Performance report: %s</h1>%n", escape(title));
+        out.printf(Locale.UK, "<p>%s to %s (%s) &middot; scenarios: %d passed, %d not passed &middot; SLOs: %d of %d met"
+                + " &middot; baseline: %s</p>%n",
+            runStart.truncatedTo(ChronoUnit.SECONDS), runEnd.truncatedTo(ChronoUnit.SECONDS),
+            formatDuration(Duration.between(runStart, runEnd)),
+            passed, scenarios.size() - passed, slosMet, verdicts.size(),
+            baseline == null ? "none" : escape(baseline.has("end") ? baseline.get("end").getAsString() : "loaded"));
+        
+        out.println("<h2>SLO verdicts</h2>");
+        if (verdicts.isEmpty()) {
+            out.printf("<p class=\"muted\">No SLOs defined (%s)</p>%n", escape(SLO_FILE));
+        } else {
+            out.println("<table><tr><th>Metric</th><th>Statistic</th><th>Limit</th><th>Actual</th><th>Verdict</th></tr>");
+            for (SloVerdict verdict : verdicts) {
+                String status = Double.isNaN(verdict.actual) ? "<span class=\"muted\">NO DATA</span>"
+                    : verdict.passed ? "<span class=\"pass\">PASS</span>" : "<span class=\"fail\">FAIL</span>";
+                out.printf(Locale.UK, "<tr><td>%s</td><td>%s</td><td>%s</td><td>%s</td><td>%s</td></tr>%n",
+                    escape(verdict.metric), verdict.statistic, format(verdict.limit), format(verdict.actual), status);
+            }
+            out.println("</table>");
+        }
+        
+        out.println("<h2>Throughput</h2>");
+        writeTimeline(out);
+        
+        out.println("<h2>Latency by operation</h2>");
+        out.println("<table><tr><th>Metric</th><th>Unit</th><th>Count</th><th>p50</th><th>p90</th><th>p95</th><th>p99</th>"
+            + "<th>Max</th><th>Baseline p95</th><th>&Delta; p95</th><th>Distribution</th></tr>");
+        List<String> regressions = new ArrayList<>();
+        JsonObject baselineHistograms = baseline != null && baseline.has("histograms")
+            ? baseline.getAsJsonObject("histograms") : new JsonObject();
+        distributions.forEach((metric, distribution) -> {
+            String baselineCell = "<td class=\"muted\">-</td><td class=\"muted\">-</td>";
+            JsonElement previous = baselineHistograms.get(metric);
+            if (previous != null) {
+                double before = previous.getAsJsonObject().get("p95").getAsDouble();
+                double after = distribution.statistic("p95");
+                double change = before == 0 ? 0 : (after - before) * 100 / before;
+                boolean regressed = change > REGRESSION_PCT && distribution.count >= MIN_BASELINE_SAMPLES;
+                if (regressed) {
+                    regressions.add(String.format(Locale.UK, "%s p95 %s &rarr; %s (%+.1f%%)",
+                        escape(metric), format(before), format(after), change));
+                }
+                baselineCell = String.format(Locale.UK, "<td>%s</td><td class=\"%s\">%+.1f%%</td>", format(before),
+                    regressed ? "fail" : change < -REGRESSION_PCT ? "pass" : "", change);
+            }
+            out.printf(Locale.UK, "<tr><td>%s</td><td>%s</td><td>%d</td><td>%s</td><td>%s</td><td>%s</td><td>%s</td>"
+                    + "<td>%s</td>%s<td>%s</td></tr>%n",
+                escape(metric), unit(metric), distribution.count, format(distribution.statistic("p50")),
+                format(distribution.statistic("p90")), format(distribution.statistic("p95")),
+                format(distribution.statistic("p99")), format(distribution.statistic("max")), baselineCell,
+                distribution.toSvg());
+        });
+        out.println("</table>");
+        
+        out.println("<h2>Errors</h2>");
+        if (passed == scenarios.size()) {
+            out.println("<p class=\"muted\">No failed scenarios</p>");
+        } else {
+            out.println("<table><tr><th>Scenario</th><th>Status</th><th>Duration</th><th>Error</th></tr>");
+            for (ScenarioResult scenario : scenarios) {
+                if (!scenario.status.equals("PASSED")) {
+                    out.printf(Locale.UK, "<tr><td>%s</td><td class=\"fail\">%s</td><td>%.1fs</td><td>%s</td></tr>%n",
+                        escape(scenario.name), scenario.status, scenario.duration.toMillis() / 1000.0, escape(scenario.error));
+                }
+            }
+            out.println("</table>");
+        }
+        out.println("<table><tr><th>Error counter</th><th>Count this run</th></tr>");
+        counters.forEach((metric, value) -> {
+            if (ERROR_COUNTER.matcher(metric).matches()) {
+                out.printf("<tr><td>%s</td><td>%d</td></tr>%n", escape(metric), value);
+            }
+        });
+        out.println("</table>");
+        
+        out.println("<h2>Baseline comparison</h2>");
+        if (baseline == null) {
+            out.printf("<p class=\"muted\">No baseline at %s; copy %s.json there to compare future runs</p>%n",
+                escape(BASELINE_DIR.resolve(name + ".json").toString()), escape(name));
+        } else if (regressions.isEmpty()) {
+            out.printf(Locale.UK, "<p class=\"pass\">No p95 regressions above %.0f%%</p>%n", REGRESSION_PCT);
+        } else {
+            out.printf(Locale.UK, "<p class=\"fail\">%d p95 regressions above %.0f%%:</p><ul>%n", regressions.size(), REGRESSION_PCT);
+            regressions.forEach(regression -> out.printf("<li>%s</li>%n", regression));
+            out.println("</ul>");
+        }
+        out.println("</body></html>");
+    }
+    
+    private void writeTimeline(PrintWriter out) {
+        if (timeline.size() < 2) {
+            out.println("<p class=\"muted\">Run too short for a timeline</p>");
+            return;
+        }
+        int width = 760;
+        int height = 200;
+        long start = timeline.get(0)[0];
+        long end = timeline.get(timeline.size() - 1)[0];
+        double[][] rates = new double[SERIES.length][timeline.size() - 1];
+        double peak = 1;
+        for (int i = 1; i < timeline.size(); i++) {
+            long[] previous = timeline.get(i - 1);
+            long[] current = timeline.get(i);
+            double seconds = Math.max(1, current[0] - previous[0]) / 1000.0;
+            for (int series = 0; series < SERIES.length; series++) {
+                rates[series][i - 1] = Math.max(0, current[series + 1] - previous[series + 1]) / seconds;
+                peak = Math.max(peak, rates[series][i - 1]);
+            }
+        }
+        
+        out.printf("<svg width=\"%d\" height=\"%d\" viewBox=\"0 0 %d %d\" role=\"img\">%n", width, height + 30, width, height + 30);
+        out.printf("<line x1=\"40\" y1=\"%d\" x2=\"%d\" y2=\"%d\" stroke=\"#999\"/>%n", height, width, height);
+        out.printf(Locale.UK, "<text x=\"0\" y=\"12\" font-size=\"11\">%.1f/s</text>"
+            + "<text x=\"0\" y=\"%d\" font-size=\"11\">0</text><text x=\"%d\" y=\"%d\" font-size=\"11\" "
+            + "text-anchor=\"end\">%ds</text>%n", peak, height, width, height + 14, (end - start) / 1000);
+        for (int series = 0; series < SERIES.length; series++) {
+            StringBuilder points = new StringBuilder();
+            for (int i = 0; i < rates[series].length; i++) {
+                long time = timeline.get(i + 1)[0];
+                points.append(String.format(Locale.UK, "%.1f,%.1f ",
+                    40 + (width - 40) * (double) (time - start) / Math.max(1, end - start),
+                    height - height * rates[series][i] / peak));
+            }
+            out.printf("<polyline fill=\"none\" stroke=\"%s\" stroke-width=\"1.5\" points=\"%s\"/>%n",
+                SERIES_COLOURS[series], points.toString().trim());
+            out.printf("<text x=\"%d\" y=\"%d\" font-size=\"11\" fill=\"%s\">%s</text>%n",
+                40 + series * 150, height + 26, SERIES_COLOURS[series], SERIES[series]);
+        }
+        out.println("</svg>");
+    }
+    
+    private static String formatDuration(Duration duration) {
+        return String.format(Locale.UK, "%dm %02ds", duration.toMinutes(), duration.toSecondsPart());
+    }
+    
+    private static String unit(String metric) {
+        if (metric.contains("_ms")) {
+            return "ms";
+        }
+        if (metric.contains("_us")) {
+            return "&micro;s";
+        }
+        if (metric.contains("_mb")) {
+            return "MB";
+        }
+        if (metric.contains("_x1000")) {
+            return "&times;1000";
+        }
+        return metric.contains("bytes") ? "bytes" : "";
+    }
+    
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "-";
+        }
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.format(Locale.UK, "%.1f", value);
+    }
+    
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+    
+    private static class HistogramSnapshot {
+        final long[] buckets;
+        final long sum;
+        
+        HistogramSnapshot(LatencyHistogram histogram) {
+            this.buckets = histogram.getBucketCounts();
+            this.sum = histogram.getSum();
+        }
+    }
+    
+    /**
+     * Samples a histogram gained since the run started, with percentiles computed like LatencyHistogram's
+     */
+    private static class Distribution {
+        final long[] buckets;
+        final long count;
+        final long sum;
+        final long max;
+        
+        Distribution(LatencyHistogram histogram, HistogramSnapshot start) {
+            long[] current = histogram.getBucketCounts();
+            long total = 0;
+            int highest = -1;
+            for (int i = 0; i < current.length; i++) {
+                // MetricsRegistry.reset() swaps in fresh histograms, so never report a negative gain
+                current[i] = Math.max(0, current[i] - (start == null ? 0 : start.buckets[i]));
+                total += current[i];
+                if (current[i] > 0) {
+                    highest = i;
+                }
+            }
+            this.buckets = current;
+            this.count = total;
+            this.sum = Math.max(0, histogram.getSum() - (start == null ? 0 : start.sum));
+            this.max = highest < 0 ? 0 : Math.min(LatencyHistogram.bucketUpperBound(highest), histogram.getMax());
+        }
+        
+        double statistic(String statistic) {
+            if (statistic.equals("max")) {
+                return max;
+            }
+            if (statistic.equals("mean")) {
+                return count == 0 ? 0 : (double) sum / count;
+            }
+            String digits = statistic.substring(1);
+            // p999 reads as 99.9, p9999 as 99.99
+            double percentile = digits.length() <= 2 ? Double.parseDouble(digits)
+                : Double.parseDouble(digits.substring(0, 2) + "." + digits.substring(2));
+            return percentile(percentile);
+        }
+        
+        long percentile(double percentile) {
+            long rank = Math.max(1, (long) Math.ceil(count * Math.min(100.0, percentile) / 100.0));
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return Math.min(LatencyHistogram.bucketUpperBound(i), max);
+                }
+            }
+            return max;
+        }
+        
+        /**
+         * Bar chart of the distribution over power-of-two ranges
+         */
+        String toSvg() {
+            Map<Integer, Long> ranges = new LinkedHashMap<>();
+            for (int i = 0; i < buckets.length; i++) {
+                if (buckets[i] > 0) {
+                    int range = 64 - Long.numberOfLeadingZeros(LatencyHistogram.bucketUpperBound(i));
+                    ranges.merge(range, buckets[i], Long::sum);
+                }
+            }
+            int first = ranges.keySet().stream().min(Integer::compare).orElse(0);
+            int last = ranges.keySet().stream().max(Integer::compare).orElse(0);
+            long tallest = ranges.values().stream().max(Long::compare).orElse(1L);
+            int bars = last - first + 1;
+            int barWidth = Math.max(3, 160 / bars);
+            
+            StringBuilder svg = new StringBuilder(String.format("<svg width=\"%d\" height=\"24\">", barWidth * bars));
+            for (int range = first; range <= last; range++) {
+                long value = ranges.getOrDefault(range, 0L);
+                int barHeight = (int) Math.ceil(22.0 * value / tallest);
+                svg.append(String.format("<rect class=\"bar\" x=\"%d\" y=\"%d\" width=\"%d\" height=\"%d\">"
+                        + "<title>&lt;%d: %d</title></rect>",
+                    (range - first) * barWidth, 24 - barHeight, barWidth - 1, barHeight, 1L << range, value));
+            }
+            return svg.append("</svg>").toString();
+        }
+    }
+    
+    private static class SloVerdict {
+        final String metric;
+        final String statistic;
+        final double limit;
+        final double actual;
+        final boolean passed;
+        
+        SloVerdict(String metric, String statistic, double limit, double actual, boolean passed) {
+            this.metric = metric;
+            this.statistic = statistic;
+            this.limit = limit;
+            this.actual = actual;
+            this.passed = passed;
+        }
+    }
+    
+    private static class ScenarioResult {
+        final String name;
+        final String status;
+        final Duration duration;
+        final String error;
+        
+        ScenarioResult(String name, String status, Duration duration, String error) {
+            this.name = name;
+            this.status = status;
+            this.duration = duration;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package uk.pulse.observability;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.PlaywrightException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Main-thread Responsiveness Monitor
+ * Injects Long Tasks, Event Timing and requestAnimationFrame instrumentation into the
+ * page; batches are pushed back through an exposed binding and turned into per-scenario
+ * input-to-next-paint, blocking-time and frame-gap percentiles
+ */
+public class ResponsivenessMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(ResponsivenessMonitor.class);
+    
+    private static final String BINDING = "__pulseResponsiveness";
+    private static final int FLUSH_INTERVAL_MS = Integer.getInteger("pulse.responsiveness.flush-ms", 1000);
+    
+    // Long tasks over 50ms count towards total blocking time
+    private static final long LONG_TASK_MS = 50;
+    // A frame gap beyond ~2 frames at 60Hz is visible jank
+    private static final long DROPPED_FRAME_MS = 34;
+    
+    // Interaction latency is measured to the next frame for every discrete input, and
+    // refined with Event Timing where the engine reports it (slow events only)
+    private static final String MONITOR_SCRIPT =
+        "(() => {" +
+        "  if (window.__pulseResponsivenessInstalled) return;" +
+        "  window.__pulseResponsivenessInstalled = true;" +
+        "  let batch = { longTasks: [], interactions: [], events: [], frameGaps: [], frames: 0 };" +
+        "  const observe = (type, options, handler) => {" +
+        "    try { new PerformanceObserver(list => list.getEntries().forEach(handler))" +
+        "      .observe(Object.assign({ type, buffered: true }, options)); } catch (e) {}" +
+        "  };" +
+        "  observe('longtask', {}, e => batch.longTasks.push(e.duration));" +
+        "  observe('event', { durationThreshold: 16 }, e => {" +
+        "    if (e.interactionId) batch.events.push([e.name, e.duration, e.processingStart - e.startTime]);" +
+        "  });" +
+        "  ['pointerdown', 'keydown', 'click'].forEach(type => addEventListener(type, event => {" +
+        "    const inputAt = event.timeStamp;" +
+        "    requestAnimationFrame(() => setTimeout(() => {" +
+        "      batch.interactions.push([type, performance.now() - inputAt]);" +
+        "    }, 0));" +
+        "  }, { capture: true, passive: true }));" +
+        "  let lastFrame = performance.now();" +
+        "  const frame = now => {" +
+        "    batch.frames++;" +
+        "    if (now - lastFrame > " + DROPPED_FRAME_MS + ") batch.frameGaps.push(now - lastFrame);" +
+        "    lastFrame = now;" +
+        "    requestAnimationFrame(frame);" +
+        "  };" +
+        "  requestAnimationFrame(frame);" +
+        "  const flush = () => {" +
+        "    const b = batch;" +
+        "    batch = { longTasks: [], interactions: [], events: [], frameGaps: [], frames: 0 };" +
+        "    if (typeof window." + BINDING + " !== 'function') return Promise.resolve();" +
+        "    return window." + BINDING + "(JSON.stringify(b));" +
+        "  };" +
+        "  window.__pulseResponsivenessFlush = flush;" +
+        "  setInterval(flush, " + FLUSH_INTERVAL_MS + ");" +
+        "  addEventListener('pagehide', flush);" +
+        "})()";
+        
+    private static final Map<Page, Report> reports = new WeakHashMap<>();
+    
+    private ResponsivenessMonitor() {
+    }
+    
+    /**
+     * Instrument the page (and its future documents), attributing results to the scenario
+     */
+    public static void install(Page page, String scenario) {
+        String label = scenario.toLowerCase().replaceAll("[^a-z0-9]+", "_").replaceAll("^_|_$", "");
+        Report report = new Report(label);
+        synchronized (reports) {
+            if (reports.containsKey(page)) {
+                return;
+            }
+            reports.put(page, report);
+        }
+        
+        try {
+            page.exposeBinding(BINDING, (source, args) -> {
+                report.accept((String) args[0]);
+                return null;
+            });
+            page.addInitScript(MONITOR_SCRIPT);
+            page.evaluate(MONITOR_SCRIPT);
+            logger.info("Monitoring main-thread responsiveness for {}", label);
+        } catch (PlaywrightException e) {
+            logger.warn("Responsiveness monitoring unavailable: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Push any pending in-page measurements and return the page's report (null if not installed)
+     */
+    public static Report flush(Page page) {
+        Report report;
+        synchronized (reports) {
+            report = reports.get(page);
+        }
+        if (report != null && !page.isClosed()) {
+            try {
+                // Awaiting the binding's promise guarantees the batch has been handled
+                page.evaluate("() => window.__pulseResponsivenessFlush && window.__pulseResponsivenessFlush()");
+            } catch (PlaywrightException e) {
+                logger.debug("Could not flush responsiveness data: {}", e.getMessage());
+            }
+        }
+        return report;
+    }
+    
+    /**
+     * Responsiveness measured on one page
+     */
+    public static class Report {
+        final String scenario;
+        final LatencyHistogram interactions = new LatencyHistogram();
+        final LatencyHistogram longTasks = new LatencyHistogram();
+        final LatencyHistogram frameGaps = new LatencyHistogram();
+        long blockingMs;
+        long frames;
+        
+        Report(String scenario) {
+            this.scenario = scenario;
+        }
+        
+        synchronized void accept(String json) {
+            JsonObject batch = JsonParser.parseString(json).getAsJsonObject();
+            
+            for (JsonElement element : batch.getAsJsonArray("interactions")) {
+                long latency = Math.round(element.getAsJsonArray().get(1).getAsDouble());
+                interactions.record(latency);
+                MetricsRegistry.record("responsiveness.input_to_paint_ms." + scenario, latency);
+            }
+            for (JsonElement element : batch.getAsJsonArray("events")) {
+                JsonArray event = element.getAsJsonArray();
+                MetricsRegistry.record("responsiveness.event_duration_ms." + scenario,
+                    Math.round(event.get(1).getAsDouble()));
+                MetricsRegistry.record("responsiveness.input_delay_ms." + scenario,
+                    Math.round(event.get(2).getAsDouble()));
+            }
+            for (JsonElement element : batch.getAsJsonArray("longTasks")) {
+                long duration = Math.round(element.getAsDouble());
+                longTasks.record(duration);
+                blockingMs += Math.max(0, duration - LONG_TASK_MS);
+                MetricsRegistry.record("responsiveness.long_task_ms." + scenario, duration);
+                MetricsRegistry.add("responsiveness.blocking_ms." + scenario, Math.max(0, duration - LONG_TASK_MS));
+            }
+            for (JsonElement element : batch.getAsJsonArray("frameGaps")) {
+                long gap = Math.round(element.getAsDouble());
+                frameGaps.record(gap);
+                MetricsRegistry.record("responsiveness.frame_gap_ms." + scenario, gap);
+            }
+            
+            long batchFrames = batch.get("frames").getAsLong();
+            frames += batchFrames;
+            MetricsRegistry.add("responsiveness.frames." + scenario, batchFrames);
+            MetricsRegistry.add("responsiveness.dropped_frames." + scenario, batch.getAsJsonArray("frameGaps").size());
+        }
+        
+        /**
+         * Input-to-next-paint at the given percentile; p98 approximates INP
+         */
+        public synchronized long getInteractionPercentile(double percentile) {
+            return interactions.getPercentile(percentile);
+        }
+        
+        public synchronized long getInteractionCount() {
+            return interactions.getCount();
+        }
+        
+        public synchronized long getLongTaskCount() {
+            return longTasks.getCount();
+        }
+        
+        public synchronized long getLongestTaskMs() {
+            return longTasks.getMax();
+        }
+        
+        /**
+         * Sum of long-task time beyond 50ms each
+         */
+        public synchronized long getTotalBlockingMs() {
+            return blockingMs;
+        }
+        
+        public synchronized long getDroppedFrames() {
+            return frameGaps.getCount();
+        }
+        
+        public synchronized long getFrames() {
+            return frames;
+        }
+        
+        @Override
+        public synchronized String toString() {
+            return String.format("%d interactions (p75 %dms, p98 %dms), %d long tasks (TBT %dms, longest %dms), "
+                    + "%d/%d frames dropped",
+                interactions.getCount(), interactions.getPercentile(75), interactions.getPercentile(98),
+                longTasks.getCount(), blockingMs, longTasks.getMax(), frameGaps.getCount(), frames);
+        }
+    }
+}
@@ -0,0 +1,564 @@
+package uk.pulse.observability;
+
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Request;
+import com.microsoft.playwright.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Binary per-request journal for offline analysis
+ * Every intercepted browser request and every virtual-user transaction is appended to
+ * memory-mapped segment files. Threads are spread over a small, fixed set of striped
+ * columnar blocks, so memory stays bounded however many virtual-user threads there are;
+ * a full block is swapped out under its stripe lock and encoded outside it
+ *
+ * Segment layout: 24-byte header (magic, version, segment index, run start in epoch nanos)
+ * followed by blocks of [int payload length][byte type][payload]; a zero length ends the segment.
+ * Record blocks hold a varint count and then one column after another: start (zigzag delta
+ * epoch nanos), duration nanos, kind, route id, device id, network id, injected delay micros,
+ * status, bytes (zigzag, -1 when unknown) and VU id, all varint encoded. Dictionary blocks map
+ * an id to its UTF-8 string and precede every record that uses the id.
+ */
+public class RunJournal {
+    private static final Logger logger = LoggerFactory.getLogger(RunJournal.class);
+    
+    public static final long SEGMENT_MAGIC = 0x50554C53454A4E31L;  // "PULSEJN1"
+    public static final int FORMAT_VERSION = 1;
+    public static final int HEADER_SIZE = Long.BYTES + Integer.BYTES * 2 + Long.BYTES;
+    public static final byte RECORD_BLOCK = 1;
+    public static final byte DICTIONARY_BLOCK = 2;
+    public static final int COLUMNS = 10;
+    
+    public static final int KIND_REQUEST = 0;
+    public static final int KIND_TRANSACTION = 1;
+    
+    public static final int START = 0;
+    public static final int DURATION = 1;
+    public static final int KIND = 2;
+    public static final int ROUTE = 3;
+    public static final int DEVICE = 4;
+    public static final int NETWORK = 5;
+    public static final int DELAY = 6;
+    public static final int STATUS = 7;
+    public static final int BYTES = 8;
+    public static final int VU = 9;
+    
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("pulse.journal.enabled", "true"));
+    private static final int BLOCK_RECORDS = Integer.getInteger("pulse.journal.block-records", 4096);
+    private static final int INITIAL_BLOCK_RECORDS = Math.min(256, BLOCK_RECORDS);
+    private static final int STRIPES = Integer.getInteger("pulse.journal.stripes",
+        Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    private static final long SEGMENT_SIZE = Long.getLong("pulse.journal.segment-mb", 64) * 1024 * 1024;
+    private static final Path JOURNAL_DIR = Paths.get(System.getProperty("pulse.journal.dir", "target/journal"));
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    
+    // nanoTime has no epoch, so every timestamp is anchored to the wall clock once
+    private static final long BASE_NANO_TIME = System.nanoTime();
+    private static final long BASE_EPOCH_NANOS = epochNanosNow();
+    
+    private static final Map<String, Integer> dictionary = new ConcurrentHashMap<>();
+    private static final AtomicInteger nextDictionaryId = new AtomicInteger();
+    private static final Stripe[] stripes = newStripes();
+    private static final AtomicInteger nextStripe = new AtomicInteger();
+    private static final ThreadLocal<Stripe> threadStripe = ThreadLocal.withInitial(() ->
+        stripes[Math.floorMod(nextStripe.getAndIncrement(), stripes.length)]);
+    private static final Queue<Block> spareBlocks = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger spareCount = new AtomicInteger();
+    private static final AtomicInteger flushesInFlight = new AtomicInteger();
+    
+    // Requests seen but not yet finished, with the status, size and delay gathered so far
+    private static final Map<Request, PendingRequest> pending = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final Map<BrowserContext, ContextTags> contextTags = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final AtomicInteger nextContextId = new AtomicInteger();
+    
+    private static volatile Segment segment;
+    private static volatile boolean closed;
+    private static Path runDir;
+    private static int segmentIndex;
+    
+    private RunJournal() {
+    }
+    
+    /**
+     * Journal every request made by the context, tagged with its device and network (idempotent)
+     */
+    public static void attach(BrowserContext context, String device, String network) {
+        if (!ENABLED) {
+            return;
+        }
+        ContextTags tags;
+        synchronized (contextTags) {
+            if (contextTags.containsKey(context)) {
+                contextTags.get(context).network = intern(network);
+                return;
+            }
+            tags = new ContextTags(intern(device), intern(network), nextContextId.incrementAndGet());
+            contextTags.put(context, tags);
+        }
+        
+        context.onRequest(request -> pending(request).startNanos = System.nanoTime());
+        context.onResponse(response -> responded(response));
+        context.onRequestFinished(request -> finished(request, tags));
+        context.onRequestFailed(request -> finished(request, tags));
+    }
+    
+    /**
+     * Re-tag the context's subsequent requests with a new network condition
+     */
+    public static void setNetwork(BrowserContext context, String network) {
+        ContextTags tags = contextTags.get(context);
+        if (tags != null) {
+            tags.network = intern(network);
+        }
+    }
+    
+    /**
+     * Add a simulator's injected delay to the request it was applied to
+     */
+    public static void noteInjectedDelay(Request request, long delayMs) {
+        if (ENABLED && delayMs > 0) {
+            pending(request).injectedDelayMicros += delayMs * 1000;
+        }
+    }
+    
+    /**
+     * Journal one virtual-user transaction (status 200 when it succeeded, 0 when it failed)
+     */
+    public static void recordTransaction(String engine, int vuId, long startNanoTime, long durationNanos, boolean success) {
+        if (ENABLED) {
+            append(epochNanos(startNanoTime), durationNanos, KIND_TRANSACTION, intern(engine), intern("api"),
+                intern("direct"), 0, success ? 200 : 0, -1, vuId);
+        }
+    }
+    
+    /**
+     * Append a record through the calling thread's stripe
+     */
+    public static void append(long startEpochNanos, long durationNanos, int kind, int routeId, int deviceId,
+                              int networkId, long injectedDelayMicros, int status, long bytes, int vuId) {
+        if (closed) {
+            return;
+        }
+        Stripe stripe = threadStripe.get();
+        Block full = null;
+        synchronized (stripe) {
+            if (closed) {
+                return;
+            }
+            Block block = stripe.block;
+            block.add(startEpochNanos, durationNanos, kind, routeId, deviceId, networkId, injectedDelayMicros,
+                status, bytes, vuId);
+            if (block.count == BLOCK_RECORDS) {
+                // Counted before the lock is released, so close() waits for this flush
+                flushesInFlight.incrementAndGet();
+                full = block;
+                stripe.block = takeSpareBlock();
+            }
+        }
+        if (full != null) {
+            try {
+                flush(full);
+            } finally {
+                flushesInFlight.decrementAndGet();
+            }
+        }
+    }
+    
+    /**
+     * Dictionary id for a route, device or network label, journalled on first use
+     * Returns -1 when the entry could not be journalled; an id is only handed out once its entry is written
+     */
+    public static int intern(String value) {
+        String key = value == null ? "unknown" : value;
+        Integer id = dictionary.get(key);
+        if (id != null) {
+            return id;
+        }
+        // A null result leaves the key unmapped, so a failed write is retried on next use
+        Integer interned = dictionary.computeIfAbsent(key, name -> {
+            int newId = nextDictionaryId.getAndIncrement();
+            byte[] payload = encodeDictionaryEntry(newId, name);
+            return writeBlock(DICTIONARY_BLOCK, payload, payload.length) ? newId : null;
+        });
+        return interned == null ? -1 : interned;
+    }
+    
+    /**
+     * Convert a System.nanoTime reading to epoch nanoseconds
+     */
+    public static long epochNanos(long nanoTime) {
+        return BASE_EPOCH_NANOS + (nanoTime - BASE_NANO_TIME);
+    }
+    
+    /**
+     * Directory holding this run's segments (null until the first write)
+     */
+    public static synchronized Path getRunDirectory() {
+        return runDir;
+    }
+    
+    /**
+     * Flush every stripe's buffered records and trim the last segment
+     */
+    public static synchronized void close() {
+        if (closed || segment == null) {
+            closed = true;
+            return;
+        }
+        closed = true;
+        for (Stripe stripe : stripes) {
+            Block block;
+            // Taking the block under the stripe lock waits out any append still writing to it
+            synchronized (stripe) {
+                block = stripe.block;
+                stripe.block = new Block();
+            }
+            flush(block);
+        }
+        while (flushesInFlight.get() > 0) {
+            Thread.onSpinWait();
+        }
+        segment.close(true);
+        segment = null;
+        logger.info("Run journal closed: {} segments in {}", segmentIndex, runDir);
+    }
+    
+    private static PendingRequest pending(Request request) {
+        synchronized (pending) {
+            return pending.computeIfAbsent(request, key -> new PendingRequest());
+        }
+    }
+    
+    private static void responded(Response response) {
+        PendingRequest request = pending(response.request());
+        request.status = response.status();
+        String length = response.headers().get("content-length");
+        if (length != null) {
+            try {
+                request.bytes = Long.parseLong(length.trim());
+            } catch (NumberFormatException e) {
+                request.bytes = -1;
+            }
+        }
+    }
+    
+    private static void finished(Request request, ContextTags tags) {
+        long end = System.nanoTime();
+        PendingRequest state = pending.remove(request);
+        if (state == null || state.startNanos == 0) {
+            return;
+        }
+        append(epochNanos(state.startNanos), end - state.startNanos, KIND_REQUEST, intern(routeName(request)),
+            tags.device, tags.network, state.injectedDelayMicros, state.status, state.bytes, tags.contextId);
+    }
+    
+    /**
+     * Method and path with the query dropped and numeric segments collapsed, to keep route cardinality low
+     */
+    static String routeName(Request request) {
+        String url = request.url();
+        int scheme = url.indexOf("://");
+        int pathStart = scheme >= 0 ? url.indexOf('/', scheme + 3) : 0;
+        String path = pathStart >= 0 ? url.substring(pathStart) : "/";
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        int fragment = path.indexOf('#');
+        if (fragment >= 0) {
+            path = path.substring(0, fragment);
+        }
+        return request.method() + " " + path.replaceAll("/[0-9][0-9a-fA-F-]*(?=/|$)", "/{id}");
+    }
+    
+    /**
+     * Encode and write a block owned by the caller, then return it to the spare pool
+     */
+    private static void flush(Block block) {
+        int count = block.count;
+        if (count > 0) {
+            int needed = maxEncodedSize(count);
+            if (block.scratch.length < needed) {
+                block.scratch = new byte[needed];
+            }
+            int length = encodeRecords(block.columns, count, block.scratch);
+            if (writeBlock(RECORD_BLOCK, block.scratch, length)) {
+                MetricsRegistry.add("journal.records", count);
+            }
+        }
+        block.count = 0;
+        if (spareCount.incrementAndGet() <= STRIPES) {
+            spareBlocks.offer(block);
+        } else {
+            spareCount.decrementAndGet();
+        }
+    }
+    
+    private static Block takeSpareBlock() {
+        Block spare = spareBlocks.poll();
+        if (spare == null) {
+            return new Block();
+        }
+        spareCount.decrementAndGet();
+        return spare;
+    }
+    
+    private static Stripe[] newStripes() {
+        Stripe[] created = new Stripe[STRIPES];
+        for (int i = 0; i < created.length; i++) {
+            created[i] = new Stripe();
+        }
+        return created;
+    }
+    
+    /**
+     * Upper bound on the encoded size of a record block holding count rows
+     */
+    static int maxEncodedSize(int count) {
+        return 10 + count * COLUMNS * 10;
+    }
+    
+    /**
+     * Encode the first count rows as a record block payload, returning its length
+     */
+    static int encodeRecords(long[][] columns, int count, byte[] out) {
+        int position = putVarint(out, 0, count);
+        long previous = 0;
+        for (int row = 0; row < count; row++) {
+            long start = columns[START][row];
+            position = putVarint(out, position, zigzag(start - previous));
+            previous = start;
+        }
+        for (int column = DURATION; column < COLUMNS; column++) {
+            long[] values = columns[column];
+            for (int row = 0; row < count; row++) {
+                position = putVarint(out, position, column == BYTES ? zigzag(values[row]) : values[row]);
+            }
+        }
+        return position;
+    }
+    
+    /**
+     * Encode a dictionary block payload mapping id to name
+     */
+    static byte[] encodeDictionaryEntry(int id, String name) {
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = new byte[10 + 5 + utf8.length];
+        int length = putVarint(payload, 0, id);
+        length = putVarint(payload, length, utf8.length);
+        System.arraycopy(utf8, 0, payload, length, utf8.length);
+        return Arrays.copyOf(payload, length + utf8.length);
+    }
+    
+    private static boolean writeBlock(byte type, byte[] payload, int length) {
+        int blockSize = Integer.BYTES + 1 + length;
+        while (true) {
+            Segment current = currentSegment();
+            if (current == null) {
+                return false;
+            }
+            current.writers.incrementAndGet();
+            try {
+                if (current.closing) {
+                    continue;
+                }
+                long offset = current.reserved.getAndAdd(blockSize);
+                if (offset + blockSize <= current.capacity) {
+                    current.write((int) offset, type, payload, length);
+                    MetricsRegistry.add("journal.bytes", blockSize);
+                    return true;
+                }
+            } finally {
+                current.writers.decrementAndGet();
+            }
+            roll(current);
+        }
+    }
+    
+    private static Segment currentSegment() {
+        Segment current = segment;
+        if (current != null) {
+            return current;
+        }
+        synchronized (RunJournal.class) {
+            if (segment == null && !closed && runDir == null) {
+                runDir = JOURNAL_DIR.resolve(LocalDateTime.now().format(TIMESTAMP));
+                segment = Segment.open(runDir, segmentIndex++);
+                Runtime.getRuntime().addShutdownHook(new Thread(RunJournal::close));
+                logger.info("Journalling requests and transactions to {}", runDir);
+            }
+            return segment;
+        }
+    }
+    
+    private static synchronized void roll(Segment full) {
+        // Only the first thread to overflow a segment opens the next one
+        if (segment == full) {
+            full.close(false);
+            segment = Segment.open(runDir, segmentIndex++);
+        }
+    }
+    
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+    
+    static int putVarint(byte[] out, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[position++] = (byte) value;
+        return position;
+    }
+    
+    private static long epochNanosNow() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+    
+    /**
+     * One memory-mapped segment file; threads write disjoint reserved ranges
+     */
+    private static class Segment {
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer mapped;
+        final long capacity;
+        final AtomicLong reserved = new AtomicLong(HEADER_SIZE);
+        final AtomicLong written = new AtomicLong(HEADER_SIZE);
+        final AtomicInteger writers = new AtomicInteger();
+        volatile boolean closing;
+        
+        private Segment(Path path, FileChannel channel, MappedByteBuffer mapped) {
+            this.path = path;
+            this.channel = channel;
+            this.mapped = mapped;
+            this.capacity = mapped.capacity();
+        }
+        
+        static Segment open(Path dir, int index) {
+            Path path = dir.resolve(String.format("segment-%05d.pjl", index));
+            try {
+                Files.createDirectories(dir);
+                FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+                mapped.putLong(0, SEGMENT_MAGIC);
+                mapped.putInt(Long.BYTES, FORMAT_VERSION);
+                mapped.putInt(Long.BYTES + Integer.BYTES, index);
+                mapped.putLong(Long.BYTES + Integer.BYTES * 2, BASE_EPOCH_NANOS);
+                return new Segment(path, channel, mapped);
+            } catch (IOException e) {
+                logger.error("Failed to open journal segment {}: {}", path, e.getMessage());
+                return null;
+            }
+        }
+        
+        void write(int offset, byte type, byte[] payload, int length) {
+            // Payload before length, so a reader never sees a length whose bytes are not there yet
+            mapped.put(offset + Integer.BYTES + 1, payload, 0, length);
+            mapped.put(offset + Integer.BYTES, type);
+            mapped.putInt(offset, length);
+            written.accumulateAndGet(offset + Integer.BYTES + 1L + length, Math::max);
+        }
+        
+        void close(boolean trim) {
+            // Writers that reserved space before the close must finish before the file can shrink
+            closing = true;
+            while (writers.get() > 0) {
+                Thread.onSpinWait();
+            }
+            try {
+                mapped.force();
+                if (trim) {
+                    // Only the last segment has a meaningful unused tail
+                    channel.truncate(written.get());
+                }
+                channel.close();
+            } catch (IOException e) {
+                logger.error("Failed to close journal segment {}: {}", path, e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Lock guarding the block its threads append to
+     */
+    private static class Stripe {
+        Block block = new Block();
+    }
+    
+    /**
+     * Columnar block of records; columns start small and grow up to BLOCK_RECORDS rows
+     */
+    private static class Block {
+        long[][] columns = new long[COLUMNS][INITIAL_BLOCK_RECORDS];
+        byte[] scratch = new byte[0];
+        int count;
+        
+        void add(long start, long duration, int kind, int route, int device, int network, long delay,
+                 int status, long bytes, int vu) {
+            int row = count;
+            if (row == columns[START].length) {
+                int capacity = Math.min(BLOCK_RECORDS, row * 2);
+                for (int column = 0; column < COLUMNS; column++) {
+                    columns[column] = Arrays.copyOf(columns[column], capacity);
+                }
+            }
+            columns[START][row] = start;
+            columns[DURATION][row] = duration;
+            columns[KIND][row] = kind;
+            columns[ROUTE][row] = route;
+            columns[DEVICE][row] = device;
+            columns[NETWORK][row] = network;
+            columns[DELAY][row] = delay;
+            columns[STATUS][row] = status;
+            columns[BYTES][row] = bytes;
+            columns[VU][row] = vu;
+            count = row + 1;
+        }
+    }
+    
+    private static class PendingRequest {
+        volatile long startNanos;
+        volatile long injectedDelayMicros;
+        volatile int status;
+        volatile long bytes = -1;
+    }
+    
+    private static class ContextTags {
+        final int device;
+        volatile int network;
+        final int contextId;
+        
+        ContextTags(int device, int network, int contextId) {
+            this.device = device;
+            this.network = network;
+            this.contextId = contextId;
+        }
+    }
+}
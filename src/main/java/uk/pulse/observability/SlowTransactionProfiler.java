@@ -0,0 +1,236 @@
+package uk.pulse.observability;
+
+import com.google.gson.JsonObject;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.CDPSession;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.PlaywrightException;
+import com.microsoft.playwright.Tracing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Threshold-triggered Slow Transaction Profiler
+ * Records a Playwright tracing chunk and, on Chromium, a DevTools CPU profile for every
+ * transaction; both are written out only when the transaction breaches its latency
+ * budget (together with the CPU profiles of the few transactions before it) and are
+ * otherwise discarded
+ */
+public class SlowTransactionProfiler {
+    private static final Logger logger = LoggerFactory.getLogger(SlowTransactionProfiler.class);
+    
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("pulse.profiler.enabled", "true"));
+    private static final int SAMPLING_INTERVAL_US = Integer.getInteger("pulse.profiler.sampling-us", 500);
+    private static final int RING_SIZE = Integer.getInteger("pulse.profiler.ring-size", 3);
+    private static final Path CAPTURE_DIR = Paths.get(System.getProperty("pulse.profiler.dir", "target/slow-transactions"));
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    
+    private static final Map<BrowserContext, Boolean> tracingContexts = new WeakHashMap<>();
+    private static final Map<Page, CDPSession> profilerSessions = new WeakHashMap<>();
+    // CPU profiles of the most recent transactions that stayed within budget
+    private static final Deque<Capture> ring = new ArrayDeque<>();
+    
+    private SlowTransactionProfiler() {
+    }
+    
+    /**
+     * Start recording a transaction on the page (null when profiling is disabled or the page is gone)
+     */
+    public static Capture begin(Page page, String transaction) {
+        if (!ENABLED || page == null || page.isClosed()) {
+            return null;
+        }
+        long start = System.nanoTime();
+        Capture capture = new Capture(page, transaction);
+        
+        try {
+            BrowserContext context = page.context();
+            synchronized (tracingContexts) {
+                if (!tracingContexts.containsKey(context)) {
+                    context.tracing().start(new Tracing.StartOptions().setScreenshots(true).setSnapshots(true));
+                    tracingContexts.put(context, Boolean.TRUE);
+                }
+            }
+            // A new chunk discards anything recorded since the last transaction
+            context.tracing().startChunk(new Tracing.StartChunkOptions().setTitle(transaction));
+            capture.tracing = true;
+        } catch (PlaywrightException e) {
+            logger.debug("Tracing unavailable for {}: {}", transaction, e.getMessage());
+        }
+        
+        CDPSession session = profilerSession(page);
+        if (session != null) {
+            try {
+                session.send("Profiler.start");
+                capture.session = session;
+            } catch (PlaywrightException e) {
+                logger.debug("CPU profiling unavailable for {}: {}", transaction, e.getMessage());
+            }
+        }
+        
+        MetricsRegistry.record("profiler.overhead_us", (System.nanoTime() - start) / 1000);
+        return capture;
+    }
+    
+    /**
+     * Finish the transaction, persisting its evidence if it exceeded the budget; returns the
+     * trace path when persisted
+     */
+    public static Path complete(Capture capture, long latencyMs, long budgetMs) {
+        if (capture == null || capture.finished) {
+            return null;
+        }
+        capture.finished = true;
+        long start = System.nanoTime();
+        boolean breached = latencyMs > budgetMs;
+        String name = capture.transaction + "-" + LocalDateTime.now().format(TIMESTAMP);
+        Path trace = null;
+        
+        capture.profile = stopProfiler(capture);
+        
+        if (capture.tracing && !capture.page.isClosed()) {
+            try {
+                if (breached) {
+                    Files.createDirectories(CAPTURE_DIR);
+                    trace = CAPTURE_DIR.resolve(name + "-trace.zip");
+                    capture.page.context().tracing().stopChunk(new Tracing.StopChunkOptions().setPath(trace));
+                } else {
+                    capture.page.context().tracing().stopChunk();
+                }
+            } catch (PlaywrightException | IOException e) {
+                logger.debug("Could not stop tracing chunk for {}: {}", capture.transaction, e.getMessage());
+                trace = null;
+            }
+        }
+        
+        if (breached) {
+            persistProfiles(capture, name);
+            MetricsRegistry.increment("profiler.persisted." + capture.transaction);
+            logger.warn("{} took {}ms (budget {}ms): trace {} and CPU profiles written to {}",
+                capture.transaction, latencyMs, budgetMs, trace != null ? trace.getFileName() : "unavailable", CAPTURE_DIR);
+        } else {
+            MetricsRegistry.increment("profiler.discarded." + capture.transaction);
+            synchronized (ring) {
+                if (capture.profile != null) {
+                    ring.addLast(capture);
+                    while (ring.size() > RING_SIZE) {
+                        ring.removeFirst();
+                    }
+                }
+            }
+        }
+        
+        MetricsRegistry.record("profiler.overhead_us", (System.nanoTime() - start) / 1000);
+        return trace;
+    }
+    
+    /**
+     * Drop a transaction that never reached its budget check (e.g. the step failed first)
+     */
+    public static void discard(Capture capture) {
+        if (capture == null || capture.finished) {
+            return;
+        }
+        capture.finished = true;
+        stopProfiler(capture);
+        if (capture.tracing && !capture.page.isClosed()) {
+            try {
+                capture.page.context().tracing().stopChunk();
+            } catch (PlaywrightException e) {
+                logger.debug("Could not discard tracing chunk: {}", e.getMessage());
+            }
+        }
+    }
+    
+    private static CDPSession profilerSession(Page page) {
+        synchronized (profilerSessions) {
+            if (profilerSessions.containsKey(page)) {
+                return profilerSessions.get(page);
+            }
+        }
+        
+        CDPSession session;
+        try {
+            session = page.context().newCDPSession(page);
+            JsonObject interval = new JsonObject();
+            interval.addProperty("interval", SAMPLING_INTERVAL_US);
+            session.send("Profiler.enable");
+            session.send("Profiler.setSamplingInterval", interval);
+        } catch (PlaywrightException e) {
+            // CDP is Chromium-only; other engines get traces without CPU profiles
+            logger.debug("DevTools profiler unavailable: {}", e.getMessage());
+            session = null;
+        }
+        
+        synchronized (profilerSessions) {
+            profilerSessions.put(page, session);
+        }
+        return session;
+    }
+    
+    private static JsonObject stopProfiler(Capture capture) {
+        if (capture.session == null || capture.page.isClosed()) {
+            return null;
+        }
+        try {
+            return capture.session.send("Profiler.stop").getAsJsonObject("profile");
+        } catch (PlaywrightException e) {
+            logger.debug("Could not stop CPU profile for {}: {}", capture.transaction, e.getMessage());
+            return null;
+        }
+    }
+    
+    private static void persistProfiles(Capture capture, String name) {
+        try {
+            Files.createDirectories(CAPTURE_DIR);
+            if (capture.profile != null) {
+                writeProfile(CAPTURE_DIR.resolve(name + ".cpuprofile"), capture.profile);
+            }
+            
+            // The transactions just before a slow one often show what it was queued behind
+            int prior = 0;
+            synchronized (ring) {
+                for (Capture previous : ring) {
+                    writeProfile(CAPTURE_DIR.resolve(name + "-prior-" + (++prior) + "-" + previous.transaction + ".cpuprofile"),
+                        previous.profile);
+                }
+                ring.clear();
+            }
+        } catch (IOException e) {
+            logger.error("Failed to write CPU profiles for {}: {}", capture.transaction, e.getMessage());
+        }
+    }
+    
+    private static void writeProfile(Path path, JsonObject profile) throws IOException {
+        Files.write(path, profile.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * A transaction being recorded
+     */
+    public static class Capture {
+        final Page page;
+        final String transaction;
+        boolean tracing;
+        CDPSession session;
+        JsonObject profile;
+        boolean finished;
+        
+        Capture(Page page, String transaction) {
+            this.page = page;
+            this.transaction = transaction.toLowerCase().replaceAll("[^a-z0-9]+", "_").replaceAll("^_|_$", "");
+        }
+    }
+}
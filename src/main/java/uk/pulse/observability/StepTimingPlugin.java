@@ -0,0 +1,166 @@
+package uk.pulse.observability;
+
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.HookTestStep;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.TestCase;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestStep;
+import io.cucumber.plugin.event.TestStepFinished;
+import io.cucumber.plugin.event.TestStepStarted;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.pulse.observability.jfr.ScenarioStepEvent;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cucumber plugin timing every step and hook across all scenarios and threads
+ * Aggregates nanosecond timings into per-step histograms (keyed by step definition
+ * pattern, so parameterised steps share one), exports them through MetricsRegistry
+ * and writes a run summary ranking steps by total wall-clock time
+ *
+ * Register with plugin = {"uk.pulse.observability.StepTimingPlugin:target/cucumber-reports/step-timings.csv"}
+ */
+public class StepTimingPlugin implements ConcurrentEventListener {
+    private static final Logger logger = LoggerFactory.getLogger(StepTimingPlugin.class);
+    
+    private static final int SUMMARY_TOP = 10;
+    
+    private final Path summaryPath;
+    private final Map<String, LatencyHistogram> stepTimings = new ConcurrentHashMap<>();
+    private final Map<String, InFlightStep> inFlight = new ConcurrentHashMap<>();
+    
+    public StepTimingPlugin() {
+        this("target/cucumber-reports/step-timings.csv");
+    }
+    
+    public StepTimingPlugin(String summaryPath) {
+        this.summaryPath = Paths.get(summaryPath);
+    }
+    
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestStepStarted.class, this::onStepStarted);
+        publisher.registerHandlerFor(TestStepFinished.class, this::onStepFinished);
+        publisher.registerHandlerFor(TestRunFinished.class, event -> writeSummary());
+    }
+    
+    /**
+     * Per-step timing histograms in microseconds, keyed by step pattern or hook
+     */
+    public Map<String, LatencyHistogram> getStepTimings() {
+        return stepTimings;
+    }
+    
+    private void onStepStarted(TestStepStarted event) {
+        ScenarioStepEvent jfrEvent = new ScenarioStepEvent();
+        jfrEvent.begin();
+        inFlight.put(key(event.getTestCase(), event.getTestStep()), new InFlightStep(System.nanoTime(), jfrEvent));
+    }
+    
+    private void onStepFinished(TestStepFinished event) {
+        // Handlers run synchronously on the thread executing the step, so nanoTime brackets it exactly
+        long end = System.nanoTime();
+        InFlightStep started = inFlight.remove(key(event.getTestCase(), event.getTestStep()));
+        if (started == null) {
+            return;
+        }
+        
+        String stepName = stepName(event.getTestStep());
+        long micros = (end - started.startNanos) / 1_000;
+        stepTimings.computeIfAbsent(stepName, name -> new LatencyHistogram()).record(micros);
+        MetricsRegistry.record("step.duration_us." + metricName(stepName), micros);
+        if (!event.getResult().getStatus().isOk()) {
+            MetricsRegistry.increment("step.failures." + metricName(stepName));
+        }
+        
+        if (started.jfrEvent.shouldCommit()) {
+            started.jfrEvent.scenario = event.getTestCase().getName();
+            started.jfrEvent.step = stepName;
+            started.jfrEvent.status = event.getResult().getStatus().name();
+            started.jfrEvent.commit();
+        }
+    }
+    
+    private void writeSummary() {
+        List<Map.Entry<String, LatencyHistogram>> ranked = new ArrayList<>(stepTimings.entrySet());
+        ranked.sort(Comparator.comparingLong((Map.Entry<String, LatencyHistogram> entry) -> entry.getValue().getSum()).reversed());
+        
+        long suiteMicros = ranked.stream().mapToLong(entry -> entry.getValue().getSum()).sum();
+        StringBuilder summary = new StringBuilder("Slowest steps by total time:");
+        for (Map.Entry<String, LatencyHistogram> entry : ranked.subList(0, Math.min(SUMMARY_TOP, ranked.size()))) {
+            LatencyHistogram histogram = entry.getValue();
+            summary.append(String.format(Locale.UK, "%n  %6.1fs (%4.1f%%)  n=%-4d p50=%dms p95=%dms  %s",
+                histogram.getSum() / 1e6, suiteMicros == 0 ? 0.0 : histogram.getSum() * 100.0 / suiteMicros,
+                histogram.getCount(), histogram.getPercentile(50) / 1000, histogram.getPercentile(95) / 1000,
+                entry.getKey()));
+        }
+        logger.info(summary.toString());
+        
+        try {
+            if (summaryPath.getParent() != null) {
+                Files.createDirectories(summaryPath.getParent());
+            }
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(summaryPath))) {
+                out.println("step,count,total_ms,mean_ms,p50_ms,p95_ms,p99_ms,max_ms");
+                for (Map.Entry<String, LatencyHistogram> entry : ranked) {
+                    LatencyHistogram histogram = entry.getValue();
+                    out.printf(Locale.UK, "\"%s\",%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f%n",
+                        entry.getKey().replace("\"", "\"\""), histogram.getCount(), histogram.getSum() / 1e3,
+                        histogram.getMean() / 1e3, histogram.getPercentile(50) / 1e3, histogram.getPercentile(95) / 1e3,
+                        histogram.getPercentile(99) / 1e3, histogram.getMax() / 1e3);
+                }
+            }
+            logger.info("Step timing summary written to {}", summaryPath);
+        } catch (IOException e) {
+            logger.error("Failed to write step timing summary: {}", e.getMessage());
+        }
+    }
+    
+    private static String key(TestCase testCase, TestStep testStep) {
+        return testCase.getId() + "/" + testStep.getId();
+    }
+    
+    private static String stepName(TestStep testStep) {
+        if (testStep instanceof PickleStepTestStep) {
+            PickleStepTestStep step = (PickleStepTestStep) testStep;
+            String pattern = step.getPattern();
+            return pattern != null ? pattern : step.getStep().getText();
+        }
+        if (testStep instanceof HookTestStep) {
+            // Code location looks like uk.pulse.SimpleBaseTest.setup(io.cucumber.java.Scenario)
+            String location = testStep.getCodeLocation();
+            int args = location.indexOf('(');
+            return "hook " + ((HookTestStep) testStep).getHookType().name().toLowerCase()
+                + " " + (args > 0 ? location.substring(0, args) : location);
+        }
+        return testStep.getCodeLocation();
+    }
+    
+    private static String metricName(String stepName) {
+        String name = stepName.toLowerCase().replaceAll("[^a-z0-9]+", "_").replaceAll("^_|_$", "");
+        return name.length() > 80 ? name.substring(0, 80) : name;
+    }
+    
+    private static class InFlightStep {
+        final long startNanos;
+        final ScenarioStepEvent jfrEvent;
+        
+        InFlightStep(long startNanos, ScenarioStepEvent jfrEvent) {
+            this.startNanos = startNanos;
+            this.jfrEvent = jfrEvent;
+        }
+    }
+}
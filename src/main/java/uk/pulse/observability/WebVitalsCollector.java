@@ -0,0 +1,272 @@
+package uk.pulse.observability;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.PlaywrightException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Core Web Vitals Collector
+ * Installed on every context by the browser factories; captures TTFB, FCP, LCP, CLS,
+ * INP and Navigation/Resource Timing for each navigation and soft route change, and
+ * streams them into metrics tagged by device profile and network condition
+ */
+public class WebVitalsCollector {
+    private static final Logger logger = LoggerFactory.getLogger(WebVitalsCollector.class);
+    
+    private static final String BINDING = "__pulseVitals";
+    
+    // Follows the web-vitals definitions: CLS is the worst 1s-gap/5s-cap session window,
+    // INP the worst interaction ignoring one outlier per 50 interactions
+    private static final String VITALS_SCRIPT =
+        "(() => {" +
+        "  if (window.__pulseVitalsInstalled) return;" +
+        "  window.__pulseVitalsInstalled = true;" +
+        "  const pending = [];" +
+        "  const send = payload => {" +
+        "    pending.push(JSON.stringify(payload));" +
+        "    if (typeof window." + BINDING + " !== 'function') return Promise.resolve();" +
+        "    return Promise.all(pending.splice(0).map(p => window." + BINDING + "(p)));" +
+        "  };" +
+        "  const observe = (type, options, handler) => {" +
+        "    try { new PerformanceObserver(list => list.getEntries().forEach(handler))" +
+        "      .observe(Object.assign({ type, buffered: true }, options)); } catch (e) {}" +
+        "  };" +
+        "  let view = { url: location.href, soft: false, lcp: 0, cls: 0, reported: false };" +
+        "  let clsWindow = 0, clsFirst = 0, clsLast = 0;" +
+        "  const interactions = new Map();" +
+        "  let resources = [];" +
+        "  observe('paint', {}, e => {" +
+        "    if (e.name === 'first-contentful-paint') send({ kind: 'fcp', value: e.startTime });" +
+        "  });" +
+        "  observe('largest-contentful-paint', {}, e => { if (!view.soft) view.lcp = e.startTime; });" +
+        "  observe('layout-shift', {}, e => {" +
+        "    if (e.hadRecentInput) return;" +
+        "    if (clsWindow && e.startTime - clsLast < 1000 && e.startTime - clsFirst < 5000) clsWindow += e.value;" +
+        "    else { clsWindow = e.value; clsFirst = e.startTime; }" +
+        "    clsLast = e.startTime;" +
+        "    view.cls = Math.max(view.cls, clsWindow);" +
+        "  });" +
+        "  observe('event', { durationThreshold: 40 }, e => {" +
+        "    if (e.interactionId) interactions.set(e.interactionId, Math.max(interactions.get(e.interactionId) || 0, e.duration));" +
+        "  });" +
+        "  observe('resource', {}, e => resources.push([e.initiatorType, e.duration," +
+        "    e.responseStart > 0 ? e.responseStart - e.requestStart : 0, e.transferSize || 0]));" +
+        "  const inp = () => {" +
+        "    const worst = [...interactions.values()].sort((a, b) => b - a);" +
+        "    return worst.length ? worst[Math.min(worst.length - 1, Math.floor(worst.length / 50))] : 0;" +
+        "  };" +
+        "  const navigation = () => setTimeout(() => {" +
+        "    const n = performance.getEntriesByType('navigation')[0];" +
+        "    if (n) send({ kind: 'navigation', ttfb: n.responseStart, domContentLoaded: n.domContentLoadedEventEnd," +
+        "      load: n.loadEventEnd, transferSize: n.transferSize || 0 });" +
+        "  }, 0);" +
+        "  if (document.readyState === 'complete') navigation(); else addEventListener('load', navigation);" +
+        "  const finish = () => {" +
+        "    const batch = resources;" +
+        "    resources = [];" +
+        "    if (view.reported) return batch.length ? send({ kind: 'resources', resources: batch }) : Promise.resolve();" +
+        "    view.reported = true;" +
+        "    return send({ kind: 'view', soft: view.soft, lcp: view.lcp, cls: view.cls, inp: inp(), resources: batch });" +
+        "  };" +
+        "  const routeChanged = () => {" +
+        "    if (location.href === view.url) return;" +
+        "    const startedAt = performance.now();" +
+        "    finish();" +
+        "    view = { url: location.href, soft: true, lcp: 0, cls: 0, reported: false };" +
+        "    interactions.clear();" +
+        "    clsWindow = 0;" +
+        "    requestAnimationFrame(() => setTimeout(() =>" +
+        "      send({ kind: 'softnav', value: performance.now() - startedAt }), 0));" +
+        "  };" +
+        "  ['pushState', 'replaceState'].forEach(method => {" +
+        "    const original = history[method];" +
+        "    history[method] = function (...args) { const result = original.apply(this, args); routeChanged(); return result; };" +
+        "  });" +
+        "  addEventListener('popstate', routeChanged);" +
+        "  addEventListener('hashchange', routeChanged);" +
+        "  addEventListener('pagehide', finish);" +
+        "  addEventListener('visibilitychange', () => { if (document.visibilityState === 'hidden') finish(); });" +
+        "  window.__pulseVitalsFlush = finish;" +
+        "})()";
+        
+    private static final Map<BrowserContext, Tags> contextTags = new WeakHashMap<>();
+    private static final Map<Page, Vitals> latest = new WeakHashMap<>();
+    
+    private WebVitalsCollector() {
+    }
+    
+    /**
+     * Collect vitals from every page the context opens, tagged with its device and network
+     */
+    public static void install(BrowserContext context, String device, String network) {
+        Tags tags = new Tags(label(device), label(network));
+        synchronized (contextTags) {
+            if (contextTags.containsKey(context)) {
+                contextTags.get(context).network = tags.network;
+                return;
+            }
+            contextTags.put(context, tags);
+        }
+        
+        try {
+            context.exposeBinding(BINDING, (source, args) -> {
+                accept(source.page(), tags, (String) args[0]);
+                return null;
+            });
+            context.addInitScript(VITALS_SCRIPT);
+        } catch (PlaywrightException e) {
+            logger.warn("Web vitals collection unavailable: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Re-tag the context once its network condition is known
+     */
+    public static void setNetwork(BrowserContext context, String network) {
+        synchronized (contextTags) {
+            Tags tags = contextTags.get(context);
+            if (tags != null) {
+                tags.network = label(network);
+            }
+        }
+    }
+    
+    /**
+     * Finalise the page's current view and return its vitals (null if none were captured)
+     */
+    public static Vitals flush(Page page) {
+        if (page != null && !page.isClosed()) {
+            try {
+                page.evaluate("() => window.__pulseVitalsFlush && window.__pulseVitalsFlush()");
+            } catch (PlaywrightException e) {
+                logger.debug("Could not flush web vitals: {}", e.getMessage());
+            }
+        }
+        synchronized (latest) {
+            return latest.get(page);
+        }
+    }
+    
+    private static void accept(Page page, Tags tags, String json) {
+        JsonObject payload = JsonParser.parseString(json).getAsJsonObject();
+        String suffix;
+        synchronized (contextTags) {
+            suffix = "." + tags.device + "." + tags.network;
+        }
+        
+        Vitals vitals;
+        synchronized (latest) {
+            vitals = latest.computeIfAbsent(page, key -> new Vitals());
+        }
+        
+        switch (payload.get("kind").getAsString()) {
+            case "navigation":
+                vitals.ttfbMs = millis(payload, "ttfb");
+                MetricsRegistry.record("vitals.ttfb_ms" + suffix, vitals.ttfbMs);
+                MetricsRegistry.record("vitals.dom_content_loaded_ms" + suffix, millis(payload, "domContentLoaded"));
+                MetricsRegistry.record("vitals.load_ms" + suffix, millis(payload, "load"));
+                MetricsRegistry.add("vitals.document_bytes" + suffix, payload.get("transferSize").getAsLong());
+                break;
+            case "fcp":
+                vitals.fcpMs = millis(payload, "value");
+                MetricsRegistry.record("vitals.fcp_ms" + suffix, vitals.fcpMs);
+                break;
+            case "softnav":
+                MetricsRegistry.record("vitals.soft_nav_ms" + suffix, millis(payload, "value"));
+                break;
+            case "view":
+                if (!payload.get("soft").getAsBoolean() && millis(payload, "lcp") > 0) {
+                    vitals.lcpMs = millis(payload, "lcp");
+                    MetricsRegistry.record("vitals.lcp_ms" + suffix, vitals.lcpMs);
+                }
+                vitals.cls = payload.get("cls").getAsDouble();
+                vitals.inpMs = millis(payload, "inp");
+                // Histograms hold integers, so CLS is kept in thousandths
+                MetricsRegistry.record("vitals.cls_x1000" + suffix, Math.round(vitals.cls * 1000));
+                if (vitals.inpMs > 0) {
+                    MetricsRegistry.record("vitals.inp_ms" + suffix, vitals.inpMs);
+                }
+                recordResources(payload.getAsJsonArray("resources"), suffix);
+                break;
+            case "resources":
+                recordResources(payload.getAsJsonArray("resources"), suffix);
+                break;
+            default:
+                logger.debug("Ignoring unknown vitals payload {}", payload.get("kind"));
+        }
+    }
+    
+    private static void recordResources(JsonArray resources, String suffix) {
+        for (JsonElement element : resources) {
+            JsonArray resource = element.getAsJsonArray();
+            String type = label(resource.get(0).getAsString());
+            MetricsRegistry.record("vitals.resource_ms." + type + suffix, Math.round(resource.get(1).getAsDouble()));
+            MetricsRegistry.record("vitals.resource_ttfb_ms." + type + suffix, Math.round(resource.get(2).getAsDouble()));
+            MetricsRegistry.add("vitals.resource_bytes" + suffix, resource.get(3).getAsLong());
+        }
+    }
+    
+    private static long millis(JsonObject payload, String field) {
+        return Math.round(payload.get(field).getAsDouble());
+    }
+    
+    private static String label(String value) {
+        String label = value == null ? "" : value.toLowerCase().replaceAll("[^a-z0-9]+", "_").replaceAll("^_|_$", "");
+        return label.isEmpty() ? "unknown" : label;
+    }
+    
+    private static class Tags {
+        final String device;
+        String network;
+        
+        Tags(String device, String network) {
+            this.device = device;
+            this.network = network;
+        }
+    }
+    
+    /**
+     * Latest vitals seen on a page (-1 where not yet measured)
+     */
+    public static class Vitals {
+        volatile long ttfbMs = -1;
+        volatile long fcpMs = -1;
+        volatile long lcpMs = -1;
+        volatile double cls = -1;
+        volatile long inpMs = -1;
+        
+        public long getTtfbMs() {
+            return ttfbMs;
+        }
+        
+        public long getFcpMs() {
+            return fcpMs;
+        }
+        
+        public long getLcpMs() {
+            return lcpMs;
+        }
+        
+        public double getCls() {
+            return cls;
+        }
+        
+        public long getInpMs() {
+            return inpMs;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("TTFB %dms, FCP %dms, LCP %dms, CLS %.3f, INP %dms", ttfbMs, fcpMs, lcpMs, cls, inpMs);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package uk.pulse.observability.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Always-on Flight Recorder ring buffer dumped when an SLO is breached
+ * Records the low-overhead "default" JFR settings plus the Pulse events into a
+ * bounded ring (by age and size); nothing is written out until a breach
+ */
+public class FlightRecorderRing {
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecorderRing.class);
+    
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("pulse.jfr.continuous", "true"));
+    private static final Duration MAX_AGE = Duration.ofSeconds(Long.getLong("pulse.jfr.max-age-seconds", 300));
+    private static final long MAX_SIZE = Long.getLong("pulse.jfr.max-size-mb", 64) * 1024 * 1024;
+    private static final long MIN_DUMP_INTERVAL_MS = Long.getLong("pulse.jfr.min-dump-interval-ms", 30_000);
+    private static final Path DUMP_DIR = Paths.get(System.getProperty("pulse.jfr.dump-dir", "target/jfr"));
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    
+    private static Recording recording;
+    private static long lastDump;
+    
+    private FlightRecorderRing() {
+    }
+    
+    /**
+     * Start the continuous recording unless disabled with -Dpulse.jfr.continuous=false (idempotent)
+     */
+    public static synchronized void start() {
+        if (!ENABLED || recording != null) {
+            return;
+        }
+        try {
+            recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setName("pulse-ring");
+            recording.setToDisk(true);
+            recording.setMaxAge(MAX_AGE);
+            recording.setMaxSize(MAX_SIZE);
+            recording.enable(SimulatorDecisionEvent.class);
+            recording.enable(VirtualUserIterationEvent.class);
+            recording.enable(ScenarioStepEvent.class);
+            recording.enable(MetricsFlushEvent.class);
+            recording.start();
+            logger.info("Flight recorder ring started (last {}s, up to {}MB)", MAX_AGE.getSeconds(), MAX_SIZE / (1024 * 1024));
+        } catch (Exception e) {
+            logger.warn("Flight recorder unavailable: {}", e.getMessage());
+            recording = null;
+        }
+    }
+    
+    /**
+     * Write the ring to disk after an SLO breach; rate-limited so a burst of breaches yields one dump
+     */
+    public static synchronized Path dumpOnBreach(String reason) {
+        if (recording == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastDump < MIN_DUMP_INTERVAL_MS) {
+            logger.debug("Skipping flight recording dump for '{}' - dumped {}ms ago", reason, now - lastDump);
+            return null;
+        }
+        lastDump = now;
+        
+        String slug = reason.toLowerCase().replaceAll("[^a-z0-9]+", "-");
+        Path path = DUMP_DIR.resolve("breach-" + LocalDateTime.now().format(TIMESTAMP) + "-"
+            + slug.substring(0, Math.min(40, slug.length())) + ".jfr");
+        try {
+            Files.createDirectories(DUMP_DIR);
+            recording.dump(path);
+            logger.warn("SLO breach ({}): flight recording written to {}", reason, path);
+            return path;
+        } catch (Exception e) {
+            logger.error("Failed to dump flight recording: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Stop and discard the ring
+     */
+    public static synchronized void stop() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package uk.pulse.observability.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning a flush of the metrics registry to InfluxDB
+ */
+@Name("uk.pulse.MetricsFlush")
+@Label("Metrics Flush")
+@Category({"Pulse", "Observability"})
+@Description("Publish of in-process histograms, counters and gauges")
+@StackTrace(false)
+public class MetricsFlushEvent extends Event {
+    
+    @Label("Histograms")
+    public int histograms;
+    
+    @Label("Counters")
+    public int counters;
+    
+    @Label("Gauges")
+    public int gauges;
+}
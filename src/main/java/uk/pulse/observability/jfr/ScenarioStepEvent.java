@@ -0,0 +1,28 @@
+package uk.pulse.observability.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning one Cucumber scenario step
+ */
+@Name("uk.pulse.ScenarioStep")
+@Label("Scenario Step")
+@Category({"Pulse", "Scenarios"})
+@Description("Boundary of a Cucumber step within a scenario")
+@StackTrace(false)
+public class ScenarioStepEvent extends Event {
+    
+    @Label("Scenario")
+    public String scenario;
+    
+    @Label("Step")
+    public String step;
+    
+    @Label("Status")
+    public String status;
+}
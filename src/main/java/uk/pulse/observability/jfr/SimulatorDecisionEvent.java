@@ -0,0 +1,41 @@
+package uk.pulse.observability.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for a delay or failure injected by a traffic simulator
+ * The event duration spans the injected sleep, so it lines up with app and harness activity
+ */
+@Name("uk.pulse.SimulatorDecision")
+@Label("Simulator Decision")
+@Category({"Pulse", "Simulators"})
+@Description("Delay or failure injected into an intercepted request")
+@StackTrace(false)
+public class SimulatorDecisionEvent extends Event {
+    
+    @Label("Simulator")
+    public String simulator;
+    
+    @Label("Method")
+    public String method;
+    
+    @Label("URL")
+    public String url;
+    
+    @Label("Sampled Delay")
+    @Timespan(Timespan.MILLISECONDS)
+    public long delayMs;
+    
+    @Label("Outcome")
+    @Description("delayed, failed with the given status, or served by the simulator (e.g. a 304 revalidation)")
+    public String outcome;
+    
+    @Label("Status")
+    public int status;
+}
@@ -0,0 +1,28 @@
+package uk.pulse.observability.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one virtual-user iteration
+ */
+@Name("uk.pulse.VirtualUserIteration")
+@Label("Virtual User Iteration")
+@Category({"Pulse", "Load"})
+@Description("One user journey run by the virtual-user engine")
+@StackTrace(false)
+public class VirtualUserIterationEvent extends Event {
+    
+    @Label("Engine")
+    public String engine;
+    
+    @Label("Success")
+    public boolean success;
+    
+    @Label("Error")
+    public String error;
+}
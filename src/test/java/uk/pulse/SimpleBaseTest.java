@@ -2,13 +2,29 @@ package uk.pulse;
 
 import com.microsoft.playwright.*;
 import com.microsoft.playwright.options.LoadState;
+import com.microsoft.playwright.options.ScreenshotType;
 import io.cucumber.java.After;
+import io.cucumber.java.AfterStep;
 import io.cucumber.java.Before;
 import io.cucumber.java.Scenario;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.pulse.factory.SimpleBrowserFactory;
+import uk.pulse.interceptors.IntermittentConnectivitySimulator;
+import uk.pulse.interceptors.RealAppTrafficSimulator;
+import uk.pulse.interceptors.ResponseCache;
+import uk.pulse.observability.FailureArtefactPipeline;
+import uk.pulse.observability.HarnessMonitor;
+import uk.pulse.observability.LiveDashboard;
 import uk.pulse.observability.MetricsClient;
+import uk.pulse.observability.MetricsRegistry;
+import uk.pulse.observability.PageResourceSampler;
+import uk.pulse.observability.ResponsivenessMonitor;
+import uk.pulse.observability.SlowTransactionProfiler;
+import uk.pulse.observability.WebVitalsCollector;
+import uk.pulse.observability.jfr.FlightRecorderRing;
+
+import java.nio.file.Path;
 
 /**
  * Simple Base Test class for Payday Friday Traffic Testing
@@ -22,6 +38,8 @@ public abstract class SimpleBaseTest {
     protected BrowserContext context;
     protected Page page;
     protected MetricsClient metricsClient;
+    protected String scenarioName;
+    protected SlowTransactionProfiler.Capture activeTransaction;
     
     // Test configuration
     protected static final String BASE_URL = System.getProperty("test.base.url", "http://localhost:8080");
@@ -29,6 +47,9 @@ public abstract class SimpleBaseTest {
     protected static final String INFLUX_TOKEN = System.getProperty("influx.token", "pulse_uk_2026");
     protected static final String INFLUX_ORG = System.getProperty("influx.org", "pulse-uk");
     protected static final String INFLUX_BUCKET = System.getProperty("influx.bucket", "resilience_metrics");
+    protected static final int FAILURE_SCREENSHOT_QUALITY = Integer.getInteger("pulse.artefacts.jpeg-quality", 70);
+    protected static final boolean FAILURE_SCREENSHOT_FULL_PAGE =
+        Boolean.parseBoolean(System.getProperty("pulse.artefacts.full-page", "true"));
     
     @Before(order = 0)
     public static void globalSetup() {
@@ -38,11 +59,15 @@ public abstract class SimpleBaseTest {
             browser = playwright.chromium().launch(new BrowserType.LaunchOptions()
                 .setHeadless(true));
         }
+        HarnessMonitor.start();
+        FlightRecorderRing.start();
+        LiveDashboard.start();
     }
     
     @Before(order = 1)
     public void setup(Scenario scenario) {
         logger.info("Setting up test: {}", scenario.getName());
+        scenarioName = scenario.getName();
         
         // Initialize metrics client
         try {
@@ -55,6 +80,10 @@ public abstract class SimpleBaseTest {
         // Create mobile context for realistic testing
         context = SimpleBrowserFactory.createMobileContext(browser);
         page = context.newPage();
+        HarnessMonitor.resetValidity();
+        HarnessMonitor.watchDispatchLag(page, "chromium");
+        PageResourceSampler.attach(page);
+        ResponsivenessMonitor.install(page, scenarioName);
         
         // Set timeouts
         page.setDefaultTimeout(30000);
@@ -64,21 +93,59 @@ public abstract class SimpleBaseTest {
         page.navigate(BASE_URL);
     }
     
+    @AfterStep
+    public void sampleResources() {
+        // Step boundaries are where heap and DOM growth is attributable to a user action;
+        // each sample costs DevTools round-trips, so it is opt-in
+        if (Boolean.getBoolean("pulse.resources.per-step")) {
+            PageResourceSampler.sample(page, "step");
+        }
+    }
+    
     @After(order = 1)
     public void tearDown(Scenario scenario) {
         logger.info("Tearing down test: {}", scenario.getName());
         
+        // A transaction whose step failed before its budget check has nothing worth keeping
+        SlowTransactionProfiler.discard(activeTransaction);
+        activeTransaction = null;
+        
+        // Final LCP, CLS and INP are only known once the last view is finalised
+        WebVitalsCollector.Vitals vitals = WebVitalsCollector.flush(page);
+        if (vitals != null) {
+            scenario.log("Web vitals: " + vitals);
+        }
+        
         // Record test completion metrics
         if (metricsClient != null) {
             long endTime = System.currentTimeMillis();
             metricsClient.recordTestExecution(scenario.getName(), !scenario.isFailed(), endTime);
+            MetricsRegistry.publish(metricsClient);
+            
+            ResponseCache cache = RealAppTrafficSimulator.getSharedCache();
+            if (cache.getHits() + cache.getMisses() > 0) {
+                metricsClient.recordCacheStatistics(cache.getName(), cache.getHits(), cache.getMisses(),
+                    cache.getEvictions(), cache.getNotModified());
+            }
         }
         
-        // Take screenshot if test failed
-        if (scenario.isFailed() && page != null) {
+        // Flag results produced while the load generator itself was the bottleneck at any point in the scenario
+        if (HarnessMonitor.wasSaturatedSinceReset()) {
+            scenario.log("Run invalid - harness saturated: " + HarnessMonitor.getReasonsSinceReset());
+        }
+        
+        // Take screenshot if test failed; storage happens off the teardown path and the report gets a link
+        if (scenario.isFailed() && page != null && !page.isClosed()) {
+            long start = System.nanoTime();
             byte[] screenshot = page.screenshot(new Page.ScreenshotOptions()
-                .setFullPage(true));
-            scenario.attach(screenshot, "image/png", "failure-screenshot");
+                .setType(ScreenshotType.JPEG)
+                .setQuality(FAILURE_SCREENSHOT_QUALITY)
+                .setFullPage(FAILURE_SCREENSHOT_FULL_PAGE));
+            Path artefact = FailureArtefactPipeline.submit(screenshot, scenario.getName(), "jpg");
+            MetricsRegistry.record("artefacts.capture_ms", (System.nanoTime() - start) / 1_000_000);
+            if (artefact != null) {
+                scenario.attach(artefact.toAbsolutePath().toUri().toString(), "text/uri-list", "failure-screenshot");
+            }
         }
         
         // Clean up
@@ -86,6 +153,7 @@ public abstract class SimpleBaseTest {
             page.close();
         }
         if (context != null) {
+            IntermittentConnectivitySimulator.clearIntermittentConnectivity(context);
             context.close();
         }
     }
@@ -102,6 +170,8 @@ public abstract class SimpleBaseTest {
     
     // Helper methods for metrics recording
     protected void recordTransactionMetrics(String transactionType, long responseTimeMs, boolean success, String amount) {
+        MetricsRegistry.record("transaction.response_ms." + transactionType, responseTimeMs);
+        MetricsRegistry.increment((success ? "transaction.count." : "transaction.failures.") + transactionType);
         if (metricsClient != null) {
             metricsClient.recordPaymentTransaction(transactionType, responseTimeMs, success, amount);
         }
@@ -114,6 +184,7 @@ public abstract class SimpleBaseTest {
     }
     
     protected void recordResponseTimeMetrics(String operation, long responseTimeMs) {
+        MetricsRegistry.record("operation.response_ms." + operation, responseTimeMs);
         if (metricsClient != null) {
             metricsClient.recordResponseTimeDistribution(operation, responseTimeMs);
         }
@@ -136,10 +207,28 @@ public abstract class SimpleBaseTest {
         page.waitForLoadState(LoadState.NETWORKIDLE);
     }
     
+    /**
+     * Start profiling a transaction; its trace and CPU profile are kept only if it breaches its budget
+     */
+    protected void beginTransaction(String name) {
+        SlowTransactionProfiler.discard(activeTransaction);
+        activeTransaction = SlowTransactionProfiler.begin(page, name);
+    }
+    
+    /**
+     * Close the active transaction against its latency budget without asserting
+     */
+    protected void completeTransaction(long actualTime, long maxTime) {
+        SlowTransactionProfiler.complete(activeTransaction, actualTime, maxTime);
+        activeTransaction = null;
+    }
+    
     protected void assertResponseTimeWithin(long actualTime, long maxTime, String operation) {
+        completeTransaction(actualTime, maxTime);
         if (actualTime > maxTime) {
             String message = String.format("%s took %dms, expected <= %dms", operation, actualTime, maxTime);
             logger.error(message);
+            FlightRecorderRing.dumpOnBreach(operation);
             throw new AssertionError(message);
         }
         logger.info("{} completed in {}ms (threshold: {}ms)", operation, actualTime, maxTime);
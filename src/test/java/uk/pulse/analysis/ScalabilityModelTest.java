@@ -0,0 +1,115 @@
+package uk.pulse.analysis;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+/**
+ * USL fitting against synthetic data with known coefficients, and capacity CSV input
+ */
+public class ScalabilityModelTest {
+    private static final int[] CONCURRENCY = {1, 2, 4, 8, 16, 32, 64, 100, 150, 200, 300};
+    
+    private Path directory;
+    
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("pulse-usl-test");
+    }
+    
+    @AfterMethod
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> file.toFile().delete());
+        }
+        Files.deleteIfExists(directory);
+    }
+    
+    @Test
+    public void recoversCoefficientsFromExactUslData() {
+        ScalabilityModel.UslFit fit = ScalabilityModel.fit("exact", synthetic(50.0, 0.04, 2e-4, 0.0), 0);
+        
+        assertEquals(fit.getLambda(), 50.0, 0.5);
+        assertEquals(fit.getSigma(), 0.04, 0.002);
+        assertEquals(fit.getKappa(), 2e-4, 2e-5);
+        assertTrue(fit.getRSquared() > 0.999, "R^2 " + fit.getRSquared());
+        assertEquals(fit.getPeakConcurrency(), Math.sqrt((1 - 0.04) / 2e-4), 5.0);
+    }
+    
+    @Test
+    public void recoversContentionOnlyData() {
+        ScalabilityModel.UslFit fit = ScalabilityModel.fit("amdahl", synthetic(120.0, 0.10, 0.0, 0.0), 0);
+        
+        assertEquals(fit.getLambda(), 120.0, 1.2);
+        assertEquals(fit.getSigma(), 0.10, 0.005);
+        assertTrue(fit.getKappa() < 1e-6, "kappa " + fit.getKappa());
+    }
+    
+    @Test
+    public void staysCloseUnderMeasurementNoise() {
+        ScalabilityModel.UslFit fit = ScalabilityModel.fit("noisy", synthetic(50.0, 0.04, 2e-4, 0.02), 0);
+        
+        assertEquals(fit.getLambda(), 50.0, 2.5);
+        assertEquals(fit.getSigma(), 0.04, 0.015);
+        assertEquals(fit.getKappa(), 2e-4, 6e-5);
+    }
+    
+    @Test
+    public void rejectsTooFewLevels() {
+        expectThrows(IllegalArgumentException.class,
+            () -> ScalabilityModel.fit("short", synthetic(50.0, 0.04, 2e-4, 0.0).subList(0, 2), 0));
+    }
+    
+    @Test
+    public void readsClosedModelCsv() throws IOException {
+        Path csv = writeCsv("USERS");
+        
+        List<ScalabilityModel.Observation> observations = ScalabilityModel.readCsv(csv);
+        
+        assertEquals(observations.size(), 2);
+        assertEquals(observations.get(1).concurrency, 20.0);
+        assertEquals(observations.get(1).throughput, 380.0);
+    }
+    
+    @Test
+    public void rejectsOpenModelCsv() throws IOException {
+        Path csv = writeCsv("ARRIVAL_RATE");
+        
+        expectThrows(IllegalArgumentException.class, () -> ScalabilityModel.readCsv(csv));
+    }
+    
+    /**
+     * Throughput X(N) = lambda N / (1 + sigma (N - 1) + kappa N (N - 1)), with deterministic
+     * alternating relative noise so the fit sees scatter on both sides of the curve
+     */
+    private static List<ScalabilityModel.Observation> synthetic(double lambda, double sigma, double kappa, double noise) {
+        List<ScalabilityModel.Observation> observations = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY.length; i++) {
+            double n = CONCURRENCY[i];
+            double throughput = lambda * n / (1 + sigma * (n - 1) + kappa * n * (n - 1));
+            throughput *= 1 + (i % 2 == 0 ? noise : -noise);
+            observations.add(new ScalabilityModel.Observation(n, throughput, n * 1000.0 / throughput));
+        }
+        return observations;
+    }
+    
+    private Path writeCsv(String dimension) throws IOException {
+        Path csv = directory.resolve(dimension.toLowerCase() + "-capacity.csv");
+        Files.writeString(csv, String.join("\n",
+            "level,throughput_per_s,mean_ms,p95_ms,p99_ms,error_rate,steady,passed,harness_valid,slo_met,dimension",
+            "10,200.000,50.0,80,120,0.00000,true,true,true,true," + dimension,
+            "20,380.000,52.6,90,140,0.00000,true,true,true,true," + dimension) + "\n");
+        return csv;
+    }
+}
@@ -0,0 +1,115 @@
+package uk.pulse.interceptors;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.expectThrows;
+
+/**
+ * Round trip of fixture records, index and footer through replay
+ */
+public class FixtureStoreTest {
+    private Path directory;
+    private Path path;
+    
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("pulse-fixture-test");
+        path = directory.resolve("traffic.pfx");
+    }
+    
+    @AfterMethod
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+    
+    @Test
+    public void recordedResponsesReplayWithStatusHeadersAndBody() {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("content-type", "application/json");
+        headers.put("x-note", "£ payday");
+        byte[] body = "{\"balance\":\"£1,250.00\"}".getBytes(StandardCharsets.UTF_8);
+        
+        try (FixtureStore store = FixtureStore.openForRecording(path)) {
+            store.record("GET https://bank.test/api/banking/balance", 200, headers, body);
+            store.record("POST https://bank.test/api/banking/payment #1f", 503, Map.of(), null);
+        }
+        
+        try (FixtureStore store = FixtureStore.openForReplay(path)) {
+            assertEquals(store.size(), 2);
+            
+            FixtureStore.Fixture balance = store.lookup("GET https://bank.test/api/banking/balance");
+            assertNotNull(balance);
+            assertEquals(balance.status(), 200);
+            assertEquals(balance.headers(), headers);
+            assertEquals(balance.bodyBytes(), body);
+            
+            FixtureStore.Fixture payment = store.lookup("POST https://bank.test/api/banking/payment #1f");
+            assertNotNull(payment);
+            assertEquals(payment.status(), 503);
+            assertEquals(payment.bodyBytes().length, 0);
+            
+            assertNull(store.lookup("GET https://bank.test/api/banking/accounts"));
+        }
+    }
+    
+    @Test
+    public void everyKeyIsFoundAmongManyAndLaterRecordingsWin() {
+        try (FixtureStore store = FixtureStore.openForRecording(path)) {
+            for (int i = 0; i < 500; i++) {
+                store.record("GET /api/products/" + i, 200, Map.of(), ("first " + i).getBytes(StandardCharsets.UTF_8));
+            }
+            store.record("GET /api/products/7", 200, Map.of(), "second 7".getBytes(StandardCharsets.UTF_8));
+        }
+        
+        try (FixtureStore store = FixtureStore.openForReplay(path)) {
+            assertEquals(store.size(), 500);
+            for (int i = 0; i < 500; i++) {
+                String expected = i == 7 ? "second 7" : "first " + i;
+                assertEquals(new String(store.lookup("GET /api/products/" + i).bodyBytes(), StandardCharsets.UTF_8), expected);
+            }
+        }
+    }
+    
+    @Test
+    public void appendingKeepsEarlierRecordings() {
+        try (FixtureStore store = FixtureStore.openForRecording(path)) {
+            store.record("GET /api/app/config", 200, Map.of(), "config".getBytes(StandardCharsets.UTF_8));
+        }
+        try (FixtureStore store = FixtureStore.openForAppending(path)) {
+            assertEquals(store.size(), 1);
+            store.record("GET /api/user/profile", 200, Map.of(), "profile".getBytes(StandardCharsets.UTF_8));
+        }
+        
+        try (FixtureStore store = FixtureStore.openForReplay(path)) {
+            assertEquals(store.size(), 2);
+            assertEquals(store.lookup("GET /api/app/config").bodyBytes(), "config".getBytes(StandardCharsets.UTF_8));
+            assertEquals(store.lookup("GET /api/user/profile").bodyBytes(), "profile".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+    
+    @Test
+    public void unfinishedRecordingIsRejected() {
+        FixtureStore store = FixtureStore.openForRecording(path);
+        store.record("GET /api/app/config", 200, Map.of(), "config".getBytes(StandardCharsets.UTF_8));
+        
+        IllegalStateException error = expectThrows(IllegalStateException.class, () -> FixtureStore.openForReplay(path));
+        assertEquals(error.getMessage(), "Fixture store was not closed cleanly: " + path);
+        store.close();
+    }
+}
@@ -0,0 +1,140 @@
+package uk.pulse.observability;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import uk.pulse.analysis.JournalReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Round trip of the journal's record and dictionary blocks through JournalReader
+ */
+public class RunJournalTest {
+    private static final long[] EDGE_VALUES = {
+        0, 1, -1, 63, -64, 127, 128, 300, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE
+    };
+    
+    private Path directory;
+    
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("pulse-journal-test");
+    }
+    
+    @AfterMethod
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @Test
+    public void zigzagMapsSmallMagnitudesToSmallValues() {
+        assertEquals(RunJournal.zigzag(0), 0);
+        assertEquals(RunJournal.zigzag(-1), 1);
+        assertEquals(RunJournal.zigzag(1), 2);
+        assertEquals(RunJournal.zigzag(-2), 3);
+        assertEquals(RunJournal.zigzag(Long.MAX_VALUE), -2);
+        assertEquals(RunJournal.zigzag(Long.MIN_VALUE), -1);
+    }
+    
+    @Test
+    public void varintUsesOneByteBelow128AndTenForNegatives() {
+        byte[] out = new byte[10];
+        assertEquals(RunJournal.putVarint(out, 0, 127), 1);
+        assertEquals(RunJournal.putVarint(out, 0, 128), 2);
+        assertEquals(RunJournal.putVarint(out, 0, -1), 10);
+    }
+    
+    @Test
+    public void recordBlockRoundTripsEdgeValuesInEveryColumn() throws IOException {
+        int count = EDGE_VALUES.length * 2;
+        long[][] columns = new long[RunJournal.COLUMNS][count];
+        for (int column = 0; column < RunJournal.COLUMNS; column++) {
+            for (int row = 0; row < count; row++) {
+                // Offset per column so each column sees the edge values in a different order
+                columns[column][row] = EDGE_VALUES[(row + column) % EDGE_VALUES.length];
+            }
+        }
+        
+        JournalReader.RecordBatch batch = decodeSingleBlock(columns, count);
+        
+        assertEquals(batch.size(), count);
+        for (int column = 0; column < RunJournal.COLUMNS; column++) {
+            for (int row = 0; row < count; row++) {
+                assertEquals(batch.get(column, row), columns[column][row], "column " + column + " row " + row);
+            }
+        }
+    }
+    
+    @Test
+    public void startColumnRoundTripsOutOfOrderTimestamps() throws IOException {
+        long base = 1_760_000_000_000_000_000L;
+        long[][] columns = new long[RunJournal.COLUMNS][4];
+        columns[RunJournal.START] = new long[] {base, base + 5_000, base - 2_000_000, base + 1};
+        columns[RunJournal.BYTES] = new long[] {-1, 0, 1_048_576, -1};
+        
+        JournalReader.RecordBatch batch = decodeSingleBlock(columns, 4);
+        
+        for (int row = 0; row < 4; row++) {
+            assertEquals(batch.get(RunJournal.START, row), columns[RunJournal.START][row]);
+            assertEquals(batch.get(RunJournal.BYTES, row), columns[RunJournal.BYTES][row]);
+        }
+    }
+    
+    @Test
+    public void dictionaryEntriesRoundTripIncludingNonAscii() throws IOException {
+        writeSegment(block(RunJournal.DICTIONARY_BLOCK, RunJournal.encodeDictionaryEntry(0, "GET /api/banking/balance")),
+            block(RunJournal.DICTIONARY_BLOCK, RunJournal.encodeDictionaryEntry(300, "Pay £250 → Zoë")));
+        
+        JournalReader reader = JournalReader.open(List.of(directory));
+        
+        assertEquals(reader.label(0), "GET /api/banking/balance");
+        assertEquals(reader.label(300), "Pay £250 → Zoë");
+        assertEquals(reader.label(7), "#7");
+        assertEquals(reader.getDictionarySize(), 301);
+    }
+    
+    private JournalReader.RecordBatch decodeSingleBlock(long[][] columns, int count) throws IOException {
+        byte[] payload = new byte[RunJournal.maxEncodedSize(count)];
+        int length = RunJournal.encodeRecords(columns, count, payload);
+        writeSegment(block(RunJournal.RECORD_BLOCK, Arrays.copyOf(payload, length)));
+        
+        JournalReader reader = JournalReader.open(List.of(directory));
+        assertEquals(reader.getBlocks().size(), 1);
+        JournalReader.RecordBatch batch = new JournalReader.RecordBatch();
+        JournalReader.decode(reader.getBlocks().get(0), batch);
+        return batch;
+    }
+    
+    private static byte[] block(byte type, byte[] payload) {
+        return ByteBuffer.allocate(Integer.BYTES + 1 + payload.length)
+            .putInt(payload.length).put(type).put(payload).array();
+    }
+    
+    private void writeSegment(byte[]... blocks) throws IOException {
+        int size = RunJournal.HEADER_SIZE;
+        for (byte[] block : blocks) {
+            size += block.length;
+        }
+        ByteBuffer segment = ByteBuffer.allocate(size)
+            .putLong(RunJournal.SEGMENT_MAGIC)
+            .putInt(RunJournal.FORMAT_VERSION)
+            .putInt(0)
+            .putLong(0);
+        for (byte[] block : blocks) {
+            segment.put(block);
+        }
+        Files.write(directory.resolve("segment-00000.pjl"), segment.array());
+    }
+}
@@ -0,0 +1,34 @@
+package uk.pulse.runners;
+
+import io.cucumber.testng.AbstractTestNGCucumberTests;
+import io.cucumber.testng.CucumberOptions;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Test Runner for Capacity Search Scenarios
+ * Finds the maximum sustainable concurrency under SLO before each payday
+ */
+@Test
+@CucumberOptions(
+    features = {"classpath:features"},
+    glue = {"uk.pulse.steps"},
+    plugin = {
+        "pretty",
+        "html:target/cucumber-reports/capacity-search-pretty.html",
+        "json:target/cucumber-reports/capacity-search.json",
+        "junit:target/cucumber-reports/capacity-search.xml",
+        "uk.pulse.observability.StepTimingPlugin:target/cucumber-reports/capacity-search-step-timings.csv",
+        "uk.pulse.observability.PerformanceReportPlugin:target/cucumber-reports/capacity-search-performance.html"
+    },
+    monochrome = true,
+    tags = "@CapacitySearch"
+)
+public class CapacitySearchRunner extends AbstractTestNGCucumberTests {
+    
+    @Override
+    @DataProvider(parallel = false)
+    public Object[][] scenarios() {
+        return super.scenarios();
+    }
+}
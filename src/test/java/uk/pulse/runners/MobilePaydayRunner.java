@@ -17,7 +17,9 @@ import org.testng.annotations.Test;
         "pretty",
         "html:target/cucumber-reports/mobile-payday-pretty.html",
         "json:target/cucumber-reports/mobile-payday.json",
-        "junit:target/cucumber-reports/mobile-payday.xml"
+        "junit:target/cucumber-reports/mobile-payday.xml",
+        "uk.pulse.observability.StepTimingPlugin:target/cucumber-reports/mobile-payday-step-timings.csv",
+        "uk.pulse.observability.PerformanceReportPlugin:target/cucumber-reports/mobile-payday-performance.html"
     },
     monochrome = true,
     tags = "@Mobile"
@@ -17,7 +17,9 @@ import org.testng.annotations.Test;
         "pretty",
         "html:target/cucumber-reports/payday-traffic-pretty.html",
         "json:target/cucumber-reports/payday-traffic.json",
-        "junit:target/cucumber-reports/payday-traffic.xml"
+        "junit:target/cucumber-reports/payday-traffic.xml",
+        "uk.pulse.observability.StepTimingPlugin:target/cucumber-reports/payday-traffic-step-timings.csv",
+        "uk.pulse.observability.PerformanceReportPlugin:target/cucumber-reports/payday-traffic-performance.html"
     },
     monochrome = true,
     tags = "@PaydayFriday"
@@ -17,7 +17,9 @@ import org.testng.annotations.Test;
         "pretty",
         "html:target/cucumber-reports/pulse-app-pretty.html",
         "json:target/cucumber-reports/pulse-app.json",
-        "junit:target/cucumber-reports/pulse-app.xml"
+        "junit:target/cucumber-reports/pulse-app.xml",
+        "uk.pulse.observability.StepTimingPlugin:target/cucumber-reports/pulse-app-step-timings.csv",
+        "uk.pulse.observability.PerformanceReportPlugin:target/cucumber-reports/pulse-app-performance.html"
     },
     monochrome = true,
     tags = "@Pulse"
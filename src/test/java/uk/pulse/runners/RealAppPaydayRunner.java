@@ -17,7 +17,9 @@ import org.testng.annotations.Test;
         "pretty",
         "html:target/cucumber-reports/real-app-payday-pretty.html",
         "json:target/cucumber-reports/real-app-payday.json",
-        "junit:target/cucumber-reports/real-app-payday.xml"
+        "junit:target/cucumber-reports/real-app-payday.xml",
+        "uk.pulse.observability.StepTimingPlugin:target/cucumber-reports/real-app-payday-step-timings.csv",
+        "uk.pulse.observability.PerformanceReportPlugin:target/cucumber-reports/real-app-payday-performance.html"
     },
     monochrome = true,
     tags = "@RealApp"
@@ -8,8 +8,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.pulse.SimpleBaseTest;
 import uk.pulse.factory.MobileBrowserFactory;
+import uk.pulse.interceptors.IntermittentConnectivitySimulator;
 import uk.pulse.interceptors.MobileTrafficSimulator;
+import uk.pulse.observability.ResponsivenessMonitor;
 
+import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -46,6 +49,7 @@ public class MobilePaydaySteps extends SimpleBaseTest {
         
         // Close existing context and create mobile-specific one
         if (context != null) {
+            IntermittentConnectivitySimulator.clearIntermittentConnectivity(context);
             context.close();
         }
         
@@ -66,6 +70,27 @@ public class MobilePaydaySteps extends SimpleBaseTest {
         page = context.newPage();
         page.setDefaultTimeout(30000);
         page.setDefaultNavigationTimeout(30000);
+        ResponsivenessMonitor.install(page, scenarioName);
+        page.navigate("http://localhost:8080/mobile");
+    }
+    
+    @Given("the user is travelling on the London Underground with an Android device")
+    public void theUserIsTravellingOnTheLondonUnderground() {
+        logger.info("Setting up Android device on the London Underground");
+        currentDeviceType = "android";
+        
+        if (context != null) {
+            IntermittentConnectivitySimulator.clearIntermittentConnectivity(context);
+            context.close();
+        }
+        
+        // Platform windows between tunnel outages, modelled as real offline time
+        context = MobileBrowserFactory.createMobileContextWithNetwork(browser, currentDeviceType,
+            MobileBrowserFactory.NetworkCondition.UNDERGROUND);
+        page = context.newPage();
+        page.setDefaultTimeout(30000);
+        page.setDefaultNavigationTimeout(30000);
+        ResponsivenessMonitor.install(page, scenarioName);
         page.navigate("http://localhost:8080/mobile");
     }
     
@@ -113,6 +138,7 @@ public class MobilePaydaySteps extends SimpleBaseTest {
     public void theUserCanMakeAPaymentOf£WithinSeconds(int amount, int maxSeconds) {
         logger.info("User making mobile payment of £{}", amount);
         
+        beginTransaction("mobile_payment");
         long paymentStartTime = System.currentTimeMillis();
         
         try {
@@ -137,6 +163,7 @@ public class MobilePaydaySteps extends SimpleBaseTest {
             mobileAppSuccess = true;
             long paymentTime = System.currentTimeMillis() - paymentStartTime;
             
+            completeTransaction(paymentTime, maxSeconds * 1000L);
             logger.info("Mobile payment of £{} completed in {}ms", amount, paymentTime);
             recordTransactionMetrics("mobile_payment", paymentTime, true, "£" + amount);
             
@@ -148,6 +175,39 @@ public class MobilePaydaySteps extends SimpleBaseTest {
         }
     }
     
+    @When("the user makes a payment of £{int} and stays in the app for {int} minutes")
+    public void theUserMakesAPaymentAndStaysInTheApp(int amount, int minutes) {
+        logger.info("User making mobile payment of £{} across {} minutes of tube journey", amount, minutes);
+        
+        try {
+            clickElement("#mobile-payment-button");
+            fillInput("#mobile-payment-amount", String.valueOf(amount));
+            clickElement("#mobile-confirm-payment");
+        } catch (Exception e) {
+            // Losing signal mid-tap is part of the journey; the outage report shows what the app did next
+            logger.warn("Payment submission interrupted: {}", e.getMessage());
+        }
+        
+        // Keep outages starting and ending on schedule while the app retries in the background
+        IntermittentConnectivitySimulator.waitWithConnectivity(page, minutes * 60_000L);
+    }
+    
+    @Then("no payment should be lost across the outages")
+    public void noPaymentShouldBeLostAcrossTheOutages() {
+        List<IntermittentConnectivitySimulator.OutageWindow> outages =
+            IntermittentConnectivitySimulator.getOutageReport(context);
+        int lost = 0;
+        for (IntermittentConnectivitySimulator.OutageWindow outage : outages) {
+            logger.info("Tube journey {}", outage);
+            lost += outage.getLost();
+        }
+        
+        if (lost > 0) {
+            throw new AssertionError(lost + " payments were never retried across " + outages.size() + " outages");
+        }
+        logger.info("No payments lost across {} outages", outages.size());
+    }
+    
     @Then("the app should load within {int} seconds")
     public void theAppShouldLoadWithinSeconds(int maxSeconds) {
         long maxTimeMs = maxSeconds * 1000;
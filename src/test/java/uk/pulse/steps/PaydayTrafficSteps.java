@@ -7,8 +7,14 @@ import io.cucumber.java.en.When;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.pulse.SimpleBaseTest;
+import uk.pulse.analysis.ScalabilityModel;
 import uk.pulse.interceptors.PaydayTrafficSimulator;
+import uk.pulse.load.CapacitySearch;
+import uk.pulse.load.PaymentApiUser;
+import uk.pulse.load.VirtualUserEngine;
 
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -17,6 +23,7 @@ import java.util.concurrent.ThreadLocalRandom;
  */
 public class PaydayTrafficSteps extends SimpleBaseTest {
     private static final Logger logger = LoggerFactory.getLogger(PaydayTrafficSteps.class);
+    private static final long CAPACITY_THINK_TIME_MS = 1000;
     
     private long transactionStartTime;
     private long transactionResponseTime;
@@ -24,6 +31,14 @@ public class PaydayTrafficSteps extends SimpleBaseTest {
     private int successfulPayments = 0;
     private int totalPayments = 0;
     
+    // Capacity search configuration
+    private boolean binaryCapacitySearch = false;
+    private int capacityLow;
+    private int capacityHigh;
+    private int capacityStep;
+    private CapacitySearch.Slo capacitySlo;
+    private CapacitySearch.Report capacityReport;
+    
     @Given("the payment application is available and ready for testing")
     public void thePaymentApplicationIsAvailableAndReadyForTesting() {
         logger.info("Verifying payment application is available");
@@ -58,6 +73,7 @@ public class PaydayTrafficSteps extends SimpleBaseTest {
     public void usersAttemptToMakeSalaryPayments() {
         logger.info("Users attempting salary payments during peak traffic");
         
+        beginTransaction("salary_payment");
         transactionStartTime = System.currentTimeMillis();
         
         try {
@@ -132,6 +148,7 @@ public class PaydayTrafficSteps extends SimpleBaseTest {
     public void aUserAuthorizesAPaymentOf£(int amount) {
         logger.info("Authorizing payment of £{}", amount);
         
+        beginTransaction("payment_authorization");
         transactionStartTime = System.currentTimeMillis();
         
         try {
@@ -244,5 +261,78 @@ public class PaydayTrafficSteps extends SimpleBaseTest {
         assertResponseTimeWithin(transactionResponseTime, maxTimeMs, "Average payment processing");
     }
     
+    @Given("a capacity search of salary payments from {int} to {int} users in steps of {int}")
+    public void aCapacitySearchOfSalaryPaymentsFromToUsersInStepsOf(int start, int max, int step) {
+        logger.info("Configuring step capacity search from {} to {} users in steps of {}", start, max, step);
+        binaryCapacitySearch = false;
+        capacityLow = start;
+        capacityHigh = max;
+        capacityStep = step;
+    }
+    
+    @Given("a binary capacity search of salary payments between {int} and {int} users to within {int}")
+    public void aBinaryCapacitySearchOfSalaryPaymentsBetweenAndUsers(int low, int high, int resolution) {
+        logger.info("Configuring binary capacity search between {} and {} users", low, high);
+        binaryCapacitySearch = true;
+        capacityLow = low;
+        capacityHigh = high;
+        capacityStep = resolution;
+    }
+    
+    @And("the capacity SLO is p95 under {int}ms and p99 under {int}ms with at most {int}% errors")
+    public void theCapacitySloIs(int p95Ms, int p99Ms, int maxErrorPercent) {
+        capacitySlo = new CapacitySearch.Slo(p95Ms, p99Ms, maxErrorPercent / 100.0);
+    }
+    
+    @When("each load level is held until steady state")
+    public void eachLoadLevelIsHeldUntilSteadyState() throws InterruptedException {
+        long windowMs = Long.getLong("pulse.capacity.window-ms", 5000);
+        long maxHoldMs = Long.getLong("pulse.capacity.max-hold-ms", 60000);
+        
+        try (VirtualUserEngine engine = new VirtualUserEngine("salary_payments",
+                () -> new PaymentApiUser(BASE_URL, 500, 2000), CAPACITY_THINK_TIME_MS)) {
+            CapacitySearch search = new CapacitySearch(engine, capacitySlo).holding(windowMs, maxHoldMs);
+            capacityReport = binaryCapacitySearch
+                ? search.binarySearch(capacityLow, capacityHigh, capacityStep)
+                : search.stepSearch(capacityLow, capacityStep, capacityHigh);
+        }
+        
+        recordSystemLoadMetrics(capacityReport.getMaxSustainableLevel(), "capacity_search");
+    }
+    
+    @Then("the knee point and maximum sustainable throughput should be reported")
+    public void theKneePointAndMaximumSustainableThroughputShouldBeReported() {
+        if (capacityReport == null || capacityReport.getLevels().isEmpty()) {
+            throw new AssertionError("Capacity search produced no results");
+        }
+        if (capacityReport.getMaxSustainableLevel() == 0) {
+            throw new AssertionError("No load level met the SLO: " + capacityReport);
+        }
+        logger.info("Maximum sustainable concurrency: {} users at {} payments/s (knee at {})",
+            capacityReport.getMaxSustainableLevel(),
+            String.format("%.1f", capacityReport.getMaxSustainableThroughput()),
+            capacityReport.getKneeLevel());
+    }
+    
+    @And("a scalability model should predict throughput at {int} users")
+    public void aScalabilityModelShouldPredictThroughputAtUsers(int targetUsers) {
+        List<ScalabilityModel.Observation> observations =
+            ScalabilityModel.fromReport(capacityReport, CAPACITY_THINK_TIME_MS);
+        if (observations.size() < 3) {
+            logger.warn("Only {} load levels measured - not enough to fit a scalability model", observations.size());
+            return;
+        }
+        
+        ScalabilityModel.UslFit fit = ScalabilityModel.fit("salary_payments", observations, CAPACITY_THINK_TIME_MS);
+        fit.publish(List.of(targetUsers));
+        fit.writeReport(Paths.get("target/capacity/salary_payments-usl.md"), List.of(targetUsers));
+        
+        logger.info("{}; at {} users: {} payments/s with {}ms response time (Little's law deviation {}%)",
+            fit, targetUsers,
+            String.format("%.1f", fit.predictThroughput(targetUsers)),
+            String.format("%.0f", fit.predictLatencyMs(targetUsers)),
+            String.format("%.1f", fit.getLittlesLawDeviation() * 100));
+    }
+    
     // Utility methods removed - using ThreadLocalRandom directly
 }
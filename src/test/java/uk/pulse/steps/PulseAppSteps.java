@@ -8,6 +8,8 @@ import io.cucumber.java.en.When;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.pulse.SimpleBaseTest;
+import uk.pulse.interceptors.RealtimeChannelSimulator;
+import uk.pulse.observability.DomWatcher;
 
 /**
  * Step definitions for Pulse App Traffic Simulation
@@ -16,17 +18,30 @@ import uk.pulse.SimpleBaseTest;
 public class PulseAppSteps extends SimpleBaseTest {
     private static final Logger logger = LoggerFactory.getLogger(PulseAppSteps.class);
     
+    // Elements pushed from the page as they change, instead of read with textContent()
+    private static final String LOADING_OVERLAY = "#loading-overlay";
+    private static final String LAST_LOG_ENTRY = "#traffic-log .log-entry:last-child";
+    private static final String[] WATCHED = {
+        "#concurrent-users", "#active-payments", "#success-rate", "#avg-response-time", "#balance",
+        "#payment-metric", "#balance-metric", "#api-metric", "#network-metric", LOADING_OVERLAY, LAST_LOG_ENTRY
+    };
+    private static final double OPERATION_TIMEOUT_MS = 15000;
+    
     private long pulseActionStartTime;
     private long pulseResponseTime;
     private boolean pulseSuccess = false;
     private int pulseConcurrentUsers = 0;
     private int pulseActivePayments = 0;
+    private int pulseBurstMessages = 0;
     
     @Given("the Pulse traffic simulator app is loaded and ready")
     public void thePulseTrafficSimulatorAppIsLoadedAndReady() {
         logger.info("Verifying Pulse app is available");
         
         try {
+            // Watch before navigating so the first rendered values are captured too
+            dom();
+            
             // Navigate to Pulse app
             page.navigate("http://localhost:8082");
             
@@ -67,18 +82,16 @@ public class PulseAppSteps extends SimpleBaseTest {
         pulseActionStartTime = System.currentTimeMillis();
         
         try {
+            long mark = dom().mark();
+            
             // Click the Start Payday Friday button
             page.locator("button:has-text('Start Payday Friday')").first().click();
             
-            // Wait for simulation to start
-            page.waitForTimeout(2000);
-            
-            // Verify simulation started
-            String concurrentUsersText = page.locator("#concurrent-users").textContent();
-            pulseConcurrentUsers = Integer.parseInt(concurrentUsersText.replace(",", ""));
+            // Simulation has started once the click's loading overlay has come and gone
+            pulseResponseTime = awaitOperation(mark) - pulseActionStartTime;
+            pulseConcurrentUsers = parseCount(dom().text("#concurrent-users"));
             
             pulseSuccess = true;
-            pulseResponseTime = System.currentTimeMillis() - pulseActionStartTime;
             
             logger.info("Payday Friday simulation started in {}ms with {} users", pulseResponseTime, pulseConcurrentUsers);
             recordResponseTimeMetrics("pulse_payday_start", pulseResponseTime);
@@ -94,10 +107,12 @@ public class PulseAppSteps extends SimpleBaseTest {
     @Then("the app should display {int} concurrent users")
     public void theAppShouldDisplayConcurrentUsers(int expectedUsers) {
         try {
-            String usersText = page.locator("#concurrent-users").textContent();
-            int actualUsers = Integer.parseInt(usersText.replace(",", ""));
+            // Allow 10% tolerance; users ramp up, so wait for the count rather than reading it once
+            String usersText = dom().awaitText("#concurrent-users",
+                text -> parseCount(text) >= expectedUsers * 0.9, OPERATION_TIMEOUT_MS);
+            int actualUsers = parseCount(usersText);
             
-            if (actualUsers >= expectedUsers * 0.9) { // Allow 10% tolerance
+            if (actualUsers >= expectedUsers * 0.9) {
                 logger.info("Concurrent users displayed: {} (expected: {})", actualUsers, expectedUsers);
             } else {
                 throw new AssertionError(String.format("Expected at least %d concurrent users but got %d", expectedUsers, actualUsers));
@@ -112,8 +127,7 @@ public class PulseAppSteps extends SimpleBaseTest {
     public void theAppShouldShowRealTimePaymentProcessing() {
         try {
             // Check if active payments are being tracked
-            String activePaymentsText = page.locator("#active-payments").textContent();
-            pulseActivePayments = Integer.parseInt(activePaymentsText);
+            pulseActivePayments = parseCount(dom().text("#active-payments"));
             
             if (pulseActivePayments > 0) {
                 logger.info("Real-time payment processing is active: {} payments", pulseActivePayments);
@@ -147,8 +161,8 @@ public class PulseAppSteps extends SimpleBaseTest {
     public void theUserShouldSeeLivePerformanceMetrics() {
         try {
             // Check if metrics are updating
-            String successRateText = page.locator("#success-rate").textContent();
-            String responseTimeText = page.locator("#avg-response-time").textContent();
+            String successRateText = dom().text("#success-rate");
+            String responseTimeText = dom().text("#avg-response-time");
             
             logger.info("Live metrics - Success Rate: {}, Avg Response Time: {}", successRateText, responseTimeText);
             
@@ -166,17 +180,18 @@ public class PulseAppSteps extends SimpleBaseTest {
     public void theUserMakesAPayment() {
         logger.info("User making payment in Pulse app");
         
+        beginTransaction("pulse_payment");
         pulseActionStartTime = System.currentTimeMillis();
         
         try {
+            long mark = dom().mark();
+            
             // Click the Make Payment button
             page.locator("button:has-text('Make Payment')").first().click();
             
             // Wait for payment processing
-            page.waitForTimeout(3000);
-            
             pulseSuccess = true;
-            pulseResponseTime = System.currentTimeMillis() - pulseActionStartTime;
+            pulseResponseTime = awaitOperation(mark) - pulseActionStartTime;
             
             logger.info("Payment completed in {}ms", pulseResponseTime);
             recordResponseTimeMetrics("pulse_payment", pulseResponseTime);
@@ -203,7 +218,7 @@ public class PulseAppSteps extends SimpleBaseTest {
     public void theBalanceShouldBeUpdated() {
         try {
             // Check if balance has changed from initial value
-            String balanceText = page.locator("#balance").textContent();
+            String balanceText = dom().text("#balance");
             
             if (balanceText.contains("£") && !balanceText.equals("£5,250.00")) {
                 logger.info("Balance has been updated: {}", balanceText);
@@ -225,7 +240,7 @@ public class PulseAppSteps extends SimpleBaseTest {
     @And("the success rate should remain at {int}%")
     public void theSuccessRateShouldRemainAt(int expectedSuccessRate) {
         try {
-            String successRateText = page.locator("#success-rate").textContent();
+            String successRateText = dom().text("#success-rate");
             int actualSuccessRate = Integer.parseInt(successRateText.replace("%", ""));
             
             if (actualSuccessRate >= expectedSuccessRate) {
@@ -246,14 +261,14 @@ public class PulseAppSteps extends SimpleBaseTest {
         pulseActionStartTime = System.currentTimeMillis();
         
         try {
+            long mark = dom().mark();
+            
             // Click the Check Balance button
             page.locator("button:has-text('Check Balance')").first().click();
             
             // Wait for balance check to complete
-            page.waitForTimeout(2000);
-            
             pulseSuccess = true;
-            pulseResponseTime = System.currentTimeMillis() - pulseActionStartTime;
+            pulseResponseTime = awaitOperation(mark) - pulseActionStartTime;
             
             logger.info("Balance check completed in {}ms", pulseResponseTime);
             recordResponseTimeMetrics("pulse_balance_check", pulseResponseTime);
@@ -279,7 +294,7 @@ public class PulseAppSteps extends SimpleBaseTest {
     @And("the balance should display correctly")
     public void theBalanceShouldDisplayCorrectly() {
         try {
-            String balanceText = page.locator("#balance").textContent();
+            String balanceText = dom().text("#balance");
             
             if (balanceText.startsWith("£") && balanceText.contains(".")) {
                 logger.info("Balance displays correctly: {}", balanceText);
@@ -299,18 +314,18 @@ public class PulseAppSteps extends SimpleBaseTest {
         pulseActionStartTime = System.currentTimeMillis();
         
         try {
+            long mark = dom().mark();
+            
             // Click the High Traffic Mode button
             page.locator("button:has-text('High Traffic Mode')").first().click();
             
             // Wait for high traffic mode to activate
-            page.waitForTimeout(2000);
+            pulseResponseTime = awaitOperation(mark) - pulseActionStartTime;
             
             // Verify high traffic mode is active
-            String usersText = page.locator("#concurrent-users").textContent();
-            pulseConcurrentUsers = Integer.parseInt(usersText.replace(",", ""));
+            pulseConcurrentUsers = parseCount(dom().text("#concurrent-users"));
             
             pulseSuccess = true;
-            pulseResponseTime = System.currentTimeMillis() - pulseActionStartTime;
             
             logger.info("High traffic mode activated in {}ms with {} users", pulseResponseTime, pulseConcurrentUsers);
             recordResponseTimeMetrics("pulse_high_traffic", pulseResponseTime);
@@ -326,8 +341,7 @@ public class PulseAppSteps extends SimpleBaseTest {
     @And("{int} active payments should be shown")
     public void activePaymentsShouldBeShown(int expectedPayments) {
         try {
-            String paymentsText = page.locator("#active-payments").textContent();
-            int actualPayments = Integer.parseInt(paymentsText.replace(",", ""));
+            int actualPayments = parseCount(dom().text("#active-payments"));
             
             if (actualPayments >= expectedPayments * 0.8) { // Allow 20% tolerance
                 logger.info("Active payments shown: {} (expected: {})", actualPayments, expectedPayments);
@@ -371,14 +385,17 @@ public class PulseAppSteps extends SimpleBaseTest {
         pulseActionStartTime = System.currentTimeMillis();
         
         try {
+            long mark = dom().mark();
+            
             // Click the Network Failure button
             page.locator("button:has-text('Network Failure')").first().click();
             
             // Wait for network failure to be simulated
-            page.waitForTimeout(3000);
+            DomWatcher.Observation down = dom().await("#network-metric",
+                observation -> "Down".equals(observation.getText()), mark, OPERATION_TIMEOUT_MS);
             
             pulseSuccess = false; // Network failure means operation failed
-            pulseResponseTime = System.currentTimeMillis() - pulseActionStartTime;
+            pulseResponseTime = down.getObservedAtMs() - pulseActionStartTime;
             
             logger.info("Network failure simulated in {}ms", pulseResponseTime);
             recordResponseTimeMetrics("pulse_network_failure", pulseResponseTime);
@@ -413,17 +430,10 @@ public class PulseAppSteps extends SimpleBaseTest {
         logger.info("Waiting for app recovery after {} seconds", recoveryTime);
         
         try {
-            // Wait for recovery period
-            Thread.sleep(recoveryTime * 1000);
-            
-            // Check if app has recovered
-            String logContent = page.locator("#traffic-log").textContent();
-            
-            if (logContent.contains("restored") || logContent.contains("recovered")) {
-                logger.info("App has recovered from network failure");
-            } else {
-                logger.warn("App recovery may still be in progress");
-            }
+            // Recovery is seen the moment the network metric comes back, with a second of grace
+            String networkMetric = dom().awaitText("#network-metric",
+                text -> !"Down".equals(text), (recoveryTime + 1) * 1000);
+            logger.info("App has recovered from network failure ({})", networkMetric);
             
         } catch (Exception e) {
             logger.error("Error while waiting for recovery: {}", e.getMessage());
@@ -434,7 +444,7 @@ public class PulseAppSteps extends SimpleBaseTest {
     public void theSystemShouldRestoreNormalOperation() {
         try {
             // Check if metrics show normal status
-            String networkMetric = page.locator("#network-metric").textContent();
+            String networkMetric = dom().text("#network-metric");
             
             if (networkMetric.contains("4G") || networkMetric.contains("Normal")) {
                 logger.info("System has restored normal operation");
@@ -471,14 +481,14 @@ public class PulseAppSteps extends SimpleBaseTest {
         pulseActionStartTime = System.currentTimeMillis();
         
         try {
+            long mark = dom().mark();
+            
             // Click the Poor Connection button
             page.locator("button:has-text('Poor Connection')").first().click();
             
             // Wait for poor connection to be simulated
-            page.waitForTimeout(2000);
-            
             pulseSuccess = true;
-            pulseResponseTime = System.currentTimeMillis() - pulseActionStartTime;
+            pulseResponseTime = awaitOperation(mark) - pulseActionStartTime;
             
             logger.info("Poor connection simulated in {}ms", pulseResponseTime);
             recordResponseTimeMetrics("pulse_poor_connection", pulseResponseTime);
@@ -514,7 +524,7 @@ public class PulseAppSteps extends SimpleBaseTest {
     @And("users should see connection status indicators")
     public void usersShouldSeeConnectionStatusIndicators() {
         try {
-            String networkMetric = page.locator("#network-metric").textContent();
+            String networkMetric = dom().text("#network-metric");
             
             if (networkMetric.contains("3G") || networkMetric.contains("Slow")) {
                 logger.info("Connection status indicators are showing poor connection");
@@ -530,10 +540,9 @@ public class PulseAppSteps extends SimpleBaseTest {
     @And("the app should recover when connection improves")
     public void theAppShouldRecoverWhenConnectionImproves() {
         try {
-            // Wait for connection improvement
-            Thread.sleep(10000);
-            
-            String networkMetric = page.locator("#network-metric").textContent();
+            // The app restores the connection after 10 seconds
+            String networkMetric = dom().awaitText("#network-metric",
+                text -> text.contains("4G") || text.contains("Normal"), 12000);
             
             if (networkMetric.contains("4G") || networkMetric.contains("Normal")) {
                 logger.info("App has recovered when connection improved");
@@ -553,14 +562,14 @@ public class PulseAppSteps extends SimpleBaseTest {
         pulseActionStartTime = System.currentTimeMillis();
         
         try {
+            long mark = dom().mark();
+            
             // Click the Optimal Performance button
             page.locator("button:has-text('Optimal Performance')").first().click();
             
             // Wait for optimal performance to activate
-            page.waitForTimeout(1500);
-            
             pulseSuccess = true;
-            pulseResponseTime = System.currentTimeMillis() - pulseActionStartTime;
+            pulseResponseTime = awaitOperation(mark) - pulseActionStartTime;
             
             logger.info("Optimal performance mode activated in {}ms", pulseResponseTime);
             recordResponseTimeMetrics("pulse_optimal_performance", pulseResponseTime);
@@ -582,7 +591,7 @@ public class PulseAppSteps extends SimpleBaseTest {
     @And("success rate should remain at {int}%")
     public void successRateShouldRemainAt(int expectedSuccessRate) {
         try {
-            String successRateText = page.locator("#success-rate").textContent();
+            String successRateText = dom().text("#success-rate");
             int actualSuccessRate = Integer.parseInt(successRateText.replace("%", ""));
             
             if (actualSuccessRate >= expectedSuccessRate) {
@@ -605,8 +614,7 @@ public class PulseAppSteps extends SimpleBaseTest {
             
             for (String metricId : metricIds) {
                 try {
-                    String metricText = page.locator("#" + metricId).textContent();
-                    String metricClass = page.locator("#" + metricId).getAttribute("class");
+                    String metricClass = dom().current("#" + metricId).getClassName();
                     
                     if (expectedStatus.toLowerCase().equals("excellent") && !metricClass.contains("low")) {
                         logger.warn("Metric {} does not show {} status", metricId, expectedStatus);
@@ -651,14 +659,18 @@ public class PulseAppSteps extends SimpleBaseTest {
         pulseActionStartTime = System.currentTimeMillis();
         
         try {
+            long mark = dom().mark();
+            
             // Click the Show All Traffic button
             page.locator("button:has-text('Show All Traffic')").first().click();
             
-            // Wait for comprehensive demo to complete
-            page.waitForTimeout(20000); // 20 seconds for comprehensive demo
+            // The demo runs every pattern in turn and logs when it is done
+            DomWatcher.Observation done = dom().await(LAST_LOG_ENTRY,
+                observation -> observation.getText() != null
+                    && observation.getText().contains("All traffic patterns demonstrated"), mark, 60000);
             
             pulseSuccess = true;
-            pulseResponseTime = System.currentTimeMillis() - pulseActionStartTime;
+            pulseResponseTime = done.getObservedAtMs() - pulseActionStartTime;
             
             logger.info("All traffic patterns demonstrated in {}ms", pulseResponseTime);
             recordResponseTimeMetrics("pulse_comprehensive_demo", pulseResponseTime);
@@ -739,12 +751,11 @@ public class PulseAppSteps extends SimpleBaseTest {
     public void concurrentUsersShouldUpdateInRealTime() {
         try {
             // Check if concurrent users are updating
-            int initialUsers = Integer.parseInt(page.locator("#concurrent-users").textContent().replace(",", ""));
+            int initialUsers = parseCount(dom().text("#concurrent-users"));
             
             // Wait for update
-            Thread.sleep(2000);
-            
-            int updatedUsers = Integer.parseInt(page.locator("#concurrent-users").textContent().replace(",", ""));
+            DomWatcher.Observation update = dom().awaitChange(2000, "#concurrent-users");
+            int updatedUsers = update != null ? parseCount(update.getText()) : initialUsers;
             
             if (updatedUsers != initialUsers) {
                 logger.info("Concurrent users updated in real-time: {} -> {}", initialUsers, updatedUsers);
@@ -760,7 +771,7 @@ public class PulseAppSteps extends SimpleBaseTest {
     @And("active payments should be tracked")
     public void activePaymentsShouldBeTracked() {
         try {
-            int activePayments = Integer.parseInt(page.locator("#active-payments").textContent().replace(",", ""));
+            int activePayments = parseCount(dom().text("#active-payments"));
             
             if (activePayments >= 0) {
                 logger.info("Active payments are being tracked: {}", activePayments);
@@ -776,7 +787,7 @@ public class PulseAppSteps extends SimpleBaseTest {
     @And("success rate should be calculated")
     public void successRateShouldBeCalculated() {
         try {
-            String successRateText = page.locator("#success-rate").textContent();
+            String successRateText = dom().text("#success-rate");
             
             if (successRateText.contains("%")) {
                 logger.info("Success rate is being calculated: {}", successRateText);
@@ -792,7 +803,7 @@ public class PulseAppSteps extends SimpleBaseTest {
     @And("average response time should be displayed")
     public void averageResponseTimeShouldBeDisplayed() {
         try {
-            String responseTimeText = page.locator("#avg-response-time").textContent();
+            String responseTimeText = dom().text("#avg-response-time");
             
             if (responseTimeText.contains("ms")) {
                 logger.info("Average response time is displayed: {}", responseTimeText);
@@ -811,20 +822,11 @@ public class PulseAppSteps extends SimpleBaseTest {
         
         // This would be verified by checking multiple updates over time
         try {
-            // Check initial state
-            String initialUsers = page.locator("#concurrent-users").textContent();
-            String initialSuccessRate = page.locator("#success-rate").textContent();
-            String initialResponseTime = page.locator("#avg-response-time").textContent();
+            // Any of the metrics changing within 3 seconds is pushed as soon as it happens
+            DomWatcher.Observation update = dom().awaitChange(3000,
+                "#concurrent-users", "#success-rate", "#avg-response-time");
             
-            // Wait for updates
-            Thread.sleep(3000);
-            
-            // Check if metrics have changed
-            String updatedUsers = page.locator("#concurrent-users").textContent();
-            String updatedSuccessRate = page.locator("#success-rate").textContent();
-            String updatedResponseTime = page.locator("#avg-response-time").textContent();
-            
-            if (!updatedUsers.equals(initialUsers) || !updatedSuccessRate.equals(initialSuccessRate) || !updatedResponseTime.equals(initialResponseTime)) {
+            if (update != null) {
                 logger.info("Metrics are updating dynamically");
             } else {
                 logger.info("Metrics may be stable currently");
@@ -881,4 +883,52 @@ public class PulseAppSteps extends SimpleBaseTest {
             logger.error("Failed to verify background operation logging: {}", e.getMessage());
         }
     }
+    
+    @Given("the Pulse live channels are congested at payday peak")
+    public void thePulseLiveChannelsAreCongestedAtPaydayPeak() {
+        logger.info("Congesting Pulse live channels for the 09:00 payday peak");
+        
+        RealtimeChannelSimulator.simulatePaydayRealtimeTraffic(page);
+        // Channels opened before the routes existed bypass them; reconnect through the simulator
+        page.reload();
+        page.locator(".app-container").waitFor(new Locator.WaitForOptions().setTimeout(10000));
+    }
+    
+    @When("a salary-credited burst of {int} messages is pushed to every channel")
+    public void aSalaryCreditedBurstIsPushedToEveryChannel(int messagesPerChannel) {
+        pulseBurstMessages = RealtimeChannelSimulator.injectServerPushBurst(page, messagesPerChannel, "salary_credited");
+        logger.info("Queued {} salary-credited messages", pulseBurstMessages);
+    }
+    
+    @Then("every pushed message should be delivered within {int} seconds")
+    public void everyPushedMessageShouldBeDeliveredWithin(int seconds) {
+        int undelivered = RealtimeChannelSimulator.awaitDeliveries(page, seconds * 1000L);
+        if (undelivered > 0) {
+            throw new AssertionError(undelivered + " of " + pulseBurstMessages
+                + " pushed messages were still queued after " + seconds + " seconds");
+        }
+        logger.info("All {} pushed messages delivered within {} seconds", pulseBurstMessages, seconds);
+    }
+    
+    private DomWatcher dom() {
+        return DomWatcher.watch(page, WATCHED);
+    }
+    
+    /**
+     * Wait for the app's loading overlay to appear and clear, returning when it cleared (page clock)
+     */
+    private long awaitOperation(long mark) {
+        DomWatcher.Observation shown = dom().await(LOADING_OVERLAY,
+            DomWatcher.Observation::isVisible, mark, OPERATION_TIMEOUT_MS);
+        return dom().await(LOADING_OVERLAY,
+            observation -> !observation.isVisible(), shown.getSequence(), OPERATION_TIMEOUT_MS).getObservedAtMs();
+    }
+    
+    private static int parseCount(String text) {
+        // The watcher reports null until the element has been seen
+        if (text == null || text.isBlank()) {
+            return 0;
+        }
+        return Integer.parseInt(text.replace(",", "").replace("%", ""));
+    }
 }
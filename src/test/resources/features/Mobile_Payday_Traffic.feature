@@ -84,3 +84,10 @@ Feature: Mobile Payday Friday Traffic Testing
     And the app returns to foreground
     Then the payment should resume and complete successfully
     And the app should maintain session state
+
+  @Mobile @Underground @Android
+  Scenario: Android Payment Across London Underground Outages
+    Given the user is travelling on the London Underground with an Android device
+    And it is Friday 9:00 AM during payday period
+    When the user makes a payment of £250 and stays in the app for 4 minutes
+    Then no payment should be lost across the outages
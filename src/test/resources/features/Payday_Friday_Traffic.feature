@@ -28,3 +28,11 @@ Feature: Payday Friday Payment Traffic Stress Testing
     When each user processes a payment between £500-£2,000
     Then at least 95% of payments should complete successfully
     And average processing time should not exceed 4 seconds
+
+  @CapacitySearch @Performance
+  Scenario: Find Maximum Sustainable Payday Concurrency
+    Given a capacity search of salary payments from 100 to 2000 users in steps of 100
+    And the capacity SLO is p95 under 3000ms and p99 under 5000ms with at most 1% errors
+    When each load level is held until steady state
+    Then the knee point and maximum sustainable throughput should be reported
+    And a scalability model should predict throughput at 50000 users
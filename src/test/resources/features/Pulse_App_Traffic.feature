@@ -98,3 +98,10 @@ Feature: Pulse App Payday Friday Traffic Simulator
     And metrics should update continuously
     And the app should remain responsive
     And all background operations should be logged
+
+  @Pulse @RealTime @Channels
+  Scenario: Live Channels During a Salary-Credited Push Burst
+    Given the Pulse live channels are congested at payday peak
+    When a salary-credited burst of 50 messages is pushed to every channel
+    Then every pushed message should be delivered within 10 seconds
+    And the app should remain responsive
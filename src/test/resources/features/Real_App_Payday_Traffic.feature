@@ -110,7 +110,7 @@ Feature: Real App Payday Friday Traffic Testing
     And app switching should work smoothly
     And no app should crash during the process
 
-  @RealApp @Performance @AppStartup
+  @RealApp @Performance @AppStartup @Memory
   Scenario: Real App Performance During Peak Hours
     Given the user is using a mobile device
     And it is Friday 9:00 AM during payday period
@@ -122,6 +122,16 @@ Feature: Real App Payday Friday Traffic Testing
     And app startup should not exceed memory limits
     And apps should remain responsive during use
 
+  @RealApp @Performance @Memory @LowEnd
+  Scenario: Real App Memory on a Budget Android Device at Payday
+    Given the user is using a "Samsung A14"
+    And it is Friday 9:00 AM during payday period
+    When the user opens Barclays Mobile Banking app
+    And the user opens Amazon Shopping app
+    And the user opens Tesco Grocery app
+    Then all apps should load within 3 seconds
+    And app startup should not exceed memory limits
+
   @RealApp @Network @5G
   Scenario: Real Apps on 5G Network During Payday Friday
     Given the user is using a 5G-capable mobile device
@@ -141,3 +151,27 @@ Feature: Real App Payday Friday Traffic Testing
     Then all API calls should complete within 500ms
     And media loading should be smooth
     And app performance should be excellent
+
+  @RealApp @Startup @ColdStart @HTTP1
+  Scenario: Real App Cold and Warm Start over HTTP/1.1 During Payday Friday
+    Given the user is using a "Samsung Galaxy S23"
+    And it is Friday 9:00 AM during payday period
+    When the user cold starts and then warm starts "Barclays Mobile Banking" over "HTTP/1.1 4G"
+    Then the warm start should be faster than the cold start
+    And connections should be reused on the warm start
+
+  @RealApp @Startup @ColdStart @HTTP2
+  Scenario: Real App Cold and Warm Start over HTTP/2 During Payday Friday
+    Given the user is using a "Samsung Galaxy S23"
+    And it is Friday 9:00 AM during payday period
+    When the user cold starts and then warm starts "Barclays Mobile Banking" over "HTTP/2 4G"
+    Then the warm start should be faster than the cold start
+    And connections should be reused on the warm start
+
+  @RealApp @LargePayload
+  Scenario: Real Banking App Loading a Long Statement During Payday Friday
+    Given the user is using a "Samsung Galaxy S23"
+    And the user opens the "Barclays Mobile Banking" from Play Store
+    And it is Friday 9:00 AM during payday period
+    When the user loads a statement of 5000 transactions and a catalogue of 2000 products
+    Then the statement and catalogue should load within 5 seconds